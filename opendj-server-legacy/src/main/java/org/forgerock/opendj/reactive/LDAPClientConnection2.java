@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.reactive;
 
@@ -395,7 +396,7 @@ public final class LDAPClientConnection2 extends ClientConnection implements TLS
             } else {
                 time = operation.getProcessingTime();
             }
-            this.statTracker.updateOperationMonitoringData(operation.getOperationType(), time);
+            this.statTracker.updateOperationMonitoringData(operation, time);
         }
 
         // Avoid sending the response if one has already been sent. This may happen
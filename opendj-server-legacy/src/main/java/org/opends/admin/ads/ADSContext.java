@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.admin.ads;
 
@@ -1242,6 +1243,7 @@ public class ADSContext
     privilege.add("unindexed-search");
     privilege.add("subentry-write");
     privilege.add("changelog-read");
+    privilege.add("monitor-read");
     return privilege;
   }
 
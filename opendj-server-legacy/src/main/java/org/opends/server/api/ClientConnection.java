@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.api;
 
@@ -1349,11 +1350,11 @@ public abstract class ClientConnection
   {
     if (operation == null)
     {
-      return group.isMember(authenticationInfo.getAuthorizationDN());
+      return DirectoryServer.getGroupManager().isMember(group, authenticationInfo.getAuthorizationDN());
     }
     else
     {
-      return group.isMember(operation.getAuthorizationDN());
+      return DirectoryServer.getGroupManager().isMember(group, operation.getAuthorizationDN());
     }
   }
 
@@ -1384,7 +1385,6 @@ public abstract class ClientConnection
   public Set<Group<?>> getGroups(Operation operation)
          throws DirectoryException
   {
-    // FIXME -- This probably isn't the most efficient implementation.
     DN authzDN;
     if (operation == null)
     {
@@ -1413,15 +1413,7 @@ public abstract class ClientConnection
       return Collections.<Group<?>>emptySet();
     }
 
-    HashSet<Group<?>> groupSet = new HashSet<>();
-    for (Group<?> g : DirectoryServer.getGroupManager().getGroupInstances())
-    {
-      if (g.isMember(userEntry))
-      {
-        groupSet.add(g);
-      }
-    }
-    return groupSet;
+    return DirectoryServer.getGroupManager().getGroups(userEntry);
   }
 
 
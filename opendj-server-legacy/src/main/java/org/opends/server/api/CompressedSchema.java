@@ -13,6 +13,7 @@
  *
  * Copyright 2009 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.api;
 
@@ -46,7 +47,6 @@ import org.forgerock.opendj.ldap.schema.Schema;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.core.ServerContext;
 import org.opends.server.types.Attribute;
-import org.opends.server.types.AttributeBuilder;
 import org.opends.server.types.Attributes;
 import org.opends.server.types.DirectoryException;
 
@@ -221,14 +221,13 @@ public class CompressedSchema
     }
     else
     {
-      // Read the appropriate number of values.
-      final AttributeBuilder builder = new AttributeBuilder(attrType);
-      builder.setOptions(ad.getOptions());
+      // Stored values are distinct: do not normalize them until they are actually compared.
+      final ByteString[] values = new ByteString[numValues];
       for (int i = 0; i < numValues; i++)
       {
-        builder.add(readValue(reader));
+        values[i] = readValue(reader);
       }
-      return builder.toAttribute();
+      return Attributes.createDistinct(ad, values);
     }
   }
 
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.api;
 
@@ -25,9 +26,11 @@ import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.server.config.server.EntryCacheCfg;
+import org.opends.server.core.DirectoryServer;
 import org.opends.server.core.ServerContext;
 import org.opends.server.monitors.EntryCacheMonitorProvider;
 import org.forgerock.opendj.ldap.DN;
+import org.opends.server.types.CacheEntry;
 import org.opends.server.types.Entry;
 import org.opends.server.types.InitializationException;
 import org.opends.server.types.SearchFilter;
@@ -209,6 +212,48 @@ public abstract class EntryCache<T extends EntryCacheCfg>
     return getEntry(entryDN);
   }
 
+  /**
+   * Retrieves the entry with the specified DN from the cache, along
+   * with its backend ID and entry ID.
+   * <p>
+   * The default implementation looks up the entry and its ID in this
+   * cache, and the backend ID from the backend holding the DN.
+   *
+   * @param  entryDN   The DN of the entry to retrieve.
+   *
+   * @return  The requested cache entry if it is present in the cache,
+   *          or {@code null} if it is not present.
+   */
+  public CacheEntry getCacheEntry(DN entryDN)
+  {
+    final Entry entry = getEntry(entryDN);
+    final long entryID = entry != null ? getEntryID(entryDN) : -1;
+    if (entryID == -1)
+    {
+      return null;
+    }
+    final LocalBackend<?> backend = DirectoryServer.getInstance().getServerContext()
+        .getBackendConfigManager().findLocalBackendForEntry(entryDN);
+    return backend != null ? new CacheEntry(entry, backend.getBackendID(), entryID) : null;
+  }
+
+  /**
+   * Indicates whether this cache also holds the entries cached by the
+   * caches preceding it in the cache order. The entries found in such
+   * a cache are promoted to the first preceding cache which can take
+   * them, so that the next lookups do not need to reach this cache.
+   * <p>
+   * The default implementation returns {@code false}.
+   *
+   * @return  {@code true} if this cache also holds the entries cached
+   *          by the preceding caches, or {@code false} if the caches
+   *          preceding it hold the entries it does not.
+   */
+  public boolean holdsPrecedingEntries()
+  {
+    return false;
+  }
+
   /**
    * Retrieves the entry ID for the entry with the specified DN from
    * the cache.  The caller should have already acquired a read or
@@ -13,15 +13,18 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.api;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.server.config.server.GroupImplementationCfg;
@@ -415,6 +418,29 @@ public abstract class Group<T extends GroupImplementationCfg>
    */
   public abstract boolean mayAlterMemberList();
 
+  /**
+   * Retrieves the normalized DNs of all the entries explicitly listed
+   * as members of this group, including nested groups, provided that
+   * the membership of this group only depends on this list.  The
+   * group manager uses them to maintain a reverse membership index,
+   * so that the groups of a user can be determined without checking
+   * every group in turn.  Implementations must then notify the group
+   * manager with {@link org.opends.server.core.GroupManager#membersChanged(Group)}
+   * whenever this list changes.
+   * <p>
+   * The default implementation returns {@code null}, meaning that the
+   * membership of this group must always be determined by calling
+   * {@link #isMember(Entry)}.
+   *
+   * @return  The normalized DNs of the members of this group, or
+   *          {@code null} if the membership of this group cannot be
+   *          indexed.
+   */
+  public Collection<ByteString> getNormalizedMemberDNs()
+  {
+    return null;
+  }
+
   /**
    * Attempt to make multiple changes to the group's member list.
    *
@@ -13,6 +13,7 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -34,6 +35,8 @@ import org.opends.server.api.ClientConnection;
 import org.opends.server.api.Group;
 import org.opends.server.controls.GetEffectiveRightsRequestControl;
 import org.opends.server.core.AddOperation;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.GroupManager;
 import org.opends.server.core.SearchOperation;
 import org.opends.server.types.AuthenticationInfo;
 import org.opends.server.types.AuthenticationType;
@@ -650,14 +653,15 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
     @Override
     public boolean isMemberOf(Group<?> group) {
         try {
+            GroupManager groupManager = DirectoryServer.getGroupManager();
             if(useAuthzid) {
-                return group.isMember(this.authzid);
+                return groupManager.isMember(group, this.authzid);
             }
             Entry e = getClientEntry();
             if (e != null) {
-                return group.isMember(e);
+                return groupManager.isMember(group, e);
             }
-            return group.isMember(getClientDN());
+            return groupManager.isMember(group, getClientDN());
         } catch (DirectoryException ex) {
             return false;
         }
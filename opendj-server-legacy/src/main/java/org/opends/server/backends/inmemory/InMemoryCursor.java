@@ -0,0 +1,156 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.inmemory;
+
+import java.util.NoSuchElementException;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.backends.pluggable.spi.Cursor;
+
+/**
+ * Cursor on a {@link MemoryTree}. The current record remains valid after it has been removed from the tree, so that
+ * the cursor can still move to the next record.
+ */
+final class InMemoryCursor implements Cursor<ByteString, ByteString>
+{
+  private final MemoryStore store;
+  private final String treeName;
+  /** The transaction deleting records, or {@code null} for a read-only cursor. */
+  private final WriteTxn txn;
+  private MemoryTree tree;
+  private Record current;
+  private ByteString currentKey;
+  private ByteString currentValue;
+
+  InMemoryCursor(MemoryStore store, String treeName, WriteTxn txn)
+  {
+    this.store = store;
+    this.treeName = treeName;
+    this.txn = txn;
+  }
+
+  @Override
+  public boolean positionToKey(ByteSequence key)
+  {
+    final MemoryTree t = tree();
+    return setCurrent(t != null ? t.get(new SearchKey(key.toByteArray())) : null);
+  }
+
+  @Override
+  public boolean positionToKeyOrNext(ByteSequence key)
+  {
+    final MemoryTree t = tree();
+    return setCurrent(t != null ? t.ceiling(new SearchKey(key.toByteArray())) : null);
+  }
+
+  @Override
+  public boolean positionToLastKey()
+  {
+    final MemoryTree t = tree();
+    return setCurrent(t != null ? t.last() : null);
+  }
+
+  @Override
+  public boolean positionToIndex(int index)
+  {
+    final MemoryTree t = tree();
+    Record record = t != null ? t.first() : null;
+    for (int i = 0; i < index && record != null; i++)
+    {
+      record = t.higher(record);
+    }
+    return setCurrent(record);
+  }
+
+  @Override
+  public boolean next()
+  {
+    if (current == null)
+    {
+      return positionToIndex(0);
+    }
+    return setCurrent(tree.higher(current));
+  }
+
+  @Override
+  public boolean isDefined()
+  {
+    return current != null;
+  }
+
+  @Override
+  public ByteString getKey() throws NoSuchElementException
+  {
+    throwIfUndefined();
+    if (currentKey == null)
+    {
+      currentKey = ByteString.wrap(store.getAllocator().read(current.key));
+    }
+    return currentKey;
+  }
+
+  @Override
+  public ByteString getValue() throws NoSuchElementException
+  {
+    throwIfUndefined();
+    if (currentValue == null)
+    {
+      currentValue = ByteString.wrap(store.getAllocator().read(current.value));
+    }
+    return currentValue;
+  }
+
+  @Override
+  public void delete() throws NoSuchElementException, UnsupportedOperationException
+  {
+    throwIfUndefined();
+    if (txn == null)
+    {
+      throw new UnsupportedOperationException();
+    }
+    txn.delete(tree, current);
+  }
+
+  @Override
+  public void close()
+  {
+    current = null;
+  }
+
+  /** Returns the current tree, which is replaced when the tree is cleared. */
+  private MemoryTree tree()
+  {
+    tree = store.getTree(treeName);
+    return tree;
+  }
+
+  private boolean setCurrent(Record record)
+  {
+    current = record;
+    currentKey = null;
+    currentValue = null;
+    return record != null;
+  }
+
+  private void throwIfUndefined()
+  {
+    if (current == null)
+    {
+      throw new NoSuchElementException();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.inmemory;
+
+import static org.opends.server.util.StaticUtils.*;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+
+/** Monitoring class for the in-memory storage, populating cn=monitor statistics from its memory usage. */
+final class InMemoryMonitor extends MonitorProvider<MonitorProviderCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The name of this monitor instance. */
+  private final String name;
+  /** The store to be monitored. */
+  private final MemoryStore store;
+
+  InMemoryMonitor(String name, MemoryStore store)
+  {
+    this.name = name;
+    this.store = store;
+  }
+
+  @Override
+  public String getMonitorInstanceName()
+  {
+    return name;
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    try
+    {
+      final SlabAllocator allocator = store.getAllocator();
+      final MonitorData monitorAttrs = new MonitorData(3);
+      monitorAttrs.add("InMemoryReservedBytes", allocator.getReservedBytes());
+      monitorAttrs.add("InMemoryUsedBytes", allocator.getUsedBytes());
+      monitorAttrs.add("InMemoryTrees", store.getTreeCount());
+      return monitorAttrs;
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+
+      MonitorData monitorAttrs = new MonitorData(1);
+      monitorAttrs.add("InMemoryInfo", stackTraceToSingleLineString(e));
+      return monitorAttrs;
+    }
+  }
+}
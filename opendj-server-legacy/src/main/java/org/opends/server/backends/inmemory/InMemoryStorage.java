@@ -0,0 +1,507 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.inmemory;
+
+import static org.opends.messages.BackendMessages.ERR_MEMORYBACKEND_BACKUP_RESTORE_NOT_SUPPORTED;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.server.config.server.InMemoryBackendCfg;
+import org.forgerock.util.Reject;
+import org.opends.server.backends.inmemory.MemoryStore.Generation;
+import org.opends.server.backends.pluggable.spi.AccessMode;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.Importer;
+import org.opends.server.backends.pluggable.spi.ReadOnlyStorageException;
+import org.opends.server.backends.pluggable.spi.ReadOperation;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.SequentialCursor;
+import org.opends.server.backends.pluggable.spi.Storage;
+import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
+import org.opends.server.backends.pluggable.spi.StorageStatus;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.UpdateFunction;
+import org.opends.server.backends.pluggable.spi.WriteOperation;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ServerContext;
+import org.opends.server.types.BackupConfig;
+import org.opends.server.types.BackupDirectory;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.RestoreConfig;
+
+/**
+ * Implementation of the {@link Storage} engine keeping all the trees in memory.
+ * <p>
+ * Keys and values are stored outside of the JVM heap, so that the garbage collector only has to trace one small
+ * object per record whatever the size of the entries. The records are indexed by concurrent skip lists.
+ * <p>
+ * Write operations are serialized and rolled back on failure, while readers never block. Readers are not isolated
+ * from the write operation in progress: they may see its modifications before it completes.
+ * <p>
+ * The trees survive the storage being closed and reopened, for instance around an import, but are lost when the
+ * backend is disabled or the server is stopped. Backup and restore are not supported: use an LDIF export instead.
+ */
+public final class InMemoryStorage implements Storage
+{
+  /** In-memory implementation of the {@link ReadableTransaction} interface. */
+  private class ReadableTransactionImpl implements ReadableTransaction
+  {
+    @Override
+    public ByteString read(TreeName treeName, ByteSequence key)
+    {
+      final MemoryTree tree = store.getTree(treeName.toString());
+      final Record record = tree != null ? tree.get(new SearchKey(key.toByteArray())) : null;
+      return record != null ? ByteString.wrap(store.getAllocator().read(record.value)) : null;
+    }
+
+    @Override
+    public Cursor<ByteString, ByteString> openCursor(TreeName treeName)
+    {
+      return new InMemoryCursor(store, treeName.toString(), null);
+    }
+
+    @Override
+    public long getRecordCount(TreeName treeName)
+    {
+      final MemoryTree tree = store.getTree(treeName.toString());
+      return tree != null ? tree.getCount() : 0;
+    }
+  }
+
+  /** In-memory implementation of the {@link WriteableTransaction} interface. */
+  private final class WriteableTransactionImpl extends ReadableTransactionImpl implements WriteableTransaction
+  {
+    private final WriteTxn txn;
+
+    private WriteableTransactionImpl(WriteTxn txn)
+    {
+      this.txn = txn;
+    }
+
+    @Override
+    public Cursor<ByteString, ByteString> openCursor(TreeName treeName)
+    {
+      return new InMemoryCursor(store, treeName.toString(), txn);
+    }
+
+    @Override
+    public void openTree(TreeName treeName, boolean createOnDemand)
+    {
+      txn.openTree(treeName.toString());
+    }
+
+    @Override
+    public void deleteTree(TreeName treeName)
+    {
+      txn.deleteTree(treeName.toString());
+    }
+
+    @Override
+    public void put(TreeName treeName, ByteSequence key, ByteSequence value)
+    {
+      txn.put(treeName.toString(), key.toByteArray(), value.toByteArray());
+    }
+
+    @Override
+    public boolean update(TreeName treeName, ByteSequence key, UpdateFunction f)
+    {
+      final ByteSequence oldValue = read(treeName, key);
+      final ByteSequence newValue = f.computeNewValue(oldValue);
+      if (Objects.equals(newValue, oldValue))
+      {
+        return false;
+      }
+      if (newValue == null)
+      {
+        return delete(treeName, key);
+      }
+      put(treeName, key, newValue);
+      return true;
+    }
+
+    @Override
+    public boolean delete(TreeName treeName, ByteSequence key)
+    {
+      return txn.delete(treeName.toString(), key.toByteArray());
+    }
+  }
+
+  /** In-memory read-only implementation of {@link WriteableTransaction} interface. */
+  private final class ReadOnlyTransactionImpl extends ReadableTransactionImpl implements WriteableTransaction
+  {
+    @Override
+    public void openTree(TreeName treeName, boolean createOnDemand)
+    {
+      if (createOnDemand)
+      {
+        throw new ReadOnlyStorageException();
+      }
+    }
+
+    @Override
+    public void deleteTree(TreeName name)
+    {
+      throw new ReadOnlyStorageException();
+    }
+
+    @Override
+    public void put(TreeName treeName, ByteSequence key, ByteSequence value)
+    {
+      throw new ReadOnlyStorageException();
+    }
+
+    @Override
+    public boolean update(TreeName treeName, ByteSequence key, UpdateFunction f)
+    {
+      throw new ReadOnlyStorageException();
+    }
+
+    @Override
+    public boolean delete(TreeName treeName, ByteSequence key)
+    {
+      throw new ReadOnlyStorageException();
+    }
+  }
+
+  /**
+   * In-memory implementation of the {@link Importer} interface.
+   * <p>
+   * Import threads write directly in the trees, holding the write lock during each call. The memory of the replaced
+   * records is released regularly.
+   */
+  private final class ImporterImpl implements Importer
+  {
+    private final ReentrantLock lock = store.getWriteLock();
+    private final WriteTxn txn = new WriteTxn(store, true);
+
+    @Override
+    public void put(TreeName treeName, ByteSequence key, ByteSequence value)
+    {
+      lock.lock();
+      try
+      {
+        txn.put(treeName.toString(), key.toByteArray(), value.toByteArray());
+        if (txn.getModCount() % IMPORT_RECLAIM_INTERVAL == 0)
+        {
+          store.newGeneration();
+        }
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public ByteString read(TreeName treeName, ByteSequence key)
+    {
+      final Generation generation = store.enter();
+      try
+      {
+        return new ReadableTransactionImpl().read(treeName, key);
+      }
+      finally
+      {
+        store.exit(generation);
+      }
+    }
+
+    @Override
+    public SequentialCursor<ByteString, ByteString> openCursor(TreeName treeName)
+    {
+      return new ImporterCursor(treeName.toString());
+    }
+
+    @Override
+    public void clearTree(TreeName treeName)
+    {
+      lock.lock();
+      try
+      {
+        txn.clearTree(treeName.toString());
+        store.newGeneration();
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void close()
+    {
+      lock.lock();
+      try
+      {
+        store.newGeneration();
+      }
+      finally
+      {
+        lock.unlock();
+      }
+      InMemoryStorage.this.close();
+    }
+
+    /** Cursor of the import, which keeps the records it reads until it is closed. */
+    private final class ImporterCursor implements SequentialCursor<ByteString, ByteString>
+    {
+      private final Generation generation = store.enter();
+      private final InMemoryCursor cursor;
+      private boolean closed;
+
+      private ImporterCursor(String treeName)
+      {
+        cursor = new InMemoryCursor(store, treeName, txn);
+      }
+
+      @Override
+      public boolean next()
+      {
+        return cursor.next();
+      }
+
+      @Override
+      public boolean isDefined()
+      {
+        return cursor.isDefined();
+      }
+
+      @Override
+      public ByteString getKey() throws NoSuchElementException
+      {
+        return cursor.getKey();
+      }
+
+      @Override
+      public ByteString getValue() throws NoSuchElementException
+      {
+        return cursor.getValue();
+      }
+
+      @Override
+      public void delete() throws NoSuchElementException, UnsupportedOperationException
+      {
+        lock.lock();
+        try
+        {
+          cursor.delete();
+        }
+        finally
+        {
+          lock.unlock();
+        }
+      }
+
+      @Override
+      public void close()
+      {
+        if (!closed)
+        {
+          closed = true;
+          cursor.close();
+          store.exit(generation);
+        }
+      }
+    }
+  }
+
+  /** Number of records written by an import between two releases of the memory of the replaced records. */
+  private static final int IMPORT_RECLAIM_INTERVAL = 1024;
+
+  private final String backendId;
+  private final MemoryStore store = new MemoryStore();
+  private AccessMode accessMode;
+  private InMemoryMonitor monitor;
+
+  /**
+   * Creates a new in-memory storage with the provided configuration.
+   *
+   * @param cfg
+   *          The configuration.
+   * @param serverContext
+   *          This server instance context
+   */
+  public InMemoryStorage(final InMemoryBackendCfg cfg, ServerContext serverContext)
+  {
+    backendId = cfg.getBackendId();
+  }
+
+  @Override
+  public void close()
+  {
+    if (monitor != null)
+    {
+      DirectoryServer.deregisterMonitorProvider(monitor);
+      monitor = null;
+    }
+  }
+
+  @Override
+  public void open(AccessMode accessMode) throws ConfigException, StorageRuntimeException
+  {
+    Reject.ifNull(accessMode, "accessMode must not be null");
+    this.accessMode = accessMode;
+    open0();
+  }
+
+  private void open0()
+  {
+    if (monitor != null)
+    {
+      throw new IllegalStateException(
+          "Storage is already open, either the backend is enabled or an import is currently running.");
+    }
+    monitor = new InMemoryMonitor(backendId + " In-Memory Storage", store);
+    DirectoryServer.registerMonitorProvider(monitor);
+  }
+
+  @Override
+  public <T> T read(final ReadOperation<T> operation) throws Exception
+  {
+    final Generation generation = store.enter();
+    try
+    {
+      return operation.run(new ReadableTransactionImpl());
+    }
+    catch (final StorageRuntimeException e)
+    {
+      if (e.getCause() != null)
+      {
+        throw (Exception) e.getCause();
+      }
+      throw e;
+    }
+    finally
+    {
+      store.exit(generation);
+    }
+  }
+
+  @Override
+  public Importer startImport() throws ConfigException, StorageRuntimeException
+  {
+    accessMode = AccessMode.READ_WRITE;
+    open0();
+    return new ImporterImpl();
+  }
+
+  @Override
+  public void write(final WriteOperation operation) throws Exception
+  {
+    if (!accessMode.isWriteable())
+    {
+      final Generation generation = store.enter();
+      try
+      {
+        operation.run(new ReadOnlyTransactionImpl());
+      }
+      finally
+      {
+        store.exit(generation);
+      }
+      return;
+    }
+    final ReentrantLock lock = store.getWriteLock();
+    lock.lock();
+    // Records deleted by a nested write operation must remain readable by the enclosing one
+    final Generation generation = store.enter();
+    final WriteTxn txn = new WriteTxn(store, false);
+    try
+    {
+      operation.run(new WriteableTransactionImpl(txn));
+      txn.commit();
+    }
+    catch (final Exception e)
+    {
+      txn.rollback();
+      if (e instanceof StorageRuntimeException && e.getCause() != null)
+      {
+        throw (Exception) e.getCause();
+      }
+      throw e;
+    }
+    finally
+    {
+      store.exit(generation);
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean supportsBackupAndRestore()
+  {
+    return false;
+  }
+
+  @Override
+  public void createBackup(BackupConfig backupConfig) throws DirectoryException
+  {
+    throw new DirectoryException(ResultCode.UNWILLING_TO_PERFORM, ERR_MEMORYBACKEND_BACKUP_RESTORE_NOT_SUPPORTED.get());
+  }
+
+  @Override
+  public void removeBackup(BackupDirectory backupDirectory, String backupID) throws DirectoryException
+  {
+    throw new DirectoryException(ResultCode.UNWILLING_TO_PERFORM, ERR_MEMORYBACKEND_BACKUP_RESTORE_NOT_SUPPORTED.get());
+  }
+
+  @Override
+  public void restoreBackup(RestoreConfig restoreConfig) throws DirectoryException
+  {
+    throw new DirectoryException(ResultCode.UNWILLING_TO_PERFORM, ERR_MEMORYBACKEND_BACKUP_RESTORE_NOT_SUPPORTED.get());
+  }
+
+  @Override
+  public Set<TreeName> listTrees()
+  {
+    final Set<TreeName> results = new HashSet<>(store.getTreeCount());
+    for (String treeName : store.getTreeNames())
+    {
+      results.add(TreeName.valueOf(treeName));
+    }
+    return results;
+  }
+
+  @Override
+  public void removeStorageFiles() throws StorageRuntimeException
+  {
+    final ReentrantLock lock = store.getWriteLock();
+    lock.lock();
+    try
+    {
+      store.clear();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public StorageStatus getStorageStatus()
+  {
+    return StorageStatus.working();
+  }
+}
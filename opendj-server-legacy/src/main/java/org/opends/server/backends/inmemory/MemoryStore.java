@@ -0,0 +1,181 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.inmemory;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The trees of an in-memory storage and the memory holding their records.
+ * <p>
+ * Modifications are serialized by a lock, while readers never block. As readers may still use the records
+ * removed by a writer, their memory is only released once all the readers which started before the removal are
+ * done. Readers register in the current {@link Generation}, and the writer retires removed memory in it. A new
+ * generation is started after each write, and the memory retired in a generation is released once no reader is
+ * registered in it nor in any older generation.
+ */
+final class MemoryStore
+{
+  /** Readers started during a period of time, and the memory retired during this period. */
+  static final class Generation
+  {
+    private final AtomicInteger readers = new AtomicInteger();
+    private long[] retired = new long[16];
+    private int nbRetired;
+
+    private void retire(long address)
+    {
+      if (nbRetired == retired.length)
+      {
+        retired = Arrays.copyOf(retired, nbRetired * 2);
+      }
+      retired[nbRetired++] = address;
+    }
+  }
+
+  private final SlabAllocator allocator = new SlabAllocator();
+  private final Map<String, MemoryTree> trees = new ConcurrentHashMap<>();
+  /** Serializes modifications. It is reentrant so that a write can perform another independent write. */
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private volatile Generation current = new Generation();
+  /** Generations which may still have readers, oldest first. Guarded by the write lock. */
+  private final Deque<Generation> retiredGenerations = new ArrayDeque<>();
+
+  SlabAllocator getAllocator()
+  {
+    return allocator;
+  }
+
+  ReentrantLock getWriteLock()
+  {
+    return writeLock;
+  }
+
+  /**
+   * Returns a tree.
+   *
+   * @param treeName
+   *          the tree name
+   * @return the tree, or {@code null} if it does not exist
+   */
+  MemoryTree getTree(String treeName)
+  {
+    return trees.get(treeName);
+  }
+
+  /**
+   * Replaces or removes a tree. Must be called with the write lock held.
+   *
+   * @param treeName
+   *          the tree name
+   * @param tree
+   *          the new tree, or {@code null} to remove the tree
+   * @return the previous tree, or {@code null} if the tree did not exist
+   */
+  MemoryTree setTree(String treeName, MemoryTree tree)
+  {
+    return tree != null ? trees.put(treeName, tree) : trees.remove(treeName);
+  }
+
+  Iterable<String> getTreeNames()
+  {
+    return trees.keySet();
+  }
+
+  int getTreeCount()
+  {
+    return trees.size();
+  }
+
+  /**
+   * Registers a reader. The memory it reads is not released until it calls {@link #exit(Generation)}.
+   *
+   * @return the generation of the reader
+   */
+  Generation enter()
+  {
+    for (;;)
+    {
+      final Generation generation = current;
+      generation.readers.incrementAndGet();
+      if (generation == current)
+      {
+        return generation;
+      }
+      // A writer started a new generation, whose retired memory may already be released
+      generation.readers.decrementAndGet();
+    }
+  }
+
+  /**
+   * Unregisters a reader.
+   *
+   * @param generation
+   *          the generation returned by {@link #enter()}
+   */
+  void exit(Generation generation)
+  {
+    generation.readers.decrementAndGet();
+  }
+
+  /**
+   * Retires the memory of a record key or value, which is released once no reader can read it any more. Must be
+   * called with the write lock held.
+   *
+   * @param address
+   *          the address of the memory
+   */
+  void retire(long address)
+  {
+    current.retire(address);
+  }
+
+  /**
+   * Starts a new generation and releases the memory which cannot be read any more. Must be called with the write
+   * lock held, after the retired records have been removed from their tree.
+   */
+  void newGeneration()
+  {
+    final Generation previous = current;
+    if (previous.nbRetired > 0)
+    {
+      current = new Generation();
+      retiredGenerations.add(previous);
+    }
+    while (!retiredGenerations.isEmpty() && retiredGenerations.peek().readers.get() == 0)
+    {
+      final Generation generation = retiredGenerations.poll();
+      for (int i = 0; i < generation.nbRetired; i++)
+      {
+        allocator.free(generation.retired[i]);
+      }
+    }
+  }
+
+  /** Removes all the trees. Must be called when there are no readers. */
+  void clear()
+  {
+    trees.clear();
+    retiredGenerations.clear();
+    current = new Generation();
+    allocator.clear();
+  }
+}
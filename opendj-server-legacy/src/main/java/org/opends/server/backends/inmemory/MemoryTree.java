@@ -0,0 +1,157 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.inmemory;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A sorted tree of records, whose keys and values are stored outside of the heap by a {@link SlabAllocator}.
+ * <p>
+ * The records are indexed by a concurrent skip list, so that readers never block. Its keys are either
+ * {@link Record}s or, when searching, {@link SearchKey}s. Modifications must be serialized by the caller.
+ */
+final class MemoryTree implements Comparator<Object>
+{
+  private final SlabAllocator allocator;
+  private final ConcurrentSkipListMap<Object, Record> records = new ConcurrentSkipListMap<>(this);
+  /** Number of records, maintained by the writer as counting the skip list is a linear operation. */
+  private volatile long count;
+
+  MemoryTree(SlabAllocator allocator)
+  {
+    this.allocator = allocator;
+  }
+
+  @Override
+  public int compare(Object a, Object b)
+  {
+    final long prefixA = a instanceof Record ? ((Record) a).keyPrefix : ((SearchKey) a).prefix;
+    final long prefixB = b instanceof Record ? ((Record) b).keyPrefix : ((SearchKey) b).prefix;
+    if (prefixA != prefixB)
+    {
+      return Long.compareUnsigned(prefixA, prefixB);
+    }
+    // The first bytes are equal, including the zeros padding the shortest key if it is shorter than the prefix
+    final int lengthA = length(a);
+    final int lengthB = length(b);
+    final int minLength = Math.min(lengthA, lengthB);
+    for (int i = Long.BYTES; i < minLength; i++)
+    {
+      final int cmp = (byteAt(a, i) & 0xFF) - (byteAt(b, i) & 0xFF);
+      if (cmp != 0)
+      {
+        return cmp;
+      }
+    }
+    return Integer.compare(lengthA, lengthB);
+  }
+
+  private static int length(Object key)
+  {
+    return key instanceof Record ? ((Record) key).keyLength : ((SearchKey) key).bytes.length;
+  }
+
+  private byte byteAt(Object key, int index)
+  {
+    return key instanceof Record ? allocator.byteAt(((Record) key).key, index) : ((SearchKey) key).bytes[index];
+  }
+
+  /**
+   * Returns the record with the provided key.
+   *
+   * @param key
+   *          the key, either a {@link Record} or a {@link SearchKey}
+   * @return the record, or {@code null} if there is none
+   */
+  Record get(Object key)
+  {
+    return records.get(key);
+  }
+
+  /**
+   * Returns the least record whose key is greater than or equal to the provided key.
+   *
+   * @param key
+   *          the key, either a {@link Record} or a {@link SearchKey}
+   * @return the record, or {@code null} if there is none
+   */
+  Record ceiling(Object key)
+  {
+    final Map.Entry<Object, Record> entry = records.ceilingEntry(key);
+    return entry != null ? entry.getValue() : null;
+  }
+
+  /**
+   * Returns the least record whose key is strictly greater than the provided key.
+   *
+   * @param key
+   *          the key, either a {@link Record} or a {@link SearchKey}
+   * @return the record, or {@code null} if there is none
+   */
+  Record higher(Object key)
+  {
+    final Map.Entry<Object, Record> entry = records.higherEntry(key);
+    return entry != null ? entry.getValue() : null;
+  }
+
+  Record first()
+  {
+    final Map.Entry<Object, Record> entry = records.firstEntry();
+    return entry != null ? entry.getValue() : null;
+  }
+
+  Record last()
+  {
+    final Map.Entry<Object, Record> entry = records.lastEntry();
+    return entry != null ? entry.getValue() : null;
+  }
+
+  Iterable<Record> records()
+  {
+    return records.values();
+  }
+
+  long getCount()
+  {
+    return count;
+  }
+
+  /**
+   * Adds a record which is not in the tree.
+   *
+   * @param record
+   *          the record
+   */
+  void add(Record record)
+  {
+    records.put(record, record);
+    count++;
+  }
+
+  /**
+   * Removes a record of the tree.
+   *
+   * @param record
+   *          the record
+   */
+  void remove(Record record)
+  {
+    records.remove(record);
+    count--;
+  }
+}
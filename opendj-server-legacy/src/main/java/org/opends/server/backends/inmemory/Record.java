@@ -0,0 +1,39 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.inmemory;
+
+/**
+ * A record of a {@link MemoryTree}. Its key and value are stored by the {@link SlabAllocator}, only the first bytes
+ * of the key are kept on the heap to speed up comparisons.
+ */
+final class Record
+{
+  /** Address of the key. */
+  final long key;
+  final int keyLength;
+  /** First eight bytes of the key, see {@link SlabAllocator#prefix(long, int)}. */
+  final long keyPrefix;
+  /** Address of the value, replaced when the record is updated. */
+  volatile long value;
+
+  Record(long key, int keyLength, long keyPrefix, long value)
+  {
+    this.key = key;
+    this.keyLength = keyLength;
+    this.keyPrefix = keyPrefix;
+    this.value = value;
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.inmemory;
+
+/** A key on the heap, used to search the records of a {@link MemoryTree}. */
+final class SearchKey
+{
+  final byte[] bytes;
+  /** First eight bytes of the key, see {@link SlabAllocator#prefix(long, int)}. */
+  final long prefix;
+
+  SearchKey(byte[] bytes)
+  {
+    this.bytes = bytes;
+    long p = 0;
+    for (int i = 0; i < Long.BYTES; i++)
+    {
+      p = (p << 8) | (i < bytes.length ? bytes[i] & 0xFF : 0);
+    }
+    this.prefix = p;
+  }
+}
@@ -0,0 +1,306 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.inmemory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Allocates byte arrays prefixed by their length in large direct buffers, outside of the JVM heap.
+ * <p>
+ * Small arrays are carved out of shared slabs and rounded up to one of four size classes per power of two. Freed
+ * arrays are kept in a free list per size class. Large arrays get their own buffer.
+ * <p>
+ * An array is identified by its address: the index of its slab in the upper 32 bits and its offset in the lower 32
+ * bits. Address {@code 0} is never allocated. Allocations and releases must be serialized by the caller, while
+ * reads can be performed concurrently by any thread as long as the array is not released.
+ */
+final class SlabAllocator
+{
+  /** Size of the slabs shared by small arrays. */
+  static final int SLAB_SIZE = 1 << 20;
+  /** Arrays which need more bytes than this get their own buffer. */
+  private static final int MAX_SMALL_SIZE = SLAB_SIZE / 16;
+  private static final int MIN_SIZE = 16;
+  private static final int NB_SIZE_CLASSES = sizeClass(MAX_SMALL_SIZE) + 1;
+
+  /** Slabs by index, index 0 is unused. Replaced on growth so that readers always see initialized slabs. */
+  private volatile ByteBuffer[] slabs = new ByteBuffer[16];
+
+  // The following fields are guarded by the caller
+  private int nbSlabs = 1;
+  private int[] freeSlabIndexes = new int[16];
+  private int nbFreeSlabIndexes;
+  private ByteBuffer currentSlab;
+  private int currentSlabIndex;
+  private final long[][] freeLists = new long[NB_SIZE_CLASSES][];
+  private final int[] freeListSizes = new int[NB_SIZE_CLASSES];
+  private volatile long reservedBytes;
+  private volatile long usedBytes;
+
+  /**
+   * Returns the size class of an allocation.
+   *
+   * @param size
+   *          the number of bytes to allocate
+   * @return the size class
+   */
+  static int sizeClass(int size)
+  {
+    if (size <= MIN_SIZE)
+    {
+      return 0;
+    }
+    final int exponent = 31 - Integer.numberOfLeadingZeros(size - 1);
+    final int step = 1 << (exponent - 2);
+    return (exponent - 4) * 4 + (size - 1 - (1 << exponent)) / step + 1;
+  }
+
+  /**
+   * Returns the number of bytes reserved for the allocations of a size class.
+   *
+   * @param sizeClass
+   *          the size class
+   * @return the number of bytes reserved for the allocations of the size class
+   */
+  static int classSize(int sizeClass)
+  {
+    if (sizeClass == 0)
+    {
+      return MIN_SIZE;
+    }
+    final int exponent = (sizeClass - 1) / 4 + 4;
+    return (1 << exponent) + ((sizeClass - 1) % 4 + 1) * (1 << (exponent - 2));
+  }
+
+  /**
+   * Copies a byte array outside of the heap.
+   *
+   * @param bytes
+   *          the bytes to copy
+   * @return the address of the copy
+   */
+  long allocate(byte[] bytes)
+  {
+    final int size = Integer.BYTES + bytes.length;
+    final long address = size > MAX_SMALL_SIZE ? allocateLarge(size) : allocateSmall(sizeClass(size));
+    final ByteBuffer buffer = slab(address).duplicate();
+    buffer.position(offset(address));
+    buffer.putInt(bytes.length);
+    buffer.put(bytes);
+    return address;
+  }
+
+  private long allocateSmall(int sizeClass)
+  {
+    final int classSize = classSize(sizeClass);
+    usedBytes += classSize;
+    if (freeListSizes[sizeClass] > 0)
+    {
+      return freeLists[sizeClass][--freeListSizes[sizeClass]];
+    }
+    if (currentSlab == null || currentSlab.remaining() < classSize)
+    {
+      currentSlab = ByteBuffer.allocateDirect(SLAB_SIZE);
+      currentSlabIndex = addSlab(currentSlab);
+    }
+    final int offset = currentSlab.position();
+    currentSlab.position(offset + classSize);
+    return address(currentSlabIndex, offset);
+  }
+
+  private long allocateLarge(int size)
+  {
+    usedBytes += size;
+    return address(addSlab(ByteBuffer.allocateDirect(size)), 0);
+  }
+
+  private int addSlab(ByteBuffer slab)
+  {
+    reservedBytes += slab.capacity();
+    final int index = nbFreeSlabIndexes > 0 ? freeSlabIndexes[--nbFreeSlabIndexes] : nbSlabs++;
+    ByteBuffer[] newSlabs = slabs;
+    if (index >= newSlabs.length)
+    {
+      newSlabs = Arrays.copyOf(newSlabs, newSlabs.length * 2);
+    }
+    else
+    {
+      newSlabs = newSlabs.clone();
+    }
+    newSlabs[index] = slab;
+    slabs = newSlabs;
+    return index;
+  }
+
+  /**
+   * Releases a byte array. It must not be read any more.
+   *
+   * @param address
+   *          the address of the byte array
+   */
+  void free(long address)
+  {
+    final int size = Integer.BYTES + length(address);
+    if (size > MAX_SMALL_SIZE)
+    {
+      usedBytes -= size;
+      reservedBytes -= size;
+      final int index = slabIndex(address);
+      final ByteBuffer[] newSlabs = slabs.clone();
+      newSlabs[index] = null;
+      slabs = newSlabs;
+      if (nbFreeSlabIndexes == freeSlabIndexes.length)
+      {
+        freeSlabIndexes = Arrays.copyOf(freeSlabIndexes, nbFreeSlabIndexes * 2);
+      }
+      freeSlabIndexes[nbFreeSlabIndexes++] = index;
+      return;
+    }
+    final int sizeClass = sizeClass(size);
+    usedBytes -= classSize(sizeClass);
+    long[] freeList = freeLists[sizeClass];
+    if (freeList == null)
+    {
+      freeList = freeLists[sizeClass] = new long[64];
+    }
+    else if (freeListSizes[sizeClass] == freeList.length)
+    {
+      freeList = freeLists[sizeClass] = Arrays.copyOf(freeList, freeList.length * 2);
+    }
+    freeList[freeListSizes[sizeClass]++] = address;
+  }
+
+  /** Releases all the byte arrays at once. None of them must be read any more. */
+  void clear()
+  {
+    slabs = new ByteBuffer[16];
+    nbSlabs = 1;
+    nbFreeSlabIndexes = 0;
+    currentSlab = null;
+    Arrays.fill(freeLists, null);
+    Arrays.fill(freeListSizes, 0);
+    reservedBytes = 0;
+    usedBytes = 0;
+  }
+
+  /**
+   * Returns the length of a byte array.
+   *
+   * @param address
+   *          the address of the byte array
+   * @return the length of the byte array
+   */
+  int length(long address)
+  {
+    return slab(address).getInt(offset(address));
+  }
+
+  /**
+   * Returns a byte of a byte array.
+   *
+   * @param address
+   *          the address of the byte array
+   * @param index
+   *          the index of the byte
+   * @return the byte
+   */
+  byte byteAt(long address, int index)
+  {
+    return slab(address).get(offset(address) + Integer.BYTES + index);
+  }
+
+  /**
+   * Returns the first eight bytes of a byte array as an unsigned big-endian number, padded with zeros.
+   *
+   * @param address
+   *          the address of the byte array
+   * @param length
+   *          the length of the byte array
+   * @return the first eight bytes of the byte array
+   */
+  long prefix(long address, int length)
+  {
+    final ByteBuffer slab = slab(address);
+    final int offset = offset(address) + Integer.BYTES;
+    if (length >= Long.BYTES)
+    {
+      return slab.getLong(offset);
+    }
+    long prefix = 0;
+    for (int i = 0; i < Long.BYTES; i++)
+    {
+      prefix = (prefix << 8) | (i < length ? slab.get(offset + i) & 0xFF : 0);
+    }
+    return prefix;
+  }
+
+  /**
+   * Copies a byte array back to the heap.
+   *
+   * @param address
+   *          the address of the byte array
+   * @return a copy of the byte array
+   */
+  byte[] read(long address)
+  {
+    final ByteBuffer buffer = slab(address).duplicate();
+    buffer.position(offset(address));
+    final byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Returns the number of bytes reserved outside of the heap.
+   *
+   * @return the number of bytes reserved outside of the heap
+   */
+  long getReservedBytes()
+  {
+    return reservedBytes;
+  }
+
+  /**
+   * Returns the number of bytes reserved for the allocated byte arrays.
+   *
+   * @return the number of bytes reserved for the allocated byte arrays
+   */
+  long getUsedBytes()
+  {
+    return usedBytes;
+  }
+
+  private ByteBuffer slab(long address)
+  {
+    return slabs[slabIndex(address)];
+  }
+
+  private static long address(int slabIndex, int offset)
+  {
+    return ((long) slabIndex << 32) | offset;
+  }
+
+  private static int slabIndex(long address)
+  {
+    return (int) (address >>> 32);
+  }
+
+  private static int offset(long address)
+  {
+    return (int) address;
+  }
+}
@@ -0,0 +1,332 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.inmemory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Modifies the trees of a {@link MemoryStore}. Must be used with the write lock held.
+ * <p>
+ * Modifications are applied immediately, so readers may see them before the commit. They are recorded in an undo
+ * log so that they can be rolled back, and the memory of the replaced records is only retired on commit. An auto
+ * commit transaction does not record anything and retires the replaced records immediately.
+ */
+final class WriteTxn
+{
+  /** A modification which can be rolled back. */
+  private abstract static class Undo
+  {
+    /** Retires the memory which is not used anymore once the modification is committed. */
+    abstract void commit(MemoryStore store);
+
+    /** Reverts the modification. */
+    abstract void rollback(MemoryStore store);
+  }
+
+  /** A record was added. */
+  private static final class Added extends Undo
+  {
+    private final MemoryTree tree;
+    private final Record record;
+
+    private Added(MemoryTree tree, Record record)
+    {
+      this.tree = tree;
+      this.record = record;
+    }
+
+    @Override
+    void commit(MemoryStore store)
+    {
+      // Nothing to retire
+    }
+
+    @Override
+    void rollback(MemoryStore store)
+    {
+      tree.remove(record);
+      store.retire(record.key);
+      store.retire(record.value);
+    }
+  }
+
+  /** The value of a record was replaced. */
+  private static final class Replaced extends Undo
+  {
+    private final Record record;
+    private final long oldValue;
+
+    private Replaced(Record record, long oldValue)
+    {
+      this.record = record;
+      this.oldValue = oldValue;
+    }
+
+    @Override
+    void commit(MemoryStore store)
+    {
+      store.retire(oldValue);
+    }
+
+    @Override
+    void rollback(MemoryStore store)
+    {
+      store.retire(record.value);
+      record.value = oldValue;
+    }
+  }
+
+  /** A record was removed. */
+  private static final class Removed extends Undo
+  {
+    private final MemoryTree tree;
+    private final Record record;
+
+    private Removed(MemoryTree tree, Record record)
+    {
+      this.tree = tree;
+      this.record = record;
+    }
+
+    @Override
+    void commit(MemoryStore store)
+    {
+      store.retire(record.key);
+      store.retire(record.value);
+    }
+
+    @Override
+    void rollback(MemoryStore store)
+    {
+      tree.add(record);
+    }
+  }
+
+  /** A tree was created, cleared or deleted. */
+  private static final class TreeReplaced extends Undo
+  {
+    private final String treeName;
+    private final MemoryTree oldTree;
+
+    private TreeReplaced(String treeName, MemoryTree oldTree)
+    {
+      this.treeName = treeName;
+      this.oldTree = oldTree;
+    }
+
+    @Override
+    void commit(MemoryStore store)
+    {
+      if (oldTree != null)
+      {
+        retireAll(store, oldTree);
+      }
+    }
+
+    @Override
+    void rollback(MemoryStore store)
+    {
+      // The records added to the new tree have already been rolled back
+      store.setTree(treeName, oldTree);
+    }
+  }
+
+  private final MemoryStore store;
+  private final SlabAllocator allocator;
+  /** The undo log, or {@code null} for an auto commit transaction. */
+  private final List<Undo> undos;
+  private int modCount;
+
+  WriteTxn(MemoryStore store, boolean autoCommit)
+  {
+    this.store = store;
+    this.allocator = store.getAllocator();
+    this.undos = autoCommit ? null : new ArrayList<Undo>();
+  }
+
+  /**
+   * Returns a number which changes each time this transaction modifies a tree.
+   *
+   * @return the modification count
+   */
+  int getModCount()
+  {
+    return modCount;
+  }
+
+  /**
+   * Creates a tree if it does not exist.
+   *
+   * @param treeName
+   *          the tree name
+   * @return the tree
+   */
+  MemoryTree openTree(String treeName)
+  {
+    final MemoryTree tree = store.getTree(treeName);
+    return tree != null ? tree : replaceTree(treeName, new MemoryTree(allocator));
+  }
+
+  /**
+   * Removes all the records of a tree, creating it if it does not exist.
+   *
+   * @param treeName
+   *          the tree name
+   */
+  void clearTree(String treeName)
+  {
+    replaceTree(treeName, new MemoryTree(allocator));
+  }
+
+  /**
+   * Deletes a tree and all its records.
+   *
+   * @param treeName
+   *          the tree name
+   */
+  void deleteTree(String treeName)
+  {
+    if (store.getTree(treeName) != null)
+    {
+      replaceTree(treeName, null);
+    }
+  }
+
+  private MemoryTree replaceTree(String treeName, MemoryTree newTree)
+  {
+    final MemoryTree oldTree = store.setTree(treeName, newTree);
+    record(new TreeReplaced(treeName, oldTree));
+    return newTree;
+  }
+
+  /**
+   * Inserts or replaces a record, creating the tree if it does not exist.
+   *
+   * @param treeName
+   *          the tree name
+   * @param key
+   *          the key
+   * @param value
+   *          the value
+   */
+  void put(String treeName, byte[] key, byte[] value)
+  {
+    final MemoryTree tree = openTree(treeName);
+    final SearchKey searchKey = new SearchKey(key);
+    final Record record = tree.get(searchKey);
+    final long newValue = allocator.allocate(value);
+    if (record != null)
+    {
+      final long oldValue = record.value;
+      record.value = newValue;
+      record(new Replaced(record, oldValue));
+    }
+    else
+    {
+      final Record newRecord =
+          new Record(allocator.allocate(key), key.length, searchKey.prefix, newValue);
+      tree.add(newRecord);
+      record(new Added(tree, newRecord));
+    }
+  }
+
+  /**
+   * Deletes a record.
+   *
+   * @param treeName
+   *          the tree name
+   * @param key
+   *          the key
+   * @return {@code true} if the record was deleted, {@code false} if it did not exist
+   */
+  boolean delete(String treeName, byte[] key)
+  {
+    final MemoryTree tree = store.getTree(treeName);
+    final Record record = tree != null ? tree.get(new SearchKey(key)) : null;
+    return record != null && delete(tree, record);
+  }
+
+  /**
+   * Deletes a record found by a cursor.
+   *
+   * @param tree
+   *          the tree of the record
+   * @param record
+   *          the record
+   * @return {@code true} if the record was deleted, {@code false} if it had already been deleted
+   */
+  boolean delete(MemoryTree tree, Record record)
+  {
+    if (tree.get(record) != record)
+    {
+      return false;
+    }
+    tree.remove(record);
+    record(new Removed(tree, record));
+    return true;
+  }
+
+  private void record(Undo undo)
+  {
+    modCount++;
+    if (undos != null)
+    {
+      undos.add(undo);
+    }
+    else
+    {
+      undo.commit(store);
+    }
+  }
+
+  /** Makes the modifications permanent, retiring the memory of the replaced records. */
+  void commit()
+  {
+    if (undos != null)
+    {
+      for (Undo undo : undos)
+      {
+        undo.commit(store);
+      }
+      undos.clear();
+    }
+    store.newGeneration();
+  }
+
+  /** Reverts the modifications which have not been committed. */
+  void rollback()
+  {
+    if (undos != null)
+    {
+      for (int i = undos.size() - 1; i >= 0; i--)
+      {
+        undos.get(i).rollback(store);
+      }
+      undos.clear();
+    }
+    store.newGeneration();
+  }
+
+  private static void retireAll(MemoryStore store, MemoryTree tree)
+  {
+    for (Record record : tree.records())
+    {
+      store.retire(record.key);
+      store.retire(record.value);
+    }
+  }
+}
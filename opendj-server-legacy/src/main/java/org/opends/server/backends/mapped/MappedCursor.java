@@ -0,0 +1,331 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.mapped;
+
+import static org.opends.server.backends.mapped.ReadTxn.*;
+
+import java.util.NoSuchElementException;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.backends.mapped.Snapshot.TreeInfo;
+import org.opends.server.backends.pluggable.spi.Cursor;
+
+/**
+ * Cursor on a tree, keeping the path from the root to the current leaf.
+ * <p>
+ * When the transaction modifies the tree, the path is no longer valid: the cursor repositions itself on its current
+ * key before moving.
+ */
+final class MappedCursor implements Cursor<ByteString, ByteString>
+{
+  private final ReadTxn txn;
+  private final String treeName;
+  private final NodeView[] nodes = new NodeView[MAX_DEPTH];
+  private final int[] indexes = new int[MAX_DEPTH];
+  /** Depth of the leaf in {@link #nodes}, or {@code -1} when the cursor has never been positioned. */
+  private int leafDepth = -1;
+  /** Modification count of the transaction when the path was computed. */
+  private int modCount;
+
+  private boolean isDefined;
+  /** Whether the path points to the record which the next call to {@link #next()} must return. */
+  private boolean isBeforeRecord;
+  /** The current key, or the key of the next record when {@link #isBeforeRecord} is {@code true}. */
+  private byte[] currentKey;
+  private ByteString currentValue;
+
+  MappedCursor(ReadTxn txn, String treeName)
+  {
+    this.txn = txn;
+    this.treeName = treeName;
+  }
+
+  @Override
+  public boolean positionToKey(ByteSequence key)
+  {
+    final byte[] searchedKey = key.toByteArray();
+    if (descend(searchedKey))
+    {
+      return setCurrent();
+    }
+    isBeforeRecord = isValid() && moveToValidRecord();
+    if (isBeforeRecord)
+    {
+      currentKey = leaf().key(indexes[leafDepth]);
+    }
+    return false;
+  }
+
+  @Override
+  public boolean positionToKeyOrNext(ByteSequence key)
+  {
+    return positionToKeyOrNext(key.toByteArray());
+  }
+
+  private boolean positionToKeyOrNext(byte[] key)
+  {
+    descend(key);
+    return isValid() && moveToValidRecord() ? setCurrent() : clearCurrent();
+  }
+
+  @Override
+  public boolean positionToLastKey()
+  {
+    if (!descendToEdge(false))
+    {
+      return clearCurrent();
+    }
+    indexes[leafDepth] = leaf().size() - 1;
+    return setCurrent();
+  }
+
+  @Override
+  public boolean positionToIndex(int index)
+  {
+    if (!descendToEdge(true))
+    {
+      return clearCurrent();
+    }
+    int remaining = index;
+    for (;;)
+    {
+      final int leafSize = leaf().size();
+      if (remaining < leafSize)
+      {
+        indexes[leafDepth] = remaining;
+        return setCurrent();
+      }
+      remaining -= leafSize;
+      indexes[leafDepth] = leafSize;
+      if (!moveToValidRecord())
+      {
+        return clearCurrent();
+      }
+    }
+  }
+
+  @Override
+  public boolean next()
+  {
+    if (leafDepth < 0)
+    {
+      return positionToIndex(0);
+    }
+    if (modCount != txn.getModCount() && (isDefined || isBeforeRecord))
+    {
+      // The tree has been modified: the path must be recomputed
+      final boolean wasBeforeRecord = isBeforeRecord;
+      final boolean found = descend(currentKey);
+      if (!isValid())
+      {
+        return clearCurrent();
+      }
+      if (found && !wasBeforeRecord)
+      {
+        indexes[leafDepth]++;
+      }
+      return moveToValidRecord() ? setCurrent() : clearCurrent();
+    }
+    if (isBeforeRecord)
+    {
+      return setCurrent();
+    }
+    if (!isDefined)
+    {
+      return false;
+    }
+    indexes[leafDepth]++;
+    return moveToValidRecord() ? setCurrent() : clearCurrent();
+  }
+
+  @Override
+  public boolean isDefined()
+  {
+    return isDefined;
+  }
+
+  @Override
+  public ByteString getKey() throws NoSuchElementException
+  {
+    throwIfUndefined();
+    return ByteString.wrap(currentKey);
+  }
+
+  @Override
+  public ByteString getValue() throws NoSuchElementException
+  {
+    throwIfUndefined();
+    if (currentValue == null)
+    {
+      final byte[] value = modCount == txn.getModCount()
+          ? txn.readValue(leaf(), indexes[leafDepth])
+          : txn.get(treeName, currentKey);
+      if (value == null)
+      {
+        throw new NoSuchElementException();
+      }
+      currentValue = ByteString.wrap(value);
+    }
+    return currentValue;
+  }
+
+  @Override
+  public void delete() throws NoSuchElementException, UnsupportedOperationException
+  {
+    throwIfUndefined();
+    if (!(txn instanceof WriteTxn))
+    {
+      throw new UnsupportedOperationException();
+    }
+    ((WriteTxn) txn).delete(treeName, currentKey);
+  }
+
+  @Override
+  public void close()
+  {
+    // Nothing to release: the nodes belong to the transaction
+  }
+
+  private void throwIfUndefined()
+  {
+    if (!isDefined)
+    {
+      throw new NoSuchElementException();
+    }
+  }
+
+  private NodeView leaf()
+  {
+    return nodes[leafDepth];
+  }
+
+  private boolean isValid()
+  {
+    return leafDepth >= 0 && nodes[leafDepth] != null;
+  }
+
+  private boolean setCurrent()
+  {
+    isDefined = true;
+    isBeforeRecord = false;
+    currentKey = leaf().key(indexes[leafDepth]);
+    currentValue = null;
+    return true;
+  }
+
+  private boolean clearCurrent()
+  {
+    isDefined = false;
+    isBeforeRecord = false;
+    currentKey = null;
+    currentValue = null;
+    return false;
+  }
+
+  /**
+   * Computes the path to the leaf where the provided key belongs.
+   *
+   * @return {@code true} if the key exists
+   */
+  private boolean descend(byte[] key)
+  {
+    clearCurrent();
+    if (!loadRoot())
+    {
+      return false;
+    }
+    int depth = 0;
+    NodeView node = nodes[0];
+    while (!node.isLeaf())
+    {
+      final int index = childIndex(node.search(key));
+      indexes[depth] = index;
+      node = txn.node(node.child(index));
+      nodes[++depth] = node;
+    }
+    leafDepth = depth;
+    final int index = node.search(key);
+    indexes[depth] = index >= 0 ? index : -(index + 1);
+    return index >= 0;
+  }
+
+  /** Computes the path to the first or the last leaf. */
+  private boolean descendToEdge(boolean first)
+  {
+    clearCurrent();
+    if (!loadRoot())
+    {
+      return false;
+    }
+    descendToEdge(0, first);
+    return true;
+  }
+
+  private void descendToEdge(int depth, boolean first)
+  {
+    NodeView node = nodes[depth];
+    while (!node.isLeaf())
+    {
+      final int index = first ? 0 : node.size();
+      indexes[depth] = index;
+      node = txn.node(node.child(index));
+      nodes[++depth] = node;
+    }
+    indexes[depth] = 0;
+    leafDepth = depth;
+  }
+
+  private boolean loadRoot()
+  {
+    modCount = txn.getModCount();
+    final TreeInfo tree = txn.tree(treeName);
+    if (tree == null || tree.root == 0)
+    {
+      leafDepth = 0;
+      nodes[0] = null;
+      return false;
+    }
+    nodes[0] = txn.node(tree.root);
+    return true;
+  }
+
+  /**
+   * Moves the path to the next leaf while it points after the last record of the current leaf.
+   *
+   * @return {@code false} if there are no more records
+   */
+  private boolean moveToValidRecord()
+  {
+    while (indexes[leafDepth] >= leaf().size())
+    {
+      int depth = leafDepth - 1;
+      while (depth >= 0 && indexes[depth] >= nodes[depth].size())
+      {
+        depth--;
+      }
+      if (depth < 0)
+      {
+        indexes[leafDepth] = leaf().size();
+        return false;
+      }
+      indexes[depth]++;
+      nodes[depth + 1] = txn.node(nodes[depth].child(indexes[depth]));
+      descendToEdge(depth + 1, true);
+    }
+    return true;
+  }
+}
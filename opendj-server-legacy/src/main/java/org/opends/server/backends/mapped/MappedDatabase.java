@@ -0,0 +1,735 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.mapped;
+
+import static org.opends.server.backends.mapped.NodeView.*;
+import static org.opends.server.backends.mapped.PageFile.PAGE_SIZE;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+import org.opends.server.backends.mapped.Snapshot.TreeInfo;
+
+/**
+ * A database of named B+trees stored in a single memory-mapped file, in the spirit of LMDB.
+ * <p>
+ * Trees are never modified in place: write transactions copy the nodes they modify to free pages, then commit by
+ * flushing them and by writing a new meta page referencing the new roots. The two meta pages are written
+ * alternately, so that the previous one is still valid if the process dies while committing. Readers therefore see
+ * consistent snapshots without any lock, and pages freed by a commit are only reused once no reader can still see
+ * them.
+ * <p>
+ * The list of free pages is only persisted when the database is closed. After a crash, it is rebuilt when opening
+ * the database by walking all the trees.
+ */
+final class MappedDatabase implements Closeable
+{
+  private static final long MAGIC = 0x5752454e4d444231L; // "WRENMDB1"
+  private static final int VERSION = 1;
+  private static final int META_SIZE = 52;
+  /** Number of bytes of data held by an overflow page. */
+  private static final int CHAIN_PAGE_CAPACITY = PAGE_SIZE - HEADER_SIZE;
+
+  /** Content of a meta page. */
+  private static final class Meta
+  {
+    private final long txnId;
+    private final long nextPage;
+    private final long catalogPage;
+    private final long freeListPage;
+
+    private Meta(long txnId, long nextPage, long catalogPage, long freeListPage)
+    {
+      this.txnId = txnId;
+      this.nextPage = nextPage;
+      this.catalogPage = catalogPage;
+      this.freeListPage = freeListPage;
+    }
+
+    private byte[] encode()
+    {
+      final ByteBuffer buffer = ByteBuffer.allocate(META_SIZE);
+      buffer.putLong(MAGIC).putInt(VERSION).putInt(PAGE_SIZE)
+            .putLong(txnId).putLong(nextPage).putLong(catalogPage).putLong(freeListPage);
+      final CRC32 crc = new CRC32();
+      crc.update(buffer.array(), 0, META_SIZE - 4);
+      buffer.putInt((int) crc.getValue());
+      return buffer.array();
+    }
+
+    private static Meta decode(byte[] bytes)
+    {
+      final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      final CRC32 crc = new CRC32();
+      crc.update(bytes, 0, META_SIZE - 4);
+      if (buffer.getLong() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != PAGE_SIZE
+          || buffer.getInt(META_SIZE - 4) != (int) crc.getValue())
+      {
+        return null;
+      }
+      return new Meta(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+  }
+
+  /** Pages freed by a commit, which can be reused once no reader sees an older snapshot. */
+  private static final class FreedPages
+  {
+    private final long txnId;
+    private final List<Long> pages;
+
+    private FreedPages(long txnId, List<Long> pages)
+    {
+      this.txnId = txnId;
+      this.pages = pages;
+    }
+  }
+
+  private final File file;
+  private final File backupMetaFile;
+  private final PageFile pageFile;
+  private final boolean noSync;
+  /** Serializes write transactions. It is reentrant so that a write transaction can commit another one. */
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private volatile Snapshot current;
+
+  // The following fields are guarded by the write lock
+  /** Snapshots which may still have readers, oldest first. The last one is the current snapshot. */
+  private final Deque<Snapshot> snapshots = new ArrayDeque<>();
+  private final Deque<FreedPages> pendingPages = new ArrayDeque<>();
+  private long[] freePages = new long[1024];
+  private int nbFreePages;
+  private long nextPage;
+
+  /**
+   * Opens a database file, creating it if needed.
+   *
+   * @param file
+   *          the database file
+   * @param backupMetaFile
+   *          the file holding the meta page of the snapshot saved by the last backup, used instead of the meta pages
+   *          of the file after a restore
+   * @param writeable
+   *          whether the database can be modified
+   * @param noSync
+   *          whether commits must not wait for the modified pages to be written to disk
+   * @throws IOException
+   *           if the file cannot be opened or is not a valid database file
+   */
+  MappedDatabase(File file, File backupMetaFile, boolean writeable, boolean noSync) throws IOException
+  {
+    this.file = file;
+    this.backupMetaFile = backupMetaFile;
+    this.noSync = noSync;
+    final boolean isNew = writeable && file.length() == 0;
+    this.pageFile = new PageFile(file, writeable);
+    try
+    {
+      if (isNew)
+      {
+        writeMeta(new Meta(0, 2, 0, 0));
+        pageFile.sync();
+      }
+      Meta meta = readMeta();
+      final long[] catalogPages = getChainPages(meta.catalogPage);
+      current = new Snapshot(meta.txnId, meta.nextPage, catalogPages, readCatalog(meta.catalogPage));
+      snapshots.add(current);
+      nextPage = meta.nextPage;
+      if (writeable)
+      {
+        if (meta.freeListPage != 0)
+        {
+          readFreeList(meta.freeListPage);
+        }
+        else
+        {
+          rebuildFreeList();
+        }
+        // From now on, the free list on disk is obsolete. After a restore, meta pages copied after the backup
+        // snapshot must never be used again.
+        final long txnId = Math.max(meta.txnId, getLastTxnId()) + 1;
+        meta = new Meta(txnId, nextPage, meta.catalogPage, 0);
+        writeMeta(meta);
+        pageFile.sync();
+        pageFile.writePage((txnId + 1) & 1).put(new byte[META_SIZE]);
+        pageFile.sync();
+        current = new Snapshot(meta.txnId, meta.nextPage, catalogPages, current.trees);
+        snapshots.clear();
+        snapshots.add(current);
+        Files.deleteIfExists(backupMetaFile.toPath());
+      }
+    }
+    catch (IOException | RuntimeException e)
+    {
+      pageFile.close();
+      throw e;
+    }
+  }
+
+  PageFile getPageFile()
+  {
+    return pageFile;
+  }
+
+  File getFile()
+  {
+    return file;
+  }
+
+  private Meta readMeta() throws IOException
+  {
+    if (backupMetaFile.exists())
+    {
+      // The file has been restored from a backup: only the snapshot saved by the backup is consistent
+      final Meta meta = Meta.decode(Files.readAllBytes(backupMetaFile.toPath()));
+      if (meta == null)
+      {
+        throw new IOException("Invalid meta page in " + backupMetaFile);
+      }
+      return meta;
+    }
+    final Meta meta0 = readMeta(0);
+    final Meta meta1 = readMeta(1);
+    if (meta0 == null && meta1 == null)
+    {
+      throw new IOException(file + " is not a valid database file");
+    }
+    return meta1 == null || (meta0 != null && meta0.txnId > meta1.txnId) ? meta0 : meta1;
+  }
+
+  private long getLastTxnId()
+  {
+    long txnId = -1;
+    for (long page = 0; page < 2; page++)
+    {
+      final Meta meta = readMeta(page);
+      if (meta != null)
+      {
+        txnId = Math.max(txnId, meta.txnId);
+      }
+    }
+    return txnId;
+  }
+
+  private Meta readMeta(long page)
+  {
+    if (page >= pageFile.getMappedPages())
+    {
+      return null;
+    }
+    final byte[] bytes = new byte[META_SIZE];
+    pageFile.read(page, 0, bytes, 0, META_SIZE);
+    return Meta.decode(bytes);
+  }
+
+  private void writeMeta(Meta meta)
+  {
+    pageFile.writePage(meta.txnId & 1).put(meta.encode());
+  }
+
+  /**
+   * Returns the current snapshot, registered as being read until {@link #release(Snapshot)} is called.
+   *
+   * @return the current snapshot
+   */
+  Snapshot acquire()
+  {
+    for (;;)
+    {
+      final Snapshot snapshot = current;
+      snapshot.readers.incrementAndGet();
+      if (snapshot == current)
+      {
+        return snapshot;
+      }
+      // A commit happened meanwhile: the writer may not have seen this reader
+      snapshot.readers.decrementAndGet();
+    }
+  }
+
+  void release(Snapshot snapshot)
+  {
+    snapshot.readers.decrementAndGet();
+  }
+
+  Snapshot getCurrentSnapshot()
+  {
+    return current;
+  }
+
+  /**
+   * Starts a read-only transaction on the current snapshot.
+   *
+   * @return a new read-only transaction, which must be closed
+   */
+  ReadTxn beginRead()
+  {
+    return new ReadTxn(this, acquire());
+  }
+
+  /**
+   * Starts a write transaction, waiting for the current one to complete unless it is held by the current thread.
+   *
+   * @return a new write transaction, which must be ended by {@link #end(WriteTxn)}
+   */
+  WriteTxn beginWrite()
+  {
+    writeLock.lock();
+    return new WriteTxn(this, acquire());
+  }
+
+  /**
+   * Ends a write transaction, discarding its modifications if it has not been committed.
+   *
+   * @param txn
+   *          the write transaction
+   */
+  void end(WriteTxn txn)
+  {
+    try
+    {
+      for (long page : txn.getAllocatedPages())
+      {
+        release(page);
+      }
+      txn.getAllocatedPages().clear();
+      txn.close();
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+  }
+
+  ReentrantLock getWriteLock()
+  {
+    return writeLock;
+  }
+
+  /**
+   * Makes the modifications of a write transaction durable and visible to new transactions.
+   * <p>
+   * The transaction may have been started before a transaction committed by the same thread, for instance to store a
+   * new compressed schema token while adding an entry. Their modifications are merged as long as they modified
+   * distinct trees.
+   *
+   * @param txn
+   *          the write transaction, which must still be ended
+   */
+  void commit(WriteTxn txn)
+  {
+    if (!txn.isModified())
+    {
+      return;
+    }
+    final Snapshot latest = current;
+    final Map<String, TreeInfo> trees = new HashMap<>(latest.trees);
+    for (Map.Entry<String, TreeInfo> modified : txn.getModifiedTrees().entrySet())
+    {
+      final String treeName = modified.getKey();
+      if (latest.trees.get(treeName) != txn.snapshot.trees.get(treeName))
+      {
+        throw new IllegalStateException("Tree " + treeName + " has been modified by a concurrent transaction");
+      }
+      if (modified.getValue() != null)
+      {
+        trees.put(treeName, modified.getValue());
+      }
+      else
+      {
+        trees.remove(treeName);
+      }
+    }
+
+    final List<Long> freedPages = txn.getFreedPages();
+    final long[] catalogPages = writeChain(encodeCatalog(trees), this::allocate);
+    for (long page : latest.catalogPages)
+    {
+      freedPages.add(page);
+    }
+    for (Node node : txn.getDirtyNodes())
+    {
+      node.write(pageFile.writePage(node.getPageNumber()));
+    }
+    if (!noSync)
+    {
+      pageFile.sync();
+    }
+    final Meta meta = new Meta(latest.txnId + 1, nextPage, catalogPages[0], 0);
+    writeMeta(meta);
+    if (!noSync)
+    {
+      pageFile.sync();
+    }
+
+    // The transaction now owns nothing that must be released when it ends
+    txn.getAllocatedPages().clear();
+    pendingPages.add(new FreedPages(meta.txnId, new ArrayList<>(freedPages)));
+    final Snapshot snapshot = new Snapshot(meta.txnId, meta.nextPage, catalogPages, trees);
+    snapshots.add(snapshot);
+    current = snapshot;
+  }
+
+  /**
+   * Allocates a page, either a free one or a new one at the end of the file.
+   *
+   * @return the page number
+   */
+  long allocate()
+  {
+    if (nbFreePages == 0)
+    {
+      reclaimPendingPages();
+    }
+    if (nbFreePages > 0)
+    {
+      return freePages[--nbFreePages];
+    }
+    final long page = nextPage++;
+    try
+    {
+      pageFile.ensureMapped(nextPage);
+    }
+    catch (IOException e)
+    {
+      nextPage--;
+      throw new UncheckedIOException(e);
+    }
+    return page;
+  }
+
+  /**
+   * Makes a page which is not referenced by any snapshot available for allocation.
+   *
+   * @param page
+   *          the page number
+   */
+  void release(long page)
+  {
+    if (nbFreePages == freePages.length)
+    {
+      freePages = Arrays.copyOf(freePages, freePages.length * 2);
+    }
+    freePages[nbFreePages++] = page;
+  }
+
+  private void reclaimPendingPages()
+  {
+    while (snapshots.size() > 1 && snapshots.peekFirst().readers.get() == 0)
+    {
+      snapshots.removeFirst();
+    }
+    final long oldestReadTxnId = snapshots.peekFirst().txnId;
+    while (!pendingPages.isEmpty() && pendingPages.peekFirst().txnId <= oldestReadTxnId)
+    {
+      for (long page : pendingPages.removeFirst().pages)
+      {
+        release(page);
+      }
+    }
+  }
+
+  /**
+   * Writes data to a chain of overflow pages.
+   *
+   * @param data
+   *          the data to write
+   * @param allocator
+   *          allocates the pages
+   * @return the pages, starting with the first one of the chain
+   */
+  long[] writeChain(byte[] data, LongSupplier allocator)
+  {
+    final long[] pages = new long[getChainLength(data.length)];
+    for (int i = 0; i < pages.length; i++)
+    {
+      pages[i] = allocator.getAsLong();
+    }
+    writeChain(data, pages);
+    return pages;
+  }
+
+  private static int getChainLength(int dataLength)
+  {
+    return Math.max(1, (dataLength + CHAIN_PAGE_CAPACITY - 1) / CHAIN_PAGE_CAPACITY);
+  }
+
+  /** Writes data to the provided chain of pages, the last ones being left empty if they are not needed. */
+  private void writeChain(byte[] data, long[] pages)
+  {
+    final int nbPages = pages.length;
+    for (int i = 0; i < nbPages; i++)
+    {
+      final int offset = Math.min(i * CHAIN_PAGE_CAPACITY, data.length);
+      final int length = Math.min(CHAIN_PAGE_CAPACITY, data.length - offset);
+      final ByteBuffer page = pageFile.writePage(pages[i]);
+      page.put(TYPE_OFFSET, OVERFLOW);
+      page.putInt(LENGTH_OFFSET, length);
+      page.putLong(LINK_OFFSET, i + 1 < nbPages ? pages[i + 1] : 0);
+      page.position(HEADER_SIZE);
+      page.put(data, offset, length);
+    }
+  }
+
+  /**
+   * Reads data from a chain of overflow pages.
+   *
+   * @param page
+   *          the first page of the chain
+   * @param length
+   *          the length of the data
+   * @return the data
+   */
+  byte[] readChain(long page, int length)
+  {
+    final byte[] data = new byte[length];
+    int offset = 0;
+    while (offset < length)
+    {
+      final int pageLength = Math.min(CHAIN_PAGE_CAPACITY, length - offset);
+      pageFile.read(page, HEADER_SIZE, data, offset, pageLength);
+      offset += pageLength;
+      page = nextChainPage(page);
+    }
+    return data;
+  }
+
+  private byte[] readChain(long page)
+  {
+    final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[CHAIN_PAGE_CAPACITY];
+    for (; page != 0; page = nextChainPage(page))
+    {
+      final ByteBuffer segment = pageFile.segment(page);
+      final int length = segment.getInt(PageFile.offset(page) + LENGTH_OFFSET);
+      pageFile.read(page, HEADER_SIZE, buffer, 0, length);
+      data.write(buffer, 0, length);
+    }
+    return data.toByteArray();
+  }
+
+  private long nextChainPage(long page)
+  {
+    return pageFile.segment(page).getLong(PageFile.offset(page) + LINK_OFFSET);
+  }
+
+  /**
+   * Returns the pages of a chain of overflow pages.
+   *
+   * @param page
+   *          the first page of the chain, or {@code 0} for an empty chain
+   * @return the pages of the chain
+   */
+  long[] getChainPages(long page)
+  {
+    long[] pages = new long[4];
+    int nbPages = 0;
+    for (; page != 0; page = nextChainPage(page))
+    {
+      if (nbPages == pages.length)
+      {
+        pages = Arrays.copyOf(pages, nbPages * 2);
+      }
+      pages[nbPages++] = page;
+    }
+    return Arrays.copyOf(pages, nbPages);
+  }
+
+  private static byte[] encodeCatalog(Map<String, TreeInfo> trees)
+  {
+    try
+    {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      final DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(trees.size());
+      for (Map.Entry<String, TreeInfo> tree : trees.entrySet())
+      {
+        out.writeUTF(tree.getKey());
+        out.writeLong(tree.getValue().root);
+        out.writeLong(tree.getValue().count);
+      }
+      return bytes.toByteArray();
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Map<String, TreeInfo> readCatalog(long page) throws IOException
+  {
+    final Map<String, TreeInfo> trees = new HashMap<>();
+    if (page != 0)
+    {
+      final DataInputStream in = new DataInputStream(new ByteArrayInputStream(readChain(page)));
+      for (int i = in.readInt(); i > 0; i--)
+      {
+        final String treeName = in.readUTF();
+        trees.put(treeName, new TreeInfo(in.readLong(), in.readLong()));
+      }
+    }
+    return trees;
+  }
+
+  private void readFreeList(long page)
+  {
+    final ByteBuffer freeList = ByteBuffer.wrap(readChain(page));
+    while (freeList.hasRemaining())
+    {
+      release(freeList.getLong());
+    }
+    for (long chainPage : getChainPages(page))
+    {
+      release(chainPage);
+    }
+  }
+
+  /** Rebuilds the list of free pages by walking all the pages reachable from the current snapshot. */
+  private void rebuildFreeList()
+  {
+    final BitSet used = new BitSet();
+    used.set(0, 2);
+    for (long page : current.catalogPages)
+    {
+      used.set((int) page);
+    }
+    final Deque<Long> pages = new ArrayDeque<>();
+    for (TreeInfo tree : current.trees.values())
+    {
+      if (tree.root != 0)
+      {
+        pages.push(tree.root);
+      }
+    }
+    while (!pages.isEmpty())
+    {
+      final long page = pages.pop();
+      used.set((int) page);
+      final NodeView node = new PageNode(pageFile, page);
+      for (int i = 0; i < node.size(); i++)
+      {
+        if (!node.isLeaf())
+        {
+          pages.push(node.child(i));
+        }
+        else if (node.isOverflow(i))
+        {
+          for (long overflowPage : getChainPages(node.overflowPage(i)))
+          {
+            used.set((int) overflowPage);
+          }
+        }
+      }
+      if (!node.isLeaf())
+      {
+        pages.push(node.child(node.size()));
+      }
+    }
+    for (int page = used.nextClearBit(0); page < nextPage; page = used.nextClearBit(page + 1))
+    {
+      release(page);
+    }
+  }
+
+  /**
+   * Writes the meta page of a snapshot to a file, so that a copy of the database file can be restored to this
+   * snapshot. The snapshot must be registered as being read until the copy is complete.
+   *
+   * @param snapshot
+   *          the snapshot to save
+   * @throws IOException
+   *           if the file cannot be written
+   */
+  void writeBackupMeta(Snapshot snapshot) throws IOException
+  {
+    final long catalogPage = snapshot.catalogPages.length > 0 ? snapshot.catalogPages[0] : 0;
+    Files.write(backupMetaFile.toPath(), new Meta(snapshot.txnId, snapshot.nextPage, catalogPage, 0).encode());
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    if (!pageFile.isWriteable())
+    {
+      pageFile.close();
+      return;
+    }
+    writeLock.lock();
+    try
+    {
+      // Readers are gone: all the pages freed by commits can be reused
+      for (FreedPages freed : pendingPages)
+      {
+        for (long page : freed.pages)
+        {
+          release(page);
+        }
+      }
+      pendingPages.clear();
+
+      // Allocating the pages holding the free list removes them from the list
+      final Snapshot snapshot = current;
+      final List<Long> chainPages = new ArrayList<>();
+      while (chainPages.isEmpty() || chainPages.size() < getChainLength(nbFreePages * 8))
+      {
+        chainPages.add(allocate());
+      }
+      final ByteBuffer freeList = ByteBuffer.allocate(nbFreePages * 8);
+      for (int i = 0; i < nbFreePages; i++)
+      {
+        freeList.putLong(freePages[i]);
+      }
+      final long[] freeListPages = new long[chainPages.size()];
+      for (int i = 0; i < freeListPages.length; i++)
+      {
+        freeListPages[i] = chainPages.get(i);
+      }
+      writeChain(freeList.array(), freeListPages);
+      final long catalogPage = snapshot.catalogPages.length > 0 ? snapshot.catalogPages[0] : 0;
+      pageFile.sync();
+      writeMeta(new Meta(snapshot.txnId + 1, nextPage, catalogPage, freeListPages[0]));
+    }
+    finally
+    {
+      try
+      {
+        pageFile.close();
+      }
+      finally
+      {
+        writeLock.unlock();
+      }
+    }
+  }
+}
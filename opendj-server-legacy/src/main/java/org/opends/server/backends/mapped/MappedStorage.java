@@ -0,0 +1,937 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.mapped;
+
+import static org.opends.messages.BackendMessages.NOTE_CONFIG_DB_DIR_REQUIRES_RESTART;
+import static org.opends.messages.UtilityMessages.ERR_CANNOT_RENAME_RESTORE_DIRECTORY;
+import static org.opends.server.backends.pluggable.spi.StorageUtils.addErrorMessage;
+import static org.opends.server.backends.pluggable.spi.StorageUtils.checkDBDirExistsOrCanCreate;
+import static org.opends.server.backends.pluggable.spi.StorageUtils.checkDBDirPermissions;
+import static org.opends.server.backends.pluggable.spi.StorageUtils.getDBDirectory;
+import static org.opends.server.backends.pluggable.spi.StorageUtils.setDBDirPermissions;
+import static org.opends.server.backends.pluggable.spi.StorageUtils.setupStorageFiles;
+import static org.opends.server.backends.pluggable.spi.StorageUtils.statusWhenDiskSpaceFull;
+import static org.opends.server.backends.pluggable.spi.StorageUtils.statusWhenDiskSpaceLow;
+import static org.opends.server.util.StaticUtils.recursiveDelete;
+import static org.opends.server.util.StaticUtils.stackTraceToSingleLineString;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.server.config.server.MappedBackendCfg;
+import org.forgerock.util.Reject;
+import org.opends.server.api.Backupable;
+import org.opends.server.api.DiskSpaceMonitorHandler;
+import org.opends.server.backends.pluggable.spi.AccessMode;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.EmptyCursor;
+import org.opends.server.backends.pluggable.spi.Importer;
+import org.opends.server.backends.pluggable.spi.ReadOnlyStorageException;
+import org.opends.server.backends.pluggable.spi.ReadOperation;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.SequentialCursor;
+import org.opends.server.backends.pluggable.spi.Storage;
+import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
+import org.opends.server.backends.pluggable.spi.StorageStatus;
+import org.opends.server.backends.pluggable.spi.StorageUtils;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.UpdateFunction;
+import org.opends.server.backends.pluggable.spi.WriteOperation;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ServerContext;
+import org.opends.server.extensions.DiskSpaceMonitor;
+import org.opends.server.types.BackupConfig;
+import org.opends.server.types.BackupDirectory;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.RestoreConfig;
+import org.opends.server.util.BackupManager;
+
+/**
+ * Implementation of the {@link Storage} engine storing all the trees in a single memory-mapped file as copy-on-write
+ * B+trees.
+ * <p>
+ * Readers work on immutable snapshots and never take any lock, while write operations are serialized. Keys are
+ * limited to 2000 bytes.
+ */
+public final class MappedStorage implements Storage, Backupable, ConfigurationChangeListener<MappedBackendCfg>,
+    DiskSpaceMonitorHandler
+{
+  /** Mapped implementation of the {@link ReadableTransaction} interface. */
+  private static class ReadableTransactionImpl implements ReadableTransaction
+  {
+    final ReadTxn txn;
+
+    private ReadableTransactionImpl(ReadTxn txn)
+    {
+      this.txn = txn;
+    }
+
+    @Override
+    public ByteString read(TreeName treeName, ByteSequence key)
+    {
+      final byte[] value = txn.get(treeName.toString(), key.toByteArray());
+      return value != null ? ByteString.wrap(value) : null;
+    }
+
+    @Override
+    public Cursor<ByteString, ByteString> openCursor(TreeName treeName)
+    {
+      return txn.openCursor(treeName.toString());
+    }
+
+    @Override
+    public long getRecordCount(TreeName treeName)
+    {
+      return txn.getRecordCount(treeName.toString());
+    }
+  }
+
+  /** Mapped implementation of the {@link WriteableTransaction} interface. */
+  private static final class WriteableTransactionImpl extends ReadableTransactionImpl implements WriteableTransaction
+  {
+    private final WriteTxn writeTxn;
+
+    private WriteableTransactionImpl(WriteTxn txn)
+    {
+      super(txn);
+      this.writeTxn = txn;
+    }
+
+    @Override
+    public void openTree(TreeName treeName, boolean createOnDemand)
+    {
+      writeTxn.openTree(treeName.toString());
+    }
+
+    @Override
+    public void deleteTree(TreeName treeName)
+    {
+      writeTxn.deleteTree(treeName.toString());
+    }
+
+    @Override
+    public void put(TreeName treeName, ByteSequence key, ByteSequence value)
+    {
+      try
+      {
+        writeTxn.put(treeName.toString(), key.toByteArray(), value.toByteArray());
+      }
+      catch (IllegalArgumentException e)
+      {
+        throw new StorageRuntimeException(
+            "put(treeName=" + treeName + ", key=" + key + ", value=" + value + ") threw an exception", e);
+      }
+    }
+
+    @Override
+    public boolean update(TreeName treeName, ByteSequence key, UpdateFunction f)
+    {
+      final ByteSequence oldValue = read(treeName, key);
+      final ByteSequence newValue = f.computeNewValue(oldValue);
+      if (Objects.equals(newValue, oldValue))
+      {
+        return false;
+      }
+      if (newValue == null)
+      {
+        return delete(treeName, key);
+      }
+      put(treeName, key, newValue);
+      return true;
+    }
+
+    @Override
+    public boolean delete(TreeName treeName, ByteSequence key)
+    {
+      return writeTxn.delete(treeName.toString(), key.toByteArray());
+    }
+  }
+
+  /** Mapped read-only implementation of {@link WriteableTransaction} interface. */
+  private static final class ReadOnlyTransactionImpl implements WriteableTransaction
+  {
+    private final ReadableTransactionImpl delegate;
+
+    private ReadOnlyTransactionImpl(ReadableTransactionImpl delegate)
+    {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public ByteString read(TreeName treeName, ByteSequence key)
+    {
+      return delegate.read(treeName, key);
+    }
+
+    @Override
+    public Cursor<ByteString, ByteString> openCursor(TreeName treeName)
+    {
+      return delegate.openCursor(treeName);
+    }
+
+    @Override
+    public long getRecordCount(TreeName treeName)
+    {
+      return delegate.getRecordCount(treeName);
+    }
+
+    @Override
+    public void openTree(TreeName treeName, boolean createOnDemand)
+    {
+      if (createOnDemand)
+      {
+        throw new ReadOnlyStorageException();
+      }
+    }
+
+    @Override
+    public void deleteTree(TreeName name)
+    {
+      throw new ReadOnlyStorageException();
+    }
+
+    @Override
+    public void put(TreeName treeName, ByteSequence key, ByteSequence value)
+    {
+      throw new ReadOnlyStorageException();
+    }
+
+    @Override
+    public boolean update(TreeName treeName, ByteSequence key, UpdateFunction f)
+    {
+      throw new ReadOnlyStorageException();
+    }
+
+    @Override
+    public boolean delete(TreeName treeName, ByteSequence key)
+    {
+      throw new ReadOnlyStorageException();
+    }
+  }
+
+  /** No operation storage transaction faking database files are present and empty. */
+  private static final class ReadOnlyEmptyTransactionImpl implements WriteableTransaction
+  {
+    @Override
+    public void openTree(TreeName name, boolean createOnDemand)
+    {
+      if (createOnDemand)
+      {
+        throw new ReadOnlyStorageException();
+      }
+    }
+
+    @Override
+    public void deleteTree(TreeName name)
+    {
+      throw new ReadOnlyStorageException();
+    }
+
+    @Override
+    public void put(TreeName treeName, ByteSequence key, ByteSequence value)
+    {
+      throw new ReadOnlyStorageException();
+    }
+
+    @Override
+    public boolean update(TreeName treeName, ByteSequence key, UpdateFunction f)
+    {
+      throw new ReadOnlyStorageException();
+    }
+
+    @Override
+    public boolean delete(TreeName treeName, ByteSequence key)
+    {
+      throw new ReadOnlyStorageException();
+    }
+
+    @Override
+    public ByteString read(TreeName treeName, ByteSequence key)
+    {
+      return null;
+    }
+
+    @Override
+    public Cursor<ByteString, ByteString> openCursor(TreeName treeName)
+    {
+      return new EmptyCursor<>();
+    }
+
+    @Override
+    public long getRecordCount(TreeName treeName)
+    {
+      return 0;
+    }
+  }
+
+  /**
+   * Mapped implementation of the {@link Importer} interface.
+   * <p>
+   * All the records are written by a single long-lived write transaction, which is committed and renewed regularly
+   * to bound the number of nodes kept in memory. Import threads share it by holding the write lock of the database
+   * during each call.
+   */
+  private final class ImporterImpl implements Importer
+  {
+    private final ReentrantLock lock = db.getWriteLock();
+    private WriteTxn txn;
+    /** Cursors prevent renewing the transaction: they would otherwise read pages which may be reused. */
+    private int openCursors;
+
+    private ImporterImpl()
+    {
+      // The transaction is not bound to the thread which started it: the lock is only held during each call
+      txn = db.beginWrite();
+      lock.unlock();
+    }
+
+    @Override
+    public void put(TreeName treeName, ByteSequence key, ByteSequence value)
+    {
+      lock.lock();
+      try
+      {
+        txn.put(treeName.toString(), key.toByteArray(), value.toByteArray());
+        if (openCursors == 0 && txn.getDirtyNodes().size() >= IMPORT_COMMIT_INTERVAL)
+        {
+          db.commit(txn);
+          db.end(txn);
+          txn = db.beginWrite();
+        }
+      }
+      catch (IllegalArgumentException | UncheckedIOException e)
+      {
+        throw new StorageRuntimeException(e);
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public ByteString read(TreeName treeName, ByteSequence key)
+    {
+      lock.lock();
+      try
+      {
+        final byte[] value = txn.get(treeName.toString(), key.toByteArray());
+        return value != null ? ByteString.wrap(value) : null;
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public SequentialCursor<ByteString, ByteString> openCursor(TreeName treeName)
+    {
+      lock.lock();
+      try
+      {
+        openCursors++;
+        return new ImporterCursor(txn.openCursor(treeName.toString()));
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void clearTree(TreeName treeName)
+    {
+      lock.lock();
+      try
+      {
+        txn.clearTree(treeName.toString());
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void close()
+    {
+      lock.lock();
+      try
+      {
+        db.commit(txn);
+      }
+      finally
+      {
+        db.end(txn);
+      }
+      MappedStorage.this.close();
+    }
+
+    /** Cursor of the import transaction, which must not be used concurrently with the other import threads. */
+    private final class ImporterCursor implements SequentialCursor<ByteString, ByteString>
+    {
+      private final MappedCursor cursor;
+      private boolean closed;
+
+      private ImporterCursor(MappedCursor cursor)
+      {
+        this.cursor = cursor;
+      }
+
+      @Override
+      public boolean next()
+      {
+        lock.lock();
+        try
+        {
+          return cursor.next();
+        }
+        finally
+        {
+          lock.unlock();
+        }
+      }
+
+      @Override
+      public boolean isDefined()
+      {
+        return cursor.isDefined();
+      }
+
+      @Override
+      public ByteString getKey() throws NoSuchElementException
+      {
+        return cursor.getKey();
+      }
+
+      @Override
+      public ByteString getValue() throws NoSuchElementException
+      {
+        lock.lock();
+        try
+        {
+          return cursor.getValue();
+        }
+        finally
+        {
+          lock.unlock();
+        }
+      }
+
+      @Override
+      public void delete() throws NoSuchElementException, UnsupportedOperationException
+      {
+        lock.lock();
+        try
+        {
+          cursor.delete();
+        }
+        finally
+        {
+          lock.unlock();
+        }
+      }
+
+      @Override
+      public void close()
+      {
+        lock.lock();
+        try
+        {
+          if (!closed)
+          {
+            closed = true;
+            openCursors--;
+            cursor.close();
+          }
+        }
+        finally
+        {
+          lock.unlock();
+        }
+      }
+    }
+  }
+
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Name of the database file. */
+  static final String DB_FILE_NAME = "mapped.db";
+  /** Name of the file holding the meta page of the snapshot saved by a backup. */
+  static final String BACKUP_META_FILE_NAME = "mapped.db.meta";
+  /** Number of nodes modified by an import before its transaction is committed. */
+  private static final int IMPORT_COMMIT_INTERVAL = 8192;
+
+  private final ServerContext serverContext;
+  private final File backendDirectory;
+  private MappedBackendCfg config;
+  private AccessMode accessMode;
+  /** It is NULL when opening the storage READ-ONLY and no files have been created yet. */
+  private MappedDatabase db;
+  private MappedMonitor monitor;
+  private DiskSpaceMonitor diskMonitor;
+  private StorageStatus storageStatus = StorageStatus.working();
+
+  /**
+   * Creates a new mapped storage with the provided configuration.
+   *
+   * @param cfg
+   *          The configuration.
+   * @param serverContext
+   *          This server instance context
+   */
+  public MappedStorage(final MappedBackendCfg cfg, ServerContext serverContext)
+  {
+    this.serverContext = serverContext;
+    backendDirectory = getBackendDirectory(cfg);
+    config = cfg;
+    cfg.addMappedChangeListener(this);
+  }
+
+  @Override
+  public void close()
+  {
+    if (db != null)
+    {
+      DirectoryServer.deregisterMonitorProvider(monitor);
+      monitor = null;
+      try
+      {
+        db.close();
+        db = null;
+      }
+      catch (IOException e)
+      {
+        throw new IllegalStateException(e);
+      }
+    }
+    config.removeMappedChangeListener(this);
+    if (diskMonitor != null)
+    {
+      diskMonitor.deregisterMonitoredDirectory(getDirectory(), this);
+    }
+  }
+
+  @Override
+  public void open(AccessMode accessMode) throws ConfigException, StorageRuntimeException
+  {
+    Reject.ifNull(accessMode, "accessMode must not be null");
+    this.accessMode = accessMode;
+    if (isBackendIncomplete(accessMode))
+    {
+      // Do not open files on disk
+      return;
+    }
+    open0();
+  }
+
+  private boolean isBackendIncomplete(AccessMode accessMode)
+  {
+    return !accessMode.isWriteable() && !getDatabaseFile().exists();
+  }
+
+  private void open0() throws ConfigException
+  {
+    setupStorageFiles(backendDirectory, config.getDBDirectoryPermissions(), config.dn());
+    try
+    {
+      if (db != null)
+      {
+        throw new IllegalStateException(
+            "Database is already open, either the backend is enabled or an import is currently running.");
+      }
+      db = new MappedDatabase(getDatabaseFile(), getBackupMetaFile(), accessMode.isWriteable(),
+          config.isDBTxnNoSync());
+      monitor = new MappedMonitor(config.getBackendId() + " Mapped Database", db);
+      DirectoryServer.registerMonitorProvider(monitor);
+    }
+    catch (IOException e)
+    {
+      throw new StorageRuntimeException(e);
+    }
+    diskMonitor = serverContext.getDiskSpaceMonitor();
+    registerMonitoredDirectory(config);
+  }
+
+  private File getDatabaseFile()
+  {
+    return new File(backendDirectory, DB_FILE_NAME);
+  }
+
+  private File getBackupMetaFile()
+  {
+    return new File(backendDirectory, BACKUP_META_FILE_NAME);
+  }
+
+  @Override
+  public <T> T read(final ReadOperation<T> operation) throws Exception
+  {
+    if (db == null)
+    {
+      return operation.run(new ReadOnlyEmptyTransactionImpl());
+    }
+    try (ReadTxn txn = db.beginRead())
+    {
+      return operation.run(new ReadableTransactionImpl(txn));
+    }
+    catch (final StorageRuntimeException e)
+    {
+      if (e.getCause() != null)
+      {
+        throw (Exception) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public Importer startImport() throws ConfigException, StorageRuntimeException
+  {
+    accessMode = AccessMode.READ_WRITE;
+    open0();
+    return new ImporterImpl();
+  }
+
+  @Override
+  public void write(final WriteOperation operation) throws Exception
+  {
+    if (db == null)
+    {
+      operation.run(new ReadOnlyEmptyTransactionImpl());
+      return;
+    }
+    if (!accessMode.isWriteable())
+    {
+      try (ReadTxn txn = db.beginRead())
+      {
+        operation.run(new ReadOnlyTransactionImpl(new ReadableTransactionImpl(txn)));
+      }
+      return;
+    }
+    final WriteTxn txn = db.beginWrite();
+    try
+    {
+      operation.run(new WriteableTransactionImpl(txn));
+      db.commit(txn);
+      logger.trace("commit txnid=%d", db.getCurrentSnapshot().txnId);
+    }
+    catch (final StorageRuntimeException e)
+    {
+      if (e.getCause() != null)
+      {
+        throw (Exception) e.getCause();
+      }
+      throw e;
+    }
+    finally
+    {
+      db.end(txn);
+    }
+  }
+
+  @Override
+  public boolean supportsBackupAndRestore()
+  {
+    return true;
+  }
+
+  @Override
+  public File getDirectory()
+  {
+    return getBackendDirectory(config);
+  }
+
+  private static File getBackendDirectory(MappedBackendCfg cfg)
+  {
+    return getDBDirectory(cfg.getDBDirectory(), cfg.getBackendId());
+  }
+
+  @Override
+  public ListIterator<Path> getFilesToBackup() throws DirectoryException
+  {
+    final List<Path> files = new ArrayList<>(2);
+    if (getDatabaseFile().exists())
+    {
+      files.add(getDatabaseFile().toPath());
+      if (getBackupMetaFile().exists())
+      {
+        files.add(getBackupMetaFile().toPath());
+      }
+    }
+    return files.listIterator();
+  }
+
+  @Override
+  public Path beforeRestore() throws DirectoryException
+  {
+    return null;
+  }
+
+  @Override
+  public boolean isDirectRestore()
+  {
+    // restore is done in an intermediate directory
+    return false;
+  }
+
+  @Override
+  public void afterRestore(Path restoreDirectory, Path saveDirectory) throws DirectoryException
+  {
+    // intermediate directory content is moved to database directory
+    File targetDirectory = getDirectory();
+    recursiveDelete(targetDirectory);
+    try
+    {
+      Files.move(restoreDirectory, targetDirectory.toPath());
+    }
+    catch(IOException e)
+    {
+      LocalizableMessage msg = ERR_CANNOT_RENAME_RESTORE_DIRECTORY.get(restoreDirectory, targetDirectory.getPath());
+      throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), msg);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * While the database is open, the database file is copied as is, along with the meta page of the current
+   * snapshot: the pages reachable from this snapshot are not reused until the copy is done, so the restored database
+   * is opened on this consistent snapshot.
+   * <p>
+   * Incremental backups are always full backups: the database file keeps the same name and may keep the same size
+   * after any modification.
+   */
+  @Override
+  public void createBackup(BackupConfig backupConfig) throws DirectoryException
+  {
+    final BackupConfig fullBackupConfig = toFullBackup(backupConfig);
+    final MappedDatabase database = db;
+    if (database == null)
+    {
+      new BackupManager(config.getBackendId()).createBackup(this, fullBackupConfig);
+      return;
+    }
+    final Snapshot snapshot = database.acquire();
+    try
+    {
+      database.writeBackupMeta(snapshot);
+      new BackupManager(config.getBackendId()).createBackup(this, fullBackupConfig);
+    }
+    catch (IOException e)
+    {
+      throw new StorageRuntimeException(e);
+    }
+    finally
+    {
+      try
+      {
+        Files.deleteIfExists(getBackupMetaFile().toPath());
+      }
+      catch (IOException e)
+      {
+        logger.traceException(e);
+      }
+      database.release(snapshot);
+    }
+  }
+
+  private static BackupConfig toFullBackup(BackupConfig backupConfig)
+  {
+    if (!backupConfig.isIncremental())
+    {
+      return backupConfig;
+    }
+    final BackupConfig fullBackupConfig =
+        new BackupConfig(backupConfig.getBackupDirectory(), backupConfig.getBackupID(), false);
+    fullBackupConfig.setCompressData(backupConfig.compressData());
+    fullBackupConfig.setEncryptData(backupConfig.encryptData());
+    fullBackupConfig.setHashData(backupConfig.hashData());
+    fullBackupConfig.setSignHash(backupConfig.signHash());
+    return fullBackupConfig;
+  }
+
+  @Override
+  public void removeBackup(BackupDirectory backupDirectory, String backupID) throws DirectoryException
+  {
+    new BackupManager(config.getBackendId()).removeBackup(backupDirectory, backupID);
+  }
+
+  @Override
+  public void restoreBackup(RestoreConfig restoreConfig) throws DirectoryException
+  {
+    new BackupManager(config.getBackendId()).restoreBackup(this, restoreConfig);
+  }
+
+  @Override
+  public Set<TreeName> listTrees()
+  {
+    if (db == null)
+    {
+      return Collections.<TreeName>emptySet();
+    }
+    final Set<String> treeNames = db.getCurrentSnapshot().trees.keySet();
+    final Set<TreeName> results = new HashSet<>(treeNames.size());
+    for (String treeName : treeNames)
+    {
+      results.add(TreeName.valueOf(treeName));
+    }
+    return results;
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(MappedBackendCfg newCfg,
+      List<LocalizableMessage> unacceptableReasons)
+  {
+    return checkConfigurationDirectories(newCfg, unacceptableReasons);
+  }
+
+  /**
+   * Checks newly created backend has a valid configuration.
+   * @param cfg the new configuration
+   * @param unacceptableReasons the list of accumulated errors and their messages
+   * @param context the server context
+   * @return true if newly created backend has a valid configuration
+   */
+  static boolean isConfigurationAcceptable(MappedBackendCfg cfg, List<LocalizableMessage> unacceptableReasons,
+      ServerContext context)
+  {
+    return checkConfigurationDirectories(cfg, unacceptableReasons);
+  }
+
+  private static boolean checkConfigurationDirectories(MappedBackendCfg cfg,
+    List<LocalizableMessage> unacceptableReasons)
+  {
+    final ConfigChangeResult ccr = new ConfigChangeResult();
+    File newBackendDirectory = getBackendDirectory(cfg);
+
+    checkDBDirExistsOrCanCreate(newBackendDirectory, ccr, true);
+    checkDBDirPermissions(cfg.getDBDirectoryPermissions(), cfg.dn(), ccr);
+    if (!ccr.getMessages().isEmpty())
+    {
+      unacceptableReasons.addAll(ccr.getMessages());
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(MappedBackendCfg cfg)
+  {
+    final ConfigChangeResult ccr = new ConfigChangeResult();
+
+    try
+    {
+      File newBackendDirectory = getBackendDirectory(cfg);
+
+      // Create the directory if it doesn't exist.
+      if (!cfg.getDBDirectory().equals(config.getDBDirectory()))
+      {
+        checkDBDirExistsOrCanCreate(newBackendDirectory, ccr, false);
+        if (!ccr.getMessages().isEmpty())
+        {
+          return ccr;
+        }
+
+        ccr.setAdminActionRequired(true);
+        ccr.addMessage(NOTE_CONFIG_DB_DIR_REQUIRES_RESTART.get(config.getDBDirectory(), cfg.getDBDirectory()));
+      }
+
+      if (!cfg.getDBDirectoryPermissions().equalsIgnoreCase(config.getDBDirectoryPermissions())
+          || !cfg.getDBDirectory().equals(config.getDBDirectory()))
+      {
+        checkDBDirPermissions(cfg.getDBDirectoryPermissions(), cfg.dn(), ccr);
+        if (!ccr.getMessages().isEmpty())
+        {
+          return ccr;
+        }
+
+        setDBDirPermissions(newBackendDirectory, cfg.getDBDirectoryPermissions(), cfg.dn(), ccr);
+        if (!ccr.getMessages().isEmpty())
+        {
+          return ccr;
+        }
+      }
+      if (diskMonitor != null)
+      {
+        registerMonitoredDirectory(cfg);
+      }
+      config = cfg;
+    }
+    catch (Exception e)
+    {
+      addErrorMessage(ccr, LocalizableMessage.raw(stackTraceToSingleLineString(e)));
+    }
+    return ccr;
+  }
+
+  private void registerMonitoredDirectory(MappedBackendCfg cfg)
+  {
+    diskMonitor.registerMonitoredDirectory(
+      cfg.getBackendId() + " backend",
+      getDirectory(),
+      cfg.getDiskLowThreshold(),
+      cfg.getDiskFullThreshold(),
+      this);
+  }
+
+  @Override
+  public void removeStorageFiles() throws StorageRuntimeException
+  {
+    StorageUtils.removeStorageFiles(backendDirectory);
+  }
+
+  @Override
+  public StorageStatus getStorageStatus()
+  {
+    return storageStatus;
+  }
+
+  @Override
+  public void diskFullThresholdReached(File directory, long thresholdInBytes) {
+    storageStatus = statusWhenDiskSpaceFull(directory, thresholdInBytes, config.getBackendId());
+  }
+
+  @Override
+  public void diskLowThresholdReached(File directory, long thresholdInBytes) {
+    storageStatus = statusWhenDiskSpaceLow(directory, thresholdInBytes, config.getBackendId());
+  }
+
+  @Override
+  public void diskSpaceRestored(File directory, long lowThresholdInBytes, long fullThresholdInBytes) {
+    storageStatus = StorageStatus.working();
+  }
+}
@@ -0,0 +1,469 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.mapped;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A node copied on write by the current write transaction. It is kept decoded in memory until the transaction
+ * commits, when it is written to the page allocated to it. The page layout is described in {@link PageNode}.
+ */
+final class Node implements NodeView
+{
+  /** A leaf value stored in a chain of overflow pages. */
+  static final class Overflow
+  {
+    final long page;
+    final int length;
+
+    Overflow(long page, int length)
+    {
+      this.page = page;
+      this.length = length;
+    }
+  }
+
+  private final boolean leaf;
+  private final long pageNumber;
+  private final List<byte[]> keys;
+  /** Leaf values: either a {@code byte[]} or an {@link Overflow}. */
+  private final List<Object> values;
+  /** Branch children, {@code keys.size() + 1} are used. */
+  private long[] children;
+  /** Number of bytes needed to write this node to a page. */
+  private int encodedSize = HEADER_SIZE;
+
+  private Node(boolean leaf, long pageNumber, int capacity)
+  {
+    this.leaf = leaf;
+    this.pageNumber = pageNumber;
+    this.keys = new ArrayList<>(capacity);
+    this.values = leaf ? new ArrayList<>(capacity) : null;
+    this.children = leaf ? null : new long[capacity + 1];
+  }
+
+  static Node newLeaf(long pageNumber)
+  {
+    return new Node(true, pageNumber, 16);
+  }
+
+  static Node newBranch(long pageNumber, long leftmostChild)
+  {
+    final Node branch = new Node(false, pageNumber, 16);
+    branch.children[0] = leftmostChild;
+    return branch;
+  }
+
+  /**
+   * Copies a committed node so that it can be modified.
+   *
+   * @param view
+   *          the node to copy
+   * @param pageNumber
+   *          the page allocated to the copy
+   * @return the copy
+   */
+  static Node copyOf(NodeView view, long pageNumber)
+  {
+    final int size = view.size();
+    final Node node = new Node(view.isLeaf(), pageNumber, size + 8);
+    if (node.leaf)
+    {
+      for (int i = 0; i < size; i++)
+      {
+        node.insert(i, view.key(i), valueOf(view, i));
+      }
+    }
+    else
+    {
+      node.children[0] = view.child(0);
+      for (int i = 0; i < size; i++)
+      {
+        node.insertChild(i, view.key(i), view.child(i + 1));
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Returns the value at the provided index of a leaf, as stored in {@link Node}.
+   *
+   * @param leaf
+   *          the leaf node
+   * @param index
+   *          the entry index
+   * @return either a {@code byte[]} or an {@link Overflow}
+   */
+  static Object valueOf(NodeView leaf, int index)
+  {
+    return leaf.isOverflow(index) ? new Overflow(leaf.overflowPage(index), leaf.valueLength(index))
+                                  : leaf.value(index);
+  }
+
+  /**
+   * Returns the number of bytes needed to store a leaf entry.
+   *
+   * @param key
+   *          the entry key
+   * @param value
+   *          either a {@code byte[]} or an {@link Overflow}
+   * @return the number of bytes needed to store the entry, including its offset
+   */
+  static int leafEntrySize(byte[] key, Object value)
+  {
+    return 8 + key.length + (value instanceof byte[] ? ((byte[]) value).length : 8);
+  }
+
+  private static int branchEntrySize(byte[] key)
+  {
+    return 12 + key.length;
+  }
+
+  long getPageNumber()
+  {
+    return pageNumber;
+  }
+
+  @Override
+  public int encodedSize()
+  {
+    return encodedSize;
+  }
+
+  @Override
+  public boolean isLeaf()
+  {
+    return leaf;
+  }
+
+  @Override
+  public int size()
+  {
+    return keys.size();
+  }
+
+  @Override
+  public int search(byte[] key)
+  {
+    int low = 0;
+    int high = keys.size() - 1;
+    while (low <= high)
+    {
+      final int mid = (low + high) >>> 1;
+      final int cmp = compare(keys.get(mid), key);
+      if (cmp < 0)
+      {
+        low = mid + 1;
+      }
+      else if (cmp > 0)
+      {
+        high = mid - 1;
+      }
+      else
+      {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Compares two keys byte by byte as unsigned values.
+   *
+   * @param a
+   *          the first key
+   * @param b
+   *          the second key
+   * @return a negative integer, zero, or a positive integer as the first key is less than, equal to, or greater
+   *         than the second key
+   */
+  static int compare(byte[] a, byte[] b)
+  {
+    final int minLength = Math.min(a.length, b.length);
+    for (int i = 0; i < minLength; i++)
+    {
+      final int cmp = (a[i] & 0xFF) - (b[i] & 0xFF);
+      if (cmp != 0)
+      {
+        return cmp;
+      }
+    }
+    return a.length - b.length;
+  }
+
+  @Override
+  public byte[] key(int index)
+  {
+    return keys.get(index);
+  }
+
+  @Override
+  public long child(int index)
+  {
+    return children[index];
+  }
+
+  @Override
+  public boolean isOverflow(int index)
+  {
+    return values.get(index) instanceof Overflow;
+  }
+
+  @Override
+  public byte[] value(int index)
+  {
+    return (byte[]) values.get(index);
+  }
+
+  @Override
+  public long overflowPage(int index)
+  {
+    return ((Overflow) values.get(index)).page;
+  }
+
+  @Override
+  public int valueLength(int index)
+  {
+    final Object value = values.get(index);
+    return value instanceof Overflow ? ((Overflow) value).length : ((byte[]) value).length;
+  }
+
+  Object getValue(int index)
+  {
+    return values.get(index);
+  }
+
+  void insert(int index, byte[] key, Object value)
+  {
+    keys.add(index, key);
+    values.add(index, value);
+    encodedSize += leafEntrySize(key, value);
+  }
+
+  Object setValue(int index, Object value)
+  {
+    final Object oldValue = values.set(index, value);
+    final byte[] key = keys.get(index);
+    encodedSize += leafEntrySize(key, value) - leafEntrySize(key, oldValue);
+    return oldValue;
+  }
+
+  Object remove(int index)
+  {
+    final byte[] key = keys.remove(index);
+    final Object value = values.remove(index);
+    encodedSize -= leafEntrySize(key, value);
+    return value;
+  }
+
+  void setChild(int index, long page)
+  {
+    children[index] = page;
+  }
+
+  /**
+   * Inserts a key and the child holding the keys greater than or equal to it in this branch.
+   *
+   * @param keyIndex
+   *          the index of the key
+   * @param key
+   *          the key
+   * @param rightChild
+   *          the child inserted at {@code keyIndex + 1}
+   */
+  void insertChild(int keyIndex, byte[] key, long rightChild)
+  {
+    final int size = keys.size();
+    if (children.length < size + 2)
+    {
+      children = Arrays.copyOf(children, children.length * 2);
+    }
+    System.arraycopy(children, keyIndex + 1, children, keyIndex + 2, size - keyIndex);
+    children[keyIndex + 1] = rightChild;
+    keys.add(keyIndex, key);
+    encodedSize += branchEntrySize(key);
+  }
+
+  /**
+   * Removes a child and the key separating it from its left sibling, or from its right sibling for the leftmost
+   * child.
+   *
+   * @param childIndex
+   *          the index of the child to remove
+   */
+  void removeChild(int childIndex)
+  {
+    final int size = keys.size();
+    final byte[] key = keys.remove(childIndex == 0 ? 0 : childIndex - 1);
+    System.arraycopy(children, childIndex + 1, children, childIndex, size - childIndex);
+    encodedSize -= branchEntrySize(key);
+  }
+
+  /**
+   * Returns where to split this node when it does not fit in a page any more.
+   *
+   * @param appending
+   *          whether the last modification appended an entry at the end of the node, in which case the node is
+   *          split just before it so that nodes filled by ascending keys are kept full
+   * @return the index of the first entry of the right node for a leaf, or the index of the key moving up for a branch
+   */
+  int getSplitIndex(boolean appending)
+  {
+    final int size = keys.size();
+    if (appending)
+    {
+      return size - 1;
+    }
+    int used = HEADER_SIZE;
+    for (int i = 0; i < size - 1; i++)
+    {
+      final byte[] key = keys.get(i);
+      used += leaf ? leafEntrySize(key, values.get(i)) : branchEntrySize(key);
+      if (used >= encodedSize / 2)
+      {
+        return Math.max(i, leaf ? 1 : 0);
+      }
+    }
+    return size - 1;
+  }
+
+  /**
+   * Moves the entries starting at the provided index to a new right sibling. For a branch, the key at the provided
+   * index is removed: it must be read before and inserted in the parent.
+   *
+   * @param index
+   *          the split index returned by {@link #getSplitIndex(boolean)}
+   * @param rightPage
+   *          the page allocated to the new node
+   * @return the new right sibling
+   */
+  Node split(int index, long rightPage)
+  {
+    final int size = keys.size();
+    final Node right;
+    if (leaf)
+    {
+      right = new Node(true, rightPage, size - index + 8);
+      for (int i = index; i < size; i++)
+      {
+        right.insert(i - index, keys.get(i), values.get(i));
+      }
+      for (int i = size - 1; i >= index; i--)
+      {
+        remove(i);
+      }
+    }
+    else
+    {
+      right = new Node(false, rightPage, size - index + 8);
+      right.children[0] = children[index + 1];
+      for (int i = index + 1; i < size; i++)
+      {
+        right.insertChild(i - index - 1, keys.get(i), children[i + 1]);
+      }
+      for (int i = size - 1; i >= index; i--)
+      {
+        encodedSize -= branchEntrySize(keys.remove(i));
+      }
+    }
+    return right;
+  }
+
+  /**
+   * Appends all the entries of the right sibling of this node.
+   *
+   * @param right
+   *          the right sibling, which will be removed from the tree
+   * @param separator
+   *          the key separating both nodes in their parent, only used for branches
+   */
+  void merge(NodeView right, byte[] separator)
+  {
+    final int size = right.size();
+    if (leaf)
+    {
+      for (int i = 0; i < size; i++)
+      {
+        insert(keys.size(), right.key(i), valueOf(right, i));
+      }
+    }
+    else
+    {
+      insertChild(keys.size(), separator, right.child(0));
+      for (int i = 0; i < size; i++)
+      {
+        insertChild(keys.size(), right.key(i), right.child(i + 1));
+      }
+    }
+  }
+
+  /**
+   * Writes this node to its page.
+   *
+   * @param page
+   *          a buffer whose position and limit are the bounds of the page
+   */
+  void write(ByteBuffer page)
+  {
+    final int size = keys.size();
+    page.put(TYPE_OFFSET, leaf ? LEAF : BRANCH);
+    page.putShort(COUNT_OFFSET, (short) size);
+    page.putInt(LENGTH_OFFSET, encodedSize);
+    page.putLong(LINK_OFFSET, leaf ? 0 : children[0]);
+    int offset = HEADER_SIZE + 2 * size;
+    for (int i = 0; i < size; i++)
+    {
+      page.putShort(HEADER_SIZE + 2 * i, (short) offset);
+      final byte[] key = keys.get(i);
+      page.putShort(offset, (short) key.length);
+      if (leaf)
+      {
+        final Object value = values.get(i);
+        if (value instanceof byte[])
+        {
+          final byte[] bytes = (byte[]) value;
+          page.putInt(offset + 2, bytes.length);
+          put(page, offset + 6, key);
+          put(page, offset + 6 + key.length, bytes);
+          offset += 6 + key.length + bytes.length;
+        }
+        else
+        {
+          final Overflow overflow = (Overflow) value;
+          page.putInt(offset + 2, overflow.length | OVERFLOW_FLAG);
+          put(page, offset + 6, key);
+          page.putLong(offset + 6 + key.length, overflow.page);
+          offset += 14 + key.length;
+        }
+      }
+      else
+      {
+        page.putLong(offset + 2, children[i + 1]);
+        put(page, offset + 10, key);
+        offset += 10 + key.length;
+      }
+    }
+  }
+
+  private static void put(ByteBuffer page, int offset, byte[] bytes)
+  {
+    page.position(offset);
+    page.put(bytes);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.mapped;
+
+/**
+ * Read access to a B+tree node, either a committed page read in place from the mapped file or a node being modified
+ * by the current write transaction.
+ * <p>
+ * A leaf node holds {@link #size()} sorted keys and their values. A branch node holds {@link #size()} sorted keys
+ * separating {@code size() + 1} children: the child at index {@code i + 1} holds the keys greater than or equal to
+ * the key at index {@code i}.
+ */
+interface NodeView
+{
+  /** Page type of leaf nodes. */
+  byte LEAF = 1;
+  /** Page type of branch nodes. */
+  byte BRANCH = 2;
+  /** Page type of the pages chaining values which do not fit in a leaf. */
+  byte OVERFLOW = 3;
+
+  /** Size of the header of each page. */
+  int HEADER_SIZE = 16;
+  /** Offset of the page type. */
+  int TYPE_OFFSET = 0;
+  /** Offset of the number of keys of a node. */
+  int COUNT_OFFSET = 2;
+  /** Offset of the number of bytes used in the page. */
+  int LENGTH_OFFSET = 4;
+  /** Offset of the leftmost child of a branch, or of the next page of an overflow page. */
+  int LINK_OFFSET = 8;
+  /** Set in the value length of leaf entries whose value is stored in overflow pages. */
+  int OVERFLOW_FLAG = 0x80000000;
+
+  /** Maximum size of a leaf or branch entry: any node holding more than one entry can always be split. */
+  int MAX_ENTRY_SIZE = PageFile.PAGE_SIZE / 4;
+  /** Maximum size of a key. */
+  int MAX_KEY_SIZE = 2000;
+
+  /**
+   * Returns whether this node is a leaf.
+   *
+   * @return {@code true} if this node is a leaf, {@code false} if it is a branch
+   */
+  boolean isLeaf();
+
+  /**
+   * Returns the number of keys in this node.
+   *
+   * @return the number of keys in this node
+   */
+  int size();
+
+  /**
+   * Returns the number of bytes needed to write this node to a page.
+   *
+   * @return the number of bytes needed to write this node to a page
+   */
+  int encodedSize();
+
+  /**
+   * Searches the provided key in this node.
+   *
+   * @param key
+   *          the key to search
+   * @return the index of the key if found, otherwise {@code (-(insertion point) - 1)}, like
+   *         {@link java.util.Arrays#binarySearch(byte[], byte)}
+   */
+  int search(byte[] key);
+
+  /**
+   * Returns the key at the provided index. The returned array must not be modified.
+   *
+   * @param index
+   *          the key index
+   * @return the key
+   */
+  byte[] key(int index);
+
+  /**
+   * Returns the child page at the provided index of this branch.
+   *
+   * @param index
+   *          the child index, between {@code 0} and {@code size()}
+   * @return the child page number
+   */
+  long child(int index);
+
+  /**
+   * Returns whether the value at the provided index of this leaf is stored in overflow pages.
+   *
+   * @param index
+   *          the entry index
+   * @return {@code true} if the value is stored in overflow pages
+   */
+  boolean isOverflow(int index);
+
+  /**
+   * Returns the value at the provided index of this leaf, when it is stored in the leaf. The returned array must not
+   * be modified.
+   *
+   * @param index
+   *          the entry index
+   * @return the value
+   */
+  byte[] value(int index);
+
+  /**
+   * Returns the first overflow page holding the value at the provided index of this leaf.
+   *
+   * @param index
+   *          the entry index
+   * @return the first overflow page number
+   */
+  long overflowPage(int index);
+
+  /**
+   * Returns the length of the value at the provided index of this leaf.
+   *
+   * @param index
+   *          the entry index
+   * @return the length of the value
+   */
+  int valueLength(int index);
+}
@@ -0,0 +1,222 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.mapped;
+
+import static java.nio.file.StandardOpenOption.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A file of fixed size pages mapped in memory by segments.
+ * <p>
+ * Pages are read with absolute accesses on the mapped segments so that they can be shared by any number of
+ * concurrent readers. Only the single writer maps new segments, writes pages and flushes them to disk.
+ */
+final class PageFile implements Closeable
+{
+  /** Size of a page in bytes. */
+  static final int PAGE_SIZE = 8192;
+  /** Number of pages mapped at once: the file grows by 64MB increments. */
+  private static final int PAGES_PER_SEGMENT = 8192;
+  private static final long SEGMENT_SIZE = (long) PAGE_SIZE * PAGES_PER_SEGMENT;
+
+  private final File file;
+  private final FileChannel channel;
+  private final boolean writeable;
+  /** Mapped segments, replaced by a larger copy when the file grows. */
+  private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+  /** Segments written since the last call to {@link #sync()}. */
+  private final BitSet dirtySegments = new BitSet();
+
+  PageFile(File file, boolean writeable) throws IOException
+  {
+    this.file = file;
+    this.writeable = writeable;
+    this.channel = writeable
+        ? FileChannel.open(file.toPath(), READ, WRITE, CREATE)
+        : FileChannel.open(file.toPath(), READ);
+    if (writeable)
+    {
+      ensureMapped(Math.max(1, channel.size() / PAGE_SIZE));
+    }
+    else
+    {
+      mapReadOnly(channel.size());
+    }
+  }
+
+  private void mapReadOnly(long fileSize) throws IOException
+  {
+    final int nbSegments = (int) ((fileSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+    final MappedByteBuffer[] mapped = new MappedByteBuffer[nbSegments];
+    for (int i = 0; i < nbSegments; i++)
+    {
+      final long position = i * SEGMENT_SIZE;
+      mapped[i] = channel.map(MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, fileSize - position));
+    }
+    segments = mapped;
+  }
+
+  /**
+   * Ensures the provided number of pages are mapped, growing the file if needed.
+   *
+   * @param nbPages
+   *          the number of pages which must be accessible
+   * @throws IOException
+   *           if the file could not be extended
+   */
+  void ensureMapped(long nbPages) throws IOException
+  {
+    MappedByteBuffer[] mapped = segments;
+    final int nbSegments = (int) ((nbPages + PAGES_PER_SEGMENT - 1) / PAGES_PER_SEGMENT);
+    if (nbSegments > mapped.length)
+    {
+      mapped = Arrays.copyOf(mapped, nbSegments);
+      for (int i = segments.length; i < nbSegments; i++)
+      {
+        mapped[i] = channel.map(MapMode.READ_WRITE, i * SEGMENT_SIZE, SEGMENT_SIZE);
+      }
+      segments = mapped;
+    }
+  }
+
+  /**
+   * Returns the number of pages which are currently accessible.
+   *
+   * @return the number of pages which are currently accessible
+   */
+  long getMappedPages()
+  {
+    final MappedByteBuffer[] mapped = segments;
+    return mapped.length == 0 ? 0 : (mapped.length - 1L) * PAGES_PER_SEGMENT
+        + mapped[mapped.length - 1].capacity() / PAGE_SIZE;
+  }
+
+  /**
+   * Returns the mapped segment holding the provided page. The buffer must only be accessed with absolute methods
+   * starting at {@link #offset(long)}.
+   *
+   * @param pageNumber
+   *          the page number
+   * @return the mapped segment holding the page
+   */
+  ByteBuffer segment(long pageNumber)
+  {
+    final MappedByteBuffer[] mapped = segments;
+    final long index = pageNumber / PAGES_PER_SEGMENT;
+    if (pageNumber < 0 || index >= mapped.length || offset(pageNumber) >= mapped[(int) index].capacity())
+    {
+      throw new IllegalArgumentException("Page " + pageNumber + " is out of the bounds of " + file);
+    }
+    return mapped[(int) index];
+  }
+
+  /**
+   * Returns the offset of the provided page in its segment.
+   *
+   * @param pageNumber
+   *          the page number
+   * @return the offset of the page in its segment
+   */
+  static int offset(long pageNumber)
+  {
+    return (int) (pageNumber % PAGES_PER_SEGMENT) * PAGE_SIZE;
+  }
+
+  /**
+   * Returns a buffer positioned on the provided page, for writing its content.
+   *
+   * @param pageNumber
+   *          the page number
+   * @return a buffer whose position and limit are the bounds of the page
+   */
+  ByteBuffer writePage(long pageNumber)
+  {
+    final ByteBuffer buffer = segment(pageNumber).duplicate();
+    final int offset = offset(pageNumber);
+    buffer.limit(offset + PAGE_SIZE).position(offset);
+    dirtySegments.set((int) (pageNumber / PAGES_PER_SEGMENT));
+    return buffer.slice();
+  }
+
+  /**
+   * Copies part of a page content.
+   *
+   * @param pageNumber
+   *          the page number
+   * @param offsetInPage
+   *          offset of the first byte to read in the page
+   * @param dst
+   *          the destination array
+   * @param dstOffset
+   *          offset of the first byte to write in the destination array
+   * @param length
+   *          the number of bytes to copy
+   */
+  void read(long pageNumber, int offsetInPage, byte[] dst, int dstOffset, int length)
+  {
+    final ByteBuffer buffer = segment(pageNumber).duplicate();
+    buffer.position(offset(pageNumber) + offsetInPage);
+    buffer.get(dst, dstOffset, length);
+  }
+
+  /** Flushes all the pages written since the last call to disk. */
+  void sync()
+  {
+    final MappedByteBuffer[] mapped = segments;
+    for (int i = dirtySegments.nextSetBit(0); i >= 0; i = dirtySegments.nextSetBit(i + 1))
+    {
+      mapped[i].force();
+    }
+    dirtySegments.clear();
+  }
+
+  boolean isWriteable()
+  {
+    return writeable;
+  }
+
+  long getFileSize() throws IOException
+  {
+    return channel.size();
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    if (writeable)
+    {
+      sync();
+    }
+    // Mappings are released by the garbage collector
+    segments = new MappedByteBuffer[0];
+    channel.close();
+  }
+
+  @Override
+  public String toString()
+  {
+    return file.getPath();
+  }
+}
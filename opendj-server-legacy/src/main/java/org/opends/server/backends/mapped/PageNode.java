@@ -0,0 +1,166 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.mapped;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A committed node read in place from its mapped page.
+ * <p>
+ * Page layout: the {@link NodeView#HEADER_SIZE header}, followed by one unsigned short offset per entry, followed by
+ * the entries. A leaf entry is the key length (unsigned short), the value length (int), the key and then either the
+ * value or the number of the first overflow page holding it. A branch entry is the key length (unsigned short), the
+ * child page number (long) and the key. The leftmost child of a branch is stored in the header.
+ */
+final class PageNode implements NodeView
+{
+  private final ByteBuffer buffer;
+  private final int base;
+
+  PageNode(PageFile pageFile, long pageNumber)
+  {
+    this.buffer = pageFile.segment(pageNumber);
+    this.base = PageFile.offset(pageNumber);
+    final byte type = buffer.get(base + TYPE_OFFSET);
+    if (type != LEAF && type != BRANCH)
+    {
+      throw new IllegalStateException("Page " + pageNumber + " of " + pageFile + " is not a B+tree node");
+    }
+  }
+
+  @Override
+  public boolean isLeaf()
+  {
+    return buffer.get(base + TYPE_OFFSET) == LEAF;
+  }
+
+  @Override
+  public int size()
+  {
+    return buffer.getShort(base + COUNT_OFFSET) & 0xFFFF;
+  }
+
+  @Override
+  public int encodedSize()
+  {
+    return buffer.getInt(base + LENGTH_OFFSET);
+  }
+
+  private int entry(int index)
+  {
+    return base + (buffer.getShort(base + HEADER_SIZE + 2 * index) & 0xFFFF);
+  }
+
+  private int keyLength(int entry)
+  {
+    return buffer.getShort(entry) & 0xFFFF;
+  }
+
+  private int keyOffset(int entry)
+  {
+    return entry + (isLeaf() ? 6 : 10);
+  }
+
+  @Override
+  public int search(byte[] key)
+  {
+    final boolean leaf = isLeaf();
+    int low = 0;
+    int high = size() - 1;
+    while (low <= high)
+    {
+      final int mid = (low + high) >>> 1;
+      final int entry = entry(mid);
+      final int cmp = compare(entry + (leaf ? 6 : 10), keyLength(entry), key);
+      if (cmp < 0)
+      {
+        low = mid + 1;
+      }
+      else if (cmp > 0)
+      {
+        high = mid - 1;
+      }
+      else
+      {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /** Compares the key stored in the page with the provided key, byte by byte as unsigned values. */
+  private int compare(int offset, int length, byte[] key)
+  {
+    final int minLength = Math.min(length, key.length);
+    for (int i = 0; i < minLength; i++)
+    {
+      final int cmp = (buffer.get(offset + i) & 0xFF) - (key[i] & 0xFF);
+      if (cmp != 0)
+      {
+        return cmp;
+      }
+    }
+    return length - key.length;
+  }
+
+  @Override
+  public byte[] key(int index)
+  {
+    final int entry = entry(index);
+    return copy(keyOffset(entry), keyLength(entry));
+  }
+
+  private byte[] copy(int offset, int length)
+  {
+    final byte[] bytes = new byte[length];
+    final ByteBuffer src = buffer.duplicate();
+    src.position(offset);
+    src.get(bytes);
+    return bytes;
+  }
+
+  @Override
+  public long child(int index)
+  {
+    return index == 0 ? buffer.getLong(base + LINK_OFFSET) : buffer.getLong(entry(index - 1) + 2);
+  }
+
+  @Override
+  public boolean isOverflow(int index)
+  {
+    return (buffer.getInt(entry(index) + 2) & OVERFLOW_FLAG) != 0;
+  }
+
+  @Override
+  public byte[] value(int index)
+  {
+    final int entry = entry(index);
+    return copy(entry + 6 + keyLength(entry), buffer.getInt(entry + 2));
+  }
+
+  @Override
+  public long overflowPage(int index)
+  {
+    final int entry = entry(index);
+    return buffer.getLong(entry + 6 + keyLength(entry));
+  }
+
+  @Override
+  public int valueLength(int index)
+  {
+    return buffer.getInt(entry(index) + 2) & ~OVERFLOW_FLAG;
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.mapped;
+
+import java.io.Closeable;
+
+import org.opends.server.backends.mapped.Snapshot.TreeInfo;
+
+/**
+ * A read-only transaction on a {@link Snapshot}. Nodes are read in place from the mapped file and only the returned
+ * keys and values are copied.
+ */
+class ReadTxn implements Closeable
+{
+  /** Maximum depth of a tree, far beyond what a 64 bits page number allows. */
+  static final int MAX_DEPTH = 32;
+
+  final MappedDatabase db;
+  final Snapshot snapshot;
+  private boolean closed;
+
+  ReadTxn(MappedDatabase db, Snapshot snapshot)
+  {
+    this.db = db;
+    this.snapshot = snapshot;
+  }
+
+  /**
+   * Returns the node stored in the provided page.
+   *
+   * @param page
+   *          the page number
+   * @return the node
+   */
+  NodeView node(long page)
+  {
+    return new PageNode(db.getPageFile(), page);
+  }
+
+  /**
+   * Returns the root and the number of records of a tree.
+   *
+   * @param treeName
+   *          the tree name
+   * @return the tree information, or {@code null} if the tree does not exist
+   */
+  TreeInfo tree(String treeName)
+  {
+    return snapshot.trees.get(treeName);
+  }
+
+  /**
+   * Returns a number which changes each time this transaction modifies a tree. Cursors use it to detect that they
+   * must be repositioned.
+   *
+   * @return the modification count
+   */
+  int getModCount()
+  {
+    return 0;
+  }
+
+  /**
+   * Returns the index of the child of a branch to follow when searching a key.
+   *
+   * @param searchResult
+   *          the result of {@link NodeView#search(byte[])} on the branch
+   * @return the child index
+   */
+  static int childIndex(int searchResult)
+  {
+    return searchResult >= 0 ? searchResult + 1 : -(searchResult + 1);
+  }
+
+  /**
+   * Reads the value of a key.
+   *
+   * @param treeName
+   *          the tree name
+   * @param key
+   *          the key
+   * @return the value, or {@code null} if the key does not exist
+   */
+  byte[] get(String treeName, byte[] key)
+  {
+    final TreeInfo tree = tree(treeName);
+    if (tree == null || tree.root == 0)
+    {
+      return null;
+    }
+    NodeView node = node(tree.root);
+    while (!node.isLeaf())
+    {
+      node = node(node.child(childIndex(node.search(key))));
+    }
+    final int index = node.search(key);
+    return index >= 0 ? readValue(node, index) : null;
+  }
+
+  /**
+   * Returns the value at the provided index of a leaf, reading it from its overflow pages if needed.
+   *
+   * @param leaf
+   *          the leaf node
+   * @param index
+   *          the entry index
+   * @return the value
+   */
+  byte[] readValue(NodeView leaf, int index)
+  {
+    return leaf.isOverflow(index) ? db.readChain(leaf.overflowPage(index), leaf.valueLength(index))
+                                  : leaf.value(index);
+  }
+
+  /**
+   * Returns the number of records of a tree.
+   *
+   * @param treeName
+   *          the tree name
+   * @return the number of records of the tree, or {@code 0} if it does not exist
+   */
+  long getRecordCount(String treeName)
+  {
+    final TreeInfo tree = tree(treeName);
+    return tree != null ? tree.count : 0;
+  }
+
+  /**
+   * Opens a cursor on a tree.
+   *
+   * @param treeName
+   *          the tree name
+   * @return a new cursor which must be closed before this transaction
+   */
+  MappedCursor openCursor(String treeName)
+  {
+    return new MappedCursor(this, treeName);
+  }
+
+  @Override
+  public void close()
+  {
+    if (!closed)
+    {
+      closed = true;
+      db.release(snapshot);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.mapped;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An immutable committed state of the database. The pages reachable from a snapshot are never modified, and are not
+ * reused as long as the snapshot is registered by a reader.
+ */
+final class Snapshot
+{
+  /** Root page and number of records of a tree. */
+  static final class TreeInfo
+  {
+    static final TreeInfo EMPTY = new TreeInfo(0, 0);
+
+    /** The root page, or {@code 0} for an empty tree. */
+    final long root;
+    final long count;
+
+    TreeInfo(long root, long count)
+    {
+      this.root = root;
+      this.count = count;
+    }
+  }
+
+  /** Identifier of the transaction which committed this snapshot. */
+  final long txnId;
+  /** First page which has never been allocated. */
+  final long nextPage;
+  /** Pages holding the serialized catalog of the trees. */
+  final long[] catalogPages;
+  /** The trees, by name. */
+  final Map<String, TreeInfo> trees;
+  /** Number of transactions currently reading this snapshot. */
+  final AtomicInteger readers = new AtomicInteger();
+
+  Snapshot(long txnId, long nextPage, long[] catalogPages, Map<String, TreeInfo> trees)
+  {
+    this.txnId = txnId;
+    this.nextPage = nextPage;
+    this.catalogPages = catalogPages;
+    this.trees = Collections.unmodifiableMap(trees);
+  }
+}
@@ -0,0 +1,487 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.mapped;
+
+import static org.opends.server.backends.mapped.NodeView.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.opends.server.backends.mapped.Node.Overflow;
+import org.opends.server.backends.mapped.Snapshot.TreeInfo;
+
+/**
+ * A write transaction. Modified nodes are copied on write to newly allocated pages and kept in memory until the
+ * transaction commits, so that the pages of the snapshot it started from are left untouched for concurrent readers.
+ * <p>
+ * Write transactions are serialized by the write lock of the database, which must be held when calling any method.
+ */
+final class WriteTxn extends ReadTxn
+{
+  /** Nodes modified by this transaction, by page number. */
+  private final Map<Long, Node> dirtyNodes = new HashMap<>();
+  /** Pages allocated by this transaction: they can be released immediately if they are not used any more. */
+  private final Set<Long> allocatedPages = new HashSet<>();
+  /** Committed pages which are not used any more by this transaction. */
+  private final List<Long> freedPages = new ArrayList<>();
+  /** Trees modified by this transaction, a {@code null} value meaning the tree is deleted. */
+  private final Map<String, TreeInfo> modifiedTrees = new HashMap<>();
+  private int modCount;
+
+  WriteTxn(MappedDatabase db, Snapshot snapshot)
+  {
+    super(db, snapshot);
+  }
+
+  @Override
+  NodeView node(long page)
+  {
+    final Node node = dirtyNodes.get(page);
+    return node != null ? node : super.node(page);
+  }
+
+  @Override
+  TreeInfo tree(String treeName)
+  {
+    if (modifiedTrees.containsKey(treeName))
+    {
+      return modifiedTrees.get(treeName);
+    }
+    return super.tree(treeName);
+  }
+
+  @Override
+  int getModCount()
+  {
+    return modCount;
+  }
+
+  boolean isModified()
+  {
+    return !modifiedTrees.isEmpty();
+  }
+
+  Map<String, TreeInfo> getModifiedTrees()
+  {
+    return modifiedTrees;
+  }
+
+  Collection<Node> getDirtyNodes()
+  {
+    return dirtyNodes.values();
+  }
+
+  Set<Long> getAllocatedPages()
+  {
+    return allocatedPages;
+  }
+
+  List<Long> getFreedPages()
+  {
+    return freedPages;
+  }
+
+  /**
+   * Creates a tree if it does not exist.
+   *
+   * @param treeName
+   *          the tree name
+   */
+  void openTree(String treeName)
+  {
+    if (tree(treeName) == null)
+    {
+      setTree(treeName, TreeInfo.EMPTY);
+    }
+  }
+
+  /**
+   * Removes all the records of a tree, creating it if it does not exist.
+   *
+   * @param treeName
+   *          the tree name
+   */
+  void clearTree(String treeName)
+  {
+    final TreeInfo tree = tree(treeName);
+    if (tree != null)
+    {
+      freeTree(tree.root);
+    }
+    setTree(treeName, TreeInfo.EMPTY);
+  }
+
+  /**
+   * Deletes a tree and all its records.
+   *
+   * @param treeName
+   *          the tree name
+   */
+  void deleteTree(String treeName)
+  {
+    final TreeInfo tree = tree(treeName);
+    if (tree != null)
+    {
+      freeTree(tree.root);
+      setTree(treeName, null);
+    }
+  }
+
+  private void setTree(String treeName, TreeInfo tree)
+  {
+    modifiedTrees.put(treeName, tree);
+    modCount++;
+  }
+
+  /**
+   * Inserts or replaces a record, creating the tree if it does not exist.
+   *
+   * @param treeName
+   *          the tree name
+   * @param key
+   *          the key
+   * @param value
+   *          the value
+   * @return {@code true} if the record was inserted, {@code false} if it was replaced
+   */
+  boolean put(String treeName, byte[] key, byte[] value)
+  {
+    if (key.length > MAX_KEY_SIZE)
+    {
+      throw new IllegalArgumentException(
+          "Key of " + key.length + " bytes exceeds the maximum of " + MAX_KEY_SIZE + " bytes in tree " + treeName);
+    }
+    TreeInfo tree = tree(treeName);
+    if (tree == null)
+    {
+      tree = TreeInfo.EMPTY;
+    }
+    final Object storedValue = Node.leafEntrySize(key, value) <= MAX_ENTRY_SIZE
+        ? value : new Overflow(writeOverflow(value), value.length);
+    if (tree.root == 0)
+    {
+      final Node leaf = newNode(true, 0);
+      leaf.insert(0, key, storedValue);
+      setTree(treeName, new TreeInfo(leaf.getPageNumber(), 1));
+      return true;
+    }
+
+    final Node[] path = new Node[MAX_DEPTH];
+    final int[] indexes = new int[MAX_DEPTH];
+    final Node root = writable(tree.root);
+    final int depth = descend(root, key, path, indexes);
+    final Node leaf = depth > 0 ? (Node) node(path[depth - 1].child(indexes[depth - 1])) : root;
+
+    final int index = leaf.search(key);
+    final boolean inserted = index < 0;
+    boolean appending = false;
+    if (inserted)
+    {
+      final int insertionPoint = -(index + 1);
+      appending = insertionPoint == leaf.size() && isRightmost(path, indexes, depth);
+      leaf.insert(insertionPoint, key, storedValue);
+    }
+    else
+    {
+      freeValue(leaf.setValue(index, storedValue));
+    }
+    final long rootPage = splitIfNeeded(path, indexes, depth, leaf, appending, root);
+    setTree(treeName, new TreeInfo(rootPage, inserted ? tree.count + 1 : tree.count));
+    return inserted;
+  }
+
+  /**
+   * Deletes a record.
+   *
+   * @param treeName
+   *          the tree name
+   * @param key
+   *          the key
+   * @return {@code true} if the record was deleted, {@code false} if it did not exist
+   */
+  boolean delete(String treeName, byte[] key)
+  {
+    final TreeInfo tree = tree(treeName);
+    if (tree == null || tree.root == 0 || !contains(tree.root, key))
+    {
+      return false;
+    }
+
+    final Node[] path = new Node[MAX_DEPTH];
+    final int[] indexes = new int[MAX_DEPTH];
+    final Node root = writable(tree.root);
+    final int depth = descend(root, key, path, indexes);
+    final Node leaf = depth > 0 ? (Node) node(path[depth - 1].child(indexes[depth - 1])) : root;
+
+    freeValue(leaf.remove(leaf.search(key)));
+    final long rootPage = rebalance(path, indexes, depth, leaf, root);
+    setTree(treeName, new TreeInfo(rootPage, tree.count - 1));
+    return true;
+  }
+
+  private boolean contains(long root, byte[] key)
+  {
+    NodeView node = node(root);
+    while (!node.isLeaf())
+    {
+      node = node(node.child(childIndex(node.search(key))));
+    }
+    return node.search(key) >= 0;
+  }
+
+  /**
+   * Copies on write the nodes from the root to the leaf where the key belongs.
+   *
+   * @return the depth of the leaf, {@code path} and {@code indexes} holding the branches above it and the index of
+   *         the child followed in each of them
+   */
+  private int descend(Node root, byte[] key, Node[] path, int[] indexes)
+  {
+    int depth = 0;
+    Node node = root;
+    while (!node.isLeaf())
+    {
+      final int index = childIndex(node.search(key));
+      path[depth] = node;
+      indexes[depth] = index;
+      depth++;
+      final Node child = writable(node.child(index));
+      node.setChild(index, child.getPageNumber());
+      node = child;
+    }
+    return depth;
+  }
+
+  private static boolean isRightmost(Node[] path, int[] indexes, int depth)
+  {
+    for (int i = 0; i < depth; i++)
+    {
+      if (indexes[i] != path[i].size())
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Splits the modified node and its ancestors until they all fit in a page, returning the root page. */
+  private long splitIfNeeded(Node[] path, int[] indexes, int depth, Node node, boolean appending, Node root)
+  {
+    while (node.encodedSize() > PageFile.PAGE_SIZE)
+    {
+      final int splitIndex = node.getSplitIndex(appending);
+      final byte[] separator = node.isLeaf()
+          ? separator(node.key(splitIndex - 1), node.key(splitIndex))
+          : node.key(splitIndex);
+      final Node right = node.split(splitIndex, allocate());
+      dirtyNodes.put(right.getPageNumber(), right);
+      if (depth == 0)
+      {
+        final Node newRoot = newNode(false, node.getPageNumber());
+        newRoot.insertChild(0, separator, right.getPageNumber());
+        return newRoot.getPageNumber();
+      }
+      depth--;
+      final Node parent = path[depth];
+      parent.insertChild(indexes[depth], separator, right.getPageNumber());
+      node = parent;
+    }
+    return root.getPageNumber();
+  }
+
+  /**
+   * Returns the shortest key greater than the left key and lower than or equal to the right key, to keep branches
+   * small.
+   */
+  private static byte[] separator(byte[] left, byte[] right)
+  {
+    int i = 0;
+    while (i < left.length && left[i] == right[i])
+    {
+      i++;
+    }
+    return i + 1 < right.length ? Arrays.copyOf(right, i + 1) : right;
+  }
+
+  /** Removes the empty nodes and merges the small nodes after a deletion, returning the root page. */
+  private long rebalance(Node[] path, int[] indexes, int depth, Node node, Node root)
+  {
+    boolean empty = node.size() == 0;
+    while (depth > 0)
+    {
+      depth--;
+      final Node parent = path[depth];
+      final int index = indexes[depth];
+      if (empty)
+      {
+        free(node.getPageNumber());
+        if (parent.size() > 0)
+        {
+          parent.removeChild(index);
+          empty = false;
+        }
+        // else the parent had no other child and is now empty too
+      }
+      else if (!mergeWithSibling(parent, index, node))
+      {
+        break;
+      }
+      node = parent;
+    }
+
+    if (empty)
+    {
+      free(node.getPageNumber());
+      return 0;
+    }
+    // Collapse the root while it is a branch with a single child
+    long rootPage = root.getPageNumber();
+    NodeView rootNode = root;
+    while (!rootNode.isLeaf() && rootNode.size() == 0)
+    {
+      final long child = rootNode.child(0);
+      free(rootPage);
+      rootPage = child;
+      rootNode = node(child);
+    }
+    return rootPage;
+  }
+
+  /** Merges a small node with one of its siblings when they fit together in a page. */
+  private boolean mergeWithSibling(Node parent, int index, Node node)
+  {
+    if (node.encodedSize() >= PageFile.PAGE_SIZE / 4 || parent.size() == 0)
+    {
+      return false;
+    }
+    final int leftIndex = index < parent.size() ? index : index - 1;
+    final byte[] separator = parent.key(leftIndex);
+    final NodeView left = leftIndex == index ? node : node(parent.child(leftIndex));
+    final NodeView right = leftIndex == index ? node(parent.child(index + 1)) : node;
+    final int mergedSize = left.encodedSize() + right.encodedSize() - HEADER_SIZE
+        + (left.isLeaf() ? 0 : 12 + separator.length);
+    if (mergedSize > PageFile.PAGE_SIZE * 3 / 4)
+    {
+      return false;
+    }
+    final Node writableLeft = writable(parent.child(leftIndex));
+    parent.setChild(leftIndex, writableLeft.getPageNumber());
+    writableLeft.merge(right, separator);
+    free(parent.child(leftIndex + 1));
+    parent.removeChild(leftIndex + 1);
+    return true;
+  }
+
+  /** Releases all the pages of a tree. */
+  private void freeTree(long root)
+  {
+    if (root == 0)
+    {
+      return;
+    }
+    final Deque<Long> pages = new ArrayDeque<>();
+    pages.push(root);
+    while (!pages.isEmpty())
+    {
+      final long page = pages.pop();
+      final NodeView node = node(page);
+      if (node.isLeaf())
+      {
+        for (int i = 0; i < node.size(); i++)
+        {
+          if (node.isOverflow(i))
+          {
+            freeValue(Node.valueOf(node, i));
+          }
+        }
+      }
+      else
+      {
+        for (int i = 0; i <= node.size(); i++)
+        {
+          pages.push(node.child(i));
+        }
+      }
+      free(page);
+    }
+  }
+
+  private Node newNode(boolean leaf, long leftmostChild)
+  {
+    final long page = allocate();
+    final Node node = leaf ? Node.newLeaf(page) : Node.newBranch(page, leftmostChild);
+    dirtyNodes.put(page, node);
+    return node;
+  }
+
+  /** Returns a modifiable copy of the node stored in the provided page. */
+  private Node writable(long page)
+  {
+    final Node node = dirtyNodes.get(page);
+    if (node != null)
+    {
+      return node;
+    }
+    final Node copy = Node.copyOf(node(page), allocate());
+    dirtyNodes.put(copy.getPageNumber(), copy);
+    free(page);
+    return copy;
+  }
+
+  private long allocate()
+  {
+    final long page = db.allocate();
+    allocatedPages.add(page);
+    return page;
+  }
+
+  private void free(long page)
+  {
+    if (allocatedPages.remove(page))
+    {
+      dirtyNodes.remove(page);
+      db.release(page);
+    }
+    else
+    {
+      freedPages.add(page);
+    }
+  }
+
+  private void freeValue(Object value)
+  {
+    if (value instanceof Overflow)
+    {
+      for (long page : db.getChainPages(((Overflow) value).page))
+      {
+        free(page);
+      }
+    }
+  }
+
+  private long writeOverflow(byte[] value)
+  {
+    return db.writeChain(value, this::allocate)[0];
+  }
+}
@@ -14,6 +14,7 @@
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
  * Portions Copyright 2014 Manuel Gaupp
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -50,6 +51,7 @@ import org.forgerock.opendj.ldap.schema.UnknownSchemaElementException;
 import org.forgerock.opendj.ldap.spi.IndexQueryFactory;
 import org.forgerock.opendj.ldap.spi.Indexer;
 import org.forgerock.opendj.ldap.spi.IndexingOptions;
+import org.forgerock.opendj.server.config.meta.BackendIndexCfgDefn.EntryIdSetEncoding;
 import org.forgerock.opendj.server.config.meta.BackendIndexCfgDefn.IndexType;
 import org.forgerock.opendj.server.config.server.BackendIndexCfg;
 import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
@@ -291,6 +293,7 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
   private IndexingOptions indexingOptions;
   private final State state;
   private final CryptoSuite cryptoSuite;
+  private final IndexStatistics statistics = new IndexStatistics();
 
   AttributeIndex(BackendIndexCfg config, State state, EntryContainer entryContainer, CryptoSuite cryptoSuite)
       throws ConfigException
@@ -337,7 +340,18 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
         throw noMatchingRuleForIndexType(attributeType, indexType);
       }
     }
-    return buildIndexesForIndexers(entryContainer, attributeType, state, indexEntryLimit, indexers, cryptoSuite);
+    final Map<String, MatchingRuleIndex> indexes =
+        buildIndexesForIndexers(entryContainer, attributeType, state, indexEntryLimit, indexers, cryptoSuite);
+    for (MatchingRuleIndex index : indexes.values())
+    {
+      index.setBitmapEncoding(isBitmapEncoding(config));
+    }
+    return indexes;
+  }
+
+  private static boolean isBitmapEncoding(BackendIndexCfg config)
+  {
+    return config.getEntryIdSetEncoding() == EntryIdSetEncoding.BITMAP;
   }
 
   private Map<Indexer, Boolean> buildBaseIndexers(boolean protectIndexKeys, boolean protectIndexValues,
@@ -453,6 +467,15 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
     config.removeChangeListener(this);
   }
 
+  /**
+   * Get the lookup statistics of this attribute index.
+   * @return The lookup statistics of this attribute index.
+   */
+  IndexStatistics getStatistics()
+  {
+    return statistics;
+  }
+
   /**
    * Get the attribute type of this attribute index.
    * @return The attribute type of this attribute index.
@@ -1014,6 +1037,8 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
     {
       updatedIndex.setTrusted(txn, false);
     }
+    // Both encodings can be read back, the new one applies to the next updates.
+    updatedIndex.setBitmapEncoding(isBitmapEncoding(newConfig));
   }
 
   private static void deleteIndex(WriteableTransaction txn, EntryContainer entryContainer, Index index)
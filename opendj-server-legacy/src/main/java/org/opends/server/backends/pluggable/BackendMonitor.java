@@ -13,26 +13,31 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
 import org.opends.server.api.MonitorData;
 import org.opends.server.api.MonitorProvider;
+import org.opends.server.types.FilterType;
 import org.opends.server.types.SearchFilter;
 import org.opends.server.util.TimeThread;
 
 /**
- * A monitor provider for high level backend statistics, such as filter stats and search counters.
+ * A monitor provider for high level backend statistics, such as filter stats, index lookup stats and search counters.
  */
 class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
 {
@@ -69,6 +74,48 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
     }
   }
 
+  /**
+   * Represents the cost of the searches performed with a filter shape, i.e. a search filter whose assertion values
+   * have been removed. Guarded by the lock of {@link BackendMonitor#filterShapeToStats}.
+   */
+  private static final class FilterShapeStats
+  {
+    private long searches;
+    private long unindexedSearches;
+    private long totalNanoTime;
+    private long maxNanoTime;
+    private long maxCandidates;
+
+    private void update(long candidates, long elapsedNanoTime)
+    {
+      searches++;
+      if (candidates < 0)
+      {
+        unindexedSearches++;
+      }
+      else if (candidates > maxCandidates)
+      {
+        maxCandidates = candidates;
+      }
+      totalNanoTime += elapsedNanoTime;
+      if (elapsedNanoTime > maxNanoTime)
+      {
+        maxNanoTime = elapsedNanoTime;
+      }
+    }
+  }
+
+  /** Orders filter shape statistics from the most to the least expensive. */
+  private static final Comparator<Map.Entry<String, FilterShapeStats>> MOST_EXPENSIVE_FIRST =
+      new Comparator<Map.Entry<String, FilterShapeStats>>()
+      {
+        @Override
+        public int compare(Map.Entry<String, FilterShapeStats> e1, Map.Entry<String, FilterShapeStats> e2)
+        {
+          return Long.compare(e2.getValue().totalNanoTime, e1.getValue().totalNanoTime);
+        }
+      };
+
   /** The name of this monitor instance. */
   private final String name;
   /** The root container to be monitored. */
@@ -78,6 +125,7 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
   private boolean filterUseEnabled;
   private String startTimeStamp;
   private final HashMap<SearchFilter, FilterStats> filterToStats = new HashMap<>();
+  private final HashMap<String, FilterShapeStats> filterShapeToStats = new HashMap<>();
   private final AtomicInteger indexedSearchCount = new AtomicInteger();
   private final AtomicInteger unindexedSearchCount = new AtomicInteger();
 
@@ -102,7 +150,7 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
   @Override
   public MonitorData getMonitorData()
   {
-    MonitorData monitorAttrs = new MonitorData(5);
+    MonitorData monitorAttrs = new MonitorData(7);
 
     Collection<String> needReindexValues = createNeedReindexValues();
     if (!needReindexValues.isEmpty())
@@ -110,12 +158,19 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
       monitorAttrs.add("need-reindex", needReindexValues);
     }
 
+    Collection<String> indexUseValues = createIndexUseValues();
+    if (!indexUseValues.isEmpty())
+    {
+      monitorAttrs.add("index-use", indexUseValues);
+    }
+
     if (filterUseEnabled)
     {
       monitorAttrs.add("filter-use-startTime", startTimeStamp);
       monitorAttrs.add("filter-use", createFilterUseValues());
       monitorAttrs.add("filter-use-indexed", indexedSearchCount);
       monitorAttrs.add("filter-use-unindexed", unindexedSearchCount);
+      monitorAttrs.add("filter-shape-cost", createFilterShapeCostValues());
     }
 
     return monitorAttrs;
@@ -137,6 +192,62 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
     return values;
   }
 
+  private Collection<String> createIndexUseValues()
+  {
+    Collection<String> values = new ArrayList<>();
+    StringBuilder value = new StringBuilder();
+    for (EntryContainer ec : rootContainer.getEntryContainers())
+    {
+      for (AttributeIndex index : ec.getAttributeIndexes())
+      {
+        value.append(ec.getTreePrefix()).append('/').append(index.getAttributeType().getNameOrOID());
+        addIndexUseValue(values, value, index.getStatistics());
+      }
+      for (VLVIndex index : ec.getVLVIndexes())
+      {
+        value.append(index.getName());
+        addIndexUseValue(values, value, index.getStatistics());
+      }
+    }
+    return values;
+  }
+
+  private static void addIndexUseValue(Collection<String> values, StringBuilder value, IndexStatistics stats)
+  {
+    if (stats.getLookups() > 0)
+    {
+      value.append(' ');
+      stats.toString(value);
+      values.add(value.toString());
+    }
+    value.setLength(0);
+  }
+
+  private List<String> createFilterShapeCostValues()
+  {
+    List<Map.Entry<String, FilterShapeStats>> entries;
+    List<String> values = new ArrayList<>();
+    StringBuilder value = new StringBuilder();
+    synchronized (filterShapeToStats)
+    {
+      entries = new ArrayList<>(filterShapeToStats.entrySet());
+      Collections.sort(entries, MOST_EXPENSIVE_FIRST);
+      for (Map.Entry<String, FilterShapeStats> entry : entries)
+      {
+        FilterShapeStats stats = entry.getValue();
+        value.append(entry.getKey());
+        value.append(" searches:").append(stats.searches);
+        value.append(" unindexed:").append(stats.unindexedSearches);
+        value.append(" totaltime:").append(TimeUnit.NANOSECONDS.toMicros(stats.totalNanoTime)).append("us");
+        value.append(" maxtime:").append(TimeUnit.NANOSECONDS.toMicros(stats.maxNanoTime)).append("us");
+        value.append(" maxcandidates:").append(stats.maxCandidates);
+        values.add(value.toString());
+        value.setLength(0);
+      }
+    }
+    return values;
+  }
+
   private List<String> createFilterUseValues()
   {
     List<String> values = new ArrayList<>();
@@ -223,6 +334,133 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
     }
   }
 
+  /**
+   * Updates the filter shape cost statistics with the latest search processed by the backend.
+   *
+   * @param searchFilter The search filter of the search.
+   * @param candidates The number of candidate entries returned by the indexes, or -1 if the search was not indexed.
+   * @param elapsedNanoTime The time spent by the backend processing the search, in nanoseconds.
+   */
+  void updateFilterShapeStats(SearchFilter searchFilter, long candidates, long elapsedNanoTime)
+  {
+    if (!filterUseEnabled)
+    {
+      return;
+    }
+
+    String shape = getFilterShape(searchFilter);
+    synchronized (filterShapeToStats)
+    {
+      FilterShapeStats stats = filterShapeToStats.get(shape);
+      if (stats == null)
+      {
+        stats = new FilterShapeStats();
+        filterShapeToStats.put(shape, stats);
+      }
+      stats.update(candidates, elapsedNanoTime);
+      removeLeastExpensive();
+    }
+  }
+
+  /**
+   * Returns the shape of the provided search filter, which is the filter where assertion values are replaced by
+   * question marks and where the components of AND and OR filters are sorted, so that searches differing only by
+   * their assertion values or by the order of their filter components share the same statistics.
+   *
+   * @param filter The search filter.
+   * @return The shape of the search filter.
+   */
+  static String getFilterShape(SearchFilter filter)
+  {
+    StringBuilder shape = new StringBuilder();
+    appendFilterShape(shape, filter);
+    return shape.toString();
+  }
+
+  private static void appendFilterShape(StringBuilder shape, SearchFilter filter)
+  {
+    FilterType filterType = filter.getFilterType();
+    switch (filterType)
+    {
+    case AND:
+    case OR:
+      List<String> componentShapes = new ArrayList<>(filter.getFilterComponents().size());
+      for (SearchFilter component : filter.getFilterComponents())
+      {
+        componentShapes.add(getFilterShape(component));
+      }
+      Collections.sort(componentShapes);
+      shape.append(filterType == FilterType.AND ? "(&" : "(|");
+      for (String componentShape : componentShapes)
+      {
+        shape.append(componentShape);
+      }
+      shape.append(')');
+      break;
+    case NOT:
+      shape.append("(!");
+      appendFilterShape(shape, filter.getNotComponent());
+      shape.append(')');
+      break;
+    case PRESENT:
+      shape.append('(').append(getAttributeName(filter)).append("=*)");
+      break;
+    case EQUALITY:
+      shape.append('(').append(getAttributeName(filter)).append("=?)");
+      break;
+    case GREATER_OR_EQUAL:
+      shape.append('(').append(getAttributeName(filter)).append(">=?)");
+      break;
+    case LESS_OR_EQUAL:
+      shape.append('(').append(getAttributeName(filter)).append("<=?)");
+      break;
+    case APPROXIMATE_MATCH:
+      shape.append('(').append(getAttributeName(filter)).append("~=?)");
+      break;
+    case SUBSTRING:
+      shape.append('(').append(getAttributeName(filter)).append('=');
+      if (filter.getSubInitialElement() != null)
+      {
+        shape.append('?');
+      }
+      shape.append('*');
+      for (int i = 0; i < filter.getSubAnyElements().size(); i++)
+      {
+        shape.append("?*");
+      }
+      if (filter.getSubFinalElement() != null)
+      {
+        shape.append('?');
+      }
+      shape.append(')');
+      break;
+    case EXTENSIBLE_MATCH:
+      shape.append('(');
+      if (filter.getAttributeType() != null)
+      {
+        shape.append(getAttributeName(filter));
+      }
+      if (filter.getDNAttributes())
+      {
+        shape.append(":dn");
+      }
+      if (filter.getMatchingRuleID() != null)
+      {
+        shape.append(':').append(filter.getMatchingRuleID());
+      }
+      shape.append(":=?)");
+      break;
+    default:
+      filter.toString(shape);
+      break;
+    }
+  }
+
+  private static String getAttributeName(SearchFilter filter)
+  {
+    return filter.getAttributeType().getNameOrOID().toLowerCase();
+  }
+
   /**
    * Enable or disable index filter statistics gathering.
    *
@@ -239,6 +477,10 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
     else if (!enabled)
     {
       filterToStats.clear();
+      synchronized (filterShapeToStats)
+      {
+        filterShapeToStats.clear();
+      }
     }
     filterUseEnabled = enabled;
   }
@@ -283,6 +525,23 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
     }
   }
 
+  /** Keeps only the most expensive filter shapes, must be called while holding the lock on the filter shape stats. */
+  private void removeLeastExpensive()
+  {
+    while (filterShapeToStats.size() > maxEntries)
+    {
+      Map.Entry<String, FilterShapeStats> cheapest = null;
+      for (Map.Entry<String, FilterShapeStats> entry : filterShapeToStats.entrySet())
+      {
+        if (cheapest == null || entry.getValue().totalNanoTime < cheapest.getValue().totalNanoTime)
+        {
+          cheapest = entry;
+        }
+      }
+      filterShapeToStats.remove(cheapest.getKey());
+    }
+  }
+
   private void removeLowestHit()
   {
     while (!filterToStats.isEmpty() && filterToStats.size() > maxEntries)
@@ -0,0 +1,354 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.opends.server.types.SearchFilter;
+
+/**
+ * Caches the candidate entry IDs of indexed searches, so that the indexes are not evaluated again for each page of a
+ * simple paged results search or for identical searches.
+ * <p>
+ * Candidate sets are only returned while the entry container has not been modified since they were evaluated, unless
+ * they are explicitly referenced by the paged results cookie of the search which evaluated them: later pages are then
+ * returned from the same candidates, whose entries are still checked against the search filter when they are read.
+ * Once the entry container has been modified, the next update of the cache drops the candidate sets of the older
+ * generations, except those which were referenced by a paged results cookie since the previous modification.
+ * <p>
+ * The cache is bounded by the total number of entry IDs it holds, each candidate set also accounting for the memory
+ * used by its key, and by the number of candidate sets. Candidate sets smaller than {@link #MIN_ENTRY_IDS} are not
+ * cached. Candidate sets are evicted with the clock algorithm: searches read the cache without locking and only mark
+ * the candidate sets they use, which are given a second chance before being evicted.
+ */
+final class CandidateSetCache
+{
+  /**
+   * The minimum number of entry IDs of a cached candidate set: smaller candidate sets usually cost no more than one
+   * index read to evaluate again.
+   */
+  static final int MIN_ENTRY_IDS = 16;
+  /** The memory used by the key of a candidate set and its bookkeeping, in number of entry IDs. */
+  static final int CANDIDATE_SET_OVERHEAD = 16;
+  /** The maximum number of cached candidate sets, whatever their size. */
+  static final int MAX_CANDIDATE_SETS = 10000;
+
+  /** Identifies the searches which have the same candidates. */
+  static final class Key
+  {
+    private final DN baseDN;
+    private final SearchScope scope;
+    private final SearchFilter filter;
+    private final int idSetLimit;
+
+    /**
+     * Creates a new key.
+     *
+     * @param baseDN
+     *          the search base DN
+     * @param scope
+     *          the search scope
+     * @param filter
+     *          the search filter
+     * @param idSetLimit
+     *          the maximum number of entry IDs read for the search scope, which depends on the client lookthrough
+     *          limit
+     */
+    Key(DN baseDN, SearchScope scope, SearchFilter filter, int idSetLimit)
+    {
+      this.baseDN = baseDN;
+      this.scope = scope;
+      this.filter = filter;
+      this.idSetLimit = idSetLimit;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (this == o)
+      {
+        return true;
+      }
+      if (!(o instanceof Key))
+      {
+        return false;
+      }
+      final Key other = (Key) o;
+      return idSetLimit == other.idSetLimit
+          && baseDN.equals(other.baseDN)
+          && scope.equals(other.scope)
+          && filter.equals(other.filter);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Objects.hash(baseDN, scope, filter, idSetLimit);
+    }
+  }
+
+  /** The candidates of a search. */
+  static final class CandidateSet
+  {
+    private final Key key;
+    private final long id;
+    private final long generation;
+    private final long[] entryIDs;
+    private final boolean inScope;
+    /** Whether these candidates were returned since the clock hand last passed them. */
+    private volatile boolean referenced;
+    /** Whether these candidates were replaced in the cache, guarded by the cache. */
+    private boolean removed;
+
+    private CandidateSet(Key key, long id, long generation, long[] entryIDs, boolean inScope)
+    {
+      this.key = key;
+      this.id = id;
+      this.generation = generation;
+      this.entryIDs = entryIDs;
+      this.inScope = inScope;
+    }
+
+    /**
+     * Returns the identifier of these candidates, to be referenced by paged results cookies.
+     *
+     * @return the identifier of these candidates
+     */
+    long getID()
+    {
+      return id;
+    }
+
+    /**
+     * Returns the candidate entry IDs, which must not be modified.
+     *
+     * @return the candidate entry IDs
+     */
+    long[] getEntryIDs()
+    {
+      return entryIDs;
+    }
+
+    /**
+     * Returns whether all the candidates are known to be in the search scope.
+     *
+     * @return whether all the candidates are known to be in the search scope
+     */
+    boolean isInScope()
+    {
+      return inScope;
+    }
+
+    private long getWeight()
+    {
+      return entryIDs.length + CANDIDATE_SET_OVERHEAD;
+    }
+  }
+
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicLong nextID = new AtomicLong();
+  private final Map<Key, CandidateSet> candidateSets = new ConcurrentHashMap<>();
+  /** The clock of the cached candidate sets, in insertion order, guarded by this cache like the cache updates. */
+  private final ArrayDeque<CandidateSet> clock = new ArrayDeque<>();
+  /** The number of replaced candidate sets still in the clock, guarded by this cache. */
+  private int removedCount;
+  /** The total weight of the cached candidate sets, guarded by this cache. */
+  private long size;
+  /** The generation up to which the candidate sets of older generations have been dropped, guarded by this cache. */
+  private long purgedGeneration;
+  private long maxSize;
+
+  /**
+   * Creates a new candidate set cache.
+   *
+   * @param maxSize
+   *          the maximum total number of entry IDs to cache, {@code 0} to disable caching
+   */
+  CandidateSetCache(long maxSize)
+  {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the current generation, to be read before opening the transaction which evaluates candidates which will be
+   * cached.
+   *
+   * @return the current generation
+   */
+  long getGeneration()
+  {
+    return generation.get();
+  }
+
+  /** Invalidates all the candidate sets. Must be called once the entry container has been modified. */
+  void invalidate()
+  {
+    generation.incrementAndGet();
+  }
+
+  /**
+   * Returns the cached candidates of a search.
+   *
+   * @param key
+   *          the key of the search
+   * @param pinnedID
+   *          the identifier of the candidates referenced by the paged results cookie, or {@code -1}
+   * @return the candidates, or {@code null} if they are not cached or they are out of date
+   */
+  CandidateSet get(Key key, long pinnedID)
+  {
+    final CandidateSet candidateSet = candidateSets.get(key);
+    if (candidateSet != null && (candidateSet.id == pinnedID || candidateSet.generation == generation.get()))
+    {
+      if (!candidateSet.referenced)
+      {
+        candidateSet.referenced = true;
+      }
+      return candidateSet;
+    }
+    return null;
+  }
+
+  /**
+   * Caches the candidates of a search.
+   *
+   * @param key
+   *          the key of the search
+   * @param generation
+   *          the generation read before evaluating the candidates
+   * @param entryIDs
+   *          the candidate entry IDs, which must not be modified afterwards
+   * @param inScope
+   *          whether all the candidates are known to be in the search scope
+   * @return the cached candidates, or {@code null} if they cannot be cached
+   */
+  synchronized CandidateSet put(Key key, long generation, long[] entryIDs, boolean inScope)
+  {
+    final long currentGeneration = this.generation.get();
+    if (currentGeneration != purgedGeneration)
+    {
+      purgeOlderGenerations(currentGeneration);
+    }
+    if (entryIDs.length < MIN_ENTRY_IDS
+        || entryIDs.length + CANDIDATE_SET_OVERHEAD > maxSize
+        || generation != currentGeneration)
+    {
+      return null;
+    }
+    final CandidateSet candidateSet =
+        new CandidateSet(key, nextID.incrementAndGet(), generation, entryIDs, inScope);
+    final CandidateSet previous = candidateSets.put(key, candidateSet);
+    if (previous != null)
+    {
+      remove(previous);
+    }
+    clock.addLast(candidateSet);
+    size += candidateSet.getWeight();
+    evict();
+    return candidateSet;
+  }
+
+  /**
+   * Changes the maximum total number of entry IDs to cache.
+   *
+   * @param maxSize
+   *          the maximum total number of entry IDs to cache, {@code 0} to disable caching
+   */
+  synchronized void setMaxSize(long maxSize)
+  {
+    this.maxSize = maxSize;
+    evict();
+  }
+
+  /**
+   * Drops the candidate sets of the older generations, except those referenced by a paged results cookie since the
+   * previous purge, which are kept until the next one.
+   */
+  private void purgeOlderGenerations(long currentGeneration)
+  {
+    for (Iterator<CandidateSet> it = clock.iterator(); it.hasNext();)
+    {
+      final CandidateSet candidateSet = it.next();
+      if (candidateSet.removed)
+      {
+        it.remove();
+        removedCount--;
+      }
+      else if (candidateSet.generation != currentGeneration)
+      {
+        if (candidateSet.referenced)
+        {
+          candidateSet.referenced = false;
+        }
+        else
+        {
+          it.remove();
+          candidateSets.remove(candidateSet.key, candidateSet);
+          size -= candidateSet.getWeight();
+        }
+      }
+    }
+    purgedGeneration = currentGeneration;
+  }
+
+  /** Marks a replaced candidate set to be skipped by the clock, which is compacted when it holds too many of them. */
+  private void remove(CandidateSet candidateSet)
+  {
+    candidateSet.removed = true;
+    size -= candidateSet.getWeight();
+    if (++removedCount > candidateSets.size())
+    {
+      for (Iterator<CandidateSet> it = clock.iterator(); it.hasNext();)
+      {
+        if (it.next().removed)
+        {
+          it.remove();
+        }
+      }
+      removedCount = 0;
+    }
+  }
+
+  private void evict()
+  {
+    while (size > maxSize || clock.size() - removedCount > MAX_CANDIDATE_SETS)
+    {
+      final CandidateSet candidateSet = clock.pollFirst();
+      if (candidateSet.removed)
+      {
+        removedCount--;
+      }
+      else if (candidateSet.referenced)
+      {
+        // Second chance
+        candidateSet.referenced = false;
+        clock.addLast(candidateSet);
+      }
+      else
+      {
+        candidateSets.remove(candidateSet.key, candidateSet);
+        size -= candidateSet.getWeight();
+      }
+    }
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -52,8 +53,12 @@ class DefaultIndex extends AbstractTree implements Index
   /** The limit on the number of entry IDs that may be indexed by one key. */
   private int indexEntryLimit;
 
-  private EntryIDSetCodec codec;
+  private volatile EntryIDSetCodec codec;
   private CryptoSuite cryptoSuite;
+  /** Whether the index has been created with the compacted encoding, see {@link IndexFlag#COMPACTED}. */
+  private boolean compacted;
+  /** Whether large entry ID sets of a compacted index are encoded as compressed bitmaps. */
+  private volatile boolean bitmapEncoding;
 
   /**
    * A flag to indicate if this index should be trusted to be consistent with the entries tree.
@@ -96,11 +101,8 @@ class DefaultIndex extends AbstractTree implements Index
   final void afterOpen(WriteableTransaction txn, boolean createOnDemand)
   {
     final EnumSet<IndexFlag> flags = state.getIndexFlags(txn, getName());
-    codec = flags.contains(COMPACTED) ? CODEC_V2 : CODEC_V1;
-    if (cryptoSuite.isEncrypted())
-    {
-      codec = new EntryIDSet.EntryIDSetCodecV3(codec, cryptoSuite);
-    }
+    compacted = flags.contains(COMPACTED);
+    codec = newCodec();
     trusted = flags.contains(TRUSTED);
     if (createOnDemand && !trusted && entryContainer.isEmpty(txn))
     {
@@ -110,6 +112,16 @@ class DefaultIndex extends AbstractTree implements Index
     }
   }
 
+  private EntryIDSetCodec newCodec()
+  {
+    EntryIDSetCodec newCodec = compacted ? (bitmapEncoding ? CODEC_V4 : CODEC_V2) : CODEC_V1;
+    if (cryptoSuite.isEncrypted())
+    {
+      newCodec = new EntryIDSet.EntryIDSetCodecV3(newCodec, cryptoSuite);
+    }
+    return newCodec;
+  }
+
   @Override
   public String valueToString(ByteString value)
   {
@@ -299,6 +311,16 @@ class DefaultIndex extends AbstractTree implements Index
     return cryptoSuite.isEncrypted() != indexConfidential;
   }
 
+  @Override
+  public final synchronized void setBitmapEncoding(boolean bitmapEncoding)
+  {
+    this.bitmapEncoding = bitmapEncoding;
+    if (codec != null)
+    {
+      codec = newCodec();
+    }
+  }
+
   @Override
   public final int getIndexEntryLimit()
   {
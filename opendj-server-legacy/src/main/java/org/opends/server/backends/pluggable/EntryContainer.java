@@ -14,6 +14,7 @@
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
  * Portions copyright 2013 Manuel Gaupp
+ * Portions copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -52,6 +53,7 @@ import org.forgerock.opendj.ldap.ByteSequence;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ByteStringBuilder;
 import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeException;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.ldap.SortKey;
@@ -158,6 +160,8 @@ public class EntryContainer
   private final Map<AttributeType, CryptoSuite> attrCryptoMap = new HashMap<>();
   /** The set of VLV (Virtual List View) indexes. */
   private final Map<String, VLVIndex> vlvIndexMap = new HashMap<>();
+  /** The candidates of the recent indexed searches. */
+  private final CandidateSetCache candidateSetCache;
 
   /**
    * Prevents name clashes for common indexes (like id2entry) across multiple suffixes.
@@ -361,6 +365,7 @@ public class EntryContainer
     this.dn2id = new DN2ID(getIndexName(DN2ID_TREE_NAME), baseDN);
     this.dn2uri = new DN2URI(getIndexName(REFERRAL_TREE_NAME), this);
     this.state = new State(getIndexName(STATE_TREE_NAME));
+    this.candidateSetCache = new CandidateSetCache(config.getCandidateSetCacheSize());
 
     config.addPluggableChangeListener(this);
 
@@ -667,6 +672,9 @@ public class EntryContainer
   void search(final SearchOperation searchOperation)
   throws DirectoryException, StorageRuntimeException, CanceledOperationException
   {
+    // Read before the transaction, so that candidates read from a snapshot taken before a commit are not cached
+    // under the generation which this commit invalidated
+    final long candidateSetGeneration = candidateSetCache.getGeneration();
     try
     {
       storage.read(new ReadOperation<Void>()
@@ -733,8 +741,10 @@ public class EntryContainer
             debugBuffer = new StringBuilder();
           }
 
+          final long startNanoTime = System.nanoTime();
           EntryIDSet candidateEntryIDs = null;
           boolean candidatesAreInScope = false;
+          long candidateSetID = -1;
           if (sortRequest != null)
           {
             for (VLVIndex vlvIndex : vlvIndexMap.values())
@@ -767,26 +777,47 @@ public class EntryContainer
               return null;
             }
 
-            // Create an index filter to get the search result candidate entries
-            IndexFilter indexFilter = new IndexFilter(
-                EntryContainer.this, txn, searchOperation, debugBuffer, rootContainer.getMonitorProvider());
-
-            // Evaluate the filter against the attribute indexes.
-            candidateEntryIDs = indexFilter.evaluate();
-            if (!isBelowFilterThreshold(candidateEntryIDs))
+            final int idSetLimit = getEntryIDSetLimit(searchOperation);
+            final CandidateSetCache.Key candidateSetKey = debugBuffer == null
+                ? new CandidateSetCache.Key(aBaseDN, searchScope, searchOperation.getFilter(), idSetLimit)
+                : null;
+            final CandidateSetCache.CandidateSet cachedCandidates = candidateSetKey != null
+                ? candidateSetCache.get(candidateSetKey, getCandidateSetID(pageRequest))
+                : null;
+            if (cachedCandidates != null)
             {
-              final int idSetLimit = getEntryIDSetLimit(searchOperation);
-              final EntryIDSet scopeSet = getIDSetFromScope(txn, aBaseDN, searchScope, idSetLimit);
-              candidateEntryIDs.retainAll(scopeSet);
-              if (debugBuffer != null)
-              {
-                debugBuffer.append(" scope=").append(searchScope);
-                scopeSet.toString(debugBuffer);
-              }
-              if (scopeSet.isDefined())
+              candidateEntryIDs = EntryIDSet.newDefinedSet(cachedCandidates.getEntryIDs());
+              candidatesAreInScope = cachedCandidates.isInScope();
+              candidateSetID = cachedCandidates.getID();
+            }
+            else
+            {
+              // Create an index filter to get the search result candidate entries
+              IndexFilter indexFilter = new IndexFilter(
+                  EntryContainer.this, txn, searchOperation, debugBuffer, rootContainer.getMonitorProvider());
+
+              // Evaluate the filter against the attribute indexes.
+              candidateEntryIDs = indexFilter.evaluate();
+              if (!isBelowFilterThreshold(candidateEntryIDs))
               {
-                // In this case we know that every candidate is in scope.
-                candidatesAreInScope = true;
+                final EntryIDSet scopeSet = getIDSetFromScope(txn, aBaseDN, searchScope, idSetLimit);
+                candidateEntryIDs.retainAll(scopeSet);
+                if (debugBuffer != null)
+                {
+                  debugBuffer.append(" scope=").append(searchScope);
+                  scopeSet.toString(debugBuffer);
+                }
+                if (scopeSet.isDefined())
+                {
+                  // In this case we know that every candidate is in scope.
+                  candidatesAreInScope = true;
+                }
+                if (candidateSetKey != null && candidateEntryIDs.isDefined())
+                {
+                  final CandidateSetCache.CandidateSet candidateSet = candidateSetCache.put(
+                      candidateSetKey, candidateSetGeneration, candidateEntryIDs.toLongArray(), candidatesAreInScope);
+                  candidateSetID = candidateSet != null ? candidateSet.getID() : -1;
+                }
               }
             }
 
@@ -798,7 +829,8 @@ public class EntryContainer
               try
               {
                 List<SortKey> sortKeys = sortRequest.getSortKeys();
-                reorderedCandidateEntryIDs = sort(txn, candidateEntryIDs, searchOperation, sortKeys, vlvRequest);
+                reorderedCandidateEntryIDs =
+                    sort(txn, candidateEntryIDs, searchOperation, sortKeys, vlvRequest, pageRequest);
               }
               catch (DirectoryException de)
               {
@@ -850,14 +882,24 @@ public class EntryContainer
             return null;
           }
 
+          final BackendMonitor monitor = rootContainer.getMonitorProvider();
           if (reorderedCandidateEntryIDs != null)
           {
-            rootContainer.getMonitorProvider().incrementIndexedSearchCount();
-            searchIndexed(txn, reorderedCandidateEntryIDs, candidatesAreInScope, searchOperation, pageRequest);
+            monitor.incrementIndexedSearchCount();
+            try
+            {
+              searchIndexed(txn, reorderedCandidateEntryIDs, candidatesAreInScope, searchOperation, pageRequest,
+                  candidateSetID);
+            }
+            finally
+            {
+              monitor.updateFilterShapeStats(searchOperation.getFilter(), reorderedCandidateEntryIDs.length,
+                  System.nanoTime() - startNanoTime);
+            }
           }
           else
           {
-            rootContainer.getMonitorProvider().incrementUnindexedSearchCount();
+            monitor.incrementUnindexedSearchCount();
 
             searchOperation.addAdditionalLogItem(keyOnly(getClass(), "unindexed"));
 
@@ -884,7 +926,14 @@ public class EntryContainer
               }
             }
 
-            searchNotIndexed(txn, searchOperation, pageRequest);
+            try
+            {
+              searchNotIndexed(txn, searchOperation, pageRequest);
+            }
+            finally
+            {
+              monitor.updateFilterShapeStats(searchOperation.getFilter(), -1, System.nanoTime() - startNanoTime);
+            }
           }
           return null;
         }
@@ -1275,8 +1324,8 @@ public class EntryContainer
    *           If an error prevented the search from being processed.
    */
   private void searchIndexed(ReadableTransaction txn, long[] entryIDReorderedSet, boolean candidatesAreInScope,
-      SearchOperation searchOperation, PagedResultsControl pageRequest) throws DirectoryException,
-      CanceledOperationException
+      SearchOperation searchOperation, PagedResultsControl pageRequest, long candidateSetID)
+      throws DirectoryException, CanceledOperationException
   {
     SearchScope searchScope = searchOperation.getScope();
     DN aBaseDN = searchOperation.getBaseDN();
@@ -1341,8 +1390,8 @@ public class EntryContainer
           {
             if (isPageFull(searchOperation, pageRequest))
             {
-              // Set the cookie to remember where we were.
-              addPagedResultsControl(searchOperation, pageRequest, entryID.toByteString());
+              // Set the cookie to remember where we were, and from which candidates.
+              addPagedResultsControl(searchOperation, pageRequest, toPagedResultsCookie(entryID, candidateSetID));
               return;
             }
 
@@ -1374,6 +1423,29 @@ public class EntryContainer
     addPagedResultsControl(searchOperation, pageRequest, null);
   }
 
+  /**
+   * Returns the cookie of an indexed search: the ID of the next entry to be returned, optionally followed by the ID of
+   * the cached candidates.
+   */
+  private static ByteString toPagedResultsCookie(EntryID entryID, long candidateSetID)
+  {
+    if (candidateSetID < 0)
+    {
+      return entryID.toByteString();
+    }
+    return new ByteStringBuilder(16).appendLong(entryID.longValue()).appendLong(candidateSetID).toByteString();
+  }
+
+  /** Returns the ID of the cached candidates referenced by the paged results cookie, or {@code -1}. */
+  private static long getCandidateSetID(PagedResultsControl pageRequest)
+  {
+    if (pageRequest != null && pageRequest.getCookie().length() == 16)
+    {
+      return pageRequest.getCookie().subSequence(8, 16).toLong();
+    }
+    return -1;
+  }
+
   private int findStartIndex(Long beginEntryID, long[] entryIDReorderedSet)
   {
     if (beginEntryID == null)
@@ -1516,6 +1588,10 @@ public class EntryContainer
       writeTrustState(indexBuffer);
       throwAllowedExceptionTypes(e, DirectoryException.class, CanceledOperationException.class);
     }
+    finally
+    {
+      candidateSetCache.invalidate();
+    }
 
     final EntryCache<?> entryCache = DirectoryServer.getEntryCache();
     if (entryCache != null)
@@ -1729,6 +1805,10 @@ public class EntryContainer
       writeTrustState(indexBuffer);
       throwAllowedExceptionTypes(e, DirectoryException.class, CanceledOperationException.class);
     }
+    finally
+    {
+      candidateSetCache.invalidate();
+    }
   }
 
   /**
@@ -1926,6 +2006,10 @@ public class EntryContainer
       writeTrustState(indexBuffer);
       throwAllowedExceptionTypes(e, DirectoryException.class, CanceledOperationException.class);
     }
+    finally
+    {
+      candidateSetCache.invalidate();
+    }
   }
 
   /**
@@ -2168,6 +2252,10 @@ public class EntryContainer
       writeTrustState(indexBuffer);
       throwAllowedExceptionTypes(e, DirectoryException.class, CanceledOperationException.class);
     }
+    finally
+    {
+      candidateSetCache.invalidate();
+    }
   }
 
   /**
@@ -2427,6 +2515,7 @@ public class EntryContainer
       {
         indexCrypto.newParameters(cfg.getCipherTransformation(), cfg.getCipherKeyLength(), indexCrypto.isEncrypted());
       }
+      candidateSetCache.setMaxSize(cfg.getCandidateSetCacheSize());
     }
     catch (Exception e)
     {
@@ -2467,6 +2556,10 @@ public class EntryContainer
     {
       throw new StorageRuntimeException(e);
     }
+    finally
+    {
+      candidateSetCache.invalidate();
+    }
   }
 
   List<Tree> listTrees()
@@ -2537,7 +2630,7 @@ public class EntryContainer
   }
 
   private long[] sort(ReadableTransaction txn, EntryIDSet entryIDSet, SearchOperation searchOperation,
-      List<SortKey> sortKeys, VLVRequestControl vlvRequest) throws DirectoryException
+      List<SortKey> sortKeys, VLVRequestControl vlvRequest, PagedResultsControl pageRequest) throws DirectoryException
   {
     if (!entryIDSet.isDefined())
     {
@@ -2547,8 +2640,9 @@ public class EntryContainer
     final DN baseDN = searchOperation.getBaseDN();
     final SearchScope scope = searchOperation.getScope();
     final SearchFilter filter = searchOperation.getFilter();
+    final boolean manageDsaIT = isManageDsaITOperation(searchOperation);
 
-    final TreeMap<ByteString, EntryID> sortMap = new TreeMap<>();
+    final EntryIDSorter sorter = newEntryIDSorter(entryIDSet, searchOperation, sortKeys, vlvRequest, pageRequest);
     for (EntryID id : entryIDSet)
     {
       try
@@ -2556,7 +2650,10 @@ public class EntryContainer
         Entry e = getEntry(txn, id);
         if (e.matchesBaseAndScope(baseDN, scope) && filter.matchesEntry(e))
         {
-          sortMap.put(encodeVLVKey(sortKeys, e, id.longValue()), id);
+          // Subentries and referrals may be skipped by searchIndexed() or SearchOperation.returnEntry()
+          final boolean alwaysReturned = vlvRequest != null
+              || (!e.isSubentry() && !e.isLDAPSubentry() && (manageDsaIT || e.getReferralURLs() == null));
+          sorter.add(encodeVLVKey(sortKeys, e, id.longValue()), id, alwaysReturned);
         }
       }
       catch (Exception e)
@@ -2570,14 +2667,70 @@ public class EntryContainer
     // processed by offset or assertion value.
     if (vlvRequest == null)
     {
-      return toArray(sortMap.values());
+      return toArray(sorter.getSortedEntries().values());
     }
 
     if (vlvRequest.getTargetType() == VLVRequestControl.TYPE_TARGET_BYOFFSET)
     {
-      return sortByOffset(searchOperation, vlvRequest, sortMap);
+      return sortByOffset(searchOperation, vlvRequest, sorter);
+    }
+    return sortByGreaterThanOrEqualAssertion(searchOperation, vlvRequest, sortKeys, sorter);
+  }
+
+  /**
+   * Returns a sorter keeping only the sorted entries which may be returned to the client, when this can be known
+   * before sorting.
+   */
+  private static EntryIDSorter newEntryIDSorter(EntryIDSet entryIDSet, SearchOperation searchOperation,
+      List<SortKey> sortKeys, VLVRequestControl vlvRequest, PagedResultsControl pageRequest)
+  {
+    if (vlvRequest != null)
+    {
+      if (vlvRequest.getTargetType() == VLVRequestControl.TYPE_TARGET_BYOFFSET)
+      {
+        // Negative offsets are rejected once all the entries have been counted
+        final int targetOffset = vlvRequest.getOffset();
+        return targetOffset >= 0
+            ? EntryIDSorter.keepingFirst(Math.max(targetOffset, 1) + (long) vlvRequest.getAfterCount())
+            : EntryIDSorter.keepingAll();
+      }
+      try
+      {
+        // sortByGreaterThanOrEqualAssertion() reads one entry past the target even when the after count is 0
+        final ByteSequence targetAssertion =
+            encodeTargetAssertionValue(sortKeys, vlvRequest.getGreaterThanOrEqualAssertion());
+        return EntryIDSorter.keepingAround(
+            targetAssertion, vlvRequest.getBeforeCount(), 1 + Math.max(vlvRequest.getAfterCount(), 1));
+      }
+      catch (DecodeException e)
+      {
+        // The bad assertion is reported once all the entries have been counted
+        logger.traceException(e);
+        return EntryIDSorter.keepingAll();
+      }
+    }
+
+    // Access controls may hide any entry from the client, and the next page starts wherever the cookie is found
+    final ClientConnection clientConnection = searchOperation.getClientConnection();
+    final int lookthroughLimit = clientConnection.getLookthroughLimit();
+    if ((lookthroughLimit > 0 && entryIDSet.size() > lookthroughLimit)
+        || searchOperation.isReturnSubentriesOnly()
+        || (pageRequest != null && pageRequest.getCookie().length() != 0)
+        || !clientConnection.hasPrivilege(Privilege.BYPASS_ACL, searchOperation))
+    {
+      return EntryIDSorter.keepingAll();
+    }
+    long window = Long.MAX_VALUE;
+    if (searchOperation.getSizeLimit() > 0)
+    {
+      window = searchOperation.getSizeLimit();
+    }
+    if (pageRequest != null)
+    {
+      window = Math.min(window, pageRequest.getSize());
     }
-    return sortByGreaterThanOrEqualAssertion(searchOperation, vlvRequest, sortKeys, sortMap);
+    // Keep one more entry to detect that the size limit is exceeded or to build the paged results cookie
+    return window != Long.MAX_VALUE ? EntryIDSorter.keepingFirst(window + 1) : EntryIDSorter.keepingAll();
   }
 
   private static final long[] toArray(Collection<EntryID> entryIDs)
@@ -2592,12 +2745,13 @@ public class EntryContainer
   }
 
   private static final long[] sortByGreaterThanOrEqualAssertion(SearchOperation searchOperation,
-      VLVRequestControl vlvRequest, List<SortKey> sortKeys, final TreeMap<ByteString, EntryID> sortMap)
+      VLVRequestControl vlvRequest, List<SortKey> sortKeys, EntryIDSorter sorter)
       throws DirectoryException
   {
     ByteString assertionValue = vlvRequest.getGreaterThanOrEqualAssertion();
     ByteSequence encodedTargetAssertion =
-        encodeTargetAssertion(sortKeys, assertionValue, searchOperation, sortMap.size());
+        encodeTargetAssertion(sortKeys, assertionValue, searchOperation, sorter.size());
+    final TreeMap<ByteString, EntryID> sortMap = sorter.getSortedEntries();
 
     boolean targetFound = false;
     int index = 0;
@@ -2636,6 +2790,8 @@ public class EntryContainer
       final long[] array = new long[index - startIndex];
       System.arraycopy(idSet, startIndex, array, 0, array.length);
       result = array;
+      // Account for the entries sorting before the target which have not been kept
+      targetIndex += sorter.getSkippedCount();
     }
     else
     {
@@ -2643,21 +2799,24 @@ public class EntryContainer
        * No entry was found to be greater than or equal to the sort key, so the target offset will
        * be one greater than the content count.
        */
-      targetIndex = sortMap.size() + 1;
+      targetIndex = sorter.size() + 1;
       result = new long[0];
     }
-    addVLVResponseControl(searchOperation, targetIndex, sortMap.size(), SUCCESS);
+    addVLVResponseControl(searchOperation, targetIndex, sorter.size(), SUCCESS);
     return result;
   }
 
   private static final long[] sortByOffset(SearchOperation searchOperation, VLVRequestControl vlvRequest,
-      TreeMap<ByteString, EntryID> sortMap) throws DirectoryException
+      EntryIDSorter sorter) throws DirectoryException
   {
+    // The sorter kept at least the entries up to the end of the requested page
+    final int contentCount = sorter.size();
+    final Collection<EntryID> sortedEntryIDs = sorter.getSortedEntries().values();
     int targetOffset = vlvRequest.getOffset();
     if (targetOffset < 0)
     {
       // The client specified a negative target offset. This should never be allowed.
-      addVLVResponseControl(searchOperation, targetOffset, sortMap.size(), OFFSET_RANGE_ERROR);
+      addVLVResponseControl(searchOperation, targetOffset, contentCount, OFFSET_RANGE_ERROR);
 
       LocalizableMessage message = ERR_ENTRYIDSORTER_NEGATIVE_START_POS.get();
       throw new DirectoryException(ResultCode.VIRTUAL_LIST_VIEW_ERROR, message);
@@ -2678,12 +2837,12 @@ public class EntryContainer
       startPos = 0;
       beforeCount = listOffset;
     }
-    else if (startPos >= sortMap.size())
+    else if (startPos >= contentCount)
     {
       // The start position is beyond the end of the list. In this case, we'll assume that the start position was
       // one greater than the size of the list and will only return the beforeCount entries.
-      targetOffset = sortMap.size() + 1;
-      listOffset = sortMap.size();
+      targetOffset = contentCount + 1;
+      listOffset = contentCount;
       startPos = listOffset - beforeCount;
       afterCount = 0;
     }
@@ -2692,7 +2851,7 @@ public class EntryContainer
     long[] sortedIDs = new long[count];
     int treePos = 0;
     int arrayPos = 0;
-    for (EntryID id : sortMap.values())
+    for (EntryID id : sortedEntryIDs)
     {
       if (treePos++ < startPos)
       {
@@ -2712,7 +2871,7 @@ public class EntryContainer
       sortedIDs = Arrays.copyOf(sortedIDs, arrayPos);
     }
 
-    addVLVResponseControl(searchOperation, targetOffset, sortMap.size(), SUCCESS);
+    addVLVResponseControl(searchOperation, targetOffset, contentCount, SUCCESS);
     return sortedIDs;
   }
 
@@ -0,0 +1,1291 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.forgerock.util.Reject.*;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.forgerock.opendj.ldap.ByteSequenceReader;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+
+/**
+ * Compressed bitmap of entry IDs.
+ * <p>
+ * IDs are partitioned by their high-order bits in chunks of 65536 consecutive values, and each chunk is stored in
+ * the most compact container for its content: a sorted array of the low-order 16 bits for sparse chunks, a plain
+ * 65536 bits bitmap for dense chunks, or a list of runs for chunks made of consecutive IDs. Intersections and unions
+ * of dense chunks are computed one 64 bits word at a time.
+ * <p>
+ * This class is not thread safe.
+ */
+final class EntryIDBitmap implements Iterable<EntryID>
+{
+  /** Maximum number of values held by an array container before it is converted to a bitmap container. */
+  static final int MAX_ARRAY_CONTAINER_SIZE = 4096;
+
+  private static final int BITMAP_CONTAINER_WORDS = 1024;
+  private static final int BITMAP_CONTAINER_ENCODED_SIZE = BITMAP_CONTAINER_WORDS * 8;
+
+  private static final byte ARRAY_CONTAINER = 0x00;
+  private static final byte BITMAP_CONTAINER = 0x01;
+  private static final byte RUN_CONTAINER = 0x02;
+
+  private static final long[] EMPTY_LONG_ARRAY = new long[0];
+
+  /** High-order bits of the IDs held by each container, in ascending order. */
+  private long[] keys;
+  private Container[] containers;
+  private int nbContainers;
+  private long cardinality;
+
+  /** Creates a new empty bitmap. */
+  EntryIDBitmap()
+  {
+    this(4);
+  }
+
+  private EntryIDBitmap(int capacity)
+  {
+    keys = new long[capacity];
+    containers = new Container[capacity];
+  }
+
+  /**
+   * Creates a new bitmap holding the provided IDs.
+   *
+   * @param sortedIDs
+   *          IDs sorted in ascending order, without duplicates
+   * @return a new bitmap holding the provided IDs
+   */
+  static EntryIDBitmap valueOf(long... sortedIDs)
+  {
+    checkNotNull(sortedIDs, "sortedIDs must not be null");
+    final EntryIDBitmap bitmap = new EntryIDBitmap(Math.max(4, (int) (sortedIDs.length >>> 12)));
+    int start = 0;
+    while (start < sortedIDs.length)
+    {
+      final long key = highBits(sortedIDs[start]);
+      int end = start + 1;
+      while (end < sortedIDs.length && highBits(sortedIDs[end]) == key)
+      {
+        end++;
+      }
+      final int count = end - start;
+      final Container container;
+      if (count <= MAX_ARRAY_CONTAINER_SIZE)
+      {
+        final char[] content = new char[count];
+        for (int i = 0; i < count; i++)
+        {
+          content[i] = lowBits(sortedIDs[start + i]);
+        }
+        container = new ArrayContainer(content, count);
+      }
+      else
+      {
+        final BitmapContainer bitmapContainer = new BitmapContainer();
+        for (int i = start; i < end; i++)
+        {
+          bitmapContainer.set(lowBits(sortedIDs[i]));
+        }
+        container = bitmapContainer;
+      }
+      bitmap.appendContainer(key, container);
+      start = end;
+    }
+    return bitmap;
+  }
+
+  private static long highBits(long id)
+  {
+    return id >>> 16;
+  }
+
+  private static char lowBits(long id)
+  {
+    return (char) id;
+  }
+
+  /**
+   * Returns the number of IDs in this bitmap.
+   *
+   * @return the number of IDs in this bitmap
+   */
+  long size()
+  {
+    return cardinality;
+  }
+
+  /**
+   * Returns the smallest ID of this bitmap.
+   *
+   * @return the smallest ID of this bitmap
+   * @throws NoSuchElementException
+   *           if this bitmap is empty
+   */
+  long first()
+  {
+    if (nbContainers == 0)
+    {
+      throw new NoSuchElementException();
+    }
+    return keys[0] << 16 | containers[0].first();
+  }
+
+  /**
+   * Returns the biggest ID of this bitmap.
+   *
+   * @return the biggest ID of this bitmap
+   * @throws NoSuchElementException
+   *           if this bitmap is empty
+   */
+  long last()
+  {
+    if (nbContainers == 0)
+    {
+      throw new NoSuchElementException();
+    }
+    return keys[nbContainers - 1] << 16 | containers[nbContainers - 1].last();
+  }
+
+  boolean contains(long id)
+  {
+    final int pos = indexOfKey(highBits(id));
+    return pos >= 0 && containers[pos].contains(lowBits(id));
+  }
+
+  boolean add(long id)
+  {
+    final long key = highBits(id);
+    int pos = indexOfKey(key);
+    if (pos < 0)
+    {
+      pos = -(pos + 1);
+      insertContainer(pos, key, new ArrayContainer());
+    }
+    final Container container = containers[pos];
+    final int before = container.cardinality();
+    containers[pos] = container.add(lowBits(id));
+    return updateCardinality(before, containers[pos].cardinality());
+  }
+
+  boolean remove(long id)
+  {
+    final int pos = indexOfKey(highBits(id));
+    if (pos < 0)
+    {
+      return false;
+    }
+    final Container container = containers[pos];
+    final int before = container.cardinality();
+    final Container updated = container.remove(lowBits(id));
+    if (updated.cardinality() == 0)
+    {
+      removeContainer(pos);
+    }
+    else
+    {
+      containers[pos] = updated;
+    }
+    return updateCardinality(before, updated.cardinality());
+  }
+
+  private boolean updateCardinality(int before, int after)
+  {
+    cardinality += after - before;
+    return before != after;
+  }
+
+  /**
+   * Retains in this bitmap only the IDs which are also contained in the provided bitmap.
+   *
+   * @param that
+   *          the bitmap to intersect with, which is left unchanged
+   */
+  void and(EntryIDBitmap that)
+  {
+    int target = 0;
+    long newCardinality = 0;
+    for (int i = 0, j = 0; i < nbContainers && j < that.nbContainers;)
+    {
+      if (keys[i] < that.keys[j])
+      {
+        i++;
+      }
+      else if (keys[i] > that.keys[j])
+      {
+        j++;
+      }
+      else
+      {
+        final Container result = and(containers[i], that.containers[j]);
+        if (result.cardinality() > 0)
+        {
+          keys[target] = keys[i];
+          containers[target++] = result;
+          newCardinality += result.cardinality();
+        }
+        i++;
+        j++;
+      }
+    }
+    Arrays.fill(containers, target, nbContainers, null);
+    nbContainers = target;
+    cardinality = newCardinality;
+  }
+
+  /**
+   * Adds to this bitmap all the IDs contained in the provided bitmap.
+   *
+   * @param that
+   *          the bitmap to merge with, which is left unchanged
+   */
+  void or(EntryIDBitmap that)
+  {
+    final long[] newKeys = new long[nbContainers + that.nbContainers];
+    final Container[] newContainers = new Container[newKeys.length];
+    int target = 0;
+    long newCardinality = 0;
+    int i = 0, j = 0;
+    while (i < nbContainers || j < that.nbContainers)
+    {
+      final Container result;
+      if (j == that.nbContainers || (i < nbContainers && keys[i] < that.keys[j]))
+      {
+        newKeys[target] = keys[i];
+        result = containers[i++];
+      }
+      else if (i == nbContainers || keys[i] > that.keys[j])
+      {
+        newKeys[target] = that.keys[j];
+        result = that.containers[j++].copy();
+      }
+      else
+      {
+        newKeys[target] = keys[i];
+        result = or(containers[i++], that.containers[j++]);
+      }
+      newContainers[target++] = result;
+      newCardinality += result.cardinality();
+    }
+    keys = newKeys;
+    containers = newContainers;
+    nbContainers = target;
+    cardinality = newCardinality;
+  }
+
+  /**
+   * Removes from this bitmap all the IDs contained in the provided bitmap.
+   *
+   * @param that
+   *          the bitmap holding the IDs to remove, which is left unchanged
+   */
+  void andNot(EntryIDBitmap that)
+  {
+    int target = 0;
+    long newCardinality = 0;
+    for (int i = 0, j = 0; i < nbContainers; i++)
+    {
+      while (j < that.nbContainers && that.keys[j] < keys[i])
+      {
+        j++;
+      }
+      Container result = containers[i];
+      if (j < that.nbContainers && that.keys[j] == keys[i])
+      {
+        result = andNot(result, that.containers[j]);
+      }
+      if (result.cardinality() > 0)
+      {
+        keys[target] = keys[i];
+        containers[target++] = result;
+        newCardinality += result.cardinality();
+      }
+    }
+    Arrays.fill(containers, target, nbContainers, null);
+    nbContainers = target;
+    cardinality = newCardinality;
+  }
+
+  /**
+   * Returns the IDs of this bitmap in a new array, sorted in ascending order.
+   *
+   * @return the IDs of this bitmap
+   */
+  long[] toArray()
+  {
+    if (cardinality == 0)
+    {
+      return EMPTY_LONG_ARRAY;
+    }
+    final long[] ids = new long[(int) cardinality];
+    int offset = 0;
+    for (int i = 0; i < nbContainers; i++)
+    {
+      offset = containers[i].copyTo(keys[i] << 16, ids, offset);
+    }
+    return ids;
+  }
+
+  /**
+   * Returns a deep copy of this bitmap.
+   *
+   * @return a deep copy of this bitmap
+   */
+  EntryIDBitmap copy()
+  {
+    final EntryIDBitmap copy = new EntryIDBitmap(Math.max(4, nbContainers));
+    for (int i = 0; i < nbContainers; i++)
+    {
+      copy.appendContainer(keys[i], containers[i].copy());
+    }
+    return copy;
+  }
+
+  /** Converts each container holding consecutive IDs into a run container when it saves space. */
+  void runOptimize()
+  {
+    for (int i = 0; i < nbContainers; i++)
+    {
+      containers[i] = containers[i].runOptimize();
+    }
+  }
+
+  @Override
+  public Iterator<EntryID> iterator()
+  {
+    return new BitmapIterator();
+  }
+
+  /**
+   * Appends the encoded form of this bitmap to the provided builder.
+   * Run containers are used where they are smaller than the other representations.
+   *
+   * @param builder
+   *          the builder where to append this bitmap
+   * @return the provided builder
+   */
+  ByteStringBuilder encode(ByteStringBuilder builder)
+  {
+    runOptimize();
+    builder.appendCompactUnsigned(nbContainers);
+    long previousKey = 0;
+    for (int i = 0; i < nbContainers; i++)
+    {
+      builder.appendCompactUnsigned(keys[i] - previousKey);
+      previousKey = keys[i];
+      containers[i].encode(builder);
+    }
+    return builder;
+  }
+
+  /**
+   * Returns an upper bound of the number of bytes needed to encode this bitmap.
+   *
+   * @return an upper bound of the number of bytes needed to encode this bitmap
+   */
+  int getEstimatedEncodedSize()
+  {
+    long size = ByteStringBuilder.MAX_COMPACT_SIZE;
+    for (int i = 0; i < nbContainers; i++)
+    {
+      size += 1 + 2 * ByteStringBuilder.MAX_COMPACT_SIZE
+          + Math.min(BITMAP_CONTAINER_ENCODED_SIZE, containers[i].cardinality() * 3L);
+    }
+    return (int) Math.min(Integer.MAX_VALUE, size);
+  }
+
+  /**
+   * Decodes a bitmap previously encoded with {@link #encode(ByteStringBuilder)}.
+   *
+   * @param reader
+   *          the reader positioned on the encoded bitmap
+   * @return the decoded bitmap
+   */
+  static EntryIDBitmap decode(ByteSequenceReader reader)
+  {
+    checkNotNull(reader, "reader must not be null");
+    final int nbContainers = reader.readCompactUnsignedInt();
+    final EntryIDBitmap bitmap = new EntryIDBitmap(Math.max(4, nbContainers));
+    long key = 0;
+    for (int i = 0; i < nbContainers; i++)
+    {
+      key += reader.readCompactUnsignedLong();
+      final byte type = reader.readByte();
+      switch (type)
+      {
+      case ARRAY_CONTAINER:
+        bitmap.appendContainer(key, ArrayContainer.decode(reader));
+        break;
+      case BITMAP_CONTAINER:
+        bitmap.appendContainer(key, BitmapContainer.decode(reader));
+        break;
+      case RUN_CONTAINER:
+        bitmap.appendContainer(key, RunContainer.decode(reader));
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown container type " + type);
+      }
+    }
+    return bitmap;
+  }
+
+  private int indexOfKey(long key)
+  {
+    // Fast path for sequential additions
+    if (nbContainers > 0 && keys[nbContainers - 1] == key)
+    {
+      return nbContainers - 1;
+    }
+    return Arrays.binarySearch(keys, 0, nbContainers, key);
+  }
+
+  private void appendContainer(long key, Container container)
+  {
+    insertContainer(nbContainers, key, container);
+  }
+
+  private void insertContainer(int pos, long key, Container container)
+  {
+    if (nbContainers == keys.length)
+    {
+      final int newCapacity = Math.max(4, nbContainers + (nbContainers >> 1));
+      keys = Arrays.copyOf(keys, newCapacity);
+      containers = Arrays.copyOf(containers, newCapacity);
+    }
+    System.arraycopy(keys, pos, keys, pos + 1, nbContainers - pos);
+    System.arraycopy(containers, pos, containers, pos + 1, nbContainers - pos);
+    keys[pos] = key;
+    containers[pos] = container;
+    nbContainers++;
+    cardinality += container.cardinality();
+  }
+
+  private void removeContainer(int pos)
+  {
+    System.arraycopy(keys, pos + 1, keys, pos, nbContainers - pos - 1);
+    System.arraycopy(containers, pos + 1, containers, pos, nbContainers - pos - 1);
+    containers[--nbContainers] = null;
+  }
+
+  /**
+   * Returns the intersection of two containers. The first container may be modified and returned.
+   */
+  private static Container and(Container a, Container b)
+  {
+    a = a.expand();
+    b = b.expand();
+    if (a instanceof BitmapContainer)
+    {
+      if (b instanceof BitmapContainer)
+      {
+        return ((BitmapContainer) a).and((BitmapContainer) b);
+      }
+      return ((ArrayContainer) b).copy().and((BitmapContainer) a);
+    }
+    if (b instanceof BitmapContainer)
+    {
+      return ((ArrayContainer) a).and((BitmapContainer) b);
+    }
+    return ((ArrayContainer) a).and((ArrayContainer) b);
+  }
+
+  /**
+   * Returns the union of two containers. The first container may be modified and returned.
+   */
+  private static Container or(Container a, Container b)
+  {
+    a = a.expand();
+    b = b.expand();
+    if (a instanceof BitmapContainer)
+    {
+      if (b instanceof BitmapContainer)
+      {
+        return ((BitmapContainer) a).or((BitmapContainer) b);
+      }
+      return ((BitmapContainer) a).or((ArrayContainer) b);
+    }
+    if (b instanceof BitmapContainer)
+    {
+      return ((BitmapContainer) b).copy().or((ArrayContainer) a);
+    }
+    return ((ArrayContainer) a).or((ArrayContainer) b);
+  }
+
+  /**
+   * Returns the difference of two containers. The first container may be modified and returned.
+   */
+  private static Container andNot(Container a, Container b)
+  {
+    a = a.expand();
+    b = b.expand();
+    if (a instanceof BitmapContainer)
+    {
+      if (b instanceof BitmapContainer)
+      {
+        return ((BitmapContainer) a).andNot((BitmapContainer) b);
+      }
+      return ((BitmapContainer) a).andNot((ArrayContainer) b);
+    }
+    return ((ArrayContainer) a).andNot(b);
+  }
+
+  /** Holds the low-order 16 bits of IDs sharing the same high-order bits. */
+  private abstract static class Container
+  {
+    abstract int cardinality();
+
+    abstract char first();
+
+    abstract char last();
+
+    abstract boolean contains(char value);
+
+    /** Adds a value and returns the container holding the result, which may be this container. */
+    abstract Container add(char value);
+
+    /** Removes a value and returns the container holding the result, which may be this container. */
+    abstract Container remove(char value);
+
+    /** Returns an array or a bitmap container with the same content, which may be this container. */
+    abstract Container expand();
+
+    abstract Container runOptimize();
+
+    abstract int copyTo(long high, long[] dest, int offset);
+
+    abstract Container copy();
+
+    abstract void encode(ByteStringBuilder builder);
+  }
+
+  /** Sorted array of values, used for sparse containers. */
+  private static final class ArrayContainer extends Container
+  {
+    private char[] content;
+    private int cardinality;
+
+    ArrayContainer()
+    {
+      this(new char[4], 0);
+    }
+
+    ArrayContainer(char[] content, int cardinality)
+    {
+      this.content = content;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    int cardinality()
+    {
+      return cardinality;
+    }
+
+    @Override
+    char first()
+    {
+      return content[0];
+    }
+
+    @Override
+    char last()
+    {
+      return content[cardinality - 1];
+    }
+
+    @Override
+    boolean contains(char value)
+    {
+      return Arrays.binarySearch(content, 0, cardinality, value) >= 0;
+    }
+
+    @Override
+    Container add(char value)
+    {
+      int pos = Arrays.binarySearch(content, 0, cardinality, value);
+      if (pos >= 0)
+      {
+        return this;
+      }
+      if (cardinality >= MAX_ARRAY_CONTAINER_SIZE)
+      {
+        return toBitmapContainer().add(value);
+      }
+      pos = -(pos + 1);
+      if (cardinality == content.length)
+      {
+        content = Arrays.copyOf(content, Math.min(MAX_ARRAY_CONTAINER_SIZE, Math.max(4, cardinality * 2)));
+      }
+      System.arraycopy(content, pos, content, pos + 1, cardinality - pos);
+      content[pos] = value;
+      cardinality++;
+      return this;
+    }
+
+    @Override
+    Container remove(char value)
+    {
+      final int pos = Arrays.binarySearch(content, 0, cardinality, value);
+      if (pos >= 0)
+      {
+        System.arraycopy(content, pos + 1, content, pos, cardinality - pos - 1);
+        cardinality--;
+      }
+      return this;
+    }
+
+    @Override
+    Container expand()
+    {
+      return this;
+    }
+
+    @Override
+    Container runOptimize()
+    {
+      final int nbRuns = countRuns();
+      return RunContainer.isSmaller(nbRuns, cardinality * 2) ? RunContainer.valueOf(this, nbRuns) : this;
+    }
+
+    private int countRuns()
+    {
+      int nbRuns = cardinality > 0 ? 1 : 0;
+      for (int i = 1; i < cardinality; i++)
+      {
+        if (content[i] != content[i - 1] + 1)
+        {
+          nbRuns++;
+        }
+      }
+      return nbRuns;
+    }
+
+    ArrayContainer and(ArrayContainer that)
+    {
+      int target = 0;
+      for (int i = 0, j = 0; i < cardinality && j < that.cardinality;)
+      {
+        if (content[i] < that.content[j])
+        {
+          i++;
+        }
+        else if (content[i] > that.content[j])
+        {
+          j++;
+        }
+        else
+        {
+          content[target++] = content[i++];
+          j++;
+        }
+      }
+      cardinality = target;
+      return this;
+    }
+
+    ArrayContainer and(BitmapContainer that)
+    {
+      int target = 0;
+      for (int i = 0; i < cardinality; i++)
+      {
+        if (that.contains(content[i]))
+        {
+          content[target++] = content[i];
+        }
+      }
+      cardinality = target;
+      return this;
+    }
+
+    Container or(ArrayContainer that)
+    {
+      if (cardinality + that.cardinality > MAX_ARRAY_CONTAINER_SIZE)
+      {
+        return toBitmapContainer().or(that);
+      }
+      final char[] merged = new char[cardinality + that.cardinality];
+      int target = 0, i = 0, j = 0;
+      while (i < cardinality && j < that.cardinality)
+      {
+        if (content[i] < that.content[j])
+        {
+          merged[target++] = content[i++];
+        }
+        else if (content[i] > that.content[j])
+        {
+          merged[target++] = that.content[j++];
+        }
+        else
+        {
+          merged[target++] = content[i++];
+          j++;
+        }
+      }
+      System.arraycopy(content, i, merged, target, cardinality - i);
+      target += cardinality - i;
+      System.arraycopy(that.content, j, merged, target, that.cardinality - j);
+      target += that.cardinality - j;
+      content = merged;
+      cardinality = target;
+      return this;
+    }
+
+    ArrayContainer andNot(Container that)
+    {
+      int target = 0;
+      for (int i = 0; i < cardinality; i++)
+      {
+        if (!that.contains(content[i]))
+        {
+          content[target++] = content[i];
+        }
+      }
+      cardinality = target;
+      return this;
+    }
+
+    BitmapContainer toBitmapContainer()
+    {
+      final BitmapContainer bitmap = new BitmapContainer();
+      for (int i = 0; i < cardinality; i++)
+      {
+        bitmap.set(content[i]);
+      }
+      return bitmap;
+    }
+
+    @Override
+    int copyTo(long high, long[] dest, int offset)
+    {
+      for (int i = 0; i < cardinality; i++)
+      {
+        dest[offset++] = high | content[i];
+      }
+      return offset;
+    }
+
+    @Override
+    ArrayContainer copy()
+    {
+      return new ArrayContainer(Arrays.copyOf(content, cardinality), cardinality);
+    }
+
+    @Override
+    void encode(ByteStringBuilder builder)
+    {
+      builder.appendByte(ARRAY_CONTAINER);
+      builder.appendCompactUnsigned(cardinality);
+      int previous = 0;
+      for (int i = 0; i < cardinality; i++)
+      {
+        builder.appendCompactUnsigned(content[i] - previous);
+        previous = content[i];
+      }
+    }
+
+    static ArrayContainer decode(ByteSequenceReader reader)
+    {
+      final int cardinality = reader.readCompactUnsignedInt();
+      final char[] content = new char[cardinality];
+      int value = 0;
+      for (int i = 0; i < cardinality; i++)
+      {
+        value += reader.readCompactUnsignedInt();
+        content[i] = (char) value;
+      }
+      return new ArrayContainer(content, cardinality);
+    }
+  }
+
+  /** Plain bitmap of 65536 bits, used for dense containers. */
+  private static final class BitmapContainer extends Container
+  {
+    private final long[] words;
+    private int cardinality;
+
+    BitmapContainer()
+    {
+      this(new long[BITMAP_CONTAINER_WORDS], 0);
+    }
+
+    private BitmapContainer(long[] words, int cardinality)
+    {
+      this.words = words;
+      this.cardinality = cardinality;
+    }
+
+    void set(char value)
+    {
+      final long before = words[value >>> 6];
+      final long after = before | (1L << value);
+      words[value >>> 6] = after;
+      if (before != after)
+      {
+        cardinality++;
+      }
+    }
+
+    @Override
+    int cardinality()
+    {
+      return cardinality;
+    }
+
+    @Override
+    char first()
+    {
+      for (int i = 0; i < BITMAP_CONTAINER_WORDS; i++)
+      {
+        if (words[i] != 0)
+        {
+          return (char) (i * 64 + Long.numberOfTrailingZeros(words[i]));
+        }
+      }
+      throw new NoSuchElementException();
+    }
+
+    @Override
+    char last()
+    {
+      for (int i = BITMAP_CONTAINER_WORDS - 1; i >= 0; i--)
+      {
+        if (words[i] != 0)
+        {
+          return (char) (i * 64 + 63 - Long.numberOfLeadingZeros(words[i]));
+        }
+      }
+      throw new NoSuchElementException();
+    }
+
+    @Override
+    boolean contains(char value)
+    {
+      return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    Container add(char value)
+    {
+      set(value);
+      return this;
+    }
+
+    @Override
+    Container remove(char value)
+    {
+      final long before = words[value >>> 6];
+      final long after = before & ~(1L << value);
+      if (before != after)
+      {
+        words[value >>> 6] = after;
+        cardinality--;
+      }
+      return shrinkIfSparse();
+    }
+
+    @Override
+    Container expand()
+    {
+      return this;
+    }
+
+    @Override
+    Container runOptimize()
+    {
+      final int nbRuns = countRuns();
+      if (RunContainer.isSmaller(nbRuns, BITMAP_CONTAINER_ENCODED_SIZE))
+      {
+        return RunContainer.valueOf(this, nbRuns);
+      }
+      return this;
+    }
+
+    private int countRuns()
+    {
+      int nbRuns = 0;
+      long previousTopBit = 0;
+      for (long word : words)
+      {
+        nbRuns += Long.bitCount(word & ~(word << 1 | previousTopBit));
+        previousTopBit = word >>> 63;
+      }
+      return nbRuns;
+    }
+
+    Container and(BitmapContainer that)
+    {
+      int newCardinality = 0;
+      for (int i = 0; i < BITMAP_CONTAINER_WORDS; i++)
+      {
+        words[i] &= that.words[i];
+        newCardinality += Long.bitCount(words[i]);
+      }
+      cardinality = newCardinality;
+      return shrinkIfSparse();
+    }
+
+    BitmapContainer or(BitmapContainer that)
+    {
+      int newCardinality = 0;
+      for (int i = 0; i < BITMAP_CONTAINER_WORDS; i++)
+      {
+        words[i] |= that.words[i];
+        newCardinality += Long.bitCount(words[i]);
+      }
+      cardinality = newCardinality;
+      return this;
+    }
+
+    BitmapContainer or(ArrayContainer that)
+    {
+      for (int i = 0; i < that.cardinality; i++)
+      {
+        set(that.content[i]);
+      }
+      return this;
+    }
+
+    Container andNot(BitmapContainer that)
+    {
+      int newCardinality = 0;
+      for (int i = 0; i < BITMAP_CONTAINER_WORDS; i++)
+      {
+        words[i] &= ~that.words[i];
+        newCardinality += Long.bitCount(words[i]);
+      }
+      cardinality = newCardinality;
+      return shrinkIfSparse();
+    }
+
+    Container andNot(ArrayContainer that)
+    {
+      Container result = this;
+      for (int i = 0; i < that.cardinality; i++)
+      {
+        result = result.remove(that.content[i]);
+      }
+      return result;
+    }
+
+    private Container shrinkIfSparse()
+    {
+      if (cardinality > MAX_ARRAY_CONTAINER_SIZE)
+      {
+        return this;
+      }
+      final char[] content = new char[cardinality];
+      copyTo(content);
+      return new ArrayContainer(content, cardinality);
+    }
+
+    private void copyTo(char[] dest)
+    {
+      int offset = 0;
+      for (int i = 0; i < BITMAP_CONTAINER_WORDS; i++)
+      {
+        long word = words[i];
+        while (word != 0)
+        {
+          dest[offset++] = (char) (i * 64 + Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+    }
+
+    @Override
+    int copyTo(long high, long[] dest, int offset)
+    {
+      for (int i = 0; i < BITMAP_CONTAINER_WORDS; i++)
+      {
+        long word = words[i];
+        while (word != 0)
+        {
+          dest[offset++] = high | (i * 64 + Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+      return offset;
+    }
+
+    @Override
+    BitmapContainer copy()
+    {
+      return new BitmapContainer(words.clone(), cardinality);
+    }
+
+    @Override
+    void encode(ByteStringBuilder builder)
+    {
+      builder.appendByte(BITMAP_CONTAINER);
+      for (long word : words)
+      {
+        builder.appendLong(word);
+      }
+    }
+
+    static BitmapContainer decode(ByteSequenceReader reader)
+    {
+      final long[] words = new long[BITMAP_CONTAINER_WORDS];
+      int cardinality = 0;
+      for (int i = 0; i < BITMAP_CONTAINER_WORDS; i++)
+      {
+        words[i] = reader.readLong();
+        cardinality += Long.bitCount(words[i]);
+      }
+      return new BitmapContainer(words, cardinality);
+    }
+  }
+
+  /**
+   * List of runs of consecutive values, stored as (start, length - 1) pairs. Run containers are immutable: they are
+   * expanded to an array or a bitmap container before being modified.
+   */
+  private static final class RunContainer extends Container
+  {
+    private final char[] runs;
+    private final int nbRuns;
+    private final int cardinality;
+
+    private RunContainer(char[] runs, int nbRuns)
+    {
+      this.runs = runs;
+      this.nbRuns = nbRuns;
+      int count = 0;
+      for (int i = 0; i < nbRuns; i++)
+      {
+        count += runs[2 * i + 1] + 1;
+      }
+      this.cardinality = count;
+    }
+
+    /** Returns whether a run container is smaller, once encoded, than the alternative representation. */
+    static boolean isSmaller(int nbRuns, int otherEncodedSize)
+    {
+      return nbRuns * 4 < otherEncodedSize;
+    }
+
+    static RunContainer valueOf(ArrayContainer array, int nbRuns)
+    {
+      final char[] runs = new char[2 * nbRuns];
+      int run = -1;
+      for (int i = 0; i < array.cardinality; i++)
+      {
+        if (i == 0 || array.content[i] != array.content[i - 1] + 1)
+        {
+          runs[2 * ++run] = array.content[i];
+        }
+        else
+        {
+          runs[2 * run + 1]++;
+        }
+      }
+      return new RunContainer(runs, nbRuns);
+    }
+
+    static RunContainer valueOf(BitmapContainer bitmap, int nbRuns)
+    {
+      final char[] values = new char[bitmap.cardinality];
+      bitmap.copyTo(values);
+      return valueOf(new ArrayContainer(values, values.length), nbRuns);
+    }
+
+    @Override
+    int cardinality()
+    {
+      return cardinality;
+    }
+
+    @Override
+    char first()
+    {
+      return runs[0];
+    }
+
+    @Override
+    char last()
+    {
+      return (char) (runs[2 * (nbRuns - 1)] + runs[2 * (nbRuns - 1) + 1]);
+    }
+
+    @Override
+    boolean contains(char value)
+    {
+      int low = 0;
+      int high = nbRuns - 1;
+      while (low <= high)
+      {
+        final int mid = (low + high) >>> 1;
+        final int start = runs[2 * mid];
+        if (value < start)
+        {
+          high = mid - 1;
+        }
+        else if (value > start + runs[2 * mid + 1])
+        {
+          low = mid + 1;
+        }
+        else
+        {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    Container add(char value)
+    {
+      return contains(value) ? this : expand().add(value);
+    }
+
+    @Override
+    Container remove(char value)
+    {
+      return contains(value) ? expand().remove(value) : this;
+    }
+
+    @Override
+    Container expand()
+    {
+      if (cardinality <= MAX_ARRAY_CONTAINER_SIZE)
+      {
+        final char[] content = new char[cardinality];
+        int offset = 0;
+        for (int i = 0; i < nbRuns; i++)
+        {
+          for (int value = runs[2 * i], end = value + runs[2 * i + 1]; value <= end; value++)
+          {
+            content[offset++] = (char) value;
+          }
+        }
+        return new ArrayContainer(content, cardinality);
+      }
+      final BitmapContainer bitmap = new BitmapContainer();
+      for (int i = 0; i < nbRuns; i++)
+      {
+        for (int value = runs[2 * i], end = value + runs[2 * i + 1]; value <= end; value++)
+        {
+          bitmap.set((char) value);
+        }
+      }
+      return bitmap;
+    }
+
+    @Override
+    Container runOptimize()
+    {
+      return this;
+    }
+
+    @Override
+    int copyTo(long high, long[] dest, int offset)
+    {
+      for (int i = 0; i < nbRuns; i++)
+      {
+        for (int value = runs[2 * i], end = value + runs[2 * i + 1]; value <= end; value++)
+        {
+          dest[offset++] = high | value;
+        }
+      }
+      return offset;
+    }
+
+    @Override
+    RunContainer copy()
+    {
+      // Immutable
+      return this;
+    }
+
+    @Override
+    void encode(ByteStringBuilder builder)
+    {
+      builder.appendByte(RUN_CONTAINER);
+      builder.appendCompactUnsigned(nbRuns);
+      int previousStart = 0;
+      for (int i = 0; i < nbRuns; i++)
+      {
+        builder.appendCompactUnsigned(runs[2 * i] - previousStart);
+        builder.appendCompactUnsigned(runs[2 * i + 1]);
+        previousStart = runs[2 * i];
+      }
+    }
+
+    static RunContainer decode(ByteSequenceReader reader)
+    {
+      final int nbRuns = reader.readCompactUnsignedInt();
+      final char[] runs = new char[2 * nbRuns];
+      int start = 0;
+      for (int i = 0; i < nbRuns; i++)
+      {
+        start += reader.readCompactUnsignedInt();
+        runs[2 * i] = (char) start;
+        runs[2 * i + 1] = (char) reader.readCompactUnsignedInt();
+      }
+      return new RunContainer(runs, nbRuns);
+    }
+  }
+
+  /** Iterates over the IDs of the bitmap in ascending order, expanding one container at a time. */
+  private final class BitmapIterator implements Iterator<EntryID>
+  {
+    private int containerIndex;
+    private long[] buffer = EMPTY_LONG_ARRAY;
+    private int bufferSize;
+    private int bufferIndex;
+
+    @Override
+    public boolean hasNext()
+    {
+      while (bufferIndex == bufferSize)
+      {
+        if (containerIndex == nbContainers)
+        {
+          return false;
+        }
+        final Container container = containers[containerIndex];
+        if (buffer.length < container.cardinality())
+        {
+          buffer = new long[container.cardinality()];
+        }
+        bufferSize = container.copyTo(keys[containerIndex] << 16, buffer, 0);
+        bufferIndex = 0;
+        containerIndex++;
+      }
+      return true;
+    }
+
+    @Override
+    public EntryID next()
+    {
+      if (hasNext())
+      {
+        return new EntryID(buffer[bufferIndex++]);
+      }
+      throw new NoSuchElementException();
+    }
+
+    @Override
+    public void remove()
+    {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
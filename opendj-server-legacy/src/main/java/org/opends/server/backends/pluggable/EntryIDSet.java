@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -43,6 +44,7 @@ final class EntryIDSet implements Iterable<EntryID>
 {
   public static final EntryIDSetCodec CODEC_V1 = new EntryIDSetCodecV1();
   public static final EntryIDSetCodec CODEC_V2 = new EntryIDSetCodecV2();
+  public static final EntryIDSetCodec CODEC_V4 = new EntryIDSetCodecV4();
 
   private static final ByteSequence NO_KEY = ByteString.valueOfUtf8("<none>");
   private static final long[] EMPTY_LONG_ARRAY = new long[0];
@@ -272,6 +274,108 @@ final class EntryIDSet implements Iterable<EntryID>
     }
   }
 
+  /**
+   * Concrete implementation representing a set of EntryIDs stored in a compressed bitmap. It is used for large sets
+   * so that they stay compact in memory and are combined one word at a time.
+   */
+  private static final class BitmapImpl implements EntryIDSetImplementor
+  {
+    private final EntryIDBitmap bitmap;
+
+    BitmapImpl(EntryIDBitmap bitmap)
+    {
+      this.bitmap = checkNotNull(bitmap, "bitmap must not be null");
+    }
+
+    @Override
+    public long size()
+    {
+      return bitmap.size();
+    }
+
+    @Override
+    public void toString(StringBuilder buffer)
+    {
+      buffer.append("[COUNT:").append(size()).append("]");
+    }
+
+    @Override
+    public boolean isDefined()
+    {
+      return true;
+    }
+
+    @Override
+    public boolean add(EntryID entryID)
+    {
+      return bitmap.add(entryID.longValue());
+    }
+
+    @Override
+    public boolean remove(EntryID entryID)
+    {
+      return bitmap.remove(entryID.longValue());
+    }
+
+    @Override
+    public boolean contains(EntryID entryID)
+    {
+      return bitmap.contains(entryID.longValue());
+    }
+
+    @Override
+    public void addAll(EntryIDSet that)
+    {
+      final EntryIDBitmap thatBitmap = that.getBitmap();
+      if (thatBitmap != null)
+      {
+        bitmap.or(thatBitmap);
+        return;
+      }
+      for (long id : that.getIDs())
+      {
+        bitmap.add(id);
+      }
+    }
+
+    @Override
+    public void removeAll(EntryIDSet that)
+    {
+      final EntryIDBitmap thatBitmap = that.getBitmap();
+      if (thatBitmap != null)
+      {
+        bitmap.andNot(thatBitmap);
+        return;
+      }
+      for (long id : that.getIDs())
+      {
+        bitmap.remove(id);
+      }
+    }
+
+    @Override
+    public Iterator<EntryID> iterator()
+    {
+      return bitmap.iterator();
+    }
+
+    @Override
+    public long[] getRange()
+    {
+      if (bitmap.size() != 0)
+      {
+        return new long[] { bitmap.first(), bitmap.last() };
+      }
+      return NO_ENTRY_IDS_RANGE;
+    }
+
+    @Override
+    public long[] getIDs()
+    {
+      return bitmap.toArray();
+    }
+  }
+
   /**
    * Concrete implementation where the EntryIDs are not defined, for example when the index entry
    * limit has been exceeded.
@@ -471,6 +575,11 @@ final class EntryIDSet implements Iterable<EntryID>
   private static final class EntryIDSetCodecV2 implements EntryIDSetCodec
   {
     private static final byte UNDEFINED_SET = (byte) 0xFF;
+    /**
+     * Tag of the bitmaps written by {@link EntryIDSetCodecV4}. Encoded sizes are int values, so their compact encoding
+     * never starts with this byte.
+     */
+    private static final byte BITMAP_SET = (byte) 0xFE;
 
     @Override
     public ByteString encode(EntryIDSet idSet)
@@ -490,6 +599,11 @@ final class EntryIDSet implements Iterable<EntryID>
         return newUndefinedSetWithKey(key);
       }
       final ByteSequenceReader reader = value.asReader();
+      if (value.byteAt(0) == BITMAP_SET)
+      {
+        reader.skip(1);
+        return newBitmapSet(EntryIDBitmap.decode(reader));
+      }
       return newDefinedSet(decodeRaw(reader, reader.readCompactUnsignedInt()));
     }
 
@@ -538,6 +652,43 @@ final class EntryIDSet implements Iterable<EntryID>
     }
   }
 
+  /**
+   * Compressed bitmap EntryIDSet codec implementation. Large sets are stored as an {@link EntryIDBitmap} prefixed with
+   * a tag which can never start a value encoded by {@link EntryIDSetCodecV2}, while small sets are still encoded by
+   * {@link EntryIDSetCodecV2}. Decoding is shared with {@link EntryIDSetCodecV2}, so a compacted index can switch
+   * between both codecs without being rebuilt. Decoded large sets are backed by a bitmap.
+   */
+  private static final class EntryIDSetCodecV4 implements EntryIDSetCodec
+  {
+    /** Sets smaller than this are not worth the bitmap overhead. */
+    private static final int BITMAP_SET_MIN_SIZE = 1024;
+
+    @Override
+    public ByteString encode(EntryIDSet idSet)
+    {
+      checkNotNull(idSet, "idSet must not be null");
+      if (!idSet.isDefined() || idSet.size() < BITMAP_SET_MIN_SIZE)
+      {
+        return CODEC_V2.encode(idSet);
+      }
+      EntryIDBitmap bitmap = idSet.getBitmap();
+      if (bitmap == null)
+      {
+        bitmap = EntryIDBitmap.valueOf(idSet.getIDs());
+      }
+      final ByteStringBuilder builder = new ByteStringBuilder(bitmap.getEstimatedEncodedSize() + 1);
+      builder.appendByte(EntryIDSetCodecV2.BITMAP_SET);
+      bitmap.encode(builder);
+      return ByteString.wrap(builder.getBackingArray(), 0, builder.length());
+    }
+
+    @Override
+    public EntryIDSet decode(ByteSequence key, ByteString value)
+    {
+      return CODEC_V2.decode(key, value);
+    }
+  }
+
   /**
    * Decorate a V1 or V2 codec with encryption. When writing EntryIDSets to disk,
    * prepend two bytes, {0, 1} to mark them as encrypted.
@@ -628,6 +779,34 @@ final class EntryIDSet implements Iterable<EntryID>
     return new EntryIDSet(new DefinedImpl(entryIDs));
   }
 
+  /**
+   * Creates a new defined entry ID set backed by the provided bitmap.
+   *
+   * @param bitmap
+   *          The bitmap holding the Entry IDs, which will be owned by the returned set.
+   * @return A new defined {@link EntryIDSet} backed by the provided bitmap
+   * @throws NullPointerException
+   *           if bitmap is null
+   */
+  static EntryIDSet newBitmapSet(EntryIDBitmap bitmap)
+  {
+    return new EntryIDSet(new BitmapImpl(bitmap));
+  }
+
+  private static long[] retainedIn(long[] ids, EntryIDBitmap bitmap)
+  {
+    final long[] target = new long[ids.length];
+    int ci = 0;
+    for (long id : ids)
+    {
+      if (bitmap.contains(id))
+      {
+        target[ci++] = id;
+      }
+    }
+    return ci < target.length ? Arrays.copyOf(target, ci) : target;
+  }
+
   private static long[] intersection(long[] set1, long[] set2)
   {
     long[] target = new long[Math.min(set1.length, set2.length)];
@@ -689,6 +868,17 @@ final class EntryIDSet implements Iterable<EntryID>
       return newUndefinedSet();
     }
 
+    if (containsBitmapSet(sets))
+    {
+      final EntryIDBitmap union = new EntryIDBitmap();
+      for (EntryIDSet l : sets)
+      {
+        final EntryIDBitmap bitmap = l.getBitmap();
+        union.or(bitmap != null ? bitmap : EntryIDBitmap.valueOf(l.getIDs()));
+      }
+      return newBitmapSet(union);
+    }
+
     boolean needSort = false;
     long[] n = new long[count];
     int pos = 0;
@@ -723,6 +913,18 @@ final class EntryIDSet implements Iterable<EntryID>
     return newDefinedSet(Arrays.copyOf(n1, j));
   }
 
+  private static boolean containsBitmapSet(List<EntryIDSet> sets)
+  {
+    for (EntryIDSet l : sets)
+    {
+      if (l.getBitmap() != null)
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private EntryIDSetImplementor concreteImpl;
 
   private EntryIDSet(EntryIDSetImplementor concreteImpl)
@@ -873,6 +1075,11 @@ final class EntryIDSet implements Iterable<EntryID>
   {
     checkNotNull(that, "that must not be null");
     Reject.ifFalse(that.isDefined(), "that must be defined");
+    if (concreteImpl instanceof DefinedImpl && that.getBitmap() != null)
+    {
+      // Keep the large set compressed
+      concreteImpl = new BitmapImpl(EntryIDBitmap.valueOf(concreteImpl.getIDs()));
+    }
     concreteImpl.addAll(that);
   }
 
@@ -889,7 +1096,9 @@ final class EntryIDSet implements Iterable<EntryID>
     checkNotNull(that, "that must not be null");
     if (!concreteImpl.isDefined())
     {
-      if ( that.isDefined() ) {
+      if ( that.getBitmap() != null ) {
+        concreteImpl = new BitmapImpl(that.getBitmap().copy());
+      } else if ( that.isDefined() ) {
         // NOTE: It's ok to share the same array instance here thanks to the copy-on-write
         // performed by the implementation.
         concreteImpl = new DefinedImpl(that.getIDs());
@@ -903,6 +1112,24 @@ final class EntryIDSet implements Iterable<EntryID>
       return;
     }
 
+    final EntryIDBitmap thisBitmap = getBitmap();
+    final EntryIDBitmap thatBitmap = that.getBitmap();
+    if (thisBitmap != null && thatBitmap != null)
+    {
+      thisBitmap.and(thatBitmap);
+      return;
+    }
+    else if (thisBitmap != null)
+    {
+      concreteImpl = new DefinedImpl(retainedIn(that.getIDs(), thisBitmap));
+      return;
+    }
+    else if (thatBitmap != null)
+    {
+      concreteImpl = new DefinedImpl(retainedIn(concreteImpl.getIDs(), thatBitmap));
+      return;
+    }
+
     final boolean thatSetOverlap = compareForOverlap(getRange(), that.getRange()) == 0;
     if (thatSetOverlap)
     {
@@ -952,6 +1179,12 @@ final class EntryIDSet implements Iterable<EntryID>
     return concreteImpl.getRange();
   }
 
+  /** Returns the bitmap backing this set, or {@code null} if this set is not backed by a bitmap. */
+  private EntryIDBitmap getBitmap()
+  {
+    return concreteImpl instanceof BitmapImpl ? ((BitmapImpl) concreteImpl).bitmap : null;
+  }
+
   private static long[] mergeOverlappingEntryIDSet(long set1[], long set2[])
   {
     final long[] a, b;
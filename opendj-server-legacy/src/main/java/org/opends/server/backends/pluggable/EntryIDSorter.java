@@ -0,0 +1,178 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.TreeMap;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+
+/**
+ * Sorts the IDs of the entries matching a search by their encoded VLV keys.
+ * <p>
+ * When the window of results requested by the client is known, for example thanks to a size limit, a page size or the
+ * before and after counts of a VLV request, only the entries which may be part of this window are kept. Memory usage
+ * and the cost of each insertion are then bounded by the size of the window rather than by the number of matching
+ * entries, while {@link #size()} still counts all the matching entries.
+ */
+final class EntryIDSorter
+{
+  /** The entries kept, in sort order. */
+  private final TreeMap<ByteString, EntryID> entries = new TreeMap<>();
+  /** The maximum number of entries sorting at or after the target assertion to keep. */
+  private final int capacity;
+
+  /** The entries sorting before the target assertion, {@code null} when there is no target assertion. */
+  private final TreeMap<ByteString, EntryID> entriesBefore;
+  /** The maximum number of entries sorting before the target assertion to keep. */
+  private final int capacityBefore;
+  private final ByteSequence targetAssertion;
+
+  /** The entries which may not be returned to the client, kept apart so that they do not use the window. */
+  private final TreeMap<ByteString, EntryID> entriesNotCounted = new TreeMap<>();
+
+  private int size;
+  private int sizeBefore;
+
+  private EntryIDSorter(int capacity, ByteSequence targetAssertion, int capacityBefore)
+  {
+    this.capacity = capacity;
+    this.targetAssertion = targetAssertion;
+    this.capacityBefore = capacityBefore;
+    this.entriesBefore = targetAssertion != null ? new TreeMap<ByteString, EntryID>() : null;
+  }
+
+  /**
+   * Returns a sorter keeping all the entries.
+   *
+   * @return a sorter keeping all the entries
+   */
+  static EntryIDSorter keepingAll()
+  {
+    return new EntryIDSorter(Integer.MAX_VALUE, null, 0);
+  }
+
+  /**
+   * Returns a sorter keeping only the first entries in sort order.
+   *
+   * @param count
+   *          the number of entries to keep
+   * @return a sorter keeping only the first entries in sort order
+   */
+  static EntryIDSorter keepingFirst(long count)
+  {
+    return new EntryIDSorter((int) Math.min(count, Integer.MAX_VALUE), null, 0);
+  }
+
+  /**
+   * Returns a sorter keeping only the entries surrounding the first entry sorting at or after a target assertion.
+   *
+   * @param targetAssertion
+   *          the encoded target assertion
+   * @param countBefore
+   *          the number of entries sorting before the target assertion to keep
+   * @param countAfter
+   *          the number of entries sorting at or after the target assertion to keep
+   * @return a sorter keeping only the entries surrounding the target assertion
+   */
+  static EntryIDSorter keepingAround(ByteSequence targetAssertion, int countBefore, int countAfter)
+  {
+    return new EntryIDSorter(countAfter, targetAssertion, countBefore);
+  }
+
+  /**
+   * Adds a matching entry.
+   *
+   * @param sortKey
+   *          the encoded VLV key of the entry, which must be unique
+   * @param entryID
+   *          the ID of the entry
+   * @param countedInWindow
+   *          whether the entry uses the window of the first entries. Entries which may not be returned to the client,
+   *          such as subentries or referrals, must not use it, otherwise fewer entries than requested could be
+   *          returned. It is ignored by the other kinds of sorters, which keep the positions of all the entries.
+   */
+  void add(ByteString sortKey, EntryID entryID, boolean countedInWindow)
+  {
+    size++;
+    if (targetAssertion != null && sortKey.compareTo(targetAssertion) < 0)
+    {
+      sizeBefore++;
+      if (entriesBefore.size() < capacityBefore)
+      {
+        entriesBefore.put(sortKey, entryID);
+      }
+      else if (capacityBefore > 0 && sortKey.compareTo(entriesBefore.firstKey()) > 0)
+      {
+        entriesBefore.pollFirstEntry();
+        entriesBefore.put(sortKey, entryID);
+      }
+    }
+    else if (!countedInWindow && targetAssertion == null && capacity != Integer.MAX_VALUE)
+    {
+      entriesNotCounted.put(sortKey, entryID);
+    }
+    else if (entries.size() < capacity)
+    {
+      entries.put(sortKey, entryID);
+    }
+    else if (capacity > 0 && sortKey.compareTo(entries.lastKey()) < 0)
+    {
+      entries.pollLastEntry();
+      entries.put(sortKey, entryID);
+    }
+  }
+
+  /**
+   * Returns the number of matching entries, including the entries which have not been kept.
+   *
+   * @return the number of matching entries
+   */
+  int size()
+  {
+    return size;
+  }
+
+  /**
+   * Returns the number of entries sorting before the first entry kept.
+   *
+   * @return the number of entries sorting before the first entry kept
+   */
+  int getSkippedCount()
+  {
+    return Math.max(sizeBefore - capacityBefore, 0);
+  }
+
+  /**
+   * Returns the entries kept, in sort order.
+   *
+   * @return the entries kept, in sort order
+   */
+  TreeMap<ByteString, EntryID> getSortedEntries()
+  {
+    if (entriesBefore != null && !entriesBefore.isEmpty())
+    {
+      entriesBefore.putAll(entries);
+      return entriesBefore;
+    }
+    if (!entriesNotCounted.isEmpty())
+    {
+      entriesNotCounted.putAll(entries);
+      return entriesNotCounted;
+    }
+    return entries;
+  }
+}
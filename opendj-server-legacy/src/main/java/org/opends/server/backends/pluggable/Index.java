@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -41,6 +42,15 @@ interface Index extends Tree
 
   boolean setConfidential(boolean indexConfidential);
 
+  /**
+   * Sets whether large sets of entry IDs are encoded as compressed bitmaps. Values written with either encoding remain
+   * readable, so changing this setting does not require the index to be rebuilt.
+   *
+   * @param bitmapEncoding
+   *          {@code true} to encode large sets of entry IDs as compressed bitmaps
+   */
+  void setBitmapEncoding(boolean bitmapEncoding);
+
   void setTrusted(WriteableTransaction txn, boolean trusted);
 
   void update(WriteableTransaction txn, ByteString key, EntryIDSet deletedIDs, EntryIDSet addedIDs);
@@ -13,6 +13,7 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -188,6 +189,7 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
             if (index == null)
             {
               appendDisabledIndexType(debugMessage, indexID, attributeIndex.getAttributeType());
+              attributeIndex.getStatistics().updateUnindexed();
               return createMatchAllQuery().evaluate(debugMessage, indexNameOut);
             }
             try
@@ -201,7 +203,9 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
             }
           }
 
+          final long startNanoTime = System.nanoTime();
           final EntryIDSet entrySet = index.get(txn, indexKey);
+          updateStats(entrySet, index, startNanoTime);
           updateStatsForUndefinedResults(debugMessage, entrySet, index);
           return entrySet;
         }
@@ -227,10 +231,13 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
         if (index == null)
         {
           appendDisabledIndexType(debugMessage, indexID, attributeIndex.getAttributeType());
+          attributeIndex.getStatistics().updateUnindexed();
           return createMatchAllQuery().evaluate(debugMessage, indexNameOut);
         }
 
+        final long startNanoTime = System.nanoTime();
         final EntryIDSet entrySet = readRange(index, txn, lowerBound, upperBound, includeLowerBound, includeUpperBound);
+        updateStats(entrySet, index, startNanoTime);
         updateStatsForUndefinedResults(debugMessage, entrySet, index);
         return entrySet;
       }
@@ -359,10 +366,13 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
           if (index == null)
           {
             appendDisabledIndexType(debugMessage, indexID, attributeIndex.getAttributeType());
+            attributeIndex.getStatistics().updateUnindexed();
             return newUndefinedSet();
           }
 
+          final long startNanoTime = System.nanoTime();
           final EntryIDSet entrySet = index.get(txn, AttributeIndex.PRESENCE_KEY);
+          updateStats(entrySet, index, startNanoTime);
           updateStatsForUndefinedResults(debugMessage, entrySet, index);
           if (indexNameOut != null)
           {
@@ -396,6 +406,11 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
     }
   }
 
+  private void updateStats(EntryIDSet idSet, Index index, long startNanoTime)
+  {
+    attributeIndex.getStatistics().updateLookup(idSet, index.isTrusted(), System.nanoTime() - startNanoTime);
+  }
+
   private static void updateStatsForUndefinedResults(
       LocalizableMessageBuilder debugMessage, EntryIDSet idSet, Index index)
   {
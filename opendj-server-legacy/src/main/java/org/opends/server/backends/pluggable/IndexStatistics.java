@@ -0,0 +1,114 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about the lookups performed on an attribute index or a VLV index while evaluating searches.
+ * <p>
+ * The counters are updated by all the searches concurrently, without any lock, and are published by the
+ * {@link BackendMonitor} so that indexes can be tuned from the searches actually performed.
+ */
+final class IndexStatistics
+{
+  private final LongAdder lookups = new LongAdder();
+  private final LongAdder candidates = new LongAdder();
+  private final AtomicLong maxCandidates = new AtomicLong();
+  private final LongAdder limitExceeded = new LongAdder();
+  private final LongAdder unindexed = new LongAdder();
+  private final LongAdder lookupNanoTime = new LongAdder();
+
+  /**
+   * Records a lookup which has been performed on the index.
+   *
+   * @param candidateSet
+   *          the candidate entry IDs returned by the lookup, undefined or {@code null} if the index entry limit or the
+   *          cursor entry limit has been exceeded
+   * @param trusted
+   *          whether the index was trusted, lookups in untrusted indexes being counted as unindexed
+   * @param elapsedNanoTime
+   *          the time spent performing the lookup, in nanoseconds
+   */
+  void updateLookup(EntryIDSet candidateSet, boolean trusted, long elapsedNanoTime)
+  {
+    lookups.increment();
+    lookupNanoTime.add(elapsedNanoTime);
+    if (candidateSet != null && candidateSet.isDefined())
+    {
+      final long size = candidateSet.size();
+      candidates.add(size);
+      long max = maxCandidates.get();
+      while (size > max && !maxCandidates.compareAndSet(max, size))
+      {
+        max = maxCandidates.get();
+      }
+    }
+    else if (trusted)
+    {
+      limitExceeded.increment();
+    }
+    else
+    {
+      unindexed.increment();
+    }
+  }
+
+  /** Records a lookup which could not be performed because the required index type is not configured. */
+  void updateUnindexed()
+  {
+    lookups.increment();
+    unindexed.increment();
+  }
+
+  /**
+   * Returns the number of lookups performed on the index.
+   *
+   * @return the number of lookups performed on the index
+   */
+  long getLookups()
+  {
+    return lookups.sum();
+  }
+
+  /**
+   * Appends a one line summary of these statistics to the provided buffer.
+   *
+   * @param buffer
+   *          the buffer where to append the summary
+   */
+  void toString(StringBuilder buffer)
+  {
+    final long lookupCount = lookups.sum();
+    final long definedCount = lookupCount - limitExceeded.sum() - unindexed.sum();
+    buffer.append("lookups:").append(lookupCount);
+    buffer.append(" avgcandidates:").append(definedCount > 0 ? candidates.sum() / definedCount : 0);
+    buffer.append(" maxcandidates:").append(maxCandidates.get());
+    buffer.append(" limitexceeded:").append(limitExceeded.sum());
+    buffer.append(" unindexed:").append(unindexed.sum());
+    buffer.append(" time:").append(TimeUnit.NANOSECONDS.toMillis(lookupNanoTime.sum())).append("ms");
+  }
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder buffer = new StringBuilder();
+    toString(buffer);
+    return buffer.toString();
+  }
+}
@@ -13,7 +13,7 @@
  *
  * Portions Copyright 2014 The Apache Software Foundation
  * Copyright 2015-2017 ForgeRock AS.
- * Portions Copyright 2022 Wren Security
+ * Portions Copyright 2022-2026 Wren Security.
  *
  * Licensed to the Apache Software Foundation (ASF) under one or more
  * contributor license agreements.  See the NOTICE file distributed with
@@ -1989,7 +1989,7 @@ final class OnDiskMergeImporter {
         }
     }
 
-    /** Task to copy VLV's counter chunks into a database tree. */
+    /** Task to copy VLV's chunks into a database tree, computing their counter and positions. */
     private static final class VLVIndexImporterTask implements Callable<Void> {
         private final PhaseTwoProgressReporter reporter;
         private final VLVIndex vlvIndex;
@@ -2009,7 +2009,18 @@ final class OnDiskMergeImporter {
             checkThreadNotInterrupted();
             try (SequentialCursor<ByteString, ByteString> sourceCursor =
                          trackCursorProgress(reporter, source.flip())) {
-                final long nbRecords = copyIntoChunk(sourceCursor, asChunk(vlvIndex.getName(), destination));
+                final Chunk destinationChunk = asChunk(vlvIndex.getName(), destination);
+                final VLVPositions.PositionsImporter positions = vlvIndex.newPositionsImporter(destination);
+                long nbRecords = 0;
+                while (sourceCursor.next()) {
+                    if (!destinationChunk.put(sourceCursor.getKey(), sourceCursor.getValue())) {
+                        throw new IllegalStateException("Destination chunk is full");
+                    }
+                    positions.put(sourceCursor.getKey());
+                    nbRecords++;
+                    checkThreadNotInterrupted();
+                }
+                positions.close();
                 vlvIndex.importCount(destination, nbRecords);
                 return null;
             }
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -59,6 +60,7 @@ import org.opends.server.backends.pluggable.spi.ReadableTransaction;
 import org.opends.server.backends.pluggable.spi.Storage;
 import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
 import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.UpdateFunction;
 import org.opends.server.backends.pluggable.spi.WriteOperation;
 import org.opends.server.backends.pluggable.spi.WriteableTransaction;
 import org.opends.server.controls.ServerSideSortRequestControl;
@@ -87,6 +89,15 @@ import org.opends.server.util.StaticUtils;
 class VLVIndex extends AbstractTree implements ConfigurationChangeListener<BackendVLVIndexCfg>, Closeable
 {
   private static final ByteString COUNT_KEY = ByteString.valueOfUtf8("nbRecords");
+  /** Inserts a record with an empty value, leaving an existing record unchanged. */
+  private static final UpdateFunction INSERT_IF_ABSENT = new UpdateFunction()
+  {
+    @Override
+    public ByteSequence computeNewValue(final ByteSequence oldValue)
+    {
+      return oldValue != null ? oldValue : ByteString.empty();
+    }
+  };
 
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
@@ -95,6 +106,8 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
 
   /** The count of entries in this index. */
   private final ShardedCounter counter;
+  /** The count of entries in each block of this index, used for positioning by offset. */
+  private final VLVPositions positions;
 
   private DN baseDN;
   private SearchScope scope;
@@ -110,12 +123,17 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
    */
   private boolean trusted;
 
+  /** The lookup statistics of this index. */
+  private final IndexStatistics statistics = new IndexStatistics();
+
   VLVIndex(final BackendVLVIndexCfg config, final State state, final Storage storage,
       final EntryContainer entryContainer, final WriteableTransaction txn) throws StorageRuntimeException,
       ConfigException
   {
     super(new TreeName(entryContainer.getTreePrefix(), "vlv." + config.getName()));
     this.counter = new ShardedCounter(new TreeName(entryContainer.getTreePrefix(), "counter.vlv." + config.getName()));
+    this.positions =
+        new VLVPositions(new TreeName(entryContainer.getTreePrefix(), "positions.vlv." + config.getName()));
     this.config = config;
     this.baseDN = config.getBaseDN();
     this.scope = convertScope(config.getScope());
@@ -162,12 +180,19 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
   void afterOpen(final WriteableTransaction txn, boolean createOnDemand) throws StorageRuntimeException
   {
     counter.open(txn, createOnDemand);
+    if (createOnDemand)
+    {
+      // VLV indexes created by previous versions may not have positions: they are not needed by read-only tools
+      positions.open(txn, true);
+      positions.setCompleteIfEmpty(txn, getName());
+    }
   }
 
   @Override
   void beforeDelete(WriteableTransaction txn) throws StorageRuntimeException
   {
     counter.delete(txn);
+    positions.delete(txn);
   }
 
   void importCount(Importer importer, long count)
@@ -175,6 +200,11 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     counter.importPut(importer, COUNT_KEY, count);
   }
 
+  VLVPositions.PositionsImporter newPositionsImporter(Importer importer)
+  {
+    return positions.newImporter(importer);
+  }
+
   @Override
   public synchronized boolean isConfigurationChangeAcceptable(final BackendVLVIndexCfg cfg,
       final List<LocalizableMessage> unacceptableReasons)
@@ -452,15 +482,22 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     {
       if (nextDeletedKey == null || (nextAddedKey != null && nextAddedKey.compareTo(nextDeletedKey) < 0))
       {
-        txn.put(getName(), nextAddedKey, toValue());
+        // Only count the keys actually inserted, a re-put of an unchanged sort key must not change the counts
+        if (txn.update(getName(), nextAddedKey, INSERT_IF_ABSENT))
+        {
+          positions.addKey(txn, getName(), nextAddedKey);
+          counter.addCount(txn, COUNT_KEY, 1);
+        }
         nextAddedKey = nextOrNull(ai);
-        counter.addCount(txn, COUNT_KEY, 1);
       }
       else
       {
-        txn.delete(getName(), nextDeletedKey);
+        if (txn.delete(getName(), nextDeletedKey))
+        {
+          positions.removeKey(txn, nextDeletedKey);
+          counter.addCount(txn, COUNT_KEY, -1);
+        }
         nextDeletedKey = nextOrNull(di);
-        counter.addCount(txn, COUNT_KEY, -1);
       }
     }
   }
@@ -495,6 +532,15 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
       debugBuilder.append("]");
     }
 
+    final long startNanoTime = System.nanoTime();
+    final EntryIDSet candidates = evaluate0(txn, searchOperation, vlvRequest, debugBuilder);
+    statistics.updateLookup(candidates, true, System.nanoTime() - startNanoTime);
+    return candidates;
+  }
+
+  private EntryIDSet evaluate0(final ReadableTransaction txn, final SearchOperation searchOperation,
+      final VLVRequestControl vlvRequest, final StringBuilder debugBuilder) throws DirectoryException
+  {
     if (vlvRequest != null)
     {
       if (vlvRequest.getTargetType() == VLVRequestControl.TYPE_TARGET_BYOFFSET)
@@ -506,6 +552,16 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     return evaluateNonVLVRequest(txn, debugBuilder);
   }
 
+  /**
+   * Get the lookup statistics of this VLV index.
+   *
+   * @return The lookup statistics of this VLV index.
+   */
+  IndexStatistics getStatistics()
+  {
+    return statistics;
+  }
+
   private EntryIDSet evaluateNonVLVRequest(final ReadableTransaction txn, final StringBuilder debugBuilder)
   {
     // prevents creating a very large long array holding all the entries stored in the VLV index (see readRange())
@@ -616,28 +672,38 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
   static ByteSequence encodeTargetAssertion(final List<SortKey> sortKeys, final ByteString assertion,
       final SearchOperation searchOperation, final int resultSetSize) throws DirectoryException
   {
-    final SortKey primarySortKey = sortKeys.get(0);
     try
     {
-      /*
-       * Over-allocate the buffer for the primary key since it will be larger than the unnormalized
-       * value. For example it will definitely include a trailing separator byte, but may also
-       * include some escaped bytes as well. 10 extra bytes should accommodate most inputs.
-       */
-      final ByteStringBuilder encodedPrimaryKey = new ByteStringBuilder(assertion.length() + 10);
-      final MatchingRule matchingRule = getEffectiveOrderingRule(primarySortKey);
-      final ByteString normalizedAttributeValue = matchingRule.normalizeAttributeValue(assertion);
-      encodeVLVKeyValue(normalizedAttributeValue, encodedPrimaryKey, primarySortKey.isReverseOrder());
-      return encodedPrimaryKey;
+      return encodeTargetAssertionValue(sortKeys, assertion);
     }
     catch (final DecodeException e)
     {
       addVLVResponseControl(searchOperation, 0, resultSetSize, LDAPResultCode.OFFSET_RANGE_ERROR);
-      final String attrDesc = primarySortKey.getAttributeDescription();
+      final String attrDesc = sortKeys.get(0).getAttributeDescription();
       throw new DirectoryException(ResultCode.VIRTUAL_LIST_VIEW_ERROR, ERR_VLV_BAD_ASSERTION.get(attrDesc));
     }
   }
 
+  /**
+   * Normalize the assertion using the primary key's ordering matching rule, without reporting
+   * any error to the client.
+   */
+  static ByteSequence encodeTargetAssertionValue(final List<SortKey> sortKeys, final ByteString assertion)
+      throws DecodeException
+  {
+    final SortKey primarySortKey = sortKeys.get(0);
+    /*
+     * Over-allocate the buffer for the primary key since it will be larger than the unnormalized
+     * value. For example it will definitely include a trailing separator byte, but may also
+     * include some escaped bytes as well. 10 extra bytes should accommodate most inputs.
+     */
+    final ByteStringBuilder encodedPrimaryKey = new ByteStringBuilder(assertion.length() + 10);
+    final MatchingRule matchingRule = getEffectiveOrderingRule(primarySortKey);
+    final ByteString normalizedAttributeValue = matchingRule.normalizeAttributeValue(assertion);
+    encodeVLVKeyValue(normalizedAttributeValue, encodedPrimaryKey, primarySortKey.isReverseOrder());
+    return encodedPrimaryKey;
+  }
+
   private EntryIDSet evaluateVLVRequestByOffset(final ReadableTransaction txn, final SearchOperation searchOperation,
       final VLVRequestControl vlvRequest, final StringBuilder debugBuilder) throws DirectoryException
   {
@@ -692,7 +758,7 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     final int count = 1 + beforeCount + afterCount;
     try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
     {
-      if (cursor.positionToIndex(startPos))
+      if (positions.positionToIndex(txn, cursor, startPos))
       {
         selectedIDs = readRange(cursor, count, debugBuilder);
       }
@@ -0,0 +1,479 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.Importer;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+
+/**
+ * Counts the records of a VLV index by blocks of consecutive keys, so that the record at a given position can be
+ * found without iterating over all the records preceding it.
+ * <p>
+ * Each record corresponds to a block of the VLV index. Keys are the upper bound (inclusive) of the block, values are
+ * the number of VLV records in the block followed by the lower bound (exclusive) of the block, which is the upper
+ * bound of the previous block or an empty byte string for the first block. Blocks are split when they grow beyond
+ * {@link #MAX_BLOCK_SIZE} records and removed once they are empty.
+ * <p>
+ * The records beyond the last block belong to an unbounded tail block, so that appending keys in ascending order does
+ * not rewrite the key of the last block each time. The tail is made of a record sorting after any VLV key, holding its
+ * lower bound, followed by {@link #TAIL_SHARD_COUNT} shards holding each the number of records added or removed by a
+ * subset of the threads, and the greatest key they added. Concurrent appends update different shards. Once the tail
+ * holds {@link #IMPORT_BLOCK_SIZE} records, it is sealed into a block ending at the greatest key of its shards.
+ * <p>
+ * Positioning to an index reads the block counts up to the block holding the index, then skips the remaining records
+ * of this block: it costs {@code recordCount / blockSize + blockSize} reads instead of {@code index} reads.
+ * <p>
+ * A special record, sorting before any block, flags that the blocks account for all the VLV records. It is written
+ * when the VLV index is created empty or imported. VLV indexes created by previous versions do not have it: they are
+ * positioned by iterating over their records until they are rebuilt.
+ */
+final class VLVPositions extends AbstractTree
+{
+  /** Sorts before any VLV key, which always ends with an 8 bytes entry ID. */
+  private static final ByteString COMPLETE_KEY = ByteString.wrap(new byte[] { 0 });
+  /**
+   * Sorts after any VLV key, which never starts with two {@code 0xff} bytes.
+   *
+   * @see VLVIndex#encodeVLVKeyValue(ByteString, ByteStringBuilder, boolean)
+   */
+  private static final ByteString TAIL_KEY = ByteString.wrap(new byte[] { (byte) 0xff, (byte) 0xff });
+  /** Must be a power of 2. */
+  private static final int TAIL_SHARD_COUNT = 16;
+  /** The number of records added to a tail shard after which the size of the tail is checked. */
+  private static final int TAIL_CHECK_INTERVAL = 64;
+  /** The number of records above which a block is split in two. */
+  static final int MAX_BLOCK_SIZE = 2048;
+  /** The number of records in the blocks written by an import, or sealed from the tail. */
+  private static final int IMPORT_BLOCK_SIZE = MAX_BLOCK_SIZE / 2;
+
+  VLVPositions(TreeName name)
+  {
+    super(name);
+  }
+
+  /**
+   * Flags the blocks as accounting for all the records of the VLV index if the VLV index is empty.
+   *
+   * @param txn
+   *          the write transaction
+   * @param vlvTreeName
+   *          the name of the VLV index tree
+   */
+  void setCompleteIfEmpty(WriteableTransaction txn, TreeName vlvTreeName)
+  {
+    if (!isComplete(txn))
+    {
+      try (Cursor<ByteString, ByteString> cursor = txn.openCursor(vlvTreeName))
+      {
+        if (cursor.next())
+        {
+          return;
+        }
+      }
+      txn.put(getName(), COMPLETE_KEY, ByteString.empty());
+    }
+  }
+
+  private boolean isComplete(ReadableTransaction txn)
+  {
+    return txn.read(getName(), COMPLETE_KEY) != null;
+  }
+
+  /**
+   * Accounts for a record just added to the VLV index.
+   *
+   * @param txn
+   *          the write transaction which added the record
+   * @param vlvTreeName
+   *          the name of the VLV index tree
+   * @param key
+   *          the key of the added record
+   */
+  void addKey(WriteableTransaction txn, TreeName vlvTreeName, ByteString key)
+  {
+    ByteString upperBound = null;
+    long count = 0;
+    ByteString lowerBound = null;
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      if (cursor.positionToKeyOrNext(key) && !isTailKey(cursor.getKey()))
+      {
+        upperBound = cursor.getKey();
+        count = decodeCount(cursor.getValue());
+        lowerBound = decodeLowerBound(cursor.getValue());
+      }
+    }
+
+    if (upperBound != null)
+    {
+      putBlock(txn, vlvTreeName, upperBound, count + 1, lowerBound);
+    }
+    else
+    {
+      // The key is beyond the last block
+      addToTail(txn, vlvTreeName, key);
+    }
+  }
+
+  private void putBlock(WriteableTransaction txn, TreeName vlvTreeName, ByteString upperBound, long count,
+      ByteString lowerBound)
+  {
+    if (count > MAX_BLOCK_SIZE)
+    {
+      splitBlock(txn, vlvTreeName, upperBound, count, lowerBound);
+    }
+    else
+    {
+      txn.put(getName(), upperBound, encodeValue(count, lowerBound));
+    }
+  }
+
+  private void splitBlock(WriteableTransaction txn, TreeName vlvTreeName, ByteString upperBound, long count,
+      ByteString lowerBound)
+  {
+    final long lowerCount = count / 2;
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(vlvTreeName))
+    {
+      if (positionToBlockStart(cursor, lowerBound) && skip(cursor, lowerCount - 1))
+      {
+        final ByteString middle = cursor.getKey();
+        txn.put(getName(), middle, encodeValue(lowerCount, lowerBound));
+        txn.put(getName(), upperBound, encodeValue(count - lowerCount, middle));
+        return;
+      }
+    }
+    // Not enough records in the VLV index, the block counts are not accurate: leave the block as is
+    txn.put(getName(), upperBound, encodeValue(count, lowerBound));
+  }
+
+  private void addToTail(WriteableTransaction txn, TreeName vlvTreeName, ByteString key)
+  {
+    if (txn.read(getName(), TAIL_KEY) == null)
+    {
+      // The tail starts after the last block
+      txn.put(getName(), TAIL_KEY, encodeValue(0, getLastUpperBound(txn)));
+    }
+    final ByteString shardKey = getTailShardKey();
+    final ByteString shard = txn.read(getName(), shardKey);
+    final long shardCount = (shard != null ? decodeCount(shard) : 0) + 1;
+    final ByteString maxKey = shard != null ? decodeLowerBound(shard) : ByteString.empty();
+    txn.put(getName(), shardKey, encodeValue(shardCount, key.compareTo(maxKey) > 0 ? key : maxKey));
+
+    if (shardCount > 0 && shardCount % TAIL_CHECK_INTERVAL == 0)
+    {
+      sealTailIfFull(txn, vlvTreeName);
+    }
+  }
+
+  private ByteString getLastUpperBound(ReadableTransaction txn)
+  {
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      if (cursor.positionToLastKey() && !COMPLETE_KEY.equals(cursor.getKey()))
+      {
+        return cursor.getKey();
+      }
+    }
+    return ByteString.empty();
+  }
+
+  /** Turns the tail into a block ending at the greatest key added to the tail, once it holds enough records. */
+  private void sealTailIfFull(WriteableTransaction txn, TreeName vlvTreeName)
+  {
+    final ByteString lowerBound;
+    final List<ByteString> shardKeys = new ArrayList<>();
+    long count = 0;
+    ByteString upperBound = ByteString.empty();
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      if (!cursor.positionToKey(TAIL_KEY))
+      {
+        return;
+      }
+      lowerBound = decodeLowerBound(cursor.getValue());
+      while (cursor.next())
+      {
+        shardKeys.add(cursor.getKey());
+        count += decodeCount(cursor.getValue());
+        final ByteString maxKey = decodeLowerBound(cursor.getValue());
+        if (maxKey.compareTo(upperBound) > 0)
+        {
+          upperBound = maxKey;
+        }
+      }
+    }
+    if (count < IMPORT_BLOCK_SIZE)
+    {
+      return;
+    }
+
+    for (ByteString shardKey : shardKeys)
+    {
+      txn.delete(getName(), shardKey);
+    }
+    txn.put(getName(), TAIL_KEY, encodeValue(0, upperBound));
+    putBlock(txn, vlvTreeName, upperBound, count, lowerBound);
+  }
+
+  /**
+   * Accounts for a record just removed from the VLV index.
+   *
+   * @param txn
+   *          the write transaction which removed the record
+   * @param key
+   *          the key of the removed record
+   */
+  void removeKey(WriteableTransaction txn, ByteString key)
+  {
+    final ByteString upperBound;
+    final long count;
+    final ByteString lowerBound;
+    ByteString nextUpperBound = null;
+    long nextCount = 0;
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      if (!cursor.positionToKeyOrNext(key))
+      {
+        // The blocks do not account for this record
+        return;
+      }
+      upperBound = cursor.getKey();
+      count = decodeCount(cursor.getValue()) - 1;
+      lowerBound = decodeLowerBound(cursor.getValue());
+      if (count <= 0 && !isTailKey(upperBound) && cursor.next())
+      {
+        nextUpperBound = cursor.getKey();
+        nextCount = decodeCount(cursor.getValue());
+      }
+    }
+
+    if (isTailKey(upperBound))
+    {
+      removeFromTail(txn);
+      return;
+    }
+    if (count > 0)
+    {
+      txn.put(getName(), upperBound, encodeValue(count, lowerBound));
+      return;
+    }
+    // The block is empty: merge its range into the next block, or into the tail
+    txn.delete(getName(), upperBound);
+    if (nextUpperBound != null)
+    {
+      txn.put(getName(), nextUpperBound, encodeValue(nextCount, lowerBound));
+    }
+  }
+
+  private void removeFromTail(WriteableTransaction txn)
+  {
+    final ByteString shardKey = getTailShardKey();
+    final ByteString shard = txn.read(getName(), shardKey);
+    final long shardCount = (shard != null ? decodeCount(shard) : 0) - 1;
+    txn.put(getName(), shardKey, encodeValue(shardCount, shard != null ? decodeLowerBound(shard) : ByteString.empty()));
+  }
+
+  private static boolean isTailKey(ByteString key)
+  {
+    return key.startsWith(TAIL_KEY);
+  }
+
+  private static ByteString getTailShardKey()
+  {
+    final byte shard = (byte) (Thread.currentThread().getId() & (TAIL_SHARD_COUNT - 1));
+    return new ByteStringBuilder(TAIL_KEY.length() + 1).appendBytes(TAIL_KEY).appendByte(shard).toByteString();
+  }
+
+  /**
+   * Positions a cursor on a VLV index to the specified index within the VLV index.
+   *
+   * @param txn
+   *          the transaction
+   * @param vlvCursor
+   *          a cursor on the VLV index tree
+   * @param index
+   *          the index where the cursor should be positioned, (0 is the first record)
+   * @return {@code true} if the cursor could be positioned to the index, {@code false} otherwise
+   * @see Cursor#positionToIndex(int)
+   */
+  boolean positionToIndex(ReadableTransaction txn, Cursor<ByteString, ByteString> vlvCursor, int index)
+  {
+    if (!isComplete(txn))
+    {
+      return vlvCursor.positionToIndex(index);
+    }
+
+    long remaining = index;
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      while (cursor.next())
+      {
+        if (COMPLETE_KEY.equals(cursor.getKey()))
+        {
+          continue;
+        }
+        if (TAIL_KEY.equals(cursor.getKey()))
+        {
+          return positionToIndexInTail(cursor, vlvCursor, remaining);
+        }
+        final long count = decodeCount(cursor.getValue());
+        if (remaining < count)
+        {
+          return positionToBlockStart(vlvCursor, decodeLowerBound(cursor.getValue())) && skip(vlvCursor, remaining);
+        }
+        remaining -= count;
+      }
+    }
+    return false;
+  }
+
+  private static boolean positionToIndexInTail(Cursor<ByteString, ByteString> cursor,
+      Cursor<ByteString, ByteString> vlvCursor, long index)
+  {
+    final ByteString lowerBound = decodeLowerBound(cursor.getValue());
+    long count = 0;
+    while (cursor.next())
+    {
+      count += decodeCount(cursor.getValue());
+    }
+    return index < count && positionToBlockStart(vlvCursor, lowerBound) && skip(vlvCursor, index);
+  }
+
+  /** Positions the cursor to the first record greater than the provided exclusive lower bound. */
+  private static boolean positionToBlockStart(Cursor<ByteString, ByteString> cursor, ByteString lowerBound)
+  {
+    if (lowerBound.isEmpty())
+    {
+      return cursor.positionToIndex(0);
+    }
+    if (!cursor.positionToKeyOrNext(lowerBound))
+    {
+      return false;
+    }
+    return !cursor.getKey().equals(lowerBound) || cursor.next();
+  }
+
+  private static boolean skip(Cursor<ByteString, ByteString> cursor, long count)
+  {
+    for (long i = 0; i < count; i++)
+    {
+      if (!cursor.next())
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns an importer writing the blocks of a VLV index being imported.
+   *
+   * @param importer
+   *          the importer writing the VLV index
+   * @return an importer which must be provided with the VLV keys in order
+   */
+  PositionsImporter newImporter(Importer importer)
+  {
+    return new PositionsImporter(importer);
+  }
+
+  /** Writes the blocks of a VLV index whose keys are imported in order. */
+  final class PositionsImporter
+  {
+    private final Importer importer;
+    private ByteString lowerBound = ByteString.empty();
+    private ByteSequence lastKey;
+    private long count;
+
+    private PositionsImporter(Importer importer)
+    {
+      this.importer = importer;
+    }
+
+    /**
+     * Accounts for the next imported VLV key.
+     *
+     * @param key
+     *          the VLV key, which must be greater than all the previous ones
+     */
+    void put(ByteSequence key)
+    {
+      lastKey = key;
+      if (++count == IMPORT_BLOCK_SIZE)
+      {
+        writeBlock();
+      }
+    }
+
+    /**
+     * Writes the last block, starts the tail after it and flags the blocks as accounting for all the records of the
+     * VLV index.
+     */
+    void close()
+    {
+      if (count > 0)
+      {
+        writeBlock();
+      }
+      importer.put(getName(), TAIL_KEY, encodeValue(0, lowerBound));
+      importer.put(getName(), COMPLETE_KEY, ByteString.empty());
+    }
+
+    private void writeBlock()
+    {
+      final ByteString upperBound = lastKey.toByteString();
+      importer.put(getName(), upperBound, encodeValue(count, lowerBound));
+      lowerBound = upperBound;
+      count = 0;
+    }
+  }
+
+  private static ByteString encodeValue(long count, ByteSequence lowerBound)
+  {
+    return new ByteStringBuilder(8 + lowerBound.length()).appendLong(count).appendBytes(lowerBound).toByteString();
+  }
+
+  private static long decodeCount(ByteString value)
+  {
+    return value.subSequence(0, 8).toLong();
+  }
+
+  private static ByteString decodeLowerBound(ByteString value)
+  {
+    return value.subSequence(8, value.length());
+  }
+
+  @Override
+  public String keyToString(ByteString key)
+  {
+    return key.toHexString();
+  }
+
+  @Override
+  public String valueToString(ByteString value)
+  {
+    return value.length() < 8 ? "complete" : String.valueOf(decodeCount(value));
+  }
+}
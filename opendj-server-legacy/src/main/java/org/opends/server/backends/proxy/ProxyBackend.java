@@ -0,0 +1,743 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.proxy;
+
+import static org.forgerock.opendj.ldap.LdapException.*;
+import static org.forgerock.opendj.ldap.requests.Requests.*;
+import static org.forgerock.util.Utils.joinAsString;
+import static org.opends.messages.BackendMessages.*;
+import static org.opends.server.util.ServerConstants.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.adapter.server3x.Converters;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ConditionResult;
+import org.forgerock.opendj.ldap.Connection;
+import org.forgerock.opendj.ldap.ConnectionFactory;
+import org.forgerock.opendj.ldap.Connections;
+import org.forgerock.opendj.ldap.ConsistentHashMap;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.Filter;
+import org.forgerock.opendj.ldap.LdapException;
+import org.forgerock.opendj.ldap.LdapPromise;
+import org.forgerock.opendj.ldap.LinkedAttribute;
+import org.forgerock.opendj.ldap.Modification;
+import org.forgerock.opendj.ldap.RDN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.SearchResultHandler;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.controls.ProxiedAuthV2RequestControl;
+import org.forgerock.opendj.ldap.requests.AddRequest;
+import org.forgerock.opendj.ldap.requests.ModifyDNRequest;
+import org.forgerock.opendj.ldap.requests.ModifyRequest;
+import org.forgerock.opendj.ldap.requests.Request;
+import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.opendj.ldap.responses.SearchResultReference;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.server.config.meta.ProxyBackendCfgDefn.LoadBalancingAlgorithm;
+import org.forgerock.opendj.server.config.server.ProxyBackendCfg;
+import org.forgerock.util.Options;
+import org.opends.server.api.LocalBackend;
+import org.opends.server.core.AddOperation;
+import org.opends.server.core.DeleteOperation;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ModifyDNOperation;
+import org.opends.server.core.ModifyOperation;
+import org.opends.server.core.SearchOperation;
+import org.opends.server.core.ServerContext;
+import org.opends.server.discovery.Partition;
+import org.opends.server.discovery.ServiceDiscoveryChangeListener;
+import org.opends.server.discovery.ServiceDiscoveryMechanism;
+import org.opends.server.types.BackupConfig;
+import org.opends.server.types.BackupDirectory;
+import org.opends.server.types.Control;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.IndexType;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.LDIFExportConfig;
+import org.opends.server.types.LDIFImportConfig;
+import org.opends.server.types.LDIFImportResult;
+import org.opends.server.types.Operation;
+import org.opends.server.types.RawAttribute;
+import org.opends.server.types.RawModification;
+import org.opends.server.types.RestoreConfig;
+import org.opends.server.util.CollectionUtils;
+
+/**
+ * This backend forwards the operations targeting its base DNs to remote LDAP servers.
+ * <p>
+ * The remote servers are provided by the configured service discovery mechanisms. Each of them is reached through
+ * a pool of connections authenticated as the proxy user, with heart-beats detecting the connections and servers
+ * which stopped answering. Operations are distributed across the available servers by one of the SDK load
+ * balancers, secondary servers only being used when no primary server is available.
+ * <p>
+ * Update operations are forwarded by {@link #forwardUpdate(Operation)} without reading their target entry first:
+ * the remote servers process them on behalf of the requester, with the proxied authorization control, so they enforce
+ * access control, schema checking and password policy against their own data. This saves a round trip per update,
+ * and avoids checking the updates against entries read as the proxy user. The other operations go through the usual
+ * local backend processing, entries being read from the remote servers as the proxy user. Operations requested by
+ * root users and internal operations are forwarded as the proxy user.
+ */
+public class ProxyBackend extends LocalBackend<ProxyBackendCfg> implements ServiceDiscoveryChangeListener
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The request controls which are forwarded to the remote servers. */
+  private static final Set<String> FORWARDED_CONTROLS = CollectionUtils.newHashSet(
+      OID_SUBTREE_DELETE_CONTROL,
+      OID_PAGED_RESULTS_CONTROL,
+      OID_MANAGE_DSAIT_CONTROL,
+      OID_SERVER_SIDE_SORT_REQUEST_CONTROL,
+      OID_VLV_REQUEST_CONTROL);
+  /** The request controls which are also forwarded with the update operations, as these are not processed locally. */
+  private static final Set<String> FORWARDED_UPDATE_CONTROLS = CollectionUtils.newHashSet(
+      OID_LDAP_ASSERTION,
+      OID_LDAP_NOOP_OPENLDAP_ASSIGNED,
+      OID_LDAP_READENTRY_PREREAD,
+      OID_LDAP_READENTRY_POSTREAD,
+      OID_PERMISSIVE_MODIFY_CONTROL);
+
+  private ProxyBackendCfg cfg;
+  private ServerContext serverContext;
+  private Set<DN> baseDNs;
+  private final List<ServiceDiscoveryMechanism<?>> mechanisms = new ArrayList<>();
+
+  /** The load balancer distributing operations across the remote servers, {@code null} when there are none. */
+  private volatile ConnectionFactory loadBalancer;
+  private List<RemoteServer> remoteServers = Collections.emptyList();
+
+  @Override
+  public void configureBackend(ProxyBackendCfg cfg, ServerContext serverContext) throws ConfigException
+  {
+    if (cfg.getLoadBalancingAlgorithm() == LoadBalancingAlgorithm.CONSISTENT_HASH && cfg.getPartitionBaseDN() == null)
+    {
+      throw new ConfigException(ERR_PROXY_BACKEND_PARTITION_BASE_DN_REQUIRED.get(cfg.getBackendId()));
+    }
+    this.cfg = cfg;
+    this.serverContext = serverContext;
+    this.baseDNs = cfg.getBaseDN();
+  }
+
+  @Override
+  public boolean isConfigurationAcceptable(ProxyBackendCfg configuration,
+      List<LocalizableMessage> unacceptableReasons, ServerContext serverContext)
+  {
+    if (configuration.getLoadBalancingAlgorithm() == LoadBalancingAlgorithm.CONSISTENT_HASH
+        && configuration.getPartitionBaseDN() == null)
+    {
+      unacceptableReasons.add(ERR_PROXY_BACKEND_PARTITION_BASE_DN_REQUIRED.get(configuration.getBackendId()));
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public synchronized void openBackend() throws ConfigException, InitializationException
+  {
+    for (String name : cfg.getServiceDiscoveryMechanism())
+    {
+      final ServiceDiscoveryMechanism<?> mechanism =
+          serverContext.getServiceDiscoveryMechanismConfigManager().getMechanism(name);
+      if (mechanism == null)
+      {
+        mechanisms.clear();
+        throw new ConfigException(ERR_PROXY_BACKEND_UNKNOWN_SERVICE_DISCOVERY_MECHANISM.get(cfg.getBackendId(), name));
+      }
+      mechanisms.add(mechanism);
+    }
+
+    for (DN dn : baseDNs)
+    {
+      try
+      {
+        serverContext.getBackendConfigManager().registerBaseDN(dn, this, false);
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+
+        LocalizableMessage message = ERR_BACKEND_CANNOT_REGISTER_BASEDN.get(dn, getExceptionMessage(e));
+        throw new InitializationException(message, e);
+      }
+    }
+
+    openLoadBalancer();
+    for (ServiceDiscoveryMechanism<?> mechanism : mechanisms)
+    {
+      mechanism.registerChangeListener(this);
+    }
+  }
+
+  @Override
+  public synchronized void closeBackend()
+  {
+    for (ServiceDiscoveryMechanism<?> mechanism : mechanisms)
+    {
+      mechanism.deregisterChangeListener(this);
+    }
+    mechanisms.clear();
+
+    for (DN dn : baseDNs)
+    {
+      try
+      {
+        serverContext.getBackendConfigManager().deregisterBaseDN(dn);
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+      }
+    }
+
+    deregisterMonitorProviders(remoteServers);
+    closeLoadBalancer(loadBalancer, remoteServers);
+    loadBalancer = null;
+    remoteServers = Collections.emptyList();
+  }
+
+  @Override
+  public synchronized void serviceChanged(ServiceDiscoveryMechanism<?> changedService)
+  {
+    final ConnectionFactory oldLoadBalancer = loadBalancer;
+    final List<RemoteServer> oldRemoteServers = remoteServers;
+    // monitor providers are registered by name, which the new remote servers may share with the old ones
+    deregisterMonitorProviders(oldRemoteServers);
+    openLoadBalancer();
+    // operations in progress complete on the connections they hold, which are closed when released
+    closeLoadBalancer(oldLoadBalancer, oldRemoteServers);
+  }
+
+  /** Creates the remote servers provided by the service discovery mechanisms, and load balances across them. */
+  private void openLoadBalancer()
+  {
+    final Set<Partition> partitions = new LinkedHashSet<>();
+    for (ServiceDiscoveryMechanism<?> mechanism : mechanisms)
+    {
+      partitions.addAll(mechanism.getPartitions(baseDNs));
+    }
+
+    final List<RemoteServer> servers = new ArrayList<>();
+    final ConnectionFactory newLoadBalancer;
+    if (cfg.getLoadBalancingAlgorithm() == LoadBalancingAlgorithm.CONSISTENT_HASH)
+    {
+      // each partition holds a share of the data
+      final ConsistentHashMap<ConnectionFactory> partitionMap = new ConsistentHashMap<>();
+      for (Partition partition : partitions)
+      {
+        final ConnectionFactory factory = newLoadBalancer(partition.getPartitionId(),
+            partition.getPrimaryServers(), partition.getSecondaryServers(), servers);
+        if (factory != null)
+        {
+          partitionMap.put(partition.getPartitionId(), factory);
+        }
+      }
+      newLoadBalancer = partitionMap.isEmpty() ? null
+          : Connections.newFixedSizeDistributionLoadBalancer(cfg.getPartitionBaseDN(), partitionMap,
+              Options.defaultOptions());
+    }
+    else
+    {
+      // all the partitions hold the same data
+      final Set<Partition.Server> primaryServers = new LinkedHashSet<>();
+      final Set<Partition.Server> secondaryServers = new LinkedHashSet<>();
+      final List<String> partitionIds = new ArrayList<>();
+      for (Partition partition : partitions)
+      {
+        primaryServers.addAll(partition.getPrimaryServers());
+        secondaryServers.addAll(partition.getSecondaryServers());
+        partitionIds.add(partition.getPartitionId());
+      }
+      secondaryServers.removeAll(primaryServers);
+      newLoadBalancer = newLoadBalancer(joinAsString(",", partitionIds), primaryServers, secondaryServers, servers);
+    }
+
+    if (newLoadBalancer == null)
+    {
+      logger.error(ERR_PROXY_BACKEND_NO_REMOTE_SERVERS, cfg.getBackendId());
+    }
+    for (RemoteServer server : servers)
+    {
+      DirectoryServer.registerMonitorProvider(server);
+    }
+    loadBalancer = newLoadBalancer;
+    remoteServers = servers;
+  }
+
+  private ConnectionFactory newLoadBalancer(String partitionId, Collection<Partition.Server> primaryServers,
+      Collection<Partition.Server> secondaryServers, List<RemoteServer> servers)
+  {
+    final ConnectionFactory primaries = newLoadBalancer(partitionId, primaryServers, true, servers);
+    final ConnectionFactory secondaries = newLoadBalancer(partitionId, secondaryServers, false, servers);
+    if (primaries == null || secondaries == null)
+    {
+      return primaries != null ? primaries : secondaries;
+    }
+    return Connections.newFailoverLoadBalancer(CollectionUtils.newArrayList(primaries, secondaries),
+        Options.defaultOptions());
+  }
+
+  private ConnectionFactory newLoadBalancer(String partitionId, Collection<Partition.Server> partitionServers,
+      boolean isPrimary, List<RemoteServer> servers)
+  {
+    if (partitionServers.isEmpty())
+    {
+      return null;
+    }
+    final List<RemoteServer> factories = new ArrayList<>(partitionServers.size());
+    for (Partition.Server server : partitionServers)
+    {
+      factories.add(new RemoteServer(cfg, partitionId, server, isPrimary));
+    }
+    servers.addAll(factories);
+
+    final Options options = Options.defaultOptions();
+    switch (cfg.getLoadBalancingAlgorithm())
+    {
+    case ROUND_ROBIN:
+      return Connections.newRoundRobinLoadBalancer(factories, options);
+    case AFFINITY:
+      return Connections.newAffinityRequestLoadBalancer(factories, options);
+    default:
+      return Connections.newLeastRequestsLoadBalancer(factories, options);
+    }
+  }
+
+  private static void deregisterMonitorProviders(List<RemoteServer> servers)
+  {
+    for (RemoteServer server : servers)
+    {
+      DirectoryServer.deregisterMonitorProvider(server);
+    }
+  }
+
+  private static void closeLoadBalancer(ConnectionFactory loadBalancer, List<RemoteServer> servers)
+  {
+    if (loadBalancer != null)
+    {
+      loadBalancer.close();
+    }
+    for (RemoteServer server : servers)
+    {
+      server.close();
+    }
+  }
+
+  @Override
+  public Set<DN> getBaseDNs()
+  {
+    return baseDNs;
+  }
+
+  @Override
+  public long getEntryCount()
+  {
+    return -1;
+  }
+
+  @Override
+  public boolean isIndexed(AttributeType attributeType, IndexType indexType)
+  {
+    // Whether the remote servers index the attribute is unknown, let them decide.
+    return true;
+  }
+
+  @Override
+  public ConditionResult hasSubordinates(DN entryDN) throws DirectoryException
+  {
+    return ConditionResult.UNDEFINED;
+  }
+
+  @Override
+  public long getNumberOfEntriesInBaseDN(DN baseDN) throws DirectoryException
+  {
+    throw new DirectoryException(ResultCode.UNWILLING_TO_PERFORM, ERR_NUM_SUBORDINATES_NOT_SUPPORTED.get());
+  }
+
+  @Override
+  public long getNumberOfChildren(DN parentDN) throws DirectoryException
+  {
+    throw new DirectoryException(ResultCode.UNWILLING_TO_PERFORM, ERR_NUM_SUBORDINATES_NOT_SUPPORTED.get());
+  }
+
+  @Override
+  public Entry getEntry(DN entryDN) throws DirectoryException
+  {
+    final SearchRequest request =
+        newSearchRequest(entryDN, SearchScope.BASE_OBJECT, Filter.objectClassPresent(), "*", "+");
+    final List<Entry> entries = new ArrayList<>(1);
+    try (Connection connection = getConnection())
+    {
+      getOrThrow(connection.searchAsync(request, null, new SearchResultHandler()
+      {
+        @Override
+        public boolean handleEntry(SearchResultEntry entry)
+        {
+          entries.add(Converters.to((org.forgerock.opendj.ldap.Entry) entry));
+          return true;
+        }
+
+        @Override
+        public boolean handleReference(SearchResultReference reference)
+        {
+          return true;
+        }
+      }));
+    }
+    catch (LdapException e)
+    {
+      if (e.getResult().getResultCode() == ResultCode.NO_SUCH_OBJECT)
+      {
+        return null;
+      }
+      throw new DirectoryException(e.getResult().getResultCode(),
+          ERR_PROXY_BACKEND_REMOTE_ENTRY_UNREADABLE.get(getBackendID(), entryDN, e.getMessage()), e);
+    }
+    return entries.isEmpty() ? null : entries.get(0);
+  }
+
+  @Override
+  public void addEntry(Entry entry, AddOperation addOperation) throws DirectoryException
+  {
+    execute(addOperation, addOperation != null
+        ? toAddRequest(entry.getName(), addOperation) : newAddRequest(Converters.from(entry)));
+  }
+
+  /** Forwards the attributes requested by the client, the operational attributes are the remote server's business. */
+  private static AddRequest toAddRequest(DN entryDN, AddOperation addOperation)
+  {
+    final AddRequest request = newAddRequest(entryDN);
+    for (RawAttribute attribute : addOperation.getRawAttributes())
+    {
+      request.addAttribute(new LinkedAttribute(attribute.getAttributeType(), attribute.getValues()));
+    }
+    return request;
+  }
+
+  @Override
+  public void deleteEntry(DN entryDN, DeleteOperation deleteOperation) throws DirectoryException
+  {
+    execute(deleteOperation, newDeleteRequest(entryDN));
+  }
+
+  @Override
+  public void replaceEntry(Entry oldEntry, Entry newEntry, ModifyOperation modifyOperation)
+      throws DirectoryException
+  {
+    execute(modifyOperation, modifyOperation != null
+        ? toModifyRequest(newEntry.getName(), modifyOperation)
+        : newModifyRequest(Converters.from(oldEntry), Converters.from(newEntry)));
+  }
+
+  /**
+   * Forwards the modifications requested by the client, the operational attributes are the remote server's business.
+   */
+  private static ModifyRequest toModifyRequest(DN entryDN, ModifyOperation modifyOperation)
+  {
+    final ModifyRequest request = newModifyRequest(entryDN);
+    for (RawModification modification : modifyOperation.getRawModifications())
+    {
+      final RawAttribute attribute = modification.getAttribute();
+      request.addModification(new Modification(modification.getModificationType(),
+          new LinkedAttribute(attribute.getAttributeType(), attribute.getValues())));
+    }
+    return request;
+  }
+
+  @Override
+  public void renameEntry(DN currentDN, Entry entry, ModifyDNOperation modifyDNOperation)
+      throws DirectoryException
+  {
+    final DN newDN = entry.getName();
+    final ModifyDNRequest request = newModifyDNRequest(currentDN, newDN.rdn())
+        .setDeleteOldRDN(modifyDNOperation == null || modifyDNOperation.deleteOldRDN());
+    if (!newDN.parent().equals(currentDN.parent()))
+    {
+      request.setNewSuperior(newDN.parent());
+    }
+    execute(modifyDNOperation, request);
+  }
+
+  /**
+   * Forwards the provided update operation to the remote servers, without reading its target entry first.
+   * <p>
+   * The remote servers process the operation on behalf of the requester, so they enforce access control, schema
+   * checking and password policy. The controls which would have been processed locally, such as the assertion or the
+   * read entry controls, are forwarded with the operation.
+   *
+   * @param operation
+   *          the add, delete, modify or modify DN operation to forward
+   * @throws DirectoryException
+   *           if the operation has a critical control which cannot be forwarded, or if it failed
+   */
+  public void forwardUpdate(Operation operation) throws DirectoryException
+  {
+    final Request request = toUpdateRequest(operation);
+    if (request == null)
+    {
+      // the target entry DN is invalid and the operation already has its result code
+      return;
+    }
+    for (Control control : operation.getRequestControls())
+    {
+      final String oid = control.getOID();
+      if (FORWARDED_UPDATE_CONTROLS.contains(oid))
+      {
+        request.addControl(Converters.from(control));
+      }
+      else if (control.isCritical() && !FORWARDED_CONTROLS.contains(oid)
+          && !OID_PROXIED_AUTH_V1.equals(oid) && !OID_PROXIED_AUTH_V2.equals(oid))
+      {
+        throw new DirectoryException(ResultCode.UNAVAILABLE_CRITICAL_EXTENSION,
+            ERR_PROXY_BACKEND_UNSUPPORTED_CRITICAL_CONTROL.get(getBackendID(), operation.getOperationType(), oid));
+      }
+    }
+    execute(operation, request);
+    operation.setResultCode(ResultCode.SUCCESS);
+  }
+
+  /** Returns the request forwarding the provided update operation, or null if its target entry DN is invalid. */
+  private Request toUpdateRequest(Operation operation) throws DirectoryException
+  {
+    switch (operation.getOperationType())
+    {
+    case ADD:
+      final AddOperation addOperation = (AddOperation) operation;
+      final DN entryDN = addOperation.getEntryDN();
+      return entryDN != null ? toAddRequest(entryDN, addOperation) : null;
+
+    case DELETE:
+      final DN deletedDN = ((DeleteOperation) operation).getEntryDN();
+      return deletedDN != null ? newDeleteRequest(deletedDN) : null;
+
+    case MODIFY:
+      final ModifyOperation modifyOperation = (ModifyOperation) operation;
+      final DN modifiedDN = modifyOperation.getEntryDN();
+      return modifiedDN != null ? toModifyRequest(modifiedDN, modifyOperation) : null;
+
+    case MODIFY_DN:
+      final ModifyDNOperation modifyDNOperation = (ModifyDNOperation) operation;
+      final DN renamedDN = modifyDNOperation.getEntryDN();
+      final RDN newRDN = modifyDNOperation.getNewRDN();
+      if (renamedDN == null || newRDN == null)
+      {
+        return null;
+      }
+      return newModifyDNRequest(renamedDN, newRDN)
+          .setDeleteOldRDN(modifyDNOperation.deleteOldRDN())
+          .setNewSuperior(modifyDNOperation.getNewSuperior());
+
+    default:
+      throw new DirectoryException(ResultCode.UNWILLING_TO_PERFORM,
+          ERR_PROXY_BACKEND_OPERATION_NOT_SUPPORTED.get(getBackendID(), operation.getOperationType()));
+    }
+  }
+
+  @Override
+  public void search(final SearchOperation searchOperation) throws DirectoryException
+  {
+    final SearchRequest request = newSearchRequest(searchOperation.getBaseDN(), searchOperation.getScope(),
+        Filter.valueOf(searchOperation.getFilter().toString()))
+        .setDereferenceAliasesPolicy(searchOperation.getDerefPolicy())
+        .setSizeLimit(searchOperation.getSizeLimit())
+        .setTimeLimit(searchOperation.getTimeLimit())
+        .setTypesOnly(searchOperation.getTypesOnly());
+    request.getAttributes().addAll(searchOperation.getAttributes());
+
+    execute(searchOperation, request, new SearchResultHandler()
+    {
+      @Override
+      public boolean handleEntry(SearchResultEntry entry)
+      {
+        return searchOperation.returnEntry(
+            Converters.to((org.forgerock.opendj.ldap.Entry) entry), Converters.to(entry.getControls()));
+      }
+
+      @Override
+      public boolean handleReference(SearchResultReference reference)
+      {
+        return searchOperation.returnReference(searchOperation.getBaseDN(), Converters.to(reference));
+      }
+    });
+  }
+
+  private void execute(Operation operation, Request request) throws DirectoryException
+  {
+    execute(operation, request, null);
+  }
+
+  /**
+   * Forwards the provided request on behalf of the requester of the provided operation, and returns the response
+   * controls of the remote server to the requester.
+   */
+  private void execute(Operation operation, Request request, SearchResultHandler entryHandler)
+      throws DirectoryException
+  {
+    if (operation != null)
+    {
+      for (Control control : operation.getRequestControls())
+      {
+        if (FORWARDED_CONTROLS.contains(control.getOID()))
+        {
+          request.addControl(Converters.from(control));
+        }
+      }
+      final DN authorizationDN = operation.getAuthorizationDN();
+      if (!operation.isInternalOperation() && !DirectoryServer.isRootDN(authorizationDN))
+      {
+        request.addControl(ProxiedAuthV2RequestControl.newControl(
+            "dn:" + (authorizationDN != null ? authorizationDN : DN.rootDN())));
+      }
+    }
+
+    try (Connection connection = getConnection())
+    {
+      addResponseControls(operation, getOrThrow(send(connection, request, entryHandler)));
+    }
+    catch (LdapException e)
+    {
+      final Result result = e.getResult();
+      addResponseControls(operation, result);
+      final String matchedDN = result.getMatchedDN();
+      throw new DirectoryException(result.getResultCode(), LocalizableMessage.raw(result.getDiagnosticMessage()),
+          matchedDN != null && !matchedDN.isEmpty() ? DN.valueOf(matchedDN) : null, e);
+    }
+  }
+
+  private static LdapPromise<? extends Result> send(Connection connection, Request request,
+      SearchResultHandler entryHandler)
+  {
+    if (request instanceof SearchRequest)
+    {
+      return connection.searchAsync((SearchRequest) request, null, entryHandler);
+    }
+    else if (request instanceof ModifyRequest)
+    {
+      return connection.modifyAsync((ModifyRequest) request, null);
+    }
+    else if (request instanceof AddRequest)
+    {
+      return connection.addAsync((AddRequest) request, null);
+    }
+    else if (request instanceof ModifyDNRequest)
+    {
+      return connection.modifyDNAsync((ModifyDNRequest) request, null);
+    }
+    return connection.deleteAsync((org.forgerock.opendj.ldap.requests.DeleteRequest) request, null);
+  }
+
+  private static void addResponseControls(Operation operation, Result result)
+  {
+    if (operation == null)
+    {
+      return;
+    }
+    for (org.forgerock.opendj.ldap.controls.Control control : result.getControls())
+    {
+      operation.addResponseControl(Converters.to(control));
+    }
+  }
+
+  private Connection getConnection() throws LdapException
+  {
+    final ConnectionFactory factory = loadBalancer;
+    if (factory == null)
+    {
+      throw newLdapException(ResultCode.UNAVAILABLE,
+          ERR_PROXY_BACKEND_NO_REMOTE_SERVERS.get(getBackendID()).toString());
+    }
+    return factory.getConnection();
+  }
+
+  private static <R> R getOrThrow(LdapPromise<R> promise) throws LdapException
+  {
+    try
+    {
+      return promise.getOrThrow();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw newLdapException(ResultCode.CLIENT_SIDE_USER_CANCELLED, e);
+    }
+  }
+
+  @Override
+  public Set<String> getSupportedControls()
+  {
+    return FORWARDED_CONTROLS;
+  }
+
+  @Override
+  public Set<String> getSupportedFeatures()
+  {
+    return Collections.emptySet();
+  }
+
+  @Override
+  public boolean supports(BackendOperation backendOperation)
+  {
+    return false;
+  }
+
+  @Override
+  public void exportLDIF(LDIFExportConfig exportConfig) throws DirectoryException
+  {
+    throw unwillingToPerformOperation("LDIF export");
+  }
+
+  @Override
+  public LDIFImportResult importLDIF(LDIFImportConfig importConfig, ServerContext serverContext)
+      throws DirectoryException
+  {
+    throw unwillingToPerformOperation("LDIF import");
+  }
+
+  @Override
+  public void createBackup(BackupConfig backupConfig) throws DirectoryException
+  {
+    throw unwillingToPerformOperation("backup");
+  }
+
+  @Override
+  public void removeBackup(BackupDirectory backupDirectory, String backupID) throws DirectoryException
+  {
+    throw unwillingToPerformOperation("remove backup");
+  }
+
+  @Override
+  public void restoreBackup(RestoreConfig restoreConfig) throws DirectoryException
+  {
+    throw unwillingToPerformOperation("restore");
+  }
+
+  private DirectoryException unwillingToPerformOperation(String operationName)
+  {
+    return new DirectoryException(ResultCode.UNWILLING_TO_PERFORM,
+        ERR_PROXY_BACKEND_OPERATION_NOT_SUPPORTED.get(getBackendID(), operationName));
+  }
+}
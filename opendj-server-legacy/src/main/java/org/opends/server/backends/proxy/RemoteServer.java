@@ -0,0 +1,240 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.proxy;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import static org.forgerock.opendj.ldap.LDAPConnectionFactory.*;
+import static org.forgerock.opendj.ldap.requests.Requests.*;
+import static org.opends.server.util.ServerConstants.*;
+
+import org.forgerock.opendj.ldap.AbstractConnectionWrapper;
+import org.forgerock.opendj.ldap.Connection;
+import org.forgerock.opendj.ldap.ConnectionFactory;
+import org.forgerock.opendj.ldap.ConnectionPool;
+import org.forgerock.opendj.ldap.Connections;
+import org.forgerock.opendj.ldap.IntermediateResponseHandler;
+import org.forgerock.opendj.ldap.LDAPConnectionFactory;
+import org.forgerock.opendj.ldap.LdapException;
+import org.forgerock.opendj.ldap.LdapPromise;
+import org.forgerock.opendj.ldap.SearchResultHandler;
+import org.forgerock.opendj.ldap.requests.AddRequest;
+import org.forgerock.opendj.ldap.requests.CompareRequest;
+import org.forgerock.opendj.ldap.requests.DeleteRequest;
+import org.forgerock.opendj.ldap.requests.ExtendedRequest;
+import org.forgerock.opendj.ldap.requests.ModifyDNRequest;
+import org.forgerock.opendj.ldap.requests.ModifyRequest;
+import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.responses.CompareResult;
+import org.forgerock.opendj.ldap.responses.ExtendedResult;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.schema.ObjectClass;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.forgerock.opendj.server.config.server.ProxyBackendCfg;
+import org.forgerock.util.Function;
+import org.forgerock.util.Options;
+import org.forgerock.util.promise.Promise;
+import org.forgerock.util.time.Duration;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.discovery.Partition;
+import org.opends.server.types.HostPort;
+import org.opends.server.types.OperationType;
+
+/**
+ * A remote LDAP server to which a proxy backend forwards operations through a pool of connections authenticated as
+ * the proxy user.
+ * <p>
+ * The remote server is also the monitor provider publishing the response times of the operations it processed, as
+ * measured from the time they are sent to the time their result is received.
+ */
+final class RemoteServer extends MonitorProvider<MonitorProviderCfg> implements ConnectionFactory
+{
+  private final String monitorInstanceName;
+  private final HostPort hostPort;
+  private final String partitionId;
+  private final boolean isPrimary;
+  private final ConnectionPool pool;
+  private final ResponseTimes responseTimes = new ResponseTimes();
+
+  RemoteServer(ProxyBackendCfg cfg, String partitionId, Partition.Server server, boolean isPrimary)
+  {
+    this.monitorInstanceName = cfg.getBackendId() + " Remote Server " + server.getHostPort();
+    this.hostPort = server.getHostPort();
+    this.partitionId = partitionId;
+    this.isPrimary = isPrimary;
+
+    final Duration connectionTimeout = toDuration(cfg.getConnectionTimeout());
+    final Options options = Options.copyOf(server.getOptions())
+        .set(CONNECT_TIMEOUT, connectionTimeout)
+        .set(HEARTBEAT_ENABLED, true)
+        .set(HEARTBEAT_INTERVAL, toDuration(cfg.getHeartbeatInterval()))
+        .set(HEARTBEAT_TIMEOUT, connectionTimeout);
+    if (cfg.getProxyUserDN() != null)
+    {
+      final String password = cfg.getProxyUserPassword() != null ? cfg.getProxyUserPassword() : "";
+      options.set(AUTHN_BIND_REQUEST, newSimpleBindRequest(cfg.getProxyUserDN().toString(), password.toCharArray()));
+    }
+    final int maxPoolSize = cfg.getConnectionPoolMaxSize();
+    this.pool = Connections.newCachedConnectionPool(
+        new LDAPConnectionFactory(hostPort.getHost(), hostPort.getPort(), options),
+        Math.min(cfg.getConnectionPoolMinSize(), maxPoolSize), maxPoolSize,
+        cfg.getConnectionPoolIdleTimeout(), MILLISECONDS);
+  }
+
+  private static Duration toDuration(long millis)
+  {
+    return millis > 0 ? Duration.duration(millis, MILLISECONDS) : Duration.UNLIMITED;
+  }
+
+  HostPort getHostPort()
+  {
+    return hostPort;
+  }
+
+  @Override
+  public Connection getConnection() throws LdapException
+  {
+    return new TimedConnection(pool.getConnection());
+  }
+
+  @Override
+  public Promise<Connection, LdapException> getConnectionAsync()
+  {
+    return pool.getConnectionAsync().then(new Function<Connection, Connection, LdapException>()
+    {
+      @Override
+      public Connection apply(Connection connection)
+      {
+        return new TimedConnection(connection);
+      }
+    });
+  }
+
+  @Override
+  public void close()
+  {
+    pool.close();
+  }
+
+  @Override
+  public String getMonitorInstanceName()
+  {
+    return monitorInstanceName;
+  }
+
+  @Override
+  public ObjectClass getMonitorObjectClass()
+  {
+    return DirectoryServer.getInstance().getServerContext().getSchema().getObjectClass(OC_MONITOR_PROXY_REMOTE_SERVER);
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    final MonitorData attrs = new MonitorData();
+    attrs.add("ds-mon-remote-server", hostPort.toString());
+    attrs.add("ds-mon-partition", partitionId);
+    attrs.add("ds-mon-primary-server", isPrimary);
+    responseTimes.addMonitorData(attrs);
+    return attrs;
+  }
+
+  @Override
+  public String toString()
+  {
+    return hostPort.toString();
+  }
+
+  /** Records the response time of each operation sent over a pooled connection. */
+  private final class TimedConnection extends AbstractConnectionWrapper<Connection>
+  {
+    private TimedConnection(Connection connection)
+    {
+      super(connection);
+    }
+
+    @Override
+    public LdapPromise<Result> addAsync(AddRequest request, IntermediateResponseHandler intermediateResponseHandler)
+    {
+      final long startTime = System.nanoTime();
+      return timed(OperationType.ADD, startTime, connection.addAsync(request, intermediateResponseHandler));
+    }
+
+    @Override
+    public LdapPromise<CompareResult> compareAsync(CompareRequest request,
+        IntermediateResponseHandler intermediateResponseHandler)
+    {
+      final long startTime = System.nanoTime();
+      return timed(OperationType.COMPARE, startTime, connection.compareAsync(request, intermediateResponseHandler));
+    }
+
+    @Override
+    public LdapPromise<Result> deleteAsync(DeleteRequest request,
+        IntermediateResponseHandler intermediateResponseHandler)
+    {
+      final long startTime = System.nanoTime();
+      return timed(OperationType.DELETE, startTime, connection.deleteAsync(request, intermediateResponseHandler));
+    }
+
+    @Override
+    public <R extends ExtendedResult> LdapPromise<R> extendedRequestAsync(ExtendedRequest<R> request,
+        IntermediateResponseHandler intermediateResponseHandler)
+    {
+      final long startTime = System.nanoTime();
+      return timed(OperationType.EXTENDED, startTime,
+          connection.extendedRequestAsync(request, intermediateResponseHandler));
+    }
+
+    @Override
+    public LdapPromise<Result> modifyAsync(ModifyRequest request,
+        IntermediateResponseHandler intermediateResponseHandler)
+    {
+      final long startTime = System.nanoTime();
+      return timed(OperationType.MODIFY, startTime, connection.modifyAsync(request, intermediateResponseHandler));
+    }
+
+    @Override
+    public LdapPromise<Result> modifyDNAsync(ModifyDNRequest request,
+        IntermediateResponseHandler intermediateResponseHandler)
+    {
+      final long startTime = System.nanoTime();
+      return timed(OperationType.MODIFY_DN, startTime, connection.modifyDNAsync(request, intermediateResponseHandler));
+    }
+
+    @Override
+    public LdapPromise<Result> searchAsync(SearchRequest request,
+        IntermediateResponseHandler intermediateResponseHandler, SearchResultHandler entryHandler)
+    {
+      final long startTime = System.nanoTime();
+      return timed(OperationType.SEARCH, startTime,
+          connection.searchAsync(request, intermediateResponseHandler, entryHandler));
+    }
+
+    private <R> LdapPromise<R> timed(final OperationType type, final long startTime, LdapPromise<R> promise)
+    {
+      return promise.thenAlways(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          responseTimes.record(type, NANOSECONDS.toMicros(System.nanoTime() - startTime));
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.proxy;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.opends.server.api.MonitorData;
+import org.opends.server.types.OperationType;
+
+/**
+ * The response times, in microseconds, of the operations forwarded to a remote server, by operation type.
+ * <p>
+ * Response times are counted in log-linear buckets: each power of two is split into {@value #SUB_BUCKET_COUNT}
+ * linear sub-buckets, so the published percentiles are known within one eighth of their magnitude. Recording a
+ * response time is a single atomic increment.
+ */
+final class ResponseTimes
+{
+  /** The forwarded operation types, with the name used in their monitor attribute names. */
+  private static final Map<OperationType, String> OPERATION_NAMES = new EnumMap<>(OperationType.class);
+  static
+  {
+    OPERATION_NAMES.put(OperationType.ADD, "add");
+    OPERATION_NAMES.put(OperationType.COMPARE, "compare");
+    OPERATION_NAMES.put(OperationType.DELETE, "delete");
+    OPERATION_NAMES.put(OperationType.EXTENDED, "extended");
+    OPERATION_NAMES.put(OperationType.MODIFY, "mod");
+    OPERATION_NAMES.put(OperationType.MODIFY_DN, "moddn");
+    OPERATION_NAMES.put(OperationType.SEARCH, "search");
+  }
+  /** The published percentiles. */
+  private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+  private static final String[] PERCENTILE_SUFFIXES = { "p50", "p90", "p99", "p999" };
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  /** Response times of 2^(MAX_MAGNITUDE+1) microseconds (over an hour) or more are counted in the last bucket. */
+  private static final int MAX_MAGNITUDE = 31;
+  /** The number of buckets of each operation type. */
+  static final int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+  /** The buckets of all the operation types, those of an operation type start at its ordinal * BUCKET_COUNT. */
+  private final AtomicLongArray buckets = new AtomicLongArray(OperationType.values().length * BUCKET_COUNT);
+  /** The highest response times, indexed by operation type ordinal. */
+  private final AtomicLongArray maxValues = new AtomicLongArray(OperationType.values().length);
+
+  /**
+   * Records the response time of an operation.
+   *
+   * @param type
+   *          the type of the operation
+   * @param micros
+   *          the response time in microseconds, negative values are counted as zero
+   */
+  void record(OperationType type, long micros)
+  {
+    final int ordinal = type.ordinal();
+    buckets.incrementAndGet(ordinal * BUCKET_COUNT + bucketIndex(micros));
+    long max = maxValues.get(ordinal);
+    while (micros > max && !maxValues.compareAndSet(ordinal, max, micros))
+    {
+      max = maxValues.get(ordinal);
+    }
+  }
+
+  /**
+   * Adds the count and response time percentiles of the operation types which have been forwarded.
+   *
+   * @param attrs
+   *          the monitor data to which the attributes are added
+   */
+  void addMonitorData(MonitorData attrs)
+  {
+    for (Map.Entry<OperationType, String> operation : OPERATION_NAMES.entrySet())
+    {
+      final int ordinal = operation.getKey().ordinal();
+      final long[] counts = new long[BUCKET_COUNT];
+      long totalCount = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++)
+      {
+        counts[i] = buckets.get(ordinal * BUCKET_COUNT + i);
+        totalCount += counts[i];
+      }
+      if (totalCount > 0)
+      {
+        final long maxValue = maxValues.get(ordinal);
+        final String prefix = "ds-mon-" + operation.getValue() + "-operations-";
+        attrs.add(prefix + "total-count", totalCount);
+        for (int i = 0; i < PERCENTILES.length; i++)
+        {
+          attrs.add(prefix + "response-time-" + PERCENTILE_SUFFIXES[i],
+              getValueAtPercentile(counts, totalCount, maxValue, PERCENTILES[i]));
+        }
+        attrs.add(prefix + "response-time-max", maxValue);
+      }
+    }
+  }
+
+  /**
+   * Returns the response time below or at which the provided percentage of the counted response times fall, rounded
+   * up to the highest value of its bucket.
+   */
+  static long getValueAtPercentile(long[] counts, long totalCount, long maxValue, double percentile)
+  {
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+    long cumulatedCount = 0;
+    for (int i = 0; i < counts.length; i++)
+    {
+      cumulatedCount += counts[i];
+      if (cumulatedCount >= rank)
+      {
+        return Math.min(highestValueInBucket(i), maxValue);
+      }
+    }
+    return maxValue;
+  }
+
+  static int bucketIndex(long micros)
+  {
+    if (micros < SUB_BUCKET_COUNT)
+    {
+      return micros < 0 ? 0 : (int) micros;
+    }
+    final int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+    if (magnitude > MAX_MAGNITUDE)
+    {
+      return BUCKET_COUNT - 1;
+    }
+    final int shift = magnitude - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((micros >>> shift) & (SUB_BUCKET_COUNT - 1));
+  }
+
+  /** Returns the highest response time counted in the bucket having the provided index. */
+  static long highestValueInBucket(int index)
+  {
+    if (index < SUB_BUCKET_COUNT)
+    {
+      return index;
+    }
+    final int shift = (index >>> SUB_BUCKET_BITS) - 1;
+    final long lowestValue = (long) (SUB_BUCKET_COUNT + (index & (SUB_BUCKET_COUNT - 1))) << shift;
+    return lowestValue + (1L << shift) - 1;
+  }
+}
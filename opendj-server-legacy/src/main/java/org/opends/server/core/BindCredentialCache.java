@@ -0,0 +1,273 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.core;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.types.Attribute;
+
+/**
+ * Bounded cache of the simple bind passwords which were successfully verified against the stored
+ * passwords of users.
+ * <p>
+ * Verifying a password encoded with a deliberately expensive storage scheme, such as PBKDF2, bcrypt
+ * or PKCS5S2, costs tens of milliseconds of CPU. When the same user binds again with the same
+ * password, and the stored passwords of the user did not change, the verification can be skipped.
+ * <p>
+ * The cache holds at most one verification per user, made of MACs of the stored passwords and of
+ * the presented password: clear-text passwords are never kept. The MAC key is randomly generated
+ * when the cache is created, at server startup, and only exists in memory. Still, anyone able to
+ * read the memory of the server, e.g. from a heap dump, can read the key and test candidate
+ * passwords against the cached MACs far faster than against the stored passwords, which is why
+ * the cache is disabled by default. A verification is only reused when both MACs match, so
+ * changing or resetting the password of a user invalidates it. Verifications of users whose bind
+ * fails are discarded, and callers are expected to check the account state, including lockout,
+ * before looking up the cache.
+ * <p>
+ * The least recently used verifications are evicted once the maximum number of verifications is
+ * reached. A maximum of 0 disables the cache.
+ */
+public final class BindCredentialCache
+{
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+  private static final int KEY_LENGTH = 32;
+
+  /** A successful verification of the password of a user. */
+  private static final class Verification
+  {
+    private final byte[] storedPasswordsMac;
+    private final byte[] passwordMac;
+
+    private Verification(byte[] storedPasswordsMac, byte[] passwordMac)
+    {
+      this.storedPasswordsMac = storedPasswordsMac;
+      this.passwordMac = passwordMac;
+    }
+
+    private boolean matches(byte[] storedPasswordsMac, byte[] passwordMac)
+    {
+      return MessageDigest.isEqual(this.storedPasswordsMac, storedPasswordsMac)
+          && MessageDigest.isEqual(this.passwordMac, passwordMac);
+    }
+  }
+
+  /** Random key of the MACs, which only exists in memory and is therefore lost on restart. */
+  private final SecretKeySpec key;
+  /** Verifications by user DN, in access order. Guarded by this. */
+  private final LinkedHashMap<DN, Verification> verifications = new LinkedHashMap<>(16, 0.75f, true);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private volatile int maxSize;
+
+  /** Creates a new disabled bind credential cache. */
+  public BindCredentialCache()
+  {
+    final byte[] keyBytes = new byte[KEY_LENGTH];
+    new SecureRandom().nextBytes(keyBytes);
+    key = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+  }
+
+  /**
+   * Indicates whether the provided password was successfully verified against the provided stored
+   * passwords of a user.
+   *
+   * @param userDN
+   *          The DN of the user entry
+   * @param storedPasswords
+   *          The stored password attributes of the user entry
+   * @param password
+   *          The password presented by the user
+   * @return {@code true} if the password was verified against the same stored passwords, or
+   *         {@code false} if it must be verified by the password storage schemes
+   */
+  public boolean isVerified(DN userDN, List<Attribute> storedPasswords, ByteString password)
+  {
+    if (maxSize == 0)
+    {
+      return false;
+    }
+
+    final Verification verification;
+    synchronized (this)
+    {
+      verification = verifications.get(userDN);
+    }
+    if (verification != null && verification.matches(mac(storedPasswords), mac(password)))
+    {
+      hits.increment();
+      return true;
+    }
+    misses.increment();
+    return false;
+  }
+
+  /**
+   * Records that the provided password was successfully verified against the provided stored
+   * passwords of a user, replacing any previous verification for this user.
+   *
+   * @param userDN
+   *          The DN of the user entry
+   * @param storedPasswords
+   *          The stored password attributes of the user entry
+   * @param password
+   *          The password presented by the user
+   */
+  public void verified(DN userDN, List<Attribute> storedPasswords, ByteString password)
+  {
+    final int max = maxSize;
+    if (max == 0)
+    {
+      return;
+    }
+
+    final Verification verification = new Verification(mac(storedPasswords), mac(password));
+    synchronized (this)
+    {
+      verifications.put(userDN, verification);
+      evict(max);
+    }
+  }
+
+  /**
+   * Discards the verification of the password of a user, if any.
+   *
+   * @param userDN
+   *          The DN of the user entry
+   */
+  public void invalidate(DN userDN)
+  {
+    if (maxSize == 0)
+    {
+      return;
+    }
+    synchronized (this)
+    {
+      verifications.remove(userDN);
+    }
+  }
+
+  /**
+   * Sets the maximum number of verifications held by this cache, evicting the least recently used
+   * ones when needed.
+   *
+   * @param maxSize
+   *          The maximum number of verifications, 0 disables the cache
+   */
+  public synchronized void setMaxSize(int maxSize)
+  {
+    this.maxSize = maxSize;
+    evict(maxSize);
+  }
+
+  /**
+   * Returns the maximum number of verifications held by this cache.
+   *
+   * @return the maximum number of verifications, 0 when the cache is disabled
+   */
+  public int getMaxSize()
+  {
+    return maxSize;
+  }
+
+  /**
+   * Returns the number of verifications held by this cache.
+   *
+   * @return the number of verifications held by this cache
+   */
+  public synchronized int size()
+  {
+    return verifications.size();
+  }
+
+  /**
+   * Returns the number of binds which reused a verification.
+   *
+   * @return the number of binds which reused a verification
+   */
+  public long getHits()
+  {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of binds for which no verification could be reused.
+   *
+   * @return the number of binds for which no verification could be reused
+   */
+  public long getMisses()
+  {
+    return misses.sum();
+  }
+
+  private void evict(int max)
+  {
+    final Iterator<Map.Entry<DN, Verification>> it = verifications.entrySet().iterator();
+    while (verifications.size() > max && it.hasNext())
+    {
+      it.next();
+      it.remove();
+    }
+  }
+
+  private byte[] mac(List<Attribute> storedPasswords)
+  {
+    final Mac mac = newMac();
+    for (Attribute attribute : storedPasswords)
+    {
+      for (ByteString value : attribute)
+      {
+        // prefix each value with its length so that distinct sets of values have distinct MACs
+        final int length = value.length();
+        mac.update(new byte[] { (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8),
+          (byte) length });
+        mac.update(value.toByteArray());
+      }
+    }
+    return mac.doFinal();
+  }
+
+  private byte[] mac(ByteString password)
+  {
+    return newMac().doFinal(password.toByteArray());
+  }
+
+  private Mac newMac()
+  {
+    try
+    {
+      final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+      mac.init(key);
+      return mac;
+    }
+    catch (GeneralSecurityException e)
+    {
+      // every Java platform implements HmacSHA256
+      throw new IllegalStateException(e);
+    }
+  }
+}
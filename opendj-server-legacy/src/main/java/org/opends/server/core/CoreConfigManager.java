@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -56,6 +57,9 @@ public class CoreConfigManager implements ConfigurationChangeListener<GlobalCfg>
   /** The core attributes. */
   private volatile CoreAttributes coreAttributes = new CoreAttributes();
 
+  /** The cache of successfully verified simple bind passwords. */
+  private final BindCredentialCache bindCredentialCache = new BindCredentialCache();
+
   /**
    * Creates a new instance of this core config manager.
    *
@@ -179,6 +183,7 @@ public class CoreConfigManager implements ConfigurationChangeListener<GlobalCfg>
     applyGlobalConfiguration(globalConfig, coreAttrs);
     applySubordinateDNsChange(globalConfig, coreAttrs);
     coreAttributes = coreAttrs;
+    bindCredentialCache.setMaxSize(globalConfig.getBindCredentialCacheSize());
     DirectoryServer.resetDefaultPasswordPolicy();
   }
 
@@ -517,6 +522,7 @@ public class CoreConfigManager implements ConfigurationChangeListener<GlobalCfg>
     if (changeResult.getResultCode() == ResultCode.SUCCESS)
     {
       coreAttributes = coreAttrs;
+      bindCredentialCache.setMaxSize(configuration.getBindCredentialCacheSize());
       DirectoryServer.resetDefaultPasswordPolicy();
     }
     return changeResult;
@@ -534,6 +540,16 @@ public class CoreConfigManager implements ConfigurationChangeListener<GlobalCfg>
     return coreAttributes.allowedTasks;
   }
 
+  /**
+   * Retrieves the cache of the simple bind passwords which were successfully verified.
+   *
+   * @return  The cache of the successfully verified simple bind passwords.
+   */
+  public BindCredentialCache getBindCredentialCache()
+  {
+    return bindCredentialCache;
+  }
+
   /**
    * Retrieves the DN of the configuration entry for the default password policy
    * for the Directory Server.
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -129,6 +130,7 @@ import org.opends.server.loggers.RetentionPolicy;
 import org.opends.server.loggers.RotationPolicy;
 import org.opends.server.loggers.TextErrorLogPublisher;
 import org.opends.server.loggers.TextWriter;
+import org.opends.server.monitors.BindCredentialCacheMonitor;
 import org.opends.server.monitors.ConnectionHandlerMonitor;
 import org.opends.server.protocols.internal.InternalClientConnection;
 import org.opends.server.protocols.internal.InternalConnectionHandler;
@@ -1402,6 +1404,7 @@ public final class DirectoryServer
 
       // The core Directory Server configuration.
       coreConfigManager.initializeCoreConfig();
+      registerMonitorProvider(new BindCredentialCacheMonitor(coreConfigManager.getBindCredentialCache()));
 
       initializeCryptoManager();
 
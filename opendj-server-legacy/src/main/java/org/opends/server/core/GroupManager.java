@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -20,6 +21,7 @@ import static org.opends.messages.ConfigMessages.*;
 import static org.opends.messages.CoreMessages.*;
 import static org.opends.server.protocols.internal.InternalClientConnection.*;
 import static org.opends.server.protocols.internal.Requests.*;
+import static org.opends.server.util.CollectionUtils.*;
 import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
@@ -27,6 +29,7 @@ import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -39,6 +42,7 @@ import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.util.Utils;
@@ -111,6 +115,11 @@ public class GroupManager extends InternalDirectoryServerPlugin
   /** Lock to protect internal data structures. */
   private final ReadWriteLock lock;
 
+  /** Reverse membership index, lazily rebuilt when group instances have changed. */
+  private volatile GroupMembershipIndex membershipIndex;
+  /** Serializes the updates of the reverse membership index. */
+  private final Object membershipIndexLock = new Object();
+
   /** Dummy configuration DN for Group Manager. */
   private static final String CONFIG_DN = "cn=Group Manager,cn=config";
 
@@ -510,6 +519,163 @@ public class GroupManager extends InternalDirectoryServerPlugin
     }
   }
 
+  /**
+   * Retrieves the groups in which the provided user is a member, including
+   * the groups inherited through nesting.  Note that this is a point-in-time
+   * determination and the caller must not cache the result.
+   *
+   * @param  userEntry  The entry for the user for which to retrieve the groups.
+   *
+   * @return  The groups in which the user is currently a member.
+   */
+  public Set<Group<?>> getGroups(Entry userEntry)
+  {
+    GroupMembershipIndex index = getMembershipIndex();
+    Set<Group<?>> groups = new LinkedHashSet<>();
+    List<ByteString> members = newArrayList(userEntry.getName().toNormalizedByteString());
+    for (Group<?> group : index.getUnindexedGroups())
+    {
+      try
+      {
+        if (group.isMember(userEntry))
+        {
+          groups.add(group);
+          members.add(group.getGroupDN().toNormalizedByteString());
+        }
+      }
+      catch (DirectoryException e)
+      {
+        logger.traceException(e);
+      }
+    }
+    index.addGroups(members, groups, null);
+    return groups;
+  }
+
+  /**
+   * Indicates whether the user with the provided DN is a member of the
+   * provided group, relying on the reverse membership index whenever
+   * possible.  Note that this is a point-in-time determination and the
+   * caller must not cache the result.
+   *
+   * @param  group   The group for which to make the determination.
+   * @param  userDN  The DN of the user for which to make the determination.
+   *
+   * @return  {@code true} if the user is currently a member of the group,
+   *          or {@code false} if not.
+   *
+   * @throws  DirectoryException  If a problem occurs while attempting to make
+   *                              the determination.
+   */
+  public boolean isMember(Group<?> group, DN userDN) throws DirectoryException
+  {
+    return userDN != null && isMember(group, userDN, null);
+  }
+
+  /**
+   * Indicates whether the user described by the provided entry is a member
+   * of the provided group, relying on the reverse membership index whenever
+   * possible.  Note that this is a point-in-time determination and the
+   * caller must not cache the result.
+   *
+   * @param  group      The group for which to make the determination.
+   * @param  userEntry  The entry for the user for which to make the
+   *                    determination.
+   *
+   * @return  {@code true} if the user is currently a member of the group,
+   *          or {@code false} if not.
+   *
+   * @throws  DirectoryException  If a problem occurs while attempting to make
+   *                              the determination.
+   */
+  public boolean isMember(Group<?> group, Entry userEntry) throws DirectoryException
+  {
+    return isMember(group, userEntry.getName(), userEntry);
+  }
+
+  private boolean isMember(Group<?> group, DN userDN, Entry userEntry) throws DirectoryException
+  {
+    GroupMembershipIndex index = getMembershipIndex();
+    if (!index.isIndexed(group))
+    {
+      return userEntry != null ? group.isMember(userEntry) : group.isMember(userDN);
+    }
+
+    Set<Group<?>> groups = new HashSet<>();
+    if (index.addGroups(newArrayList(userDN.toNormalizedByteString()), groups, group))
+    {
+      return true;
+    }
+    // The user may still be a member through a dynamic or virtual group nested in an indexed group
+    List<ByteString> members = new ArrayList<>(0);
+    for (Group<?> nestedGroup : index.getNestedUnindexedGroups())
+    {
+      if (userEntry != null ? nestedGroup.isMember(userEntry) : nestedGroup.isMember(userDN))
+      {
+        members.add(nestedGroup.getGroupDN().toNormalizedByteString());
+      }
+    }
+    return !members.isEmpty() && index.addGroups(members, new HashSet<Group<?>>(), group);
+  }
+
+  /**
+   * Indicates whether the membership of the provided group is maintained in
+   * the reverse membership index, meaning that its members are known
+   * without evaluating any criteria.
+   *
+   * @param  group  The group for which to make the determination.
+   *
+   * @return  {@code true} if the membership of the group is indexed, or
+   *          {@code false} if not.
+   */
+  public boolean isMembershipIndexed(Group<?> group)
+  {
+    return getMembershipIndex().isIndexed(group);
+  }
+
+  /**
+   * Notifies this group manager that the member list of the provided group
+   * instance has changed, so that the reverse membership index is updated.
+   * Callers must not hold any lock on the group.
+   *
+   * @param  group  The group instance whose member list has changed.
+   */
+  public void membersChanged(Group<?> group)
+  {
+    synchronized (membershipIndexLock)
+    {
+      GroupMembershipIndex index = membershipIndex;
+      if (index != null)
+      {
+        index.update(group);
+      }
+    }
+  }
+
+  /**
+   * Returns the reverse membership index, rebuilding it first if group
+   * instances have been registered or deregistered since it was built.
+   */
+  private GroupMembershipIndex getMembershipIndex()
+  {
+    GroupMembershipIndex index = membershipIndex;
+    if (index != null && !hasInstancesChanged(index.getRefreshToken()))
+    {
+      return index;
+    }
+    synchronized (membershipIndexLock)
+    {
+      index = membershipIndex;
+      final long token = refreshToken;
+      if (index == null || index.getRefreshToken() != token)
+      {
+        index = new GroupMembershipIndex(token, getGroupInstances());
+        membershipIndex = index;
+      }
+      return index;
+    }
+  }
+
   /**
    * {@inheritDoc}  In this case, the server will search the backend to find
    * all group instances that it may contain and register them with this group
@@ -616,6 +782,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
         if (backend.handlesEntry(groupEntryDN))
         {
           iterator.remove();
+          refreshToken++;
         }
       }
     }
@@ -741,6 +908,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
       lock.readLock().unlock();
     }
 
+    Group<?> updatedGroup = null;
     lock.writeLock().lock();
     try
     {
@@ -758,6 +926,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
         else
         {
           group.updateMembers(modifications);
+          updatedGroup = group;
         }
       }
     }
@@ -769,6 +938,12 @@ public class GroupManager extends InternalDirectoryServerPlugin
     {
       lock.writeLock().unlock();
     }
+
+    if (updatedGroup != null)
+    {
+      // Outside of the lock, as updating the index locks the group
+      membersChanged(updatedGroup);
+    }
   }
 
   /**
@@ -969,6 +1144,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
     try
     {
       groupInstances.clear();
+      refreshToken++;
     }
     finally
     {
@@ -0,0 +1,251 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.api.Group;
+
+/**
+ * A reverse membership index, mapping the normalized DN of each member to the groups which explicitly list it.
+ * <p>
+ * Only the groups which provide their {@link Group#getNormalizedMemberDNs() member list} are indexed. Since nested
+ * groups are listed as members of their parent groups, the groups of a user, including those inherited through
+ * nesting, are found by walking the index up from the user DN, without checking every group in turn.
+ * <p>
+ * Lookups never block. Updates must be serialized by the caller.
+ */
+final class GroupMembershipIndex
+{
+  private static final Group<?>[] NO_GROUPS = new Group<?>[0];
+
+  /** The group manager refresh token when the set of indexed groups was built. */
+  private final long refreshToken;
+  /** The indexed groups which explicitly list each member, copied on write. */
+  private final ConcurrentHashMap<ByteString, Group<?>[]> groupsByMember = new ConcurrentHashMap<>();
+  /** The indexed members of each indexed group, used to compute the changes of its member list. */
+  private final Map<Group<?>, Set<ByteString>> membersByGroup = new IdentityHashMap<>();
+  /** The groups whose membership cannot be indexed, along with their normalized DNs. */
+  private final Map<Group<?>, ByteString> unindexedGroups = new IdentityHashMap<>();
+
+  /**
+   * Builds the index of the provided groups.
+   *
+   * @param refreshToken
+   *          the group manager refresh token at the time the groups were retrieved
+   * @param groups
+   *          all the group instances
+   */
+  GroupMembershipIndex(long refreshToken, Iterable<Group<?>> groups)
+  {
+    this.refreshToken = refreshToken;
+    for (Group<?> group : groups)
+    {
+      final Collection<ByteString> members = group.getNormalizedMemberDNs();
+      if (members != null)
+      {
+        final Set<ByteString> memberSet = new HashSet<>(members);
+        membersByGroup.put(group, memberSet);
+        for (ByteString member : memberSet)
+        {
+          addGroup(member, group);
+        }
+      }
+      else
+      {
+        unindexedGroups.put(group, group.getGroupDN().toNormalizedByteString());
+      }
+    }
+  }
+
+  long getRefreshToken()
+  {
+    return refreshToken;
+  }
+
+  /**
+   * Indicates whether the membership of the provided group instance is indexed.
+   *
+   * @param group
+   *          the group instance
+   * @return {@code true} if the membership of the group is indexed
+   */
+  boolean isIndexed(Group<?> group)
+  {
+    synchronized (membersByGroup)
+    {
+      return membersByGroup.containsKey(group);
+    }
+  }
+
+  /**
+   * Returns the groups whose membership cannot be indexed.
+   *
+   * @return the groups whose membership cannot be indexed
+   */
+  Collection<Group<?>> getUnindexedGroups()
+  {
+    return Collections.unmodifiableSet(unindexedGroups.keySet());
+  }
+
+  /**
+   * Returns the groups whose membership cannot be indexed, but which are nested in indexed groups.
+   *
+   * @return the unindexed groups which are nested in indexed groups
+   */
+  List<Group<?>> getNestedUnindexedGroups()
+  {
+    final List<Group<?>> groups = new ArrayList<>(0);
+    for (Map.Entry<Group<?>, ByteString> entry : unindexedGroups.entrySet())
+    {
+      if (groupsByMember.containsKey(entry.getValue()))
+      {
+        groups.add(entry.getKey());
+      }
+    }
+    return groups;
+  }
+
+  /**
+   * Adds to the provided set the indexed groups which contain, directly or through nested groups, any of the
+   * provided members.
+   *
+   * @param members
+   *          the normalized DNs of the members
+   * @param groups
+   *          the set where to add the groups
+   * @param target
+   *          stop as soon as this group is found, or {@code null} to find all the groups
+   * @return {@code true} if the target group has been found
+   */
+  boolean addGroups(Collection<ByteString> members, Set<Group<?>> groups, Group<?> target)
+  {
+    final Queue<ByteString> toExamine = new ArrayDeque<>(members);
+    final Set<ByteString> examined = new HashSet<>(members);
+    ByteString member;
+    while ((member = toExamine.poll()) != null)
+    {
+      final Group<?>[] parents = groupsByMember.get(member);
+      if (parents == null)
+      {
+        continue;
+      }
+      for (Group<?> parent : parents)
+      {
+        if (parent == target)
+        {
+          return true;
+        }
+        // Also examine the groups of the parent, which are inherited through nesting
+        if (groups.add(parent))
+        {
+          final ByteString parentDN = parent.getGroupDN().toNormalizedByteString();
+          if (examined.add(parentDN))
+          {
+            toExamine.add(parentDN);
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Updates the index after the member list of the provided group has changed.
+   *
+   * @param group
+   *          the group instance
+   */
+  void update(Group<?> group)
+  {
+    synchronized (membersByGroup)
+    {
+      final Set<ByteString> oldMembers = membersByGroup.get(group);
+      if (oldMembers == null)
+      {
+        // Not indexed: either it is not registered or its membership cannot be indexed
+        return;
+      }
+      final Collection<ByteString> members = group.getNormalizedMemberDNs();
+      if (members == null)
+      {
+        return;
+      }
+      final Set<ByteString> newMembers = new HashSet<>(members);
+      for (ByteString member : newMembers)
+      {
+        if (!oldMembers.contains(member))
+        {
+          addGroup(member, group);
+        }
+      }
+      for (ByteString member : oldMembers)
+      {
+        if (!newMembers.contains(member))
+        {
+          removeGroup(member, group);
+        }
+      }
+      membersByGroup.put(group, newMembers);
+    }
+  }
+
+  private void addGroup(ByteString member, Group<?> group)
+  {
+    final Group<?>[] groups = groupsByMember.get(member);
+    if (groups == null)
+    {
+      groupsByMember.put(member, new Group<?>[] { group });
+    }
+    else
+    {
+      final Group<?>[] newGroups = Arrays.copyOf(groups, groups.length + 1);
+      newGroups[groups.length] = group;
+      groupsByMember.put(member, newGroups);
+    }
+  }
+
+  private void removeGroup(ByteString member, Group<?> group)
+  {
+    final Group<?>[] groups = groupsByMember.get(member);
+    if (groups == null)
+    {
+      return;
+    }
+    final List<Group<?>> newGroups = new ArrayList<>(Arrays.asList(groups));
+    newGroups.remove(group);
+    if (newGroups.isEmpty())
+    {
+      groupsByMember.remove(member);
+    }
+    else
+    {
+      groupsByMember.put(member, newGroups.toArray(NO_GROUPS));
+    }
+  }
+}
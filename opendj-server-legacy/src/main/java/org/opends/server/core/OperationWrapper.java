@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -247,6 +248,18 @@ public class OperationWrapper<W extends Operation> implements Operation
     return operation.getProcessingNanoTime();
   }
 
+  @Override
+  public long getElapsedProcessingNanoTime()
+  {
+    return operation.getElapsedProcessingNanoTime();
+  }
+
+  @Override
+  public long getQueueWaitNanoTime()
+  {
+    return operation.getQueueWaitNanoTime();
+  }
+
   @Override
   public List<String> getReferralURLs()
   {
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.discovery;
 
@@ -87,7 +88,13 @@ public class ServiceDiscoveryMechanismConfigManager implements
     }
   }
 
-  ServiceDiscoveryMechanism<?> getMechanism(String name)
+  /**
+   * Returns the enabled service discovery mechanism having the provided name.
+   *
+   * @param name the name of the service discovery mechanism
+   * @return the service discovery mechanism, or {@code null} if there is no such enabled mechanism
+   */
+  public ServiceDiscoveryMechanism<?> getMechanism(String name)
   {
     return serviceDiscoveryMechanisms.get(name);
   }
@@ -0,0 +1,252 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.discovery;
+
+import static org.forgerock.opendj.ldap.LDAPConnectionFactory.*;
+import static org.opends.messages.BackendMessages.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.server.config.server.StaticServiceDiscoveryMechanismCfg;
+import org.forgerock.util.Options;
+import org.opends.server.api.KeyManagerProvider;
+import org.opends.server.core.ServerContext;
+import org.opends.server.types.HostPort;
+import org.opends.server.util.SelectableCertificateKeyManager;
+
+/**
+ * Service discovery mechanism returning a single partition made of the primary and secondary
+ * servers listed in its configuration.
+ */
+public class StaticServiceDiscoveryMechanism implements ServiceDiscoveryMechanism<StaticServiceDiscoveryMechanismCfg>,
+    ConfigurationChangeListener<StaticServiceDiscoveryMechanismCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  private final Set<ServiceDiscoveryChangeListener> listeners = new CopyOnWriteArraySet<>();
+  private ServerContext serverContext;
+  private StaticServiceDiscoveryMechanismCfg config;
+  private volatile Partition partition;
+
+  @Override
+  public String getName()
+  {
+    return config.name();
+  }
+
+  @Override
+  public boolean isConfigurationAcceptable(StaticServiceDiscoveryMechanismCfg configuration,
+      List<LocalizableMessage> unacceptableReasons, ServerContext serverContext)
+  {
+    return isAcceptable(configuration, unacceptableReasons, serverContext);
+  }
+
+  @Override
+  public void initializeMechanism(StaticServiceDiscoveryMechanismCfg configuration, ServerContext serverContext)
+  {
+    this.serverContext = serverContext;
+    this.config = configuration;
+    try
+    {
+      this.partition = newPartition(configuration);
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      logger.error(ERR_SERVICE_DISCOVERY_SERVERS_UNUSABLE, configuration.name(), getExceptionMessage(e));
+      this.partition = newUnusablePartition(configuration);
+    }
+    configuration.addStaticChangeListener(this);
+  }
+
+  @Override
+  public void finalizeMechanism()
+  {
+    config.removeStaticChangeListener(this);
+    listeners.clear();
+  }
+
+  @Override
+  public boolean registerChangeListener(ServiceDiscoveryChangeListener listener)
+  {
+    return listeners.add(listener);
+  }
+
+  @Override
+  public void deregisterChangeListener(ServiceDiscoveryChangeListener listener)
+  {
+    listeners.remove(listener);
+  }
+
+  @Override
+  public Set<Partition> getPartitions(Collection<DN> baseDNs)
+  {
+    // the configured servers are expected to expose all the requested base DNs
+    final Partition current = partition;
+    return current.getPrimaryServers().isEmpty() && current.getSecondaryServers().isEmpty()
+        ? Collections.<Partition> emptySet()
+        : Collections.singleton(current);
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(StaticServiceDiscoveryMechanismCfg configuration,
+      List<LocalizableMessage> unacceptableReasons)
+  {
+    return isAcceptable(configuration, unacceptableReasons, serverContext);
+  }
+
+  private static boolean isAcceptable(StaticServiceDiscoveryMechanismCfg configuration,
+      List<LocalizableMessage> unacceptableReasons, ServerContext serverContext)
+  {
+    boolean isAcceptable = true;
+    for (String server : getServers(configuration))
+    {
+      try
+      {
+        HostPort.valueOf(server);
+      }
+      catch (RuntimeException e)
+      {
+        unacceptableReasons.add(
+            ERR_SERVICE_DISCOVERY_INVALID_SERVER.get(configuration.name(), server, getExceptionMessage(e)));
+        isAcceptable = false;
+      }
+    }
+    if (isSecure(configuration))
+    {
+      try
+      {
+        newSSLContext(configuration, serverContext);
+      }
+      catch (Exception e)
+      {
+        unacceptableReasons.add(
+            ERR_SERVICE_DISCOVERY_CANNOT_CREATE_SSL_CONTEXT.get(configuration.name(), getExceptionMessage(e)));
+        isAcceptable = false;
+      }
+    }
+    return isAcceptable;
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(StaticServiceDiscoveryMechanismCfg configuration)
+  {
+    final ConfigChangeResult ccr = new ConfigChangeResult();
+    config = configuration;
+    try
+    {
+      partition = newPartition(configuration);
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      ccr.setResultCode(ResultCode.OTHER);
+      ccr.addMessage(ERR_SERVICE_DISCOVERY_SERVERS_UNUSABLE.get(configuration.name(), getExceptionMessage(e)));
+      partition = newUnusablePartition(configuration);
+    }
+    for (ServiceDiscoveryChangeListener listener : listeners)
+    {
+      listener.serviceChanged(this);
+    }
+    return ccr;
+  }
+
+  private Partition newPartition(StaticServiceDiscoveryMechanismCfg configuration) throws Exception
+  {
+    final Options options = newConnectionOptions(configuration);
+    return new Partition(configuration.name(),
+        toServers(configuration.getPrimaryServer(), options),
+        toServers(configuration.getSecondaryServer(), options));
+  }
+
+  /** Returns a partition without servers, so that they are never contacted without the configured security. */
+  private static Partition newUnusablePartition(StaticServiceDiscoveryMechanismCfg configuration)
+  {
+    return new Partition(configuration.name(),
+        Collections.<Partition.Server> emptyList(), Collections.<Partition.Server> emptyList());
+  }
+
+  private Options newConnectionOptions(StaticServiceDiscoveryMechanismCfg configuration) throws Exception
+  {
+    final Options options = Options.defaultOptions();
+    if (isSecure(configuration))
+    {
+      options.set(SSL_CONTEXT, newSSLContext(configuration, serverContext));
+      options.set(SSL_USE_STARTTLS, !configuration.isUseSSL());
+    }
+    return options;
+  }
+
+  private static SSLContext newSSLContext(StaticServiceDiscoveryMechanismCfg configuration,
+      ServerContext serverContext) throws Exception
+  {
+    KeyManager[] keyManagers = null;
+    final DN keyMgrDN = configuration.getKeyManagerProviderDN();
+    if (keyMgrDN != null)
+    {
+      final KeyManagerProvider<?> keyManagerProvider = serverContext.getKeyManagerProvider(keyMgrDN);
+      final SortedSet<String> aliases = configuration.getSSLCertNickname();
+      keyManagers = aliases.isEmpty()
+          ? keyManagerProvider.getKeyManagers()
+          : SelectableCertificateKeyManager.wrap(keyManagerProvider.getKeyManagers(), aliases, configuration.name());
+    }
+    final DN trustMgrDN = configuration.getTrustManagerProviderDN();
+    final TrustManager[] trustManagers =
+        trustMgrDN == null ? null : serverContext.getTrustManagerProvider(trustMgrDN).getTrustManagers();
+    final SSLContext sslContext = SSLContext.getInstance("TLS");
+    sslContext.init(keyManagers, trustManagers, null);
+    return sslContext;
+  }
+
+  private static boolean isSecure(StaticServiceDiscoveryMechanismCfg configuration)
+  {
+    return configuration.isUseSSL() || configuration.isUseStartTLS();
+  }
+
+  private static List<String> getServers(StaticServiceDiscoveryMechanismCfg configuration)
+  {
+    final List<String> servers = new ArrayList<>(configuration.getPrimaryServer());
+    servers.addAll(configuration.getSecondaryServer());
+    return servers;
+  }
+
+  private static List<Partition.Server> toServers(Collection<String> hostPorts, Options options)
+  {
+    final List<Partition.Server> servers = new ArrayList<>(hostPorts.size());
+    for (String hostPort : hostPorts)
+    {
+      servers.add(new Partition.Server(HostPort.valueOf(hostPort), options));
+    }
+    return servers;
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.extensions;
 
@@ -32,6 +33,7 @@ import org.opends.server.api.MonitorData;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.core.ServerContext;
 import org.forgerock.opendj.ldap.DN;
+import org.opends.server.types.CacheEntry;
 import org.opends.server.types.Entry;
 import org.opends.server.types.InitializationException;
 
@@ -104,11 +106,16 @@ public class DefaultEntryCache
   @Override
   public Entry getEntry(String backendID, long entryID)
   {
-    for (EntryCache<? extends EntryCacheCfg> entryCache : cacheOrder)
+    final EntryCache<? extends EntryCacheCfg>[] caches = cacheOrder;
+    for (int i = 0; i < caches.length; i++)
     {
-      Entry entry = entryCache.getEntry(backendID, entryID);
+      Entry entry = caches[i].getEntry(backendID, entryID);
       if (entry != null)
       {
+        if (caches[i].holdsPrecedingEntries())
+        {
+          promoteEntry(caches, i, entry, backendID, entryID);
+        }
         return entry.duplicate(true);
       }
     }
@@ -124,9 +131,21 @@ public class DefaultEntryCache
   @Override
   public Entry getEntry(DN entryDN)
   {
-    for (EntryCache<? extends EntryCacheCfg> entryCache : cacheOrder)
+    final EntryCache<? extends EntryCacheCfg>[] caches = cacheOrder;
+    for (int i = 0; i < caches.length; i++)
     {
-      Entry entry = entryCache.getEntry(entryDN);
+      if (caches[i].holdsPrecedingEntries())
+      {
+        // The backend and ID of the entry are needed to promote it
+        CacheEntry cacheEntry = caches[i].getCacheEntry(entryDN);
+        if (cacheEntry != null)
+        {
+          promoteEntry(caches, i, cacheEntry.getEntry(), cacheEntry.getBackendID(), cacheEntry.getEntryID());
+          return cacheEntry.getEntry().duplicate(true);
+        }
+        continue;
+      }
+      Entry entry = caches[i].getEntry(entryDN);
       if (entry != null)
       {
         return entry.duplicate(true);
@@ -169,15 +188,41 @@ public class DefaultEntryCache
     return null;
   }
 
+  /**
+   * Promotes an entry found in a cache holding the entries of the caches
+   * preceding it into the first cache
+   * preceding it which can take this entry, so that the next lookups
+   * do not need to decode it again.
+   *
+   * @param  caches     The cache order.
+   * @param  level      The index of the cache in the cache order.
+   * @param  entry      The entry found in the cache.
+   * @param  backendID  The backend ID of the entry.
+   * @param  entryID    The entry ID within the backend.
+   */
+  private static void promoteEntry(EntryCache<? extends EntryCacheCfg>[] caches,
+      int level, Entry entry, String backendID, long entryID)
+  {
+    for (int i = 0; i < level; i++) {
+      if (caches[i].filtersAllowCaching(entry)) {
+        caches[i].putEntryIfAbsent(entry.duplicate(false), backendID, entryID);
+        return;
+      }
+    }
+  }
+
   @Override
   public void putEntry(Entry entry, String backendID, long entryID)
   {
+    boolean cached = false;
     for (EntryCache<?> entryCache : cacheOrder) {
       // The first cache in the order which can take this entry
-      // gets it.
-      if (entryCache.filtersAllowCaching(entry)) {
+      // gets it. Some caches also keep a copy of the entries
+      // cached by the caches preceding them.
+      if ((!cached || entryCache.holdsPrecedingEntries())
+          && entryCache.filtersAllowCaching(entry)) {
         entryCache.putEntry(entry.duplicate(false), backendID, entryID);
-        break;
+        cached = true;
       }
     }
   }
@@ -185,25 +230,31 @@ public class DefaultEntryCache
   @Override
   public boolean putEntryIfAbsent(Entry entry, String backendID, long entryID)
   {
+    Boolean added = null;
     for (EntryCache<?> entryCache : cacheOrder) {
       // The first cache in the order which can take this entry
-      // gets it.
-      if (entryCache.filtersAllowCaching(entry)) {
-        return entryCache.putEntryIfAbsent(entry.duplicate(false),
+      // gets it. Some caches also keep a copy of the entries
+      // cached by the caches preceding them.
+      if ((added == null || entryCache.holdsPrecedingEntries())
+          && entryCache.filtersAllowCaching(entry)) {
+        boolean result = entryCache.putEntryIfAbsent(entry.duplicate(false),
                 backendID, entryID);
+        if (added == null) {
+          added = result;
+        }
       }
     }
 
-    return false;
+    return added != null && added;
   }
 
   @Override
   public void removeEntry(DN entryDN)
   {
+    // The entry may be held by several caches when some hold the entries of the preceding caches.
     for (EntryCache<?> entryCache : cacheOrder) {
       if (entryCache.containsEntry(entryDN)) {
         entryCache.removeEntry(entryDN);
-        break;
       }
     }
   }
@@ -0,0 +1,1191 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.ConfigMessages.*;
+import static org.opends.messages.CoreMessages.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.net.InetAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationAddListener;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.config.server.ConfigurationDeleteListener;
+import org.forgerock.opendj.ldap.AddressMask;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.server.config.meta.SchedulingClassCfgDefn.OperationTypeEqualTo;
+import org.forgerock.opendj.server.config.server.FairSchedulingWorkQueueCfg;
+import org.forgerock.opendj.server.config.server.SchedulingClassCfg;
+import org.opends.server.api.ClientConnection;
+import org.opends.server.api.WorkQueue;
+import org.opends.server.authorization.dseecompat.PatternDN;
+import org.opends.server.core.BindOperation;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.monitors.FairSchedulingWorkQueueMonitor;
+import org.opends.server.types.CancelRequest;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.Operation;
+import org.opends.server.types.OperationType;
+
+/**
+ * A work queue which sorts the operations into weighted scheduling classes,
+ * and shares the worker threads between the classes with pending operations
+ * by deficit round robin.
+ * <p>
+ * Operations are assigned to the first scheduling class whose criteria they
+ * match, in increasing order of priority, or else to a default class of weight
+ * 1. Each class has its own bounded FIFO queue.
+ * <p>
+ * Each class has a deficit of processing time. It is served while its deficit
+ * is positive, then the next class is, and a new round starts when all the
+ * classes with pending operations are in deficit, granting each one a quantum
+ * proportional to its weight. The processing time of an operation is only
+ * known once it completes: when the operation is dequeued, the average
+ * processing time of its class is charged, and the difference is charged on
+ * completion. This way, a class of expensive operations such as unindexed
+ * searches gets the same share of the worker threads as a class of cheap
+ * operations with the same weight, rather than the same number of
+ * operations.
+ */
+public class FairSchedulingWorkQueue extends WorkQueue<FairSchedulingWorkQueueCfg>
+    implements ConfigurationChangeListener<FairSchedulingWorkQueueCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The processing time granted to a scheduling class per unit of weight on each round. */
+  private static final long QUANTUM_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /** The processing time initially charged for an operation, until the average is known. */
+  private static final long INITIAL_COST_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  /** The name of the scheduling class of the operations matching no configured class. */
+  public static final String DEFAULT_CLASS_NAME = "default";
+
+  /** A pending operation, with the time at which it was queued. */
+  private static final class PendingOperation
+  {
+    private final Operation operation;
+    private final long enqueueNanos;
+
+    private PendingOperation(Operation operation)
+    {
+      this.operation = operation;
+      this.enqueueNanos = System.nanoTime();
+    }
+  }
+
+  /**
+   * A scheduling class, with its queue of pending operations. Except for the
+   * criteria, its fields are guarded by the lock of the work queue.
+   */
+  static final class SchedulingClass
+  {
+    private final String name;
+    private final ArrayDeque<PendingOperation> pendingOperations = new ArrayDeque<>();
+    /** Signaled when an operation of this class is dequeued. */
+    private final Condition notFull;
+    private volatile Criteria criteria;
+    private int priority;
+    private int weight;
+    private int maxCapacity;
+    /** Indicates whether this class has been deleted from the configuration. */
+    private boolean deleted;
+
+    /** The processing time this class may still use in the current round, negative if it used more. */
+    private long deficitNanos;
+    /** The moving average of the processing time of the operations of this class. */
+    private long averageCostNanos = INITIAL_COST_NANOS;
+
+    private long opsSubmitted;
+    private long queueFullRejects;
+    private long opsDequeued;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    private SchedulingClass(String name, Condition notFull)
+    {
+      this.name = name;
+      this.notFull = notFull;
+    }
+  }
+
+  /** The criteria that operations must match to belong to a scheduling class. */
+  private static final class Criteria
+  {
+    private final Set<OperationType> operationTypes;
+    private final int[] ports;
+    private final String[] protocols;
+    private final Collection<AddressMask> clientAddresses;
+    private final PatternDN[] userDNs;
+
+    private Criteria(SchedulingClassCfg cfg) throws ConfigException
+    {
+      operationTypes = EnumSet.noneOf(OperationType.class);
+      for (OperationTypeEqualTo type : cfg.getOperationTypeEqualTo())
+      {
+        operationTypes.add(toOperationType(type));
+      }
+
+      ports = new int[cfg.getConnectionPortEqualTo().size()];
+      int i = 0;
+      for (Integer port : cfg.getConnectionPortEqualTo())
+      {
+        ports[i++] = port;
+      }
+
+      protocols = new String[cfg.getConnectionProtocolEqualTo().size()];
+      i = 0;
+      for (String protocol : cfg.getConnectionProtocolEqualTo())
+      {
+        protocols[i++] = toLowerCase(protocol);
+      }
+
+      clientAddresses = cfg.getConnectionClientAddressEqualTo();
+
+      userDNs = new PatternDN[cfg.getUserDNEqualTo().size()];
+      i = 0;
+      for (String pattern : cfg.getUserDNEqualTo())
+      {
+        try
+        {
+          userDNs[i++] = PatternDN.decode(pattern);
+        }
+        catch (DirectoryException e)
+        {
+          throw new ConfigException(ERR_CONFIG_WORK_QUEUE_INVALID_USER_DN_PATTERN.get(cfg.dn(), pattern), e);
+        }
+      }
+    }
+
+    private static OperationType toOperationType(OperationTypeEqualTo type)
+    {
+      switch (type)
+      {
+      case ABANDON:
+        return OperationType.ABANDON;
+      case ADD:
+        return OperationType.ADD;
+      case BIND:
+        return OperationType.BIND;
+      case COMPARE:
+        return OperationType.COMPARE;
+      case DELETE:
+        return OperationType.DELETE;
+      case EXTENDED:
+        return OperationType.EXTENDED;
+      case MODIFY:
+        return OperationType.MODIFY;
+      case RENAME:
+        return OperationType.MODIFY_DN;
+      case SEARCH:
+        return OperationType.SEARCH;
+      default:
+        return OperationType.UNBIND;
+      }
+    }
+
+    private boolean matches(Operation operation)
+    {
+      if (!operationTypes.isEmpty() && !operationTypes.contains(operation.getOperationType()))
+      {
+        return false;
+      }
+
+      final ClientConnection connection = operation.getClientConnection();
+      if (protocols.length > 0 && !contains(protocols, toLowerCase(connection.getProtocol())))
+      {
+        return false;
+      }
+      if (ports.length > 0 && !contains(ports, connection.getServerPort()))
+      {
+        return false;
+      }
+      if (!clientAddresses.isEmpty())
+      {
+        final InetAddress address = connection.getRemoteAddress();
+        if (!AddressMask.matchesAny(clientAddresses, address))
+        {
+          return false;
+        }
+      }
+      return userDNs.length == 0 || matchesUserDN(operation);
+    }
+
+    /**
+     * Binds are classified by the DN they authenticate as, which lets binds
+     * from a login service be prioritized, other operations by the DN the
+     * connection is authenticated as.
+     */
+    private boolean matchesUserDN(Operation operation)
+    {
+      final DN userDN;
+      if (operation instanceof BindOperation)
+      {
+        try
+        {
+          userDN = DN.valueOf(((BindOperation) operation).getRawBindDN());
+        }
+        catch (LocalizedIllegalArgumentException e)
+        {
+          return false;
+        }
+      }
+      else
+      {
+        userDN = operation.getClientConnection().getAuthenticationInfo().getAuthenticationDN();
+      }
+
+      if (userDN == null || userDN.isRootDN())
+      {
+        return false;
+      }
+      for (PatternDN pattern : userDNs)
+      {
+        if (pattern.matchesDN(userDN))
+        {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static boolean contains(String[] values, String value)
+    {
+      for (String v : values)
+      {
+        if (v.equals(value))
+        {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static boolean contains(int[] values, int value)
+    {
+      for (int v : values)
+      {
+        if (v == value)
+        {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /** A point in time view of the statistics of a scheduling class. */
+  public static final class SchedulingClassStatistics
+  {
+    private final String name;
+    private final int backlog;
+    private final long opsSubmitted;
+    private final long opsRejectedDueToQueueFull;
+    private final long averageWaitMicros;
+    private final long maxWaitMicros;
+
+    private SchedulingClassStatistics(SchedulingClass schedulingClass)
+    {
+      name = schedulingClass.name;
+      backlog = schedulingClass.pendingOperations.size();
+      opsSubmitted = schedulingClass.opsSubmitted;
+      opsRejectedDueToQueueFull = schedulingClass.queueFullRejects;
+      averageWaitMicros = schedulingClass.opsDequeued > 0
+          ? TimeUnit.NANOSECONDS.toMicros(schedulingClass.totalWaitNanos / schedulingClass.opsDequeued) : 0;
+      maxWaitMicros = TimeUnit.NANOSECONDS.toMicros(schedulingClass.maxWaitNanos);
+    }
+
+    /**
+     * Returns the name of the scheduling class.
+     *
+     * @return the name of the scheduling class
+     */
+    public String getName()
+    {
+      return name;
+    }
+
+    /**
+     * Returns the number of pending operations of the scheduling class.
+     *
+     * @return the number of pending operations of the scheduling class
+     */
+    public int getBacklog()
+    {
+      return backlog;
+    }
+
+    /**
+     * Returns the number of operations of the scheduling class submitted since startup.
+     *
+     * @return the number of operations of the scheduling class submitted since startup
+     */
+    public long getOpsSubmitted()
+    {
+      return opsSubmitted;
+    }
+
+    /**
+     * Returns the number of operations of the scheduling class rejected because its queue was full.
+     *
+     * @return the number of operations of the scheduling class rejected because its queue was full
+     */
+    public long getOpsRejectedDueToQueueFull()
+    {
+      return opsRejectedDueToQueueFull;
+    }
+
+    /**
+     * Returns the average time the operations of the scheduling class waited in its queue.
+     *
+     * @return the average time the operations of the scheduling class waited in its queue, in microseconds
+     */
+    public long getAverageWaitMicros()
+    {
+      return averageWaitMicros;
+    }
+
+    /**
+     * Returns the maximum time an operation of the scheduling class waited in its queue.
+     *
+     * @return the maximum time an operation of the scheduling class waited in its queue, in microseconds
+     */
+    public long getMaxWaitMicros()
+    {
+      return maxWaitMicros;
+    }
+  }
+
+  /** Rebuilds the scheduling classes when they are added, changed or deleted. */
+  private final class SchedulingClassListener implements
+      ConfigurationChangeListener<SchedulingClassCfg>,
+      ConfigurationAddListener<SchedulingClassCfg>,
+      ConfigurationDeleteListener<SchedulingClassCfg>
+  {
+    @Override
+    public ConfigChangeResult applyConfigurationAdd(SchedulingClassCfg configuration)
+    {
+      configuration.addChangeListener(this);
+      return updateSchedulingClasses();
+    }
+
+    @Override
+    public ConfigChangeResult applyConfigurationChange(SchedulingClassCfg configuration)
+    {
+      return updateSchedulingClasses();
+    }
+
+    @Override
+    public ConfigChangeResult applyConfigurationDelete(SchedulingClassCfg configuration)
+    {
+      return updateSchedulingClasses();
+    }
+
+    @Override
+    public boolean isConfigurationAddAcceptable(SchedulingClassCfg configuration,
+        List<LocalizableMessage> unacceptableReasons)
+    {
+      return isConfigurationAcceptable(configuration, unacceptableReasons);
+    }
+
+    @Override
+    public boolean isConfigurationChangeAcceptable(SchedulingClassCfg configuration,
+        List<LocalizableMessage> unacceptableReasons)
+    {
+      return isConfigurationAcceptable(configuration, unacceptableReasons);
+    }
+
+    @Override
+    public boolean isConfigurationDeleteAcceptable(SchedulingClassCfg configuration,
+        List<LocalizableMessage> unacceptableReasons)
+    {
+      // The pending operations of a deleted class are moved to the default class.
+      return true;
+    }
+
+    private boolean isConfigurationAcceptable(SchedulingClassCfg configuration,
+        List<LocalizableMessage> unacceptableReasons)
+    {
+      try
+      {
+        new Criteria(configuration);
+        return true;
+      }
+      catch (ConfigException e)
+      {
+        unacceptableReasons.add(e.getMessageObject());
+        return false;
+      }
+    }
+  }
+
+  /** The set of worker threads that will be used to process this work queue. */
+  private final ArrayList<FairSchedulingWorkerThread> workerThreads = new ArrayList<>();
+
+  /** Guards the scheduling state and the worker threads. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** Signaled when an operation is queued. */
+  private final Condition notEmpty = lock.newCondition();
+
+  /**
+   * The configured scheduling classes in evaluation order, replaced on each
+   * configuration change, so that operations are classified without holding
+   * the lock.
+   */
+  private volatile List<SchedulingClass> schedulingClasses = Collections.emptyList();
+
+  /** The scheduling class of the operations matching no configured class. */
+  private final SchedulingClass defaultClass = new SchedulingClass(DEFAULT_CLASS_NAME, lock.newCondition());
+
+  /** The scheduling classes with pending operations, the first one being served. */
+  private final ArrayDeque<SchedulingClass> activeClasses = new ArrayDeque<>();
+
+  /** The number of operations pending in all the scheduling classes. */
+  private int nbPendingOperations;
+
+  private final SchedulingClassListener schedulingClassListener = new SchedulingClassListener();
+
+  /** The configuration of this work queue. */
+  private FairSchedulingWorkQueueCfg configuration;
+
+  /** The number of operations that have been submitted to the work queue for processing. */
+  private final LongAdder opsSubmitted = new LongAdder();
+
+  /**
+   * The number of times that an attempt to submit a new request has been
+   * rejected because the work queue is already at its maximum capacity.
+   */
+  private final LongAdder queueFullRejects = new LongAdder();
+
+  /**
+   * Indicates whether one or more of the worker threads needs to be killed at
+   * the next convenient opportunity.
+   */
+  private boolean killThreads;
+
+  /** Indicates whether the Directory Server is shutting down. */
+  private volatile boolean shutdownRequested;
+
+  /** The thread number used for the last worker thread that was created. */
+  private int lastThreadNumber;
+
+  /**
+   * The number of worker threads that should be active (or will be shortly if a
+   * configuration change has not been completely applied).
+   */
+  private volatile int numWorkerThreads;
+
+  /**
+   * Creates a new instance of this work queue. All initialization should be
+   * performed in the <CODE>initializeWorkQueue</CODE> method.
+   */
+  public FairSchedulingWorkQueue()
+  {
+    // No implementation should be performed here.
+  }
+
+  @Override
+  public void initializeWorkQueue(FairSchedulingWorkQueueCfg configuration)
+      throws ConfigException, InitializationException
+  {
+    lock.lock();
+    try
+    {
+      shutdownRequested = false;
+      killThreads = false;
+      this.configuration = configuration;
+
+      // Register to be notified of any configuration changes.
+      configuration.addFairSchedulingChangeListener(this);
+      for (String name : configuration.listSchedulingClasses())
+      {
+        configuration.getSchedulingClass(name).addChangeListener(schedulingClassListener);
+      }
+      configuration.addSchedulingClassAddListener(schedulingClassListener);
+      configuration.addSchedulingClassDeleteListener(schedulingClassListener);
+
+      // Get the necessary configuration from the provided entry.
+      numWorkerThreads = computeNumWorkerThreads(configuration.getNumWorkerThreads());
+      defaultClass.weight = 1;
+      defaultClass.maxCapacity = configuration.getMaxWorkQueueCapacity();
+      ConfigChangeResult ccr = updateSchedulingClasses();
+      if (!ccr.getMessages().isEmpty())
+      {
+        throw new ConfigException(ccr.getMessages().get(0));
+      }
+
+      // Create the set of worker threads that should be used to service the
+      // work queue.
+      for (lastThreadNumber = 0; lastThreadNumber < numWorkerThreads; lastThreadNumber++)
+      {
+        FairSchedulingWorkerThread t = new FairSchedulingWorkerThread(this, lastThreadNumber);
+        t.start();
+        workerThreads.add(t);
+      }
+
+      // Create and register a monitor provider for the work queue.
+      try
+      {
+        FairSchedulingWorkQueueMonitor monitor = new FairSchedulingWorkQueueMonitor(this);
+        monitor.initializeMonitorProvider(null);
+        DirectoryServer.registerMonitorProvider(monitor);
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+        logger.error(ERR_CONFIG_WORK_QUEUE_CANNOT_CREATE_MONITOR, FairSchedulingWorkQueueMonitor.class, e);
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Reads the configuration of the scheduling classes, keeping the pending
+   * operations and statistics of the classes which still exist.
+   */
+  private ConfigChangeResult updateSchedulingClasses()
+  {
+    final ConfigChangeResult ccr = new ConfigChangeResult();
+    lock.lock();
+    try
+    {
+      final Map<String, SchedulingClass> oldClasses = new HashMap<>();
+      for (SchedulingClass schedulingClass : schedulingClasses)
+      {
+        oldClasses.put(schedulingClass.name, schedulingClass);
+      }
+
+      final List<SchedulingClass> newClasses = new ArrayList<>();
+      for (String name : configuration.listSchedulingClasses())
+      {
+        try
+        {
+          final SchedulingClassCfg cfg = configuration.getSchedulingClass(name);
+          SchedulingClass schedulingClass = oldClasses.remove(name);
+          if (schedulingClass == null)
+          {
+            schedulingClass = new SchedulingClass(name, lock.newCondition());
+          }
+          schedulingClass.criteria = new Criteria(cfg);
+          schedulingClass.priority = cfg.getPriority();
+          schedulingClass.weight = cfg.getWeight();
+          schedulingClass.maxCapacity = cfg.getMaxWorkQueueCapacity();
+          newClasses.add(schedulingClass);
+        }
+        catch (ConfigException e)
+        {
+          logger.traceException(e);
+          ccr.setResultCode(DirectoryServer.getCoreConfigManager().getServerErrorResultCode());
+          ccr.addMessage(e.getMessageObject());
+        }
+      }
+      Collections.sort(newClasses, new Comparator<SchedulingClass>()
+      {
+        @Override
+        public int compare(SchedulingClass c1, SchedulingClass c2)
+        {
+          final int cmp = Integer.compare(c1.priority, c2.priority);
+          return cmp != 0 ? cmp : c1.name.compareTo(c2.name);
+        }
+      });
+      schedulingClasses = newClasses;
+
+      // Move the pending operations of the deleted classes to the default class
+      for (SchedulingClass deletedClass : oldClasses.values())
+      {
+        deletedClass.deleted = true;
+        if (activeClasses.remove(deletedClass))
+        {
+          for (PendingOperation pendingOperation : deletedClass.pendingOperations)
+          {
+            enqueue(defaultClass, pendingOperation);
+            nbPendingOperations--;
+          }
+          deletedClass.pendingOperations.clear();
+        }
+        deletedClass.notFull.signalAll();
+      }
+      // Capacities may have been raised
+      for (SchedulingClass schedulingClass : newClasses)
+      {
+        schedulingClass.notFull.signalAll();
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+    return ccr;
+  }
+
+  @Override
+  public void finalizeWorkQueue(LocalizableMessage reason)
+  {
+    final List<PendingOperation> pendingOperations = new ArrayList<>();
+    final List<FairSchedulingWorkerThread> threads;
+    lock.lock();
+    try
+    {
+      shutdownRequested = true;
+      for (SchedulingClass schedulingClass : activeClasses)
+      {
+        pendingOperations.addAll(schedulingClass.pendingOperations);
+        schedulingClass.pendingOperations.clear();
+        schedulingClass.notFull.signalAll();
+      }
+      activeClasses.clear();
+      nbPendingOperations = 0;
+      for (SchedulingClass schedulingClass : schedulingClasses)
+      {
+        schedulingClass.notFull.signalAll();
+      }
+      defaultClass.notFull.signalAll();
+      threads = new ArrayList<>(workerThreads);
+    }
+    finally
+    {
+      lock.unlock();
+    }
+
+    // From now on no more operations can be enqueued or dequeued.
+
+    // Send responses to any operations in the pending queues to indicate that
+    // they won't be processed because the server is shutting down.
+    CancelRequest cancelRequest = new CancelRequest(true, reason);
+    for (PendingOperation pendingOperation : pendingOperations)
+    {
+      final Operation o = pendingOperation.operation;
+      try
+      {
+        // The operation has no chance of responding to the cancel
+        // request so avoid waiting for a cancel response.
+        if (o.getCancelResult() == null)
+        {
+          o.abort(cancelRequest);
+        }
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+        logger.warn(WARN_QUEUE_UNABLE_TO_CANCEL, o, e);
+      }
+    }
+
+    // Notify all the worker threads of the shutdown.
+    for (FairSchedulingWorkerThread t : threads)
+    {
+      try
+      {
+        t.shutDown();
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+        logger.warn(WARN_QUEUE_UNABLE_TO_NOTIFY_THREAD, t.getName(), e);
+      }
+    }
+  }
+
+  /**
+   * Indicates whether this work queue has received a request to shut down.
+   *
+   * @return <CODE>true</CODE> if the work queue has recieved a request to shut
+   *         down, or <CODE>false</CODE> if not.
+   */
+  public boolean shutdownRequested()
+  {
+    return shutdownRequested;
+  }
+
+  /**
+   * Submits an operation to be processed by one of the worker threads
+   * associated with this work queue, blocking while the queue of its
+   * scheduling class is full.
+   *
+   * @param operation
+   *          The operation to be processed.
+   * @throws DirectoryException
+   *           If the provided operation is not accepted for some reason (e.g.,
+   *           if the server is shutting down or the submitting thread was
+   *           interrupted while waiting for available capacity).
+   */
+  @Override
+  public void submitOperation(Operation operation) throws DirectoryException
+  {
+    submitOperation(operation, true);
+  }
+
+  @Override
+  public boolean trySubmitOperation(Operation operation)
+      throws DirectoryException
+  {
+    try
+    {
+      submitOperation(operation, false);
+      return true;
+    }
+    catch (DirectoryException e)
+    {
+      if (ResultCode.BUSY == e.getResultCode())
+      {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  private void submitOperation(Operation operation,
+      boolean blockEnqueuingWhenFull) throws DirectoryException
+  {
+    SchedulingClass schedulingClass = classify(operation);
+    lock.lock();
+    try
+    {
+      while (true)
+      {
+        if (shutdownRequested)
+        {
+          throw new DirectoryException(ResultCode.UNAVAILABLE, WARN_OP_REJECTED_BY_SHUTDOWN.get());
+        }
+        if (schedulingClass.deleted)
+        {
+          schedulingClass = defaultClass;
+        }
+        if (schedulingClass.pendingOperations.size() < schedulingClass.maxCapacity)
+        {
+          break;
+        }
+        if (!blockEnqueuingWhenFull)
+        {
+          schedulingClass.queueFullRejects++;
+          queueFullRejects.increment();
+          throw new DirectoryException(ResultCode.BUSY,
+              WARN_OP_REJECTED_BY_QUEUE_FULL.get(schedulingClass.maxCapacity));
+        }
+        try
+        {
+          schedulingClass.notFull.await(1, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+          // We cannot handle the interruption here. Reject the request and
+          // re-interrupt this thread.
+          Thread.currentThread().interrupt();
+
+          schedulingClass.queueFullRejects++;
+          queueFullRejects.increment();
+          throw new DirectoryException(ResultCode.BUSY, WARN_OP_REJECTED_BY_QUEUE_INTERRUPT.get());
+        }
+      }
+
+      enqueue(schedulingClass, new PendingOperation(operation));
+      schedulingClass.opsSubmitted++;
+      opsSubmitted.increment();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  private SchedulingClass classify(Operation operation)
+  {
+    for (SchedulingClass schedulingClass : schedulingClasses)
+    {
+      if (schedulingClass.criteria.matches(operation))
+      {
+        return schedulingClass;
+      }
+    }
+    return defaultClass;
+  }
+
+  /** Must be called with the lock held. */
+  private void enqueue(SchedulingClass schedulingClass, PendingOperation pendingOperation)
+  {
+    schedulingClass.pendingOperations.addLast(pendingOperation);
+    if (schedulingClass.pendingOperations.size() == 1)
+    {
+      // An idle class does not keep the unused part of its quantum, only its debt
+      schedulingClass.deficitNanos = Math.min(schedulingClass.deficitNanos, 0);
+      activeClasses.addLast(schedulingClass);
+    }
+    nbPendingOperations++;
+    notEmpty.signal();
+  }
+
+  /**
+   * Dequeues the next operation by deficit round robin. Must be called with
+   * the lock held.
+   *
+   * @param workerThread
+   *          The worker thread which will process the operation.
+   * @return the next operation, or {@code null} if there are none
+   */
+  private Operation dequeue(FairSchedulingWorkerThread workerThread)
+  {
+    int nbIneligibleClasses = 0;
+    while (!activeClasses.isEmpty())
+    {
+      final SchedulingClass schedulingClass = activeClasses.peekFirst();
+      if (schedulingClass.deficitNanos <= 0)
+      {
+        // This class used up its quantum, serve the next one
+        activeClasses.addLast(activeClasses.pollFirst());
+        if (++nbIneligibleClasses >= activeClasses.size())
+        {
+          startRounds();
+          nbIneligibleClasses = 0;
+        }
+        continue;
+      }
+
+      final PendingOperation pendingOperation = schedulingClass.pendingOperations.pollFirst();
+      final long cost = schedulingClass.averageCostNanos;
+      schedulingClass.deficitNanos -= cost;
+      if (schedulingClass.pendingOperations.isEmpty())
+      {
+        activeClasses.pollFirst();
+        schedulingClass.deficitNanos = Math.min(schedulingClass.deficitNanos, 0);
+      }
+      nbPendingOperations--;
+
+      final long waitNanos = System.nanoTime() - pendingOperation.enqueueNanos;
+      schedulingClass.opsDequeued++;
+      schedulingClass.totalWaitNanos += waitNanos;
+      schedulingClass.maxWaitNanos = Math.max(schedulingClass.maxWaitNanos, waitNanos);
+      schedulingClass.notFull.signal();
+
+      workerThread.setSchedulingClass(schedulingClass, cost);
+      return pendingOperation.operation;
+    }
+    return null;
+  }
+
+  /**
+   * Grants their quantum to all the scheduling classes with pending
+   * operations, repeatedly if none of them would be eligible otherwise. Must be
+   * called with the lock held.
+   */
+  private void startRounds()
+  {
+    long nbRounds = Long.MAX_VALUE;
+    for (SchedulingClass schedulingClass : activeClasses)
+    {
+      final long quantum = QUANTUM_NANOS * schedulingClass.weight;
+      nbRounds = Math.min(nbRounds, -schedulingClass.deficitNanos / quantum + 1);
+    }
+    for (SchedulingClass schedulingClass : activeClasses)
+    {
+      schedulingClass.deficitNanos += nbRounds * QUANTUM_NANOS * schedulingClass.weight;
+    }
+  }
+
+  /**
+   * Charges the processing time of an operation to its scheduling class.
+   *
+   * @param schedulingClass
+   *          The scheduling class of the operation, or {@code null} if the
+   *          operation was not dequeued by this work queue
+   * @param chargedNanos
+   *          The processing time which has already been charged
+   * @param processingNanos
+   *          The actual processing time of the operation
+   */
+  void operationProcessed(SchedulingClass schedulingClass, long chargedNanos, long processingNanos)
+  {
+    if (schedulingClass == null)
+    {
+      return;
+    }
+    lock.lock();
+    try
+    {
+      schedulingClass.deficitNanos -= processingNanos - chargedNanos;
+      schedulingClass.averageCostNanos += (processingNanos - schedulingClass.averageCostNanos) / 8;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Retrieves the next operation that should be processed by one of the worker
+   * threads, blocking if necessary until a new request arrives. This method
+   * should only be called by a worker thread associated with this work queue.
+   *
+   * @param workerThread
+   *          The worker thread that is requesting the operation.
+   * @return The next operation that should be processed, or <CODE>null</CODE>
+   *         if the server is shutting down and no more operations will be
+   *         processed.
+   */
+  public Operation nextOperation(FairSchedulingWorkerThread workerThread)
+  {
+    lock.lock();
+    try
+    {
+      while (true)
+      {
+        if (shutdownRequested)
+        {
+          return null;
+        }
+
+        // See if we should kill off this thread. This could be necessary if the
+        // number of worker threads has been decreased with the server online. If
+        // so, then return null and the thread will exit.
+        if (killThreads && tryKillThisWorkerThread(workerThread))
+        {
+          return null;
+        }
+
+        final Operation nextOperation = dequeue(workerThread);
+        if (nextOperation != null)
+        {
+          return nextOperation;
+        }
+
+        try
+        {
+          notEmpty.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ie)
+        {
+          // If this occurs, then the worker thread must have been interrupted for
+          // some reason. This could be because the Directory Server is shutting
+          // down, in which case we should return null.
+          if (shutdownRequested)
+          {
+            return null;
+          }
+
+          // If we've gotten here, then the worker thread was interrupted for some
+          // other reason. This should not happen, and we need to log a message.
+          logger.warn(WARN_WORKER_INTERRUPTED_WITHOUT_SHUTDOWN, Thread.currentThread().getName(), ie);
+        }
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Kills this worker thread if needed. Must be called with the lock held.
+   *
+   * @param workerThread
+   *          The worker thread associated with this thread.
+   * @return {@code true} if this thread was killed.
+   */
+  private boolean tryKillThisWorkerThread(FairSchedulingWorkerThread workerThread)
+  {
+    int currentThreads = workerThreads.size();
+    if (currentThreads > numWorkerThreads)
+    {
+      if (workerThreads.remove(workerThread))
+      {
+        currentThreads--;
+      }
+
+      if (currentThreads <= numWorkerThreads)
+      {
+        killThreads = false;
+      }
+
+      workerThread.setStoppedByReducedThreadNumber();
+      return true;
+    }
+    killThreads = false;
+    return false;
+  }
+
+  /**
+   * Retrieves the total number of operations that have been successfully
+   * submitted to this work queue for processing since server startup. This does
+   * not include operations that have been rejected for some reason like the
+   * queue already at its maximum capacity.
+   *
+   * @return The total number of operations that have been successfully
+   *         submitted to this work queue since startup.
+   */
+  public long getOpsSubmitted()
+  {
+    return opsSubmitted.sum();
+  }
+
+  /**
+   * Retrieves the total number of operations that have been rejected because
+   * the queue of their scheduling class was already at its maximum capacity.
+   *
+   * @return The total number of operations that have been rejected because the
+   *         queue of their scheduling class was already at its maximum
+   *         capacity.
+   */
+  public long getOpsRejectedDueToQueueFull()
+  {
+    return queueFullRejects.sum();
+  }
+
+  /**
+   * Retrieves the number of pending operations in the queues that have not yet
+   * been picked up for processing.
+   *
+   * @return The number of pending operations in the queues that have not yet
+   *         been picked up for processing.
+   */
+  public int size()
+  {
+    lock.lock();
+    try
+    {
+      return nbPendingOperations;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Retrieves the statistics of the scheduling classes, the default class
+   * being the last one.
+   *
+   * @return The statistics of the scheduling classes.
+   */
+  public List<SchedulingClassStatistics> getSchedulingClassStatistics()
+  {
+    lock.lock();
+    try
+    {
+      final List<SchedulingClassStatistics> statistics = new ArrayList<>();
+      for (SchedulingClass schedulingClass : schedulingClasses)
+      {
+        statistics.add(new SchedulingClassStatistics(schedulingClass));
+      }
+      statistics.add(new SchedulingClassStatistics(defaultClass));
+      return statistics;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(
+      FairSchedulingWorkQueueCfg configuration, List<LocalizableMessage> unacceptableReasons)
+  {
+    return true;
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(
+      FairSchedulingWorkQueueCfg configuration)
+  {
+    int newNumThreads = computeNumWorkerThreads(configuration.getNumWorkerThreads());
+
+    lock.lock();
+    try
+    {
+      this.configuration = configuration;
+      defaultClass.maxCapacity = configuration.getMaxWorkQueueCapacity();
+      defaultClass.notFull.signalAll();
+
+      // Apply a change to the number of worker threads if appropriate.
+      int threadsToAdd = newNumThreads - workerThreads.size();
+      for (int i = 0; i < threadsToAdd; i++)
+      {
+        FairSchedulingWorkerThread t = new FairSchedulingWorkerThread(this, lastThreadNumber++);
+        workerThreads.add(t);
+        t.start();
+      }
+      killThreads = threadsToAdd < 0;
+      numWorkerThreads = newNumThreads;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+
+    return new ConfigChangeResult();
+  }
+
+  @Override
+  public boolean isIdle()
+  {
+    lock.lock();
+    try
+    {
+      if (nbPendingOperations > 0)
+      {
+        return false;
+      }
+
+      for (FairSchedulingWorkerThread t : workerThreads)
+      {
+        if (t.isActive())
+        {
+          return false;
+        }
+      }
+
+      return true;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Return the number of worker threads used by this WorkQueue.
+   *
+   * @return the number of worker threads used by this WorkQueue
+   */
+  @Override
+  public int getNumWorkerThreads()
+  {
+    return this.numWorkerThreads;
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.extensions;
 
@@ -29,6 +30,7 @@ import org.forgerock.opendj.server.config.server.IsMemberOfVirtualAttributeCfg;
 import org.opends.server.api.Group;
 import org.opends.server.api.VirtualAttributeProvider;
 import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.GroupManager;
 import org.opends.server.core.SearchOperation;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.opends.server.types.*;
@@ -63,21 +65,10 @@ public class IsMemberOfVirtualAttributeProvider
   @Override
   public Attribute getValues(Entry entry, VirtualAttributeRule rule)
   {
-    // FIXME -- This probably isn't the most efficient implementation.
     AttributeBuilder builder = new AttributeBuilder(rule.getAttributeType());
-    for (Group<?> g : DirectoryServer.getGroupManager().getGroupInstances())
+    for (Group<?> g : DirectoryServer.getGroupManager().getGroups(entry))
     {
-      try
-      {
-        if (g.isMember(entry))
-        {
-          builder.add(g.getGroupDN().toString());
-        }
-      }
-      catch (Exception e)
-      {
-        logger.traceException(e);
-      }
+      builder.add(g.getGroupDN().toString());
     }
     return builder.toAttribute();
   }
@@ -85,23 +76,7 @@ public class IsMemberOfVirtualAttributeProvider
   @Override
   public boolean hasValue(Entry entry, VirtualAttributeRule rule)
   {
-    // FIXME -- This probably isn't the most efficient implementation.
-    for (Group<?> g : DirectoryServer.getGroupManager().getGroupInstances())
-    {
-      try
-      {
-        if (g.isMember(entry))
-        {
-          return true;
-        }
-      }
-      catch (Exception e)
-      {
-        logger.traceException(e);
-      }
-    }
-
-    return false;
+    return !DirectoryServer.getGroupManager().getGroups(entry).isEmpty();
   }
 
   @Override
@@ -111,8 +86,9 @@ public class IsMemberOfVirtualAttributeProvider
     try
     {
       DN groupDN = DN.valueOf(value);
-      Group<?> g = DirectoryServer.getGroupManager().getGroupInstance(groupDN);
-      return g != null && g.isMember(entry);
+      GroupManager groupManager = DirectoryServer.getGroupManager();
+      Group<?> g = groupManager.getGroupInstance(groupDN);
+      return g != null && groupManager.isMember(g, entry);
     }
     catch (Exception e)
     {
@@ -169,16 +145,40 @@ public class IsMemberOfVirtualAttributeProvider
    *   <LI>It is an AND filter in which at least one of the components is an
    *       equality filter targeting the associated attribute type.</LI>
    * </UL>
-   * Searching for this virtual attribute cannot be pre-indexed and thus,
-   * it should not be searchable when pre-indexed is required.
+   * When pre-indexed is required, searching for this virtual attribute is
+   * only allowed if the membership of the group, and of its nested groups,
+   * is indexed by the group manager.
    */
   @Override
   public boolean isSearchable(VirtualAttributeRule rule,
                               SearchOperation searchOperation,
                               boolean isPreIndexed)
   {
-    return !isPreIndexed &&
-        isSearchable(rule.getAttributeType(), searchOperation.getFilter(), 0);
+    AttributeType attributeType = rule.getAttributeType();
+    SearchFilter filter = searchOperation.getFilter();
+    if (!isSearchable(attributeType, filter, 0))
+    {
+      return false;
+    }
+    return !isPreIndexed || isMembershipIndexed(extractGroup(attributeType, filter));
+  }
+
+  private boolean isMembershipIndexed(Group<?> group)
+  {
+    GroupManager groupManager = DirectoryServer.getGroupManager();
+    if (group == null || !groupManager.isMembershipIndexed(group))
+    {
+      return false;
+    }
+    for (DN nestedGroupDN : group.getNestedGroupDNs())
+    {
+      Group<?> nestedGroup = groupManager.getGroupInstance(nestedGroupDN);
+      if (nestedGroup != null && !groupManager.isMembershipIndexed(nestedGroup))
+      {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
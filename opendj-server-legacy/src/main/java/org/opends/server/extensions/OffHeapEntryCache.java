@@ -0,0 +1,803 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.ExtensionMessages.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.server.config.server.EntryCacheCfg;
+import org.forgerock.opendj.server.config.server.OffHeapEntryCacheCfg;
+import org.forgerock.util.Utils;
+import org.opends.server.api.EntryCache;
+import org.opends.server.api.MonitorData;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ServerContext;
+import org.opends.server.types.CacheEntry;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.EntryEncodeConfig;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.SearchFilter;
+import org.opends.server.util.ServerConstants;
+
+/**
+ * This class defines a Directory Server entry cache which stores the entries outside of the JVM heap.
+ * <p>
+ * Entries are encoded like in the backends, without their DN and with the object classes and attribute descriptions
+ * replaced by the tokens of the compressed schema, and appended to large direct buffers called segments. They are
+ * decoded again on each hit. Only the DNs and the location of the entries are kept on the heap, so that this cache can
+ * hold many more entries than the caches of decoded entries without increasing the garbage collection pauses.
+ * <p>
+ * The segments are filled one after the other. Once the maximum memory size is reached, the oldest segment is
+ * recycled: the entries which have been read since they were written are compacted at its beginning, and the others
+ * are evicted. Lookups never block: they check that the segment has not been recycled while they were copying the
+ * entry. Updates are serialized.
+ * <p>
+ * When it follows other caches in the cache order, this cache keeps a copy of the entries they cache, and the entries
+ * found in this cache are promoted into them. It is then used as a large second-level cache below a small cache of
+ * decoded entries.
+ */
+public class OffHeapEntryCache
+       extends EntryCache<OffHeapEntryCacheCfg>
+       implements ConfigurationChangeListener<OffHeapEntryCacheCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Minimum size of the segments. */
+  private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+  /** Maximum size of the segments, which is also the maximum size of a cached entry. */
+  private static final int MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+  /** Preferred number of segments, so that recycling a segment only evicts a small part of the cache. */
+  private static final int PREFERRED_NB_SEGMENTS = 64;
+  /** Number of entries removed by {@link #clearBackend(String)} before giving a chance to other threads. */
+  private static final int CLEAR_BACKEND_BATCH_SIZE = 1000;
+
+  /** A direct buffer holding encoded entries. */
+  private static final class Segment
+  {
+    private final ByteBuffer buffer;
+    /** Held in write mode while the segment is recycled. */
+    private final StampedLock lock = new StampedLock();
+    /** Incremented when the segment is recycled, only written with the write lock held. */
+    private int generation;
+    /** The following fields are guarded by the cache lock. */
+    private int position;
+    private List<Slot> slots = new ArrayList<>();
+
+    private Segment(int size)
+    {
+      buffer = ByteBuffer.allocateDirect(size);
+    }
+  }
+
+  /** The location of a cached entry. */
+  private static final class Slot
+  {
+    private final DN dn;
+    private final String backendID;
+    private final long entryID;
+    private final Segment segment;
+    private final int generation;
+    private final int offset;
+    private final int length;
+    /** Whether the entry has been read since it has been written. */
+    private volatile boolean referenced;
+
+    private Slot(DN dn, String backendID, long entryID, Segment segment, int offset, int length)
+    {
+      this.dn = dn;
+      this.backendID = backendID;
+      this.entryID = entryID;
+      this.segment = segment;
+      this.generation = segment.generation;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /** The mapping between DNs and cached entries. */
+  private final ConcurrentMap<DN, Slot> dnMap = new ConcurrentHashMap<>();
+  /** The mapping between entry backends/IDs and cached entries. */
+  private final ConcurrentMap<String, ConcurrentMap<Long, Slot>> idMap = new ConcurrentHashMap<>();
+  private final LongAdder evictions = new LongAdder();
+  /** Entries are encoded without their DN, which is kept on the heap, and with the compressed schema tokens. */
+  private EntryEncodeConfig encodeConfig;
+
+  /** Guards the segments and the updates of the maps. */
+  private final ReentrantLock cacheLock = new ReentrantLock();
+  /** The segments holding entries, from the oldest to the current one. */
+  private final Deque<Segment> segments = new ArrayDeque<>();
+  /** The segments holding no entries. */
+  private final Deque<Segment> freeSegments = new ArrayDeque<>();
+  private int segmentSize;
+  private int maxNbSegments;
+
+  /** The number of bytes used by the cached entries. */
+  private volatile long usedBytes;
+  /** The number of bytes of the allocated segments. */
+  private volatile long reservedBytes;
+  /** The maximum number of bytes of the allocated segments. */
+  private volatile long maxMemorySize;
+
+  /** Currently registered configuration object. */
+  private OffHeapEntryCacheCfg registeredConfiguration;
+
+  /** Creates a new instance of this off-heap entry cache. */
+  public OffHeapEntryCache()
+  {
+    super();
+    // All initialization should be performed in the initializeEntryCache.
+  }
+
+  @Override
+  public void initializeEntryCache(ServerContext serverContext, OffHeapEntryCacheCfg configuration)
+      throws ConfigException, InitializationException
+  {
+    registeredConfiguration = configuration;
+    configuration.addOffHeapChangeListener(this);
+    encodeConfig = new EntryEncodeConfig(true, true, true);
+
+    // Read configuration and apply changes.
+    List<LocalizableMessage> errorMessages = new ArrayList<>();
+    EntryCacheCommon.ConfigErrorHandler errorHandler = EntryCacheCommon.getConfigErrorHandler(
+        EntryCacheCommon.ConfigPhase.PHASE_INIT, null, errorMessages);
+    if (!processEntryCacheConfig(configuration, true, errorHandler))
+    {
+      String buffer = Utils.joinAsString(".  ", errorMessages);
+      throw new ConfigException(ERR_OFFHEAPCACHE_CANNOT_INITIALIZE.get(buffer));
+    }
+  }
+
+  @Override
+  public void finalizeEntryCache()
+  {
+    registeredConfiguration.removeOffHeapChangeListener(this);
+    cacheLock.lock();
+    try
+    {
+      clear();
+      releaseSegments();
+    }
+    finally
+    {
+      cacheLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean containsEntry(DN entryDN)
+  {
+    return entryDN != null && dnMap.containsKey(entryDN);
+  }
+
+  @Override
+  public Entry getEntry(DN entryDN)
+  {
+    final CacheEntry cacheEntry = getCacheEntry(entryDN);
+    return cacheEntry != null ? cacheEntry.getEntry() : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The entry is directly looked up by its ID.
+   */
+  @Override
+  public Entry getEntry(String backendID, long entryID)
+  {
+    final Slot slot = getSlot(backendID, entryID);
+    final Entry entry = slot != null ? decode(slot) : null;
+    if (entry == null)
+    {
+      cacheMisses.getAndIncrement();
+      return null;
+    }
+    cacheHits.getAndIncrement();
+    return entry;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The backend and ID of the entry are held by the cache. The lookup is accounted in the cache statistics.
+   */
+  @Override
+  public CacheEntry getCacheEntry(DN entryDN)
+  {
+    final Slot slot = dnMap.get(entryDN);
+    final Entry entry = slot != null ? decode(slot) : null;
+    if (entry == null)
+    {
+      cacheMisses.getAndIncrement();
+      return null;
+    }
+    cacheHits.getAndIncrement();
+    return new CacheEntry(entry, slot.backendID, slot.entryID);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The off-heap cache keeps a serialized copy of the entries cached by the caches preceding it.
+   */
+  @Override
+  public boolean holdsPrecedingEntries()
+  {
+    return true;
+  }
+
+  @Override
+  public long getEntryID(DN entryDN)
+  {
+    final Slot slot = dnMap.get(entryDN);
+    return slot != null ? slot.entryID : -1;
+  }
+
+  @Override
+  public DN getEntryDN(String backendID, long entryID)
+  {
+    final Slot slot = getSlot(backendID, entryID);
+    return slot != null ? slot.dn : null;
+  }
+
+  private Slot getSlot(String backendID, long entryID)
+  {
+    final Map<Long, Slot> backendMap = idMap.get(backendID);
+    return backendMap != null ? backendMap.get(entryID) : null;
+  }
+
+  /**
+   * Decodes a cached entry.
+   *
+   * @param slot
+   *          the location of the entry
+   * @return the entry, or {@code null} if it has been evicted in the meantime
+   */
+  private Entry decode(Slot slot)
+  {
+    final byte[] bytes = read(slot);
+    if (bytes == null)
+    {
+      return null;
+    }
+    if (!slot.referenced)
+    {
+      slot.referenced = true;
+    }
+    try
+    {
+      final Entry entry = Entry.decode(ByteString.wrap(bytes).asReader(), encodeConfig.getCompressedSchema());
+      entry.setDN(slot.dn);
+      return entry;
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  /**
+   * Copies an encoded entry to the heap.
+   *
+   * @param slot
+   *          the location of the entry
+   * @return the encoded entry, or {@code null} if its segment has been recycled
+   */
+  private static byte[] read(Slot slot)
+  {
+    final Segment segment = slot.segment;
+    final byte[] bytes = new byte[slot.length];
+    final long stamp = segment.lock.tryOptimisticRead();
+    if (stamp != 0)
+    {
+      final boolean current = segment.generation == slot.generation;
+      if (current)
+      {
+        copy(segment, slot.offset, bytes);
+      }
+      if (segment.lock.validate(stamp))
+      {
+        return current ? bytes : null;
+      }
+    }
+    // The segment is being recycled
+    final long readStamp = segment.lock.readLock();
+    try
+    {
+      if (segment.generation != slot.generation)
+      {
+        return null;
+      }
+      copy(segment, slot.offset, bytes);
+      return bytes;
+    }
+    finally
+    {
+      segment.lock.unlockRead(readStamp);
+    }
+  }
+
+  private static void copy(Segment segment, int offset, byte[] bytes)
+  {
+    final ByteBuffer buffer = segment.buffer.duplicate();
+    buffer.position(offset);
+    buffer.get(bytes);
+  }
+
+  @Override
+  public void putEntry(Entry entry, String backendID, long entryID)
+  {
+    put(entry, backendID, entryID, false);
+  }
+
+  @Override
+  public boolean putEntryIfAbsent(Entry entry, String backendID, long entryID)
+  {
+    return put(entry, backendID, entryID, true);
+  }
+
+  private boolean put(Entry entry, String backendID, long entryID, boolean onlyIfAbsent)
+  {
+    final DN dn = entry.getName();
+    if (onlyIfAbsent && dnMap.containsKey(dn))
+    {
+      return false;
+    }
+
+    final ByteStringBuilder encodedEntry = new ByteStringBuilder();
+    try
+    {
+      entry.encode(encodedEntry, encodeConfig);
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+
+      // We can't be sure there wasn't a conflict, so return false.
+      return false;
+    }
+
+    cacheLock.lock();
+    try
+    {
+      final Slot existing = dnMap.get(dn);
+      if (existing != null)
+      {
+        if (onlyIfAbsent)
+        {
+          return false;
+        }
+        remove(existing);
+      }
+      if (encodedEntry.length() > segmentSize)
+      {
+        // The entry is too large to be cached
+        return true;
+      }
+
+      final Segment segment = allocate(encodedEntry.length());
+      final ByteBuffer buffer = segment.buffer.duplicate();
+      buffer.position(segment.position);
+      encodedEntry.copyTo(buffer);
+      final Slot slot = new Slot(dn, backendID, entryID, segment, segment.position, encodedEntry.length());
+      segment.position += slot.length;
+      segment.slots.add(slot);
+      usedBytes += slot.length;
+      dnMap.put(dn, slot);
+      getBackendMap(backendID).put(entryID, slot);
+      return true;
+    }
+    finally
+    {
+      cacheLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the segment where to append an entry, recycling the oldest segments if needed. Must be called with the
+   * cache lock held.
+   *
+   * @param length
+   *          the length of the encoded entry, at most the segment size
+   * @return the segment with enough room for the entry
+   */
+  private Segment allocate(int length)
+  {
+    final Segment current = segments.peekLast();
+    if (current != null && current.position + length <= segmentSize)
+    {
+      return current;
+    }
+    if (!freeSegments.isEmpty())
+    {
+      final Segment segment = freeSegments.pollFirst();
+      segments.addLast(segment);
+      return segment;
+    }
+    if (segments.size() < maxNbSegments)
+    {
+      final Segment segment = new Segment(segmentSize);
+      reservedBytes += segmentSize;
+      segments.addLast(segment);
+      return segment;
+    }
+    // Give a second chance to the recently read entries, unless they fill all the segments
+    for (int i = 0;; i++)
+    {
+      final Segment segment = segments.pollFirst();
+      recycle(segment, i < maxNbSegments);
+      segments.addLast(segment);
+      if (segment.position + length <= segmentSize)
+      {
+        return segment;
+      }
+    }
+  }
+
+  /**
+   * Evicts the entries of a segment. Must be called with the cache lock held.
+   *
+   * @param segment
+   *          the segment
+   * @param keepReferenced
+   *          whether the entries read since they have been written should be kept, at the beginning of the segment
+   */
+  private void recycle(Segment segment, boolean keepReferenced)
+  {
+    final List<Slot> survivors = new ArrayList<>();
+    int position = 0;
+    final long stamp = segment.lock.writeLock();
+    try
+    {
+      segment.generation++;
+      for (Slot slot : segment.slots)
+      {
+        if (dnMap.get(slot.dn) != slot)
+        {
+          // Already removed or replaced
+          continue;
+        }
+        if (!keepReferenced || !slot.referenced)
+        {
+          remove(slot);
+          evictions.increment();
+          continue;
+        }
+        if (slot.offset != position)
+        {
+          // Entries are moved towards the beginning of the segment, use a copy as the regions may overlap
+          final byte[] bytes = new byte[slot.length];
+          copy(segment, slot.offset, bytes);
+          final ByteBuffer buffer = segment.buffer.duplicate();
+          buffer.position(position);
+          buffer.put(bytes);
+        }
+        final Slot moved = new Slot(slot.dn, slot.backendID, slot.entryID, segment, position, slot.length);
+        dnMap.replace(slot.dn, slot, moved);
+        getBackendMap(slot.backendID).replace(slot.entryID, slot, moved);
+        survivors.add(moved);
+        position += slot.length;
+      }
+      segment.slots = survivors;
+      segment.position = position;
+    }
+    finally
+    {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes a cached entry from the maps. Must be called with the cache lock held.
+   *
+   * @param slot
+   *          the location of the entry
+   */
+  private void remove(Slot slot)
+  {
+    dnMap.remove(slot.dn, slot);
+    final Map<Long, Slot> backendMap = idMap.get(slot.backendID);
+    if (backendMap != null)
+    {
+      backendMap.remove(slot.entryID, slot);
+    }
+    usedBytes -= slot.length;
+  }
+
+  @Override
+  public void removeEntry(DN entryDN)
+  {
+    cacheLock.lock();
+    try
+    {
+      final Slot slot = dnMap.get(entryDN);
+      if (slot != null)
+      {
+        remove(slot);
+      }
+    }
+    finally
+    {
+      cacheLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear()
+  {
+    cacheLock.lock();
+    try
+    {
+      dnMap.clear();
+      idMap.clear();
+      while (!segments.isEmpty())
+      {
+        final Segment segment = segments.pollFirst();
+        recycle(segment, false);
+        freeSegments.addLast(segment);
+      }
+      usedBytes = 0;
+    }
+    finally
+    {
+      cacheLock.unlock();
+    }
+  }
+
+  @Override
+  public void clearBackend(String backendID)
+  {
+    cacheLock.lock();
+    try
+    {
+      final Map<Long, Slot> backendMap = idMap.remove(backendID);
+      if (backendMap == null)
+      {
+        // No entries were in the cache for this backend.
+        return;
+      }
+
+      // Release the lock regularly so this doesn't become a stop-the-world event as far as the cache is concerned.
+      int entriesDeleted = 0;
+      for (Slot slot : backendMap.values())
+      {
+        if (dnMap.remove(slot.dn, slot))
+        {
+          usedBytes -= slot.length;
+        }
+        if (++entriesDeleted % CLEAR_BACKEND_BATCH_SIZE == 0)
+        {
+          cacheLock.unlock();
+          Thread.yield();
+          cacheLock.lock();
+        }
+      }
+    }
+    finally
+    {
+      cacheLock.unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The entries are stored outside of the heap, but the DNs and the maps indexing them are not. If there are less
+   * than 1000 entries, then all of them are evicted. Otherwise, the entries of the oldest 10% of the segments are.
+   */
+  @Override
+  public void handleLowMemory()
+  {
+    cacheLock.lock();
+    try
+    {
+      if (dnMap.size() < 1000)
+      {
+        clear();
+        return;
+      }
+      for (int numToDrop = Math.max(1, segments.size() / 10); numToDrop > 0 && !segments.isEmpty(); numToDrop--)
+      {
+        final Segment segment = segments.pollFirst();
+        recycle(segment, false);
+        freeSegments.addLast(segment);
+      }
+    }
+    finally
+    {
+      cacheLock.unlock();
+    }
+  }
+
+  /** Releases the direct buffers of the segments. Must be called with the cache lock held, once the cache is empty. */
+  private void releaseSegments()
+  {
+    freeSegments.clear();
+    reservedBytes = 0;
+  }
+
+  private ConcurrentMap<Long, Slot> getBackendMap(String backendID)
+  {
+    ConcurrentMap<Long, Slot> backendMap = idMap.get(backendID);
+    if (backendMap == null)
+    {
+      backendMap = new ConcurrentHashMap<>();
+      idMap.put(backendID, backendMap);
+    }
+    return backendMap;
+  }
+
+  @Override
+  public boolean isConfigurationAcceptable(EntryCacheCfg configuration, List<LocalizableMessage> unacceptableReasons)
+  {
+    OffHeapEntryCacheCfg config = (OffHeapEntryCacheCfg) configuration;
+    return isConfigurationChangeAcceptable(config, unacceptableReasons);
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(OffHeapEntryCacheCfg configuration,
+      List<LocalizableMessage> unacceptableReasons)
+  {
+    EntryCacheCommon.ConfigErrorHandler errorHandler = EntryCacheCommon.getConfigErrorHandler(
+        EntryCacheCommon.ConfigPhase.PHASE_ACCEPTABLE, unacceptableReasons, null);
+    processEntryCacheConfig(configuration, false, errorHandler);
+    return errorHandler.getIsAcceptable();
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(OffHeapEntryCacheCfg configuration)
+  {
+    List<LocalizableMessage> errorMessages = new ArrayList<>();
+    EntryCacheCommon.ConfigErrorHandler errorHandler = EntryCacheCommon.getConfigErrorHandler(
+        EntryCacheCommon.ConfigPhase.PHASE_APPLY, null, errorMessages);
+
+    // Do not apply changes unless this cache is enabled.
+    if (configuration.isEnabled())
+    {
+      processEntryCacheConfig(configuration, true, errorHandler);
+    }
+
+    final ConfigChangeResult changeResult = new ConfigChangeResult();
+    changeResult.setResultCode(errorHandler.getResultCode());
+    changeResult.setAdminActionRequired(errorHandler.getIsAdminActionRequired());
+    changeResult.getMessages().addAll(errorHandler.getErrorMessages());
+    return changeResult;
+  }
+
+  /**
+   * Parses the provided configuration and configure the entry cache.
+   *
+   * @param configuration  The new configuration containing the changes.
+   * @param applyChanges   If true then take into account the new configuration.
+   * @param errorHandler   An handler used to report errors.
+   *
+   * @return  <CODE>true</CODE> if configuration is acceptable,
+   *          or <CODE>false</CODE> otherwise.
+   */
+  private boolean processEntryCacheConfig(OffHeapEntryCacheCfg configuration, boolean applyChanges,
+      EntryCacheCommon.ConfigErrorHandler errorHandler)
+  {
+    DN newConfigEntryDN = configuration.dn();
+    Set<SearchFilter> newIncludeFilters = EntryCacheCommon.getFilters(
+        configuration.getIncludeFilter(), ERR_CACHE_INVALID_INCLUDE_FILTER, errorHandler, newConfigEntryDN);
+    Set<SearchFilter> newExcludeFilters = EntryCacheCommon.getFilters(
+        configuration.getExcludeFilter(), ERR_CACHE_INVALID_EXCLUDE_FILTER, errorHandler, newConfigEntryDN);
+
+    if (applyChanges && errorHandler.getIsAcceptable())
+    {
+      final long newMaxMemorySize = configuration.getMaxMemorySize();
+      cacheLock.lock();
+      try
+      {
+        if (newMaxMemorySize != maxMemorySize)
+        {
+          // The segments are sized after the maximum memory size, start from scratch
+          clear();
+          releaseSegments();
+          maxMemorySize = newMaxMemorySize;
+          segmentSize = (int) Math.min(MAX_SEGMENT_SIZE,
+              Math.max(MIN_SEGMENT_SIZE, newMaxMemorySize / PREFERRED_NB_SEGMENTS));
+          maxNbSegments = (int) Math.max(2, Math.min(Integer.MAX_VALUE, newMaxMemorySize / segmentSize));
+        }
+      }
+      finally
+      {
+        cacheLock.unlock();
+      }
+      setIncludeFilters(newIncludeFilters);
+      setExcludeFilters(newExcludeFilters);
+      registeredConfiguration = configuration;
+    }
+
+    return errorHandler.getIsAcceptable();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The cache size is the number of bytes used by the encoded entries. In addition to the generic entry cache
+   * attributes, the number of evictions and the number of bytes of direct memory reserved by the cache are reported.
+   */
+  @Override
+  public MonitorData getMonitorData()
+  {
+    try
+    {
+      MonitorData attrs = EntryCacheCommon.getGenericMonitorData(
+          cacheHits.longValue(),
+          // If cache misses is maintained by default cache
+          // get it from there and if not point to itself.
+          DirectoryServer.getEntryCache().getCacheMisses(),
+          usedBytes,
+          maxMemorySize,
+          Long.valueOf(dnMap.size()),
+          null);
+      attrs.add("entryCacheEvictions", evictions.sum());
+      attrs.add("entryCacheReservedMemorySize", reservedBytes);
+      return attrs;
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      return new MonitorData(0);
+    }
+  }
+
+  @Override
+  public Long getCacheCount()
+  {
+    return Long.valueOf(dnMap.size());
+  }
+
+  @Override
+  public String toVerboseString()
+  {
+    StringBuilder sb = new StringBuilder();
+    for (Slot slot : dnMap.values())
+    {
+      sb.append(slot.dn);
+      sb.append(":");
+      sb.append(slot.entryID);
+      sb.append(":");
+      sb.append(slot.backendID);
+      sb.append(ServerConstants.EOL);
+    }
+
+    String verboseString = sb.toString();
+    return verboseString.length() > 0 ? verboseString : null;
+  }
+}
@@ -13,13 +13,16 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.extensions;
 
 import static com.forgerock.opendj.util.StaticUtils.getBytes;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -349,6 +352,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     {
       lock.writeLock().unlock();
     }
+    getGroupManager().membersChanged(this);
   }
 
   @Override
@@ -387,6 +391,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     {
       lock.writeLock().unlock();
     }
+    getGroupManager().membersChanged(this);
   }
 
   @Override
@@ -541,6 +546,25 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     return true;
   }
 
+  @Override
+  public Collection<ByteString> getNormalizedMemberDNs()
+  {
+    lock.readLock().lock();
+    try
+    {
+      List<ByteString> normalizedMemberDNs = new ArrayList<>(memberDNs.size());
+      for (CompactDn memberDN : memberDNs)
+      {
+        normalizedMemberDNs.add(memberDN.toNormalizedByteString());
+      }
+      return normalizedMemberDNs;
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
   @Override
   public void updateMembers(List<Modification> modifications)
          throws UnsupportedOperationException, DirectoryException
@@ -641,6 +665,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     {
       lock.writeLock().unlock();
     }
+    getGroupManager().membersChanged(this);
   }
 
   @Override
@@ -681,6 +706,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     {
       lock.writeLock().unlock();
     }
+    getGroupManager().membersChanged(this);
   }
 
   private ModifyOperation newModifyOperation(ModificationType modType, DN userDN)
@@ -758,6 +784,16 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       return DN.valueOf(toString(), serverContext.getSchema());
     }
 
+    /**
+     * Returns the normalized form of the DN, as returned by {@link DN#toNormalizedByteString()}.
+     *
+     * @return the normalized form of the DN
+     */
+    ByteString toNormalizedByteString()
+    {
+      return ByteString.wrap(normalizedValue);
+    }
+
     @Override
     public int hashCode()
     {
@@ -0,0 +1,1016 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.ExtensionMessages.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.server.config.server.EntryCacheCfg;
+import org.forgerock.opendj.server.config.server.TinyLFUEntryCacheCfg;
+import org.forgerock.util.Utils;
+import org.opends.server.api.EntryCache;
+import org.opends.server.api.MonitorData;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ServerContext;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.CacheEntry;
+import org.opends.server.types.Entry;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.SearchFilter;
+import org.opends.server.util.ServerConstants;
+
+/**
+ * This class defines a Directory Server entry cache using the W-TinyLFU eviction policy.
+ * <p>
+ * New entries enter a small admission window, managed as an LRU list, which holds about one percent of the cache.
+ * The rest of the cache is a segmented LRU: entries leaving the window enter its probation segment, and move to its
+ * protected segment when they are accessed again. When the cache is full, the entry leaving the window only replaces
+ * the least recently used entry of the probation segment if a frequency sketch estimates that it has been accessed
+ * more often recently. Bursts of new entries, for instance caused by a search scanning a whole backend, therefore do
+ * not flush the frequently used entries.
+ * <p>
+ * Lookups never block: they read concurrent maps and record the access in lossy striped buffers, which are applied to
+ * the eviction policy in batches by the thread holding the policy lock. Updates hold this lock for a constant time.
+ * <p>
+ * The cache is bounded by a number of entries and by an estimate of the memory used by the cached entries.
+ */
+public class TinyLFUEntryCache
+       extends EntryCache<TinyLFUEntryCacheCfg>
+       implements ConfigurationChangeListener<TinyLFUEntryCacheCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Number of slots of each read buffer, a power of two. */
+  private static final int READ_BUFFER_SIZE = 16;
+  /** Number of read buffers, a power of two. */
+  private static final int NB_READ_BUFFERS = ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors());
+  /** Number of entries removed by {@link #clearBackend(String)} before giving a chance to other threads. */
+  private static final int CLEAR_BACKEND_BATCH_SIZE = 1000;
+
+  /** Estimated memory used by an entry, excluding its DN and attributes. */
+  private static final int ENTRY_OVERHEAD = 256;
+  /** Estimated memory used by an attribute, excluding its values. */
+  private static final int ATTRIBUTE_OVERHEAD = 64;
+  /** Estimated memory used by an attribute value, excluding its bytes. */
+  private static final int VALUE_OVERHEAD = 32;
+
+  /** Segment of the cache holding a node. */
+  private enum Segment
+  {
+    WINDOW, PROBATION, PROTECTED, REMOVED
+  }
+
+  /** A cached entry, and its position in the eviction policy. */
+  private static final class Node
+  {
+    private final DN dn;
+    private volatile CacheEntry entry;
+    /** The following fields are guarded by the policy lock. */
+    private long weight;
+    private Segment segment;
+    private Node prev;
+    private Node next;
+
+    private Node(DN dn, CacheEntry entry, long weight)
+    {
+      this.dn = dn;
+      this.entry = entry;
+      this.weight = weight;
+    }
+  }
+
+  /** A doubly linked list of nodes, from the least recently used to the most recently used. */
+  private static final class AccessOrder
+  {
+    private final Segment segment;
+    private Node head;
+    private Node tail;
+    private long count;
+    private long weight;
+
+    private AccessOrder(Segment segment)
+    {
+      this.segment = segment;
+    }
+
+    private void addLast(Node node)
+    {
+      node.segment = segment;
+      node.prev = tail;
+      node.next = null;
+      if (tail == null)
+      {
+        head = node;
+      }
+      else
+      {
+        tail.next = node;
+      }
+      tail = node;
+      count++;
+      weight += node.weight;
+    }
+
+    private void remove(Node node)
+    {
+      if (node.prev == null)
+      {
+        head = node.next;
+      }
+      else
+      {
+        node.prev.next = node.next;
+      }
+      if (node.next == null)
+      {
+        tail = node.prev;
+      }
+      else
+      {
+        node.next.prev = node.prev;
+      }
+      node.prev = null;
+      node.next = null;
+      count--;
+      weight -= node.weight;
+    }
+
+    private void moveToLast(Node node)
+    {
+      if (node != tail)
+      {
+        remove(node);
+        addLast(node);
+      }
+    }
+
+    private void clear()
+    {
+      head = null;
+      tail = null;
+      count = 0;
+      weight = 0;
+    }
+  }
+
+  /**
+   * Estimates how often items have been accessed recently with a count-min sketch of four 4-bit counters per item,
+   * each one held in a different {@code long} of the table. Counters are halved once the number of increments
+   * reaches ten times the capacity, so that the frequencies reflect the recent accesses. It must only be used with
+   * the policy lock held.
+   */
+  static final class FrequencySketch
+  {
+    private static final long[] SEEDS =
+      { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long HALVE_MASK = 0x7777777777777777L;
+
+    private long[] table;
+    private int sampleSize;
+    private int additions;
+
+    /**
+     * Creates a sketch for the provided number of items.
+     *
+     * @param capacity
+     *          the number of items whose frequency should be accurately estimated
+     */
+    FrequencySketch(long capacity)
+    {
+      final int size = (int) Math.min(Math.max(capacity, 16), 1 << 24);
+      table = new long[ceilingPowerOfTwo(size)];
+      sampleSize = 10 * size;
+    }
+
+    /**
+     * Returns the estimated number of times an item has been accessed recently, at most 15.
+     *
+     * @param hashCode
+     *          the hash code of the item
+     * @return the estimated frequency of the item
+     */
+    int frequency(int hashCode)
+    {
+      final int hash = spread(hashCode);
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < SEEDS.length; i++)
+      {
+        frequency = Math.min(frequency, (int) (table[indexOf(hash, i)] >>> counterShift(hash, i)) & 0xF);
+      }
+      return frequency;
+    }
+
+    /**
+     * Records an access to an item.
+     *
+     * @param hashCode
+     *          the hash code of the item
+     */
+    void increment(int hashCode)
+    {
+      final int hash = spread(hashCode);
+      boolean added = false;
+      for (int i = 0; i < SEEDS.length; i++)
+      {
+        final int index = indexOf(hash, i);
+        final int shift = counterShift(hash, i);
+        if (((table[index] >>> shift) & 0xF) != 0xF)
+        {
+          table[index] += 1L << shift;
+          added = true;
+        }
+      }
+      if (added && ++additions >= sampleSize)
+      {
+        for (int i = 0; i < table.length; i++)
+        {
+          table[i] = (table[i] >>> 1) & HALVE_MASK;
+        }
+        additions /= 2;
+      }
+    }
+
+    /** Forgets all the accesses. */
+    void clear()
+    {
+      table = new long[table.length];
+      additions = 0;
+    }
+
+    private int indexOf(int hash, int i)
+    {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return (int) h & (table.length - 1);
+    }
+
+    /** Each item uses a different counter of the 16 counters of each of its four {@code long}s. */
+    private static int counterShift(int hash, int i)
+    {
+      return (((hash & 3) << 2) + i) << 2;
+    }
+
+    private static int spread(int hashCode)
+    {
+      int h = hashCode * 0x9e3779b9;
+      return h ^ (h >>> 16);
+    }
+  }
+
+  /**
+   * Lossy buffer of the nodes read by lookups. Lookups never wait: the access is dropped when the buffer is full.
+   */
+  private static final class ReadBuffer
+  {
+    private final AtomicReferenceArray<Node> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong writeCounter = new AtomicLong();
+    /** Only written with the policy lock held. */
+    private volatile long readCounter;
+
+    /**
+     * Records a read.
+     *
+     * @param node
+     *          the node which has been read
+     * @return {@code true} if the buffer should be drained
+     */
+    private boolean offer(Node node)
+    {
+      final long writes = writeCounter.get();
+      final long pending = writes - readCounter;
+      if (pending >= READ_BUFFER_SIZE)
+      {
+        return true;
+      }
+      if (writeCounter.compareAndSet(writes, writes + 1))
+      {
+        slots.lazySet((int) writes & (READ_BUFFER_SIZE - 1), node);
+      }
+      return pending + 1 >= READ_BUFFER_SIZE / 2;
+    }
+  }
+
+  /** Statistics of the cache for a backend. */
+  private static final class BackendStatistics
+  {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+  }
+
+  /** The mapping between DNs and cached entries. */
+  private final ConcurrentMap<DN, Node> dnMap = new ConcurrentHashMap<>();
+  /** The mapping between entry backends/IDs and cached entries. */
+  private final ConcurrentMap<String, ConcurrentMap<Long, Node>> idMap = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, BackendStatistics> backendStatistics = new ConcurrentHashMap<>();
+  private final LongAdder evictions = new LongAdder();
+  private final ReadBuffer[] readBuffers = new ReadBuffer[NB_READ_BUFFERS];
+
+  /** Guards the eviction policy. */
+  private final ReentrantLock policyLock = new ReentrantLock();
+  private final AccessOrder window = new AccessOrder(Segment.WINDOW);
+  private final AccessOrder probation = new AccessOrder(Segment.PROBATION);
+  private final AccessOrder protectedSegment = new AccessOrder(Segment.PROTECTED);
+  private FrequencySketch sketch;
+
+  /** The maximum number of entries that may be held in the cache. */
+  private volatile long maxEntries;
+  /** The maximum estimated memory used by the cached entries. */
+  private volatile long maxMemorySize;
+
+  /** Currently registered configuration object. */
+  private TinyLFUEntryCacheCfg registeredConfiguration;
+
+  /** Creates a new instance of this tiny LFU entry cache. */
+  public TinyLFUEntryCache()
+  {
+    super();
+    for (int i = 0; i < readBuffers.length; i++)
+    {
+      readBuffers[i] = new ReadBuffer();
+    }
+    // All initialization should be performed in the initializeEntryCache.
+  }
+
+  @Override
+  public void initializeEntryCache(ServerContext serverContext, TinyLFUEntryCacheCfg configuration)
+      throws ConfigException, InitializationException
+  {
+    registeredConfiguration = configuration;
+    configuration.addTinyLFUChangeListener(this);
+
+    // Read configuration and apply changes.
+    List<LocalizableMessage> errorMessages = new ArrayList<>();
+    EntryCacheCommon.ConfigErrorHandler errorHandler = EntryCacheCommon.getConfigErrorHandler(
+        EntryCacheCommon.ConfigPhase.PHASE_INIT, null, errorMessages);
+    if (!processEntryCacheConfig(configuration, true, errorHandler))
+    {
+      String buffer = Utils.joinAsString(".  ", errorMessages);
+      throw new ConfigException(ERR_TINYLFUCACHE_CANNOT_INITIALIZE.get(buffer));
+    }
+  }
+
+  @Override
+  public void finalizeEntryCache()
+  {
+    registeredConfiguration.removeTinyLFUChangeListener(this);
+    clear();
+  }
+
+  @Override
+  public boolean containsEntry(DN entryDN)
+  {
+    return entryDN != null && dnMap.containsKey(entryDN);
+  }
+
+  @Override
+  public Entry getEntry(DN entryDN)
+  {
+    final Node node = dnMap.get(entryDN);
+    if (node == null)
+    {
+      // The backend of the entry is not known
+      cacheMisses.getAndIncrement();
+      return null;
+    }
+    return hit(node);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The entry is directly looked up by its ID, and the lookup is accounted in the statistics of the backend.
+   */
+  @Override
+  public Entry getEntry(String backendID, long entryID)
+  {
+    final Map<Long, Node> backendMap = idMap.get(backendID);
+    final Node node = backendMap != null ? backendMap.get(entryID) : null;
+    if (node == null)
+    {
+      cacheMisses.getAndIncrement();
+      getBackendStatistics(backendID).misses.increment();
+      return null;
+    }
+    return hit(node);
+  }
+
+  private Entry hit(Node node)
+  {
+    final CacheEntry cacheEntry = node.entry;
+    cacheHits.getAndIncrement();
+    getBackendStatistics(cacheEntry.getBackendID()).hits.increment();
+    final ReadBuffer buffer = readBuffers[(int) Thread.currentThread().getId() & (NB_READ_BUFFERS - 1)];
+    if (buffer.offer(node) && policyLock.tryLock())
+    {
+      try
+      {
+        drainReadBuffers();
+      }
+      finally
+      {
+        policyLock.unlock();
+      }
+    }
+    return cacheEntry.getEntry();
+  }
+
+  @Override
+  public long getEntryID(DN entryDN)
+  {
+    final Node node = dnMap.get(entryDN);
+    return node != null ? node.entry.getEntryID() : -1;
+  }
+
+  @Override
+  public DN getEntryDN(String backendID, long entryID)
+  {
+    final Map<Long, Node> backendMap = idMap.get(backendID);
+    final Node node = backendMap != null ? backendMap.get(entryID) : null;
+    return node != null ? node.dn : null;
+  }
+
+  @Override
+  public void putEntry(Entry entry, String backendID, long entryID)
+  {
+    put(entry, backendID, entryID, false);
+  }
+
+  @Override
+  public boolean putEntryIfAbsent(Entry entry, String backendID, long entryID)
+  {
+    return put(entry, backendID, entryID, true);
+  }
+
+  private boolean put(Entry entry, String backendID, long entryID, boolean onlyIfAbsent)
+  {
+    final CacheEntry cacheEntry = new CacheEntry(entry, backendID, entryID);
+    final long weight = estimateSize(entry);
+    policyLock.lock();
+    try
+    {
+      drainReadBuffers();
+      final Node existing = dnMap.get(entry.getName());
+      if (existing != null)
+      {
+        if (onlyIfAbsent)
+        {
+          return false;
+        }
+        unlink(existing);
+        if (weight > maxMemorySize)
+        {
+          existing.segment = Segment.REMOVED;
+          return true;
+        }
+        existing.entry = cacheEntry;
+        existing.weight = weight;
+        dnMap.put(existing.dn, existing);
+        getBackendMap(backendID).put(entryID, existing);
+        sketch.increment(existing.dn.hashCode());
+        // Updated entries keep their segment
+        accessOrder(existing.segment).addLast(existing);
+      }
+      else
+      {
+        if (weight > maxMemorySize)
+        {
+          return true;
+        }
+        final Node node = new Node(entry.getName(), cacheEntry, weight);
+        dnMap.put(node.dn, node);
+        getBackendMap(backendID).put(entryID, node);
+        sketch.increment(node.dn.hashCode());
+        window.addLast(node);
+      }
+      evict();
+      return true;
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+
+      // We can't be sure there wasn't a conflict, so return false.
+      return false;
+    }
+    finally
+    {
+      policyLock.unlock();
+    }
+  }
+
+  @Override
+  public void removeEntry(DN entryDN)
+  {
+    policyLock.lock();
+    try
+    {
+      final Node node = dnMap.get(entryDN);
+      if (node != null)
+      {
+        unlink(node);
+        node.segment = Segment.REMOVED;
+      }
+    }
+    finally
+    {
+      policyLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear()
+  {
+    policyLock.lock();
+    try
+    {
+      for (Node node : dnMap.values())
+      {
+        node.segment = Segment.REMOVED;
+      }
+      dnMap.clear();
+      idMap.clear();
+      window.clear();
+      probation.clear();
+      protectedSegment.clear();
+      if (sketch != null)
+      {
+        sketch.clear();
+      }
+    }
+    finally
+    {
+      policyLock.unlock();
+    }
+  }
+
+  @Override
+  public void clearBackend(String backendID)
+  {
+    policyLock.lock();
+    try
+    {
+      final Map<Long, Node> backendMap = idMap.remove(backendID);
+      if (backendMap == null)
+      {
+        // No entries were in the cache for this backend.
+        return;
+      }
+
+      // Release the lock regularly so this doesn't become a stop-the-world event as far as the cache is concerned.
+      int entriesDeleted = 0;
+      for (Node node : backendMap.values())
+      {
+        if (node.segment != Segment.REMOVED)
+        {
+          unlink(node);
+          node.segment = Segment.REMOVED;
+        }
+        if (++entriesDeleted % CLEAR_BACKEND_BATCH_SIZE == 0)
+        {
+          policyLock.unlock();
+          Thread.yield();
+          policyLock.lock();
+        }
+      }
+    }
+    finally
+    {
+      policyLock.unlock();
+    }
+  }
+
+  @Override
+  public void handleLowMemory()
+  {
+    policyLock.lock();
+    try
+    {
+      drainReadBuffers();
+      // If there are less than 1000 entries, then dump all of them. Otherwise, dump 10% of the entries.
+      final long numEntries = dnMap.size();
+      long numToDrop = numEntries < 1000 ? numEntries : numEntries / 10;
+      for (; numToDrop > 0; numToDrop--)
+      {
+        evict(victim());
+      }
+    }
+    finally
+    {
+      policyLock.unlock();
+    }
+  }
+
+  /** Applies the recorded reads to the eviction policy. Must be called with the policy lock held. */
+  private void drainReadBuffers()
+  {
+    for (ReadBuffer buffer : readBuffers)
+    {
+      long reads = buffer.readCounter;
+      final long writes = buffer.writeCounter.get();
+      for (; reads < writes; reads++)
+      {
+        final int index = (int) reads & (READ_BUFFER_SIZE - 1);
+        final Node node = buffer.slots.get(index);
+        if (node == null)
+        {
+          // The lookup has not published the node yet
+          break;
+        }
+        buffer.slots.lazySet(index, null);
+        onAccess(node);
+      }
+      buffer.readCounter = reads;
+    }
+  }
+
+  private void onAccess(Node node)
+  {
+    if (node.segment == Segment.REMOVED)
+    {
+      return;
+    }
+    sketch.increment(node.dn.hashCode());
+    switch (node.segment)
+    {
+    case WINDOW:
+      window.moveToLast(node);
+      break;
+    case PROBATION:
+      probation.remove(node);
+      protectedSegment.addLast(node);
+      // Demote the least recently used protected entries
+      while (protectedSegment.count > 1
+          && (protectedSegment.count > maxProtectedEntries() || protectedSegment.weight > maxProtectedSize()))
+      {
+        final Node demoted = protectedSegment.head;
+        protectedSegment.remove(demoted);
+        probation.addLast(demoted);
+      }
+      break;
+    case PROTECTED:
+      protectedSegment.moveToLast(node);
+      break;
+    default:
+      break;
+    }
+  }
+
+  /** Evicts entries until the cache fits in its bounds. Must be called with the policy lock held. */
+  private void evict()
+  {
+    // The entries leaving the window are candidates for admission in the main segments.
+    long candidates = 0;
+    while (window.count > 0
+        && (window.count > maxWindowEntries() || window.weight > maxWindowSize()))
+    {
+      final Node node = window.head;
+      window.remove(node);
+      probation.addLast(node);
+      candidates++;
+    }
+
+    while (totalCount() > maxEntries || totalWeight() > maxMemorySize)
+    {
+      final Node victim = victim();
+      final Node candidate = candidates > 0 ? probation.tail : null;
+      if (candidate == null || candidate == victim
+          || sketch.frequency(candidate.dn.hashCode()) > sketch.frequency(victim.dn.hashCode()))
+      {
+        evict(victim);
+      }
+      else
+      {
+        evict(candidate);
+        candidates--;
+      }
+      // Candidates are the most recently added nodes of the probation segment
+      candidates = Math.min(candidates, probation.count);
+    }
+  }
+
+  /** Returns the least valuable node, preferably from the probation segment. */
+  private Node victim()
+  {
+    if (probation.head != null)
+    {
+      return probation.head;
+    }
+    return protectedSegment.head != null ? protectedSegment.head : window.head;
+  }
+
+  private void evict(Node node)
+  {
+    final CacheEntry cacheEntry = node.entry;
+    unlink(node);
+    node.segment = Segment.REMOVED;
+    evictions.increment();
+    getBackendStatistics(cacheEntry.getBackendID()).evictions.increment();
+  }
+
+  /** Removes a node from the maps and from its segment. Must be called with the policy lock held. */
+  private void unlink(Node node)
+  {
+    final CacheEntry cacheEntry = node.entry;
+    dnMap.remove(node.dn, node);
+    final Map<Long, Node> backendMap = idMap.get(cacheEntry.getBackendID());
+    if (backendMap != null)
+    {
+      backendMap.remove(cacheEntry.getEntryID(), node);
+    }
+    if (node.segment != Segment.REMOVED)
+    {
+      accessOrder(node.segment).remove(node);
+    }
+  }
+
+  private AccessOrder accessOrder(Segment segment)
+  {
+    switch (segment)
+    {
+    case WINDOW:
+      return window;
+    case PROBATION:
+      return probation;
+    case PROTECTED:
+      return protectedSegment;
+    default:
+      throw new IllegalArgumentException(segment.toString());
+    }
+  }
+
+  private ConcurrentMap<Long, Node> getBackendMap(String backendID)
+  {
+    ConcurrentMap<Long, Node> backendMap = idMap.get(backendID);
+    if (backendMap == null)
+    {
+      backendMap = new ConcurrentHashMap<>();
+      idMap.put(backendID, backendMap);
+    }
+    return backendMap;
+  }
+
+  private BackendStatistics getBackendStatistics(String backendID)
+  {
+    BackendStatistics statistics = backendStatistics.get(backendID);
+    if (statistics == null)
+    {
+      final BackendStatistics newStatistics = new BackendStatistics();
+      statistics = backendStatistics.putIfAbsent(backendID, newStatistics);
+      if (statistics == null)
+      {
+        statistics = newStatistics;
+      }
+    }
+    return statistics;
+  }
+
+  private long totalCount()
+  {
+    return window.count + probation.count + protectedSegment.count;
+  }
+
+  private long totalWeight()
+  {
+    return window.weight + probation.weight + protectedSegment.weight;
+  }
+
+  private long maxWindowEntries()
+  {
+    return Math.max(1, maxEntries / 100);
+  }
+
+  private long maxWindowSize()
+  {
+    return Math.max(1, maxMemorySize / 100);
+  }
+
+  private long maxProtectedEntries()
+  {
+    return (maxEntries - maxWindowEntries()) * 4 / 5;
+  }
+
+  private long maxProtectedSize()
+  {
+    return (maxMemorySize - maxWindowSize()) * 4 / 5;
+  }
+
+  /**
+   * Estimates the memory used by an entry from the size of its DN and of its attribute values.
+   *
+   * @param entry
+   *          the entry
+   * @return the estimated number of bytes used by the entry
+   */
+  static long estimateSize(Entry entry)
+  {
+    long size = ENTRY_OVERHEAD + 2L * entry.getName().toString().length();
+    size += (long) entry.getObjectClasses().size() * VALUE_OVERHEAD;
+    for (Attribute attribute : entry.getAllAttributes())
+    {
+      size += ATTRIBUTE_OVERHEAD;
+      for (ByteString value : attribute)
+      {
+        size += VALUE_OVERHEAD + value.length();
+      }
+    }
+    return size;
+  }
+
+  private static int ceilingPowerOfTwo(int x)
+  {
+    return x <= 1 ? 1 : Integer.highestOneBit(x - 1) << 1;
+  }
+
+  @Override
+  public boolean isConfigurationAcceptable(EntryCacheCfg configuration, List<LocalizableMessage> unacceptableReasons)
+  {
+    TinyLFUEntryCacheCfg config = (TinyLFUEntryCacheCfg) configuration;
+    return isConfigurationChangeAcceptable(config, unacceptableReasons);
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(TinyLFUEntryCacheCfg configuration,
+      List<LocalizableMessage> unacceptableReasons)
+  {
+    EntryCacheCommon.ConfigErrorHandler errorHandler = EntryCacheCommon.getConfigErrorHandler(
+        EntryCacheCommon.ConfigPhase.PHASE_ACCEPTABLE, unacceptableReasons, null);
+    processEntryCacheConfig(configuration, false, errorHandler);
+    return errorHandler.getIsAcceptable();
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(TinyLFUEntryCacheCfg configuration)
+  {
+    List<LocalizableMessage> errorMessages = new ArrayList<>();
+    EntryCacheCommon.ConfigErrorHandler errorHandler = EntryCacheCommon.getConfigErrorHandler(
+        EntryCacheCommon.ConfigPhase.PHASE_APPLY, null, errorMessages);
+
+    // Do not apply changes unless this cache is enabled.
+    if (configuration.isEnabled())
+    {
+      processEntryCacheConfig(configuration, true, errorHandler);
+    }
+
+    final ConfigChangeResult changeResult = new ConfigChangeResult();
+    changeResult.setResultCode(errorHandler.getResultCode());
+    changeResult.setAdminActionRequired(errorHandler.getIsAdminActionRequired());
+    changeResult.getMessages().addAll(errorHandler.getErrorMessages());
+    return changeResult;
+  }
+
+  /**
+   * Parses the provided configuration and configure the entry cache.
+   *
+   * @param configuration  The new configuration containing the changes.
+   * @param applyChanges   If true then take into account the new configuration.
+   * @param errorHandler   An handler used to report errors.
+   *
+   * @return  <CODE>true</CODE> if configuration is acceptable,
+   *          or <CODE>false</CODE> otherwise.
+   */
+  private boolean processEntryCacheConfig(TinyLFUEntryCacheCfg configuration, boolean applyChanges,
+      EntryCacheCommon.ConfigErrorHandler errorHandler)
+  {
+    DN newConfigEntryDN = configuration.dn();
+    Set<SearchFilter> newIncludeFilters = EntryCacheCommon.getFilters(
+        configuration.getIncludeFilter(), ERR_CACHE_INVALID_INCLUDE_FILTER, errorHandler, newConfigEntryDN);
+    Set<SearchFilter> newExcludeFilters = EntryCacheCommon.getFilters(
+        configuration.getExcludeFilter(), ERR_CACHE_INVALID_EXCLUDE_FILTER, errorHandler, newConfigEntryDN);
+
+    if (applyChanges && errorHandler.getIsAcceptable())
+    {
+      policyLock.lock();
+      try
+      {
+        maxEntries = configuration.getMaxEntries();
+        maxMemorySize = configuration.getMaxMemorySize();
+        // Size the sketch for the number of entries which can be cached, assuming entries of at least 1KB
+        sketch = new FrequencySketch(Math.min(maxEntries, maxMemorySize / 1024));
+        evict();
+      }
+      finally
+      {
+        policyLock.unlock();
+      }
+      setIncludeFilters(newIncludeFilters);
+      setExcludeFilters(newExcludeFilters);
+      registeredConfiguration = configuration;
+    }
+
+    return errorHandler.getIsAcceptable();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * In addition to the generic entry cache attributes, the number of evictions is reported, as well as the hits,
+   * misses and evictions of each backend. Lookups by DN of entries which are not cached are not accounted to any
+   * backend.
+   */
+  @Override
+  public MonitorData getMonitorData()
+  {
+    try
+    {
+      final long cacheSize;
+      policyLock.lock();
+      try
+      {
+        cacheSize = totalWeight();
+      }
+      finally
+      {
+        policyLock.unlock();
+      }
+      MonitorData attrs = EntryCacheCommon.getGenericMonitorData(
+          cacheHits.longValue(),
+          // If cache misses is maintained by default cache
+          // get it from there and if not point to itself.
+          DirectoryServer.getEntryCache().getCacheMisses(),
+          cacheSize,
+          maxMemorySize,
+          Long.valueOf(dnMap.size()),
+          maxEntries != Integer.MAX_VALUE && maxEntries != Long.MAX_VALUE ? maxEntries : 0);
+      attrs.add("entryCacheEvictions", evictions.sum());
+
+      final Map<String, BackendStatistics> sortedStatistics = new TreeMap<>(backendStatistics);
+      final Collection<String> hits = new ArrayList<>(sortedStatistics.size());
+      final Collection<String> misses = new ArrayList<>(sortedStatistics.size());
+      final Collection<String> backendEvictions = new ArrayList<>(sortedStatistics.size());
+      for (Map.Entry<String, BackendStatistics> mapEntry : sortedStatistics.entrySet())
+      {
+        final BackendStatistics statistics = mapEntry.getValue();
+        hits.add(statistics.hits.sum() + " " + mapEntry.getKey());
+        misses.add(statistics.misses.sum() + " " + mapEntry.getKey());
+        backendEvictions.add(statistics.evictions.sum() + " " + mapEntry.getKey());
+      }
+      attrs.add("entryCacheBackendHits", hits);
+      attrs.add("entryCacheBackendMisses", misses);
+      attrs.add("entryCacheBackendEvictions", backendEvictions);
+      return attrs;
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      return new MonitorData(0);
+    }
+  }
+
+  @Override
+  public Long getCacheCount()
+  {
+    return Long.valueOf(dnMap.size());
+  }
+
+  @Override
+  public String toVerboseString()
+  {
+    StringBuilder sb = new StringBuilder();
+    for (Node node : dnMap.values())
+    {
+      final CacheEntry cacheEntry = node.entry;
+      sb.append(node.dn);
+      sb.append(":");
+      sb.append(cacheEntry.getEntryID());
+      sb.append(":");
+      sb.append(cacheEntry.getBackendID());
+      sb.append(ServerConstants.EOL);
+    }
+
+    String verboseString = sb.toString();
+    return verboseString.length() > 0 ? verboseString : null;
+  }
+}
@@ -0,0 +1,694 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.ConfigMessages.*;
+import static org.opends.messages.CoreMessages.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.server.config.server.VirtualThreadWorkQueueCfg;
+import org.opends.server.api.DirectoryThread;
+import org.opends.server.api.WorkQueue;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.monitors.VirtualThreadWorkQueueMonitor;
+import org.opends.server.types.CancelRequest;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.DisconnectReason;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.Operation;
+
+/**
+ * A work queue which processes each operation on a virtual thread instead of
+ * a fixed pool of worker threads.
+ * <p>
+ * Operations which block, for instance on backend I/O or on a remote server
+ * for pass-through authentication, then only hold a cheap virtual thread and
+ * their number is bounded by a configurable concurrency limit rather than by
+ * the number of platform threads. Operations submitted over the limit wait in
+ * a bounded queue, which is drained by the virtual threads as their operation
+ * completes.
+ * <p>
+ * Virtual threads are looked up by reflection, so that the server still runs
+ * on Java runtimes which do not provide them. In that case, each operation is
+ * processed by a new platform thread.
+ */
+public class VirtualThreadWorkQueue extends WorkQueue<VirtualThreadWorkQueueCfg>
+    implements ConfigurationChangeListener<VirtualThreadWorkQueueCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The name prefix of the threads processing the operations. */
+  private static final String THREAD_NAME_PREFIX = "Worker Thread";
+
+  /** Creates the threads processing the operations. */
+  private ThreadFactory threadFactory;
+
+  /** Indicates whether the threads processing the operations are virtual threads. */
+  private boolean virtualThreads;
+
+  /** The operations waiting for the number of running operations to drop below the concurrency limit. */
+  private final Queue<Operation> pendingOperations = new ConcurrentLinkedQueue<>();
+
+  /** The operations being processed, to cancel them on shutdown. */
+  private final Set<Operation> runningOperations = ConcurrentHashMap.newKeySet();
+
+  /** The number of pending operations, which is not a constant time operation on the queue. */
+  private final AtomicInteger nbPendingOperations = new AtomicInteger();
+
+  /** The number of threads processing operations, bounded by the concurrency limit. */
+  private final AtomicInteger nbRunningThreads = new AtomicInteger();
+
+  /** The maximum number of threads which have concurrently processed operations. */
+  private final AtomicInteger maxRunningThreads = new AtomicInteger();
+
+  /** The number of submitters waiting for the work queue to have available capacity. */
+  private final AtomicInteger nbBlockedSubmitters = new AtomicInteger();
+
+  /** Blocked submitters wait on this condition, signaled when a pending operation is picked up. */
+  private final ReentrantLock notFullLock = new ReentrantLock();
+  private final Condition notFull = notFullLock.newCondition();
+
+  /** The number of operations that have been submitted to the work queue for processing. */
+  private final LongAdder opsSubmitted = new LongAdder();
+
+  /**
+   * The number of times that an attempt to submit a new request has been
+   * rejected because the work queue is already at its maximum capacity.
+   */
+  private final LongAdder queueFullRejects = new LongAdder();
+
+  /** Indicates whether the Directory Server is shutting down. */
+  private volatile boolean shutdownRequested;
+
+  /** The maximum number of operations which can be processed concurrently. */
+  private volatile int maxConcurrentOperations;
+
+  /**
+   * The maximum number of pending requests that this work queue will allow
+   * before it will start rejecting them.
+   */
+  private volatile int maxCapacity;
+
+  /**
+   * Creates a new instance of this work queue. All initialization should be
+   * performed in the <CODE>initializeWorkQueue</CODE> method.
+   */
+  public VirtualThreadWorkQueue()
+  {
+    // No implementation should be performed here.
+  }
+
+  @Override
+  public void initializeWorkQueue(VirtualThreadWorkQueueCfg configuration)
+      throws ConfigException, InitializationException
+  {
+    shutdownRequested = false;
+
+    // Register to be notified of any configuration changes.
+    configuration.addVirtualThreadChangeListener(this);
+
+    // Get the necessary configuration from the provided entry.
+    maxConcurrentOperations = configuration.getMaxConcurrentOperations();
+    maxCapacity = configuration.getMaxWorkQueueCapacity();
+
+    try
+    {
+      threadFactory = newVirtualThreadFactory(THREAD_NAME_PREFIX + " ");
+      virtualThreads = true;
+    }
+    catch (ReflectiveOperationException | RuntimeException e)
+    {
+      logger.traceException(e);
+      logger.warn(WARN_CONFIG_WORK_QUEUE_VIRTUAL_THREADS_UNAVAILABLE, stackTraceToSingleLineString(e));
+      threadFactory = new DirectoryThread.Factory(THREAD_NAME_PREFIX);
+      virtualThreads = false;
+    }
+
+    // Create and register a monitor provider for the work queue.
+    try
+    {
+      VirtualThreadWorkQueueMonitor monitor = new VirtualThreadWorkQueueMonitor(this);
+      monitor.initializeMonitorProvider(null);
+      DirectoryServer.registerMonitorProvider(monitor);
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      logger.error(ERR_CONFIG_WORK_QUEUE_CANNOT_CREATE_MONITOR, VirtualThreadWorkQueueMonitor.class, e);
+    }
+  }
+
+  /**
+   * Returns a factory of virtual threads, as provided by
+   * {@code Thread.ofVirtual().name(namePrefix, 0).factory()}.
+   *
+   * @param namePrefix
+   *          The prefix of the names of the virtual threads, followed by a
+   *          counter.
+   * @return A factory of virtual threads
+   * @throws ReflectiveOperationException
+   *           If this Java runtime does not provide virtual threads
+   */
+  static ThreadFactory newVirtualThreadFactory(String namePrefix) throws ReflectiveOperationException
+  {
+    final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+    Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+    builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+    return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+  }
+
+  @Override
+  public void finalizeWorkQueue(LocalizableMessage reason)
+  {
+    shutdownRequested = true;
+    signalBlockedSubmitters(true);
+
+    // From now on no more operations can be enqueued or dequeued.
+
+    // Send responses to any operations in the pending queue to indicate that
+    // they won't be processed because the server is shutting down.
+    CancelRequest cancelRequest = new CancelRequest(true, reason);
+    Operation o;
+    while ((o = pendingOperations.poll()) != null)
+    {
+      nbPendingOperations.decrementAndGet();
+      try
+      {
+        // The operation has no chance of responding to the cancel
+        // request so avoid waiting for a cancel response.
+        if (o.getCancelResult() == null)
+        {
+          o.abort(cancelRequest);
+        }
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+        logger.warn(WARN_QUEUE_UNABLE_TO_CANCEL, o, e);
+      }
+    }
+
+    // Cancel the operations in progress, their threads exit on completion.
+    cancelRequest = new CancelRequest(true, INFO_CANCELED_BY_SHUTDOWN.get());
+    for (Operation runningOperation : runningOperations)
+    {
+      try
+      {
+        runningOperation.cancel(cancelRequest);
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+      }
+    }
+  }
+
+  /**
+   * Indicates whether this work queue has received a request to shut down.
+   *
+   * @return <CODE>true</CODE> if the work queue has recieved a request to shut
+   *         down, or <CODE>false</CODE> if not.
+   */
+  public boolean shutdownRequested()
+  {
+    return shutdownRequested;
+  }
+
+  /**
+   * Submits an operation to be processed on its own thread, or queues it if
+   * the concurrency limit is reached, blocking while the queue is at its
+   * maximum capacity.
+   *
+   * @param operation
+   *          The operation to be processed.
+   * @throws DirectoryException
+   *           If the provided operation is not accepted for some reason (e.g.,
+   *           if the server is shutting down or the submitting thread was
+   *           interrupted while waiting for available capacity).
+   */
+  @Override
+  public void submitOperation(Operation operation) throws DirectoryException
+  {
+    submitOperation(operation, true);
+  }
+
+  @Override
+  public boolean trySubmitOperation(Operation operation)
+      throws DirectoryException
+  {
+    try
+    {
+      submitOperation(operation, false);
+      return true;
+    }
+    catch (DirectoryException e)
+    {
+      if (ResultCode.BUSY == e.getResultCode())
+      {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  private void submitOperation(Operation operation,
+      boolean blockEnqueuingWhenFull) throws DirectoryException
+  {
+    if (shutdownRequested)
+    {
+      throw new DirectoryException(ResultCode.UNAVAILABLE, WARN_OP_REJECTED_BY_SHUTDOWN.get());
+    }
+
+    if (pendingOperations.isEmpty() && tryAcquireThread())
+    {
+      startThread(operation);
+      opsSubmitted.increment();
+      return;
+    }
+
+    if (!reserveCapacity())
+    {
+      if (!blockEnqueuingWhenFull)
+      {
+        queueFullRejects.increment();
+        throw new DirectoryException(ResultCode.BUSY, WARN_OP_REJECTED_BY_QUEUE_FULL.get(maxCapacity));
+      }
+      awaitCapacity();
+    }
+    pendingOperations.offer(operation);
+    opsSubmitted.increment();
+
+    // All the running operations may have completed in the meantime, without
+    // seeing this one
+    startThreadsForPendingOperations();
+  }
+
+  private boolean tryAcquireThread()
+  {
+    while (true)
+    {
+      final int nbRunning = nbRunningThreads.get();
+      if (nbRunning >= maxConcurrentOperations)
+      {
+        return false;
+      }
+      if (nbRunningThreads.compareAndSet(nbRunning, nbRunning + 1))
+      {
+        if (nbRunning + 1 > maxRunningThreads.get())
+        {
+          maxRunningThreads.accumulateAndGet(nbRunning + 1, Math::max);
+        }
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Releases the thread slot of the current thread if the concurrency limit
+   * has been lowered below the number of running threads.
+   *
+   * @return {@code true} if the slot was released and the current thread must
+   *         exit
+   */
+  private boolean tryReleaseExtraThread()
+  {
+    while (true)
+    {
+      final int nbRunning = nbRunningThreads.get();
+      if (nbRunning <= maxConcurrentOperations)
+      {
+        return false;
+      }
+      if (nbRunningThreads.compareAndSet(nbRunning, nbRunning - 1))
+      {
+        return true;
+      }
+    }
+  }
+
+  private void startThread(Operation operation)
+  {
+    try
+    {
+      threadFactory.newThread(new OperationProcessor(operation)).start();
+    }
+    catch (RuntimeException | Error e)
+    {
+      nbRunningThreads.decrementAndGet();
+      throw e;
+    }
+  }
+
+  private void startThreadsForPendingOperations()
+  {
+    while (!pendingOperations.isEmpty() && tryAcquireThread())
+    {
+      final Operation operation = pollPendingOperation();
+      if (operation == null)
+      {
+        nbRunningThreads.decrementAndGet();
+        return;
+      }
+      startThread(operation);
+    }
+  }
+
+  /**
+   * Reserves a slot for a new pending operation.
+   *
+   * @return {@code true} if the slot was reserved, or {@code false} if the
+   *         work queue is at its maximum capacity
+   */
+  private boolean reserveCapacity()
+  {
+    while (true)
+    {
+      final int nbPending = nbPendingOperations.get();
+      if (nbPending >= maxCapacity)
+      {
+        return false;
+      }
+      if (nbPendingOperations.compareAndSet(nbPending, nbPending + 1))
+      {
+        return true;
+      }
+    }
+  }
+
+  private void awaitCapacity() throws DirectoryException
+  {
+    notFullLock.lock();
+    // Pending operations are only signaled when there are blocked submitters,
+    // so this must be counted before checking the capacity again
+    nbBlockedSubmitters.incrementAndGet();
+    try
+    {
+      while (!reserveCapacity())
+      {
+        if (shutdownRequested)
+        {
+          throw new DirectoryException(ResultCode.UNAVAILABLE, WARN_OP_REJECTED_BY_SHUTDOWN.get());
+        }
+        // The timeout is a safety net, a signal should be received first
+        notFull.await(1, TimeUnit.SECONDS);
+      }
+    }
+    catch (InterruptedException e)
+    {
+      // We cannot handle the interruption here. Reject the request and
+      // re-interrupt this thread.
+      Thread.currentThread().interrupt();
+
+      queueFullRejects.increment();
+      throw new DirectoryException(ResultCode.BUSY, WARN_OP_REJECTED_BY_QUEUE_INTERRUPT.get());
+    }
+    finally
+    {
+      nbBlockedSubmitters.decrementAndGet();
+      notFullLock.unlock();
+    }
+  }
+
+  private void signalBlockedSubmitters(boolean all)
+  {
+    notFullLock.lock();
+    try
+    {
+      if (all)
+      {
+        notFull.signalAll();
+      }
+      else
+      {
+        notFull.signal();
+      }
+    }
+    finally
+    {
+      notFullLock.unlock();
+    }
+  }
+
+  private Operation pollPendingOperation()
+  {
+    final Operation operation = pendingOperations.poll();
+    if (operation != null)
+    {
+      nbPendingOperations.decrementAndGet();
+      if (nbBlockedSubmitters.get() > 0)
+      {
+        signalBlockedSubmitters(false);
+      }
+    }
+    return operation;
+  }
+
+  /**
+   * Processes an operation, then the pending operations until there are none
+   * left.
+   */
+  private final class OperationProcessor implements Runnable
+  {
+    private Operation operation;
+
+    private OperationProcessor(Operation operation)
+    {
+      this.operation = operation;
+    }
+
+    @Override
+    public void run()
+    {
+      while (operation != null)
+      {
+        process(operation);
+        operation = nextOperation();
+      }
+    }
+
+    private Operation nextOperation()
+    {
+      if (shutdownRequested)
+      {
+        nbRunningThreads.decrementAndGet();
+        return null;
+      }
+      if (tryReleaseExtraThread())
+      {
+        return null;
+      }
+      Operation next = pollPendingOperation();
+      if (next != null)
+      {
+        return next;
+      }
+
+      nbRunningThreads.decrementAndGet();
+      // An operation may have been queued by a submitter which still counted
+      // this thread as running
+      if (pendingOperations.isEmpty() || !tryAcquireThread())
+      {
+        return null;
+      }
+      next = pollPendingOperation();
+      if (next == null)
+      {
+        nbRunningThreads.decrementAndGet();
+      }
+      return next;
+    }
+  }
+
+  /**
+   * Processes an operation, making sure that the client receives a response
+   * if it fails unexpectedly.
+   *
+   * @param operation
+   *          The operation to process
+   */
+  private void process(Operation operation)
+  {
+    runningOperations.add(operation);
+    try
+    {
+      operation.run();
+      operation.operationCompleted();
+    }
+    catch (Throwable t)
+    {
+      logger.traceException(t);
+
+      final LocalizableMessage message = ERR_UNCAUGHT_WORKER_THREAD_EXCEPTION.get(
+          Thread.currentThread().getName(), operation, stackTraceToSingleLineString(t));
+      try
+      {
+        logger.error(message);
+
+        // Ensure that the client receives some kind of result so that it does
+        // not hang.
+        operation.setResultCode(DirectoryServer.getCoreConfigManager().getServerErrorResultCode());
+        operation.appendErrorMessage(message);
+        operation.getClientConnection().sendResponse(operation);
+      }
+      catch (Throwable t2)
+      {
+        logger.traceException(t2);
+      }
+
+      try
+      {
+        operation.disconnectClient(DisconnectReason.SERVER_ERROR, true, message);
+      }
+      catch (Throwable t2)
+      {
+        logger.traceException(t2);
+      }
+    }
+    finally
+    {
+      runningOperations.remove(operation);
+    }
+  }
+
+  /**
+   * Retrieves the total number of operations that have been successfully
+   * submitted to this work queue for processing since server startup. This does
+   * not include operations that have been rejected for some reason like the
+   * queue already at its maximum capacity.
+   *
+   * @return The total number of operations that have been successfully
+   *         submitted to this work queue since startup.
+   */
+  public long getOpsSubmitted()
+  {
+    return opsSubmitted.sum();
+  }
+
+  /**
+   * Retrieves the total number of operations that have been rejected because
+   * the work queue was already at its maximum capacity.
+   *
+   * @return The total number of operations that have been rejected because the
+   *         work queue was already at its maximum capacity.
+   */
+  public long getOpsRejectedDueToQueueFull()
+  {
+    return queueFullRejects.sum();
+  }
+
+  /**
+   * Retrieves the number of pending operations in the queue that have not yet
+   * been picked up for processing.
+   *
+   * @return The number of pending operations in the queue that have not yet
+   *         been picked up for processing.
+   */
+  public int size()
+  {
+    return nbPendingOperations.get();
+  }
+
+  /**
+   * Retrieves the number of threads currently processing operations.
+   *
+   * @return The number of threads currently processing operations.
+   */
+  public int getNumRunningThreads()
+  {
+    return nbRunningThreads.get();
+  }
+
+  /**
+   * Retrieves the maximum number of threads which have concurrently processed
+   * operations since server startup.
+   *
+   * @return The maximum number of threads which have concurrently processed
+   *         operations.
+   */
+  public int getMaxRunningThreads()
+  {
+    return maxRunningThreads.get();
+  }
+
+  /**
+   * Indicates whether the operations are processed by virtual threads, or by
+   * platform threads because this Java runtime does not provide them.
+   *
+   * @return {@code true} if the operations are processed by virtual threads
+   */
+  public boolean usesVirtualThreads()
+  {
+    return virtualThreads;
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(
+      VirtualThreadWorkQueueCfg configuration, List<LocalizableMessage> unacceptableReasons)
+  {
+    return true;
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(
+      VirtualThreadWorkQueueCfg configuration)
+  {
+    // Both limits are only checked when an operation is submitted or
+    // completes, so a change applies at once. Threads over a lowered
+    // concurrency limit exit when their operation completes.
+    maxConcurrentOperations = configuration.getMaxConcurrentOperations();
+    maxCapacity = configuration.getMaxWorkQueueCapacity();
+    signalBlockedSubmitters(true);
+    startThreadsForPendingOperations();
+    return new ConfigChangeResult();
+  }
+
+  @Override
+  public boolean isIdle()
+  {
+    return nbPendingOperations.get() == 0 && nbRunningThreads.get() == 0;
+  }
+
+  /**
+   * Return the maximum number of operations processed concurrently by this
+   * WorkQueue.
+   *
+   * @return the maximum number of operations processed concurrently by this
+   *         WorkQueue
+   */
+  @Override
+  public int getNumWorkerThreads()
+  {
+    return maxConcurrentOperations;
+  }
+}
@@ -0,0 +1,746 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.ConfigMessages.*;
+import static org.opends.messages.CoreMessages.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.server.config.server.WorkStealingWorkQueueCfg;
+import org.opends.server.api.WorkQueue;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.monitors.WorkStealingWorkQueueMonitor;
+import org.opends.server.types.CancelRequest;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.Operation;
+
+/**
+ * A work queue which dispatches the operations to per worker thread queues
+ * instead of a single shared queue.
+ * <p>
+ * Submitters hand each operation to an idle worker thread when there is one,
+ * or else to a randomly chosen worker thread. Worker threads which run out of
+ * work steal pending operations from the others before parking. Since the
+ * queues are non-blocking and each one is mostly accessed by its owner, the
+ * submitters and worker threads do not all contend on the same lock as they do
+ * with the {@link TraditionalWorkQueue}.
+ * <p>
+ * The maximum capacity applies to the operations pending in all the queues.
+ * Submitters block until some capacity is available, unless they use
+ * {@link #trySubmitOperation(Operation)}.
+ */
+public class WorkStealingWorkQueue extends WorkQueue<WorkStealingWorkQueueCfg>
+    implements ConfigurationChangeListener<WorkStealingWorkQueueCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The maximum time a worker thread parks before checking whether it should exit. */
+  private static final long MAX_PARK_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  /**
+   * The worker threads servicing this work queue. The array is replaced under
+   * the write lock of {@link #workerThreadsLock} whenever a thread is added or
+   * removed.
+   */
+  private volatile WorkStealingWorkerThread[] workerThreads = new WorkStealingWorkerThread[0];
+
+  /**
+   * Guards the changes of the worker threads. Submitters only validate an
+   * optimistic read, to detect that the thread they dispatched an operation to
+   * may have exited in the meantime.
+   */
+  private final StampedLock workerThreadsLock = new StampedLock();
+
+  /** The number of operations that have been submitted to the work queue for processing. */
+  private final LongAdder opsSubmitted = new LongAdder();
+
+  /**
+   * The number of times that an attempt to submit a new request has been
+   * rejected because the work queue is already at its maximum capacity.
+   */
+  private final LongAdder queueFullRejects = new LongAdder();
+
+  /** The number of operations picked up from the queue of another worker thread. */
+  private final LongAdder opsStolen = new LongAdder();
+
+  /** The number of operations pending in all the queues. */
+  private final AtomicInteger nbPendingOperations = new AtomicInteger();
+
+  /** The number of worker threads parked while waiting for work. */
+  private final AtomicInteger nbIdleWorkerThreads = new AtomicInteger();
+
+  /** The number of submitters waiting for the work queue to have available capacity. */
+  private final AtomicInteger nbBlockedSubmitters = new AtomicInteger();
+
+  /** Blocked submitters wait on this condition, signaled when an operation is dequeued. */
+  private final ReentrantLock notFullLock = new ReentrantLock();
+  private final Condition notFull = notFullLock.newCondition();
+
+  /**
+   * Indicates whether one or more of the worker threads needs to be killed at
+   * the next convenient opportunity.
+   */
+  private volatile boolean killThreads;
+
+  /** Indicates whether the Directory Server is shutting down. */
+  private volatile boolean shutdownRequested;
+
+  /** The thread number used for the last worker thread that was created. */
+  private int lastThreadNumber;
+
+  /**
+   * The maximum number of pending requests that this work queue will allow
+   * before it will start rejecting them.
+   */
+  private volatile int maxCapacity;
+
+  /**
+   * The number of worker threads that should be active (or will be shortly if a
+   * configuration change has not been completely applied).
+   */
+  private volatile int numWorkerThreads;
+
+  /**
+   * Creates a new instance of this work queue. All initialization should be
+   * performed in the <CODE>initializeWorkQueue</CODE> method.
+   */
+  public WorkStealingWorkQueue()
+  {
+    // No implementation should be performed here.
+  }
+
+  @Override
+  public void initializeWorkQueue(WorkStealingWorkQueueCfg configuration)
+      throws ConfigException, InitializationException
+  {
+    shutdownRequested = false;
+    killThreads = false;
+
+    // Register to be notified of any configuration changes.
+    configuration.addWorkStealingChangeListener(this);
+
+    // Get the necessary configuration from the provided entry.
+    numWorkerThreads = computeNumWorkerThreads(configuration.getNumWorkerThreads());
+    maxCapacity = configuration.getMaxWorkQueueCapacity();
+
+    // Create the set of worker threads that should be used to service the
+    // work queue.
+    final WorkStealingWorkerThread[] threads = new WorkStealingWorkerThread[numWorkerThreads];
+    final long stamp = workerThreadsLock.writeLock();
+    try
+    {
+      for (int i = 0; i < threads.length; i++)
+      {
+        threads[i] = new WorkStealingWorkerThread(this, lastThreadNumber++);
+      }
+      workerThreads = threads;
+    }
+    finally
+    {
+      workerThreadsLock.unlockWrite(stamp);
+    }
+    for (WorkStealingWorkerThread t : threads)
+    {
+      t.start();
+    }
+
+    // Create and register a monitor provider for the work queue.
+    try
+    {
+      WorkStealingWorkQueueMonitor monitor = new WorkStealingWorkQueueMonitor(this);
+      monitor.initializeMonitorProvider(null);
+      DirectoryServer.registerMonitorProvider(monitor);
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      logger.error(ERR_CONFIG_WORK_QUEUE_CANNOT_CREATE_MONITOR, WorkStealingWorkQueueMonitor.class, e);
+    }
+  }
+
+  @Override
+  public void finalizeWorkQueue(LocalizableMessage reason)
+  {
+    shutdownRequested = true;
+    signalBlockedSubmitters(true);
+
+    // From now on no more operations can be enqueued or dequeued.
+
+    // Send responses to any operations in the pending queues to indicate that
+    // they won't be processed because the server is shutting down.
+    CancelRequest cancelRequest = new CancelRequest(true, reason);
+    final WorkStealingWorkerThread[] threads = workerThreads;
+    for (WorkStealingWorkerThread t : threads)
+    {
+      Operation o;
+      while ((o = t.getPendingOperations().poll()) != null)
+      {
+        nbPendingOperations.decrementAndGet();
+        try
+        {
+          // The operation has no chance of responding to the cancel
+          // request so avoid waiting for a cancel response.
+          if (o.getCancelResult() == null)
+          {
+            o.abort(cancelRequest);
+          }
+        }
+        catch (Exception e)
+        {
+          logger.traceException(e);
+          logger.warn(WARN_QUEUE_UNABLE_TO_CANCEL, o, e);
+        }
+      }
+    }
+
+    // Notify all the worker threads of the shutdown.
+    for (WorkStealingWorkerThread t : threads)
+    {
+      try
+      {
+        t.shutDown();
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+        logger.warn(WARN_QUEUE_UNABLE_TO_NOTIFY_THREAD, t.getName(), e);
+      }
+    }
+  }
+
+  /**
+   * Indicates whether this work queue has received a request to shut down.
+   *
+   * @return <CODE>true</CODE> if the work queue has recieved a request to shut
+   *         down, or <CODE>false</CODE> if not.
+   */
+  public boolean shutdownRequested()
+  {
+    return shutdownRequested;
+  }
+
+  /**
+   * Submits an operation to be processed by one of the worker threads
+   * associated with this work queue, blocking while the work queue is at its
+   * maximum capacity.
+   *
+   * @param operation
+   *          The operation to be processed.
+   * @throws DirectoryException
+   *           If the provided operation is not accepted for some reason (e.g.,
+   *           if the server is shutting down or the submitting thread was
+   *           interrupted while waiting for available capacity).
+   */
+  @Override
+  public void submitOperation(Operation operation) throws DirectoryException
+  {
+    submitOperation(operation, true);
+  }
+
+  @Override
+  public boolean trySubmitOperation(Operation operation)
+      throws DirectoryException
+  {
+    try
+    {
+      submitOperation(operation, false);
+      return true;
+    }
+    catch (DirectoryException e)
+    {
+      if (ResultCode.BUSY == e.getResultCode())
+      {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  private void submitOperation(Operation operation,
+      boolean blockEnqueuingWhenFull) throws DirectoryException
+  {
+    if (shutdownRequested)
+    {
+      throw new DirectoryException(ResultCode.UNAVAILABLE, WARN_OP_REJECTED_BY_SHUTDOWN.get());
+    }
+
+    if (!reserveCapacity())
+    {
+      if (!blockEnqueuingWhenFull)
+      {
+        queueFullRejects.increment();
+        throw new DirectoryException(ResultCode.BUSY, WARN_OP_REJECTED_BY_QUEUE_FULL.get(maxCapacity));
+      }
+      awaitCapacity();
+    }
+
+    dispatch(operation);
+    opsSubmitted.increment();
+  }
+
+  /**
+   * Reserves a slot for a new pending operation.
+   *
+   * @return {@code true} if the slot was reserved, or {@code false} if the
+   *         work queue is at its maximum capacity
+   */
+  private boolean reserveCapacity()
+  {
+    while (true)
+    {
+      final int nbPending = nbPendingOperations.get();
+      if (nbPending >= maxCapacity)
+      {
+        return false;
+      }
+      if (nbPendingOperations.compareAndSet(nbPending, nbPending + 1))
+      {
+        return true;
+      }
+    }
+  }
+
+  private void awaitCapacity() throws DirectoryException
+  {
+    notFullLock.lock();
+    // Worker threads only signal when they see blocked submitters, so this must
+    // be counted before checking the capacity again
+    nbBlockedSubmitters.incrementAndGet();
+    try
+    {
+      while (!reserveCapacity())
+      {
+        if (shutdownRequested)
+        {
+          throw new DirectoryException(ResultCode.UNAVAILABLE, WARN_OP_REJECTED_BY_SHUTDOWN.get());
+        }
+        // The timeout is a safety net, a signal should be received first
+        notFull.await(1, TimeUnit.SECONDS);
+      }
+    }
+    catch (InterruptedException e)
+    {
+      // We cannot handle the interruption here. Reject the request and
+      // re-interrupt this thread.
+      Thread.currentThread().interrupt();
+
+      queueFullRejects.increment();
+      throw new DirectoryException(ResultCode.BUSY, WARN_OP_REJECTED_BY_QUEUE_INTERRUPT.get());
+    }
+    finally
+    {
+      nbBlockedSubmitters.decrementAndGet();
+      notFullLock.unlock();
+    }
+  }
+
+  private void signalBlockedSubmitters(boolean all)
+  {
+    notFullLock.lock();
+    try
+    {
+      if (all)
+      {
+        notFull.signalAll();
+      }
+      else
+      {
+        notFull.signal();
+      }
+    }
+    finally
+    {
+      notFullLock.unlock();
+    }
+  }
+
+  /**
+   * Hands an operation, for which capacity has already been reserved, to one
+   * of the worker threads.
+   *
+   * @param operation
+   *          The operation to be processed.
+   */
+  private void dispatch(Operation operation)
+  {
+    while (true)
+    {
+      final long stamp = workerThreadsLock.tryOptimisticRead();
+      final WorkStealingWorkerThread[] threads = workerThreads;
+      WorkStealingWorkerThread target = claimIdleWorkerThread(threads);
+      final boolean claimed = target != null;
+      if (!claimed)
+      {
+        target = threads[ThreadLocalRandom.current().nextInt(threads.length)];
+      }
+      final Queue<Operation> targetOperations = target.getPendingOperations();
+      targetOperations.offer(operation);
+
+      if (claimed)
+      {
+        LockSupport.unpark(target);
+      }
+      else
+      {
+        // A worker thread may have parked after the claim attempt, without
+        // seeing this operation: wake one up
+        final WorkStealingWorkerThread idleThread = claimIdleWorkerThread(threads);
+        if (idleThread != null)
+        {
+          LockSupport.unpark(idleThread);
+        }
+      }
+
+      if (workerThreadsLock.validate(stamp) || !targetOperations.remove(operation))
+      {
+        // Either the target thread was still servicing this work queue,
+        // or some thread already picked up the operation
+        return;
+      }
+      // The target thread may be exiting after handing over its pending
+      // operations to the other ones, try again
+    }
+  }
+
+  private WorkStealingWorkerThread claimIdleWorkerThread(WorkStealingWorkerThread[] threads)
+  {
+    if (nbIdleWorkerThreads.get() == 0)
+    {
+      return null;
+    }
+    final int start = ThreadLocalRandom.current().nextInt(threads.length);
+    for (int i = 0; i < threads.length; i++)
+    {
+      final WorkStealingWorkerThread t = threads[(start + i) % threads.length];
+      if (t.clearIdle())
+      {
+        nbIdleWorkerThreads.decrementAndGet();
+        return t;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Retrieves the next operation that should be processed by one of the worker
+   * threads, blocking if necessary until a new request arrives. This method
+   * should only be called by a worker thread associated with this work queue.
+   *
+   * @param workerThread
+   *          The worker thread that is requesting the operation.
+   * @return The next operation that should be processed, or <CODE>null</CODE>
+   *         if the server is shutting down and no more operations will be
+   *         processed.
+   */
+  public Operation nextOperation(WorkStealingWorkerThread workerThread)
+  {
+    while (true)
+    {
+      if (shutdownRequested)
+      {
+        return null;
+      }
+
+      // See if we should kill off this thread. This could be necessary if the
+      // number of worker threads has been decreased with the server online. If
+      // so, then return null and the thread will exit.
+      if (killThreads && tryKillThisWorkerThread(workerThread))
+      {
+        return null;
+      }
+
+      Operation nextOperation = pollOperation(workerThread);
+      if (nextOperation == null)
+      {
+        nextOperation = awaitOperation(workerThread);
+      }
+      if (nextOperation != null)
+      {
+        return nextOperation;
+      }
+    }
+  }
+
+  private Operation awaitOperation(WorkStealingWorkerThread workerThread)
+  {
+    workerThread.setIdle();
+    nbIdleWorkerThreads.incrementAndGet();
+
+    // Submitters which did not see this thread as idle have not woken it up:
+    // check again before parking
+    final Operation nextOperation = pollOperation(workerThread);
+    if (nextOperation == null && !shutdownRequested)
+    {
+      LockSupport.parkNanos(this, MAX_PARK_NANOS);
+      // Interrupts only come from the shutdown, which is checked by the caller
+      Thread.interrupted();
+    }
+
+    if (workerThread.clearIdle())
+    {
+      nbIdleWorkerThreads.decrementAndGet();
+    }
+    // Otherwise a submitter claimed this thread and has dispatched an operation to it
+    return nextOperation;
+  }
+
+  private Operation pollOperation(WorkStealingWorkerThread workerThread)
+  {
+    Operation nextOperation = workerThread.getPendingOperations().poll();
+    if (nextOperation == null)
+    {
+      nextOperation = stealOperation(workerThread);
+    }
+    if (nextOperation != null)
+    {
+      nbPendingOperations.decrementAndGet();
+      if (nbBlockedSubmitters.get() > 0)
+      {
+        signalBlockedSubmitters(false);
+      }
+    }
+    return nextOperation;
+  }
+
+  private Operation stealOperation(WorkStealingWorkerThread workerThread)
+  {
+    final WorkStealingWorkerThread[] threads = workerThreads;
+    final int start = ThreadLocalRandom.current().nextInt(threads.length);
+    for (int i = 0; i < threads.length; i++)
+    {
+      final WorkStealingWorkerThread victim = threads[(start + i) % threads.length];
+      if (victim != workerThread)
+      {
+        final Operation operation = victim.getPendingOperations().poll();
+        if (operation != null)
+        {
+          opsStolen.increment();
+          return operation;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Kills this worker thread if needed, after handing over its pending
+   * operations to the remaining worker threads.
+   *
+   * @param workerThread
+   *          The worker thread associated with this thread.
+   * @return {@code true} if this thread was killed or is about to be killed as
+   *         a result of shutdown.
+   */
+  private boolean tryKillThisWorkerThread(WorkStealingWorkerThread workerThread)
+  {
+    final long stamp = workerThreadsLock.writeLock();
+    try
+    {
+      if (shutdownRequested)
+      {
+        return true;
+      }
+
+      final WorkStealingWorkerThread[] threads = workerThreads;
+      if (threads.length <= numWorkerThreads)
+      {
+        killThreads = false;
+        return false;
+      }
+      final WorkStealingWorkerThread[] remainingThreads = new WorkStealingWorkerThread[threads.length - 1];
+      int nbRemaining = 0;
+      for (WorkStealingWorkerThread t : threads)
+      {
+        if (t != workerThread)
+        {
+          if (nbRemaining == remainingThreads.length)
+          {
+            // This thread has already been removed
+            return true;
+          }
+          remainingThreads[nbRemaining++] = t;
+        }
+      }
+      workerThreads = remainingThreads;
+      if (remainingThreads.length <= numWorkerThreads)
+      {
+        killThreads = false;
+      }
+    }
+    finally
+    {
+      workerThreadsLock.unlockWrite(stamp);
+    }
+
+    workerThread.setStoppedByReducedThreadNumber();
+    // Submitters which dispatched to this thread before its removal will take
+    // their operation back, the others are handed over here
+    Operation operation;
+    while ((operation = workerThread.getPendingOperations().poll()) != null)
+    {
+      dispatch(operation);
+    }
+    return true;
+  }
+
+  /**
+   * Retrieves the total number of operations that have been successfully
+   * submitted to this work queue for processing since server startup. This does
+   * not include operations that have been rejected for some reason like the
+   * queue already at its maximum capacity.
+   *
+   * @return The total number of operations that have been successfully
+   *         submitted to this work queue since startup.
+   */
+  public long getOpsSubmitted()
+  {
+    return opsSubmitted.sum();
+  }
+
+  /**
+   * Retrieves the total number of operations that have been rejected because
+   * the work queue was already at its maximum capacity.
+   *
+   * @return The total number of operations that have been rejected because the
+   *         work queue was already at its maximum capacity.
+   */
+  public long getOpsRejectedDueToQueueFull()
+  {
+    return queueFullRejects.sum();
+  }
+
+  /**
+   * Retrieves the total number of operations that have been picked up by a
+   * worker thread from the queue of another worker thread.
+   *
+   * @return The total number of operations that have been stolen since
+   *         startup.
+   */
+  public long getOpsStolen()
+  {
+    return opsStolen.sum();
+  }
+
+  /**
+   * Retrieves the number of pending operations in the queues that have not yet
+   * been picked up for processing.
+   *
+   * @return The number of pending operations in the queues that have not yet
+   *         been picked up for processing.
+   */
+  public int size()
+  {
+    return nbPendingOperations.get();
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(
+      WorkStealingWorkQueueCfg configuration, List<LocalizableMessage> unacceptableReasons)
+  {
+    return true;
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(
+      WorkStealingWorkQueueCfg configuration)
+  {
+    int newNumThreads = computeNumWorkerThreads(configuration.getNumWorkerThreads());
+
+    // The capacity is only checked on submission, so a change applies at once.
+    // Submitters blocked by a lower capacity get a chance to proceed.
+    maxCapacity = configuration.getMaxWorkQueueCapacity();
+    signalBlockedSubmitters(true);
+
+    // Apply a change to the number of worker threads if appropriate.
+    final List<WorkStealingWorkerThread> newThreads = new ArrayList<>();
+    final long stamp = workerThreadsLock.writeLock();
+    try
+    {
+      final WorkStealingWorkerThread[] threads = workerThreads;
+      if (newNumThreads > threads.length)
+      {
+        final WorkStealingWorkerThread[] allThreads = Arrays.copyOf(threads, newNumThreads);
+        for (int i = threads.length; i < newNumThreads; i++)
+        {
+          allThreads[i] = new WorkStealingWorkerThread(this, lastThreadNumber++);
+          newThreads.add(allThreads[i]);
+        }
+        workerThreads = allThreads;
+      }
+      killThreads = newNumThreads < threads.length;
+      numWorkerThreads = newNumThreads;
+    }
+    finally
+    {
+      workerThreadsLock.unlockWrite(stamp);
+    }
+    for (WorkStealingWorkerThread t : newThreads)
+    {
+      t.start();
+    }
+
+    return new ConfigChangeResult();
+  }
+
+  @Override
+  public boolean isIdle()
+  {
+    if (nbPendingOperations.get() > 0)
+    {
+      return false;
+    }
+
+    for (WorkStealingWorkerThread t : workerThreads)
+    {
+      if (t.isActive())
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Return the number of worker threads used by this WorkQueue.
+   *
+   * @return the number of worker threads used by this WorkQueue
+   */
+  @Override
+  public int getNumWorkerThreads()
+  {
+    return this.numWorkerThreads;
+  }
+}
@@ -13,31 +13,69 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.loggers;
 
-import java.util.ArrayList;
-import java.util.concurrent.LinkedBlockingQueue;
+import static java.nio.charset.StandardCharsets.*;
+
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.opends.server.api.DirectoryThread;
 import org.opends.server.api.ServerShutdownListener;
 import org.opends.server.core.DirectoryServer;
 
-/** A Text Writer which writes log records asynchronously to character-based stream. */
+/**
+ * A Text Writer which writes log records asynchronously to character-based stream.
+ * <p>
+ * Log records are encoded in UTF-8 by the threads writing them, into the pre-allocated slots of a ring buffer. The
+ * writer thread then writes the records of consecutive slots in batches: a {@link MultifileTextWriter} receives each
+ * batch already encoded in a single call, other writers receive each record decoded. Threads writing records never
+ * lock: they claim a slot by incrementing a sequence, and only wait when the ring buffer is full.
+ */
 class AsynchronousTextWriter
     implements ServerShutdownListener, TextWriter
 {
+  /** Maximum number of bytes written to the wrapped writer in a single batch. */
+  private static final int MAX_BATCH_SIZE = 64 * 1024;
+  /** Initial size of the slots, which grow with the records encoded in them. */
+  private static final int INITIAL_SLOT_SIZE = 256;
+  /** Slots larger than this size are reallocated for the next record, so that large records are not retained. */
+  private static final int MAX_RETAINED_SLOT_SIZE = 16 * 1024;
+  /** Time waited by the writer thread for new records, before checking whether it must stop. */
+  private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(UTF_8);
+
   /** The wrapped Text Writer. */
   private final TextWriter writer;
+  /** The wrapped Text Writer when it accepts encoded records, {@code null} otherwise. */
+  private final MultifileTextWriter encodedRecordsWriter;
 
-  /** Queue to store unpublished records. */
-  private final LinkedBlockingQueue<String> queue;
+  /** A slot of the ring buffer, holding an encoded log record. */
+  private static final class Slot
+  {
+    /** The sequence of the record held by this slot, set once the record is encoded. */
+    private volatile long sequence = -1;
+    private byte[] bytes = new byte[INITIAL_SLOT_SIZE];
+    private int length;
+  }
 
-  /** The capacity for the queue. */
-  private final int capacity;
+  /** The ring buffer of records, whose size is a power of two. */
+  private final Slot[] slots;
+  private final int mask;
+  /** The sequence of the next record to write in the ring buffer. */
+  private final AtomicLong nextSequence = new AtomicLong();
+  /** The sequence of the next record to be read by the writer thread: slots of lower sequences can be reused. */
+  private volatile long readSequence;
+  /** Whether the writer thread is waiting for new records, and must be woken up. */
+  private volatile boolean writerThreadWaiting;
+  private final byte[] batch = new byte[MAX_BATCH_SIZE];
+  private int batchLength;
 
   private String name;
   private AtomicBoolean stopRequested;
@@ -60,9 +98,17 @@ class AsynchronousTextWriter
     this.name = name;
     this.autoFlush = autoFlush;
     this.writer = writer;
+    this.encodedRecordsWriter = writer instanceof MultifileTextWriter && ((MultifileTextWriter) writer).isUTF8Encoded()
+        ? (MultifileTextWriter) writer
+        : null;
 
-    this.queue = new LinkedBlockingQueue<>(capacity);
-    this.capacity = capacity;
+    final int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+    this.slots = new Slot[size];
+    for (int i = 0; i < size; i++)
+    {
+      slots[i] = new Slot();
+    }
+    this.mask = size - 1;
     this.writerThread = null;
     this.stopRequested = new AtomicBoolean(false);
 
@@ -73,7 +119,7 @@ class AsynchronousTextWriter
   }
 
   /**
-   * The publisher thread is responsible for emptying the queue of log records
+   * The publisher thread is responsible for emptying the ring buffer of log records
    * waiting to published.
    */
   private class WriterThread extends DirectoryThread
@@ -84,57 +130,101 @@ class AsynchronousTextWriter
     }
 
     /**
-     * The run method of the writerThread. Run until queue is empty
+     * The run method of the writerThread. Run until the ring buffer is empty
      * AND we've been asked to terminate
      */
     @Override
     public void run()
     {
-      ArrayList<String> drainList = new ArrayList<>(capacity);
-
-      String message = null;
-      while (!stopRequested.get() || !queue.isEmpty()) {
-        try
+      while (!stopRequested.get() || readSequence < nextSequence.get())
+      {
+        if (!writeAvailableRecords())
         {
-          queue.drainTo(drainList, capacity);
-          if (drainList.isEmpty())
-          {
-            message = queue.poll(10, TimeUnit.SECONDS);
-            if(message != null)
-            {
-              do
-              {
-                writer.writeRecord(message);
-                message = queue.poll();
-              }
-              while(message != null);
-
-              if(autoFlush)
-              {
-                flush();
-              }
-            }
-          }
-          else
-          {
-            for (String record : drainList)
-            {
-              writer.writeRecord(record);
-            }
-            drainList.clear();
-
-            if (autoFlush)
-            {
-              flush();
-            }
-          }
-        }
-        catch (InterruptedException ex) {
-          // Ignore. We'll rerun the loop
-          // and presumably fall out.
+          waitForRecords();
         }
       }
     }
+
+    private void waitForRecords()
+    {
+      writerThreadWaiting = true;
+      // re-check, a record may have been published before the flag was set
+      if (!isRecordAvailable() && !stopRequested.get())
+      {
+        LockSupport.parkNanos(this, MAX_WAIT_NANOS);
+      }
+      writerThreadWaiting = false;
+    }
+  }
+
+  private boolean isRecordAvailable()
+  {
+    final long sequence = readSequence;
+    return slots[(int) sequence & mask].sequence == sequence;
+  }
+
+  /**
+   * Writes the records available in the ring buffer to the wrapped writer, in batches.
+   *
+   * @return {@code true} if at least one record was written
+   */
+  private boolean writeAvailableRecords()
+  {
+    long sequence = readSequence;
+    Slot slot = slots[(int) sequence & mask];
+    if (slot.sequence != sequence)
+    {
+      return false;
+    }
+    do
+    {
+      append(slot);
+      readSequence = ++sequence;
+      slot = slots[(int) sequence & mask];
+    }
+    while (slot.sequence == sequence);
+
+    writeBatch();
+    if (autoFlush)
+    {
+      flush();
+    }
+    return true;
+  }
+
+  /** Appends the record of the provided slot to the batch, which is written first if it is full. */
+  private void append(Slot slot)
+  {
+    if (encodedRecordsWriter == null)
+    {
+      writer.writeRecord(new String(slot.bytes, 0, slot.length, UTF_8));
+      return;
+    }
+    final int recordLength = slot.length + LINE_SEPARATOR.length;
+    if (batchLength + recordLength > batch.length)
+    {
+      writeBatch();
+    }
+    if (recordLength > batch.length)
+    {
+      final byte[] record = new byte[recordLength];
+      System.arraycopy(slot.bytes, 0, record, 0, slot.length);
+      System.arraycopy(LINE_SEPARATOR, 0, record, slot.length, LINE_SEPARATOR.length);
+      encodedRecordsWriter.writeEncodedRecords(record, 0, recordLength);
+      return;
+    }
+    System.arraycopy(slot.bytes, 0, batch, batchLength, slot.length);
+    System.arraycopy(LINE_SEPARATOR, 0, batch, batchLength + slot.length, LINE_SEPARATOR.length);
+    batchLength += recordLength;
+  }
+
+  private void writeBatch()
+  {
+    if (batchLength > 0)
+    {
+      encodedRecordsWriter.writeEncodedRecords(batch, 0, batchLength);
+      batchLength = 0;
+    }
   }
 
   /**
@@ -144,24 +234,92 @@ class AsynchronousTextWriter
    */
   @Override
   public void writeRecord(String record)
+  {
+    writeRecord((CharSequence) record);
+  }
+
+  /**
+   * Write the log record asynchronously. The characters of the record are
+   * encoded before this method returns, so the record may be reused.
+   *
+   * @param record the log record to write.
+   */
+  public void writeRecord(CharSequence record)
   {
     // No writer?  Off to the bit bucket.
-    if (writer != null) {
-      while (!stopRequested.get())
+    if (writer == null || stopRequested.get())
+    {
+      return;
+    }
+    final long sequence = nextSequence.getAndIncrement();
+    while (sequence - readSequence >= slots.length)
+    {
+      // The ring buffer is full, wait for the writer thread
+      if (stopRequested.get() && !writerThread.isAlive())
       {
-        // Put request on queue for writer
-        try
+        return;
+      }
+      LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+    }
+    final Slot slot = slots[(int) sequence & mask];
+    encode(record, slot);
+    slot.sequence = sequence;
+    if (writerThreadWaiting)
+    {
+      LockSupport.unpark(writerThread);
+    }
+  }
+
+  /** Encodes the provided record in UTF-8 into the provided slot. */
+  private static void encode(CharSequence record, Slot slot)
+  {
+    final int length = record.length();
+    // at most 3 bytes per char, as surrogate pairs take 4 bytes for 2 chars
+    final int maxLength = length * 3;
+    if (slot.bytes.length < maxLength || slot.bytes.length > MAX_RETAINED_SLOT_SIZE)
+    {
+      slot.bytes = new byte[Math.max(maxLength, INITIAL_SLOT_SIZE)];
+    }
+    final byte[] bytes = slot.bytes;
+    int pos = 0;
+    for (int i = 0; i < length; i++)
+    {
+      final char c = record.charAt(i);
+      if (c < 0x80)
+      {
+        bytes[pos++] = (byte) c;
+      }
+      else if (c < 0x800)
+      {
+        bytes[pos++] = (byte) (0xC0 | c >> 6);
+        bytes[pos++] = (byte) (0x80 | c & 0x3F);
+      }
+      else if (Character.isSurrogate(c))
+      {
+        final char low = i + 1 < length ? record.charAt(i + 1) : 0;
+        if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low))
         {
-          queue.put(record);
-          break;
+          final int codePoint = Character.toCodePoint(c, low);
+          bytes[pos++] = (byte) (0xF0 | codePoint >> 18);
+          bytes[pos++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+          bytes[pos++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+          bytes[pos++] = (byte) (0x80 | codePoint & 0x3F);
+          i++;
         }
-        catch(InterruptedException e)
+        else
         {
-          // We expect this to happen. Just ignore it and hopefully
-          // drop out in the next try.
+          // malformed, as with String.getBytes()
+          bytes[pos++] = '?';
         }
       }
+      else
+      {
+        bytes[pos++] = (byte) (0xE0 | c >> 12);
+        bytes[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+        bytes[pos++] = (byte) (0x80 | c & 0x3F);
+      }
     }
+    slot.length = pos;
   }
 
   @Override
@@ -219,8 +377,8 @@ class AsynchronousTextWriter
     // Wait for publisher thread to terminate
     while (writerThread != null && writerThread.isAlive()) {
       try {
-        // Interrupt the thread if its blocking
-        writerThread.interrupt();
+        // Wake up the thread if it is waiting
+        LockSupport.unpark(writerThread);
         writerThread.join();
       }
       catch (InterruptedException ex) {
@@ -228,13 +386,10 @@ class AsynchronousTextWriter
       }
     }
 
-    // The writer writerThread SHOULD have drained the queue.
-    // If not, handle outstanding requests ourselves,
+    // The writer writerThread SHOULD have drained the ring buffer.
+    // If not, handle records published since then ourselves,
     // and push them to the writer.
-    while (!queue.isEmpty()) {
-      String message = queue.poll();
-      writer.writeRecord(message);
-    }
+    writeAvailableRecords();
 
     // Shutdown the wrapped writer.
     if (shutdownWrapped && writer != null)
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.loggers;
 
@@ -25,6 +26,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Calendar;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -562,6 +564,53 @@ class MultifileTextWriter
     }
   }
 
+  /**
+   * Indicates whether log records are encoded in UTF-8, so that they can be
+   * written with {@link #writeEncodedRecords(byte[], int, int)}.
+   *
+   * @return {@code true} if log records are encoded in UTF-8.
+   */
+  boolean isUTF8Encoded()
+  {
+    return UTF8_ENCODING.equalsIgnoreCase(encoding);
+  }
+
+  /**
+   * Writes log records already encoded in UTF-8, each record being followed by
+   * the line separator. The file is rotated before the records if they would
+   * exceed the size limit.
+   *
+   * @param records the buffer containing the encoded records.
+   * @param offset the offset of the first record in the buffer.
+   * @param length the number of bytes to write.
+   */
+  void writeEncodedRecords(byte[] records, int offset, int length)
+  {
+    synchronized(this)
+    {
+      if(sizeLimit > 0 && outputStream.written + length >= sizeLimit)
+      {
+        rotate();
+      }
+
+      try
+      {
+        // Records written as strings must be written first
+        writer.flush();
+        outputStream.write(records, offset, length);
+      }
+      catch(Exception e)
+      {
+        errorHandler.handleWriteError(new String(records, offset, length, StandardCharsets.UTF_8), e);
+      }
+
+      if(autoFlush)
+      {
+        flush();
+      }
+    }
+  }
+
   @Override
   public void flush()
   {
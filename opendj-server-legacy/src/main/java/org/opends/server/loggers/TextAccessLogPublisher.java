@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.loggers;
 
@@ -73,6 +74,18 @@ public final class TextAccessLogPublisher extends
   /** The category to use when logging requests. */
   private static final String CATEGORY_REQUEST = "REQ";
 
+  private static final int INITIAL_BUFFER_SIZE = 256;
+  private static final int MAX_RETAINED_BUFFER_SIZE = 16 * 1024;
+  /** Buffers used to build log records, one per thread. */
+  private static final ThreadLocal<StringBuilder> BUFFERS = new ThreadLocal<StringBuilder>()
+  {
+    @Override
+    protected StringBuilder initialValue()
+    {
+      return new StringBuilder(INITIAL_BUFFER_SIZE);
+    }
+  };
+
   /**
    * Returns an instance of the text access log publisher that will print all
    * messages to the provided writer. This is used to print the messages to the
@@ -343,10 +356,10 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(abandonOperation, "ABANDON", CATEGORY_REQUEST, buffer);
     appendAbandonRequest(abandonOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -357,7 +370,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(abandonOperation, "ABANDON", CATEGORY_RESPONSE, buffer);
     if (isCombinedMode)
     {
@@ -366,7 +379,7 @@ public final class TextAccessLogPublisher extends
     appendResultCodeAndMessage(buffer, abandonOperation);
     logAdditionalLogItems(abandonOperation, buffer);
     appendEtime(buffer, abandonOperation);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -377,10 +390,10 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(addOperation, "ADD", CATEGORY_REQUEST, buffer);
     appendAddRequest(addOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -391,7 +404,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(addOperation, "ADD", CATEGORY_RESPONSE, buffer);
     if (isCombinedMode)
     {
@@ -401,7 +414,7 @@ public final class TextAccessLogPublisher extends
     logAdditionalLogItems(addOperation, buffer);
     appendLabelIfNotNull(buffer, "authzDN", addOperation.getProxiedAuthorizationDN());
     appendEtime(buffer, addOperation);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -412,10 +425,10 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(bindOperation, "BIND", CATEGORY_REQUEST, buffer);
     appendBindRequest(bindOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -426,7 +439,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(bindOperation, "BIND", CATEGORY_RESPONSE, buffer);
     if (isCombinedMode)
     {
@@ -478,7 +491,7 @@ public final class TextAccessLogPublisher extends
 
     appendEtime(buffer, bindOperation);
 
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -489,10 +502,10 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(compareOperation, "COMPARE", CATEGORY_REQUEST, buffer);
     appendCompareRequest(compareOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -503,7 +516,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(compareOperation, "COMPARE", CATEGORY_RESPONSE, buffer);
     if (isCombinedMode)
     {
@@ -513,7 +526,7 @@ public final class TextAccessLogPublisher extends
     logAdditionalLogItems(compareOperation, buffer);
     appendLabelIfNotNull(buffer, "authzDN", compareOperation.getProxiedAuthorizationDN());
     appendEtime(buffer, compareOperation);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -525,14 +538,14 @@ public final class TextAccessLogPublisher extends
     }
 
     final long connectionID = clientConnection.getConnectionID();
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     buffer.append('[').append(TimeThread.getUserDefinedTime(timeStampFormat)).append(']');
     buffer.append(" CONNECT conn=").append(connectionID);
     buffer.append(" from=").append(clientConnection.getClientHostPort());
     buffer.append(" to=").append(clientConnection.getServerHostPort());
     buffer.append(" protocol=").append(clientConnection.getProtocol());
 
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -543,10 +556,10 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(deleteOperation, "DELETE", CATEGORY_REQUEST, buffer);
     appendDeleteRequest(deleteOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -557,7 +570,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(deleteOperation, "DELETE", CATEGORY_RESPONSE, buffer);
     if (isCombinedMode)
     {
@@ -567,7 +580,7 @@ public final class TextAccessLogPublisher extends
     logAdditionalLogItems(deleteOperation, buffer);
     appendLabelIfNotNull(buffer, "authzDN", deleteOperation.getProxiedAuthorizationDN());
     appendEtime(buffer, deleteOperation);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -580,13 +593,13 @@ public final class TextAccessLogPublisher extends
     }
 
     final long connectionID = clientConnection.getConnectionID();
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     buffer.append('[').append(TimeThread.getUserDefinedTime(timeStampFormat)).append(']');
     buffer.append(" DISCONNECT conn=").append(connectionID);
     appendLabel(buffer, "reason", disconnectReason);
     appendLabelIfNotNull(buffer, "msg", message);
 
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -597,10 +610,10 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(extendedOperation, "EXTENDED", CATEGORY_REQUEST, buffer);
     appendExtendedRequest(extendedOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -611,7 +624,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(extendedOperation, "EXTENDED", CATEGORY_RESPONSE, buffer);
     if (isCombinedMode)
     {
@@ -634,7 +647,7 @@ public final class TextAccessLogPublisher extends
     logAdditionalLogItems(extendedOperation, buffer);
     appendEtime(buffer, extendedOperation);
 
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -645,10 +658,10 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(modifyDNOperation, "MODIFYDN", CATEGORY_REQUEST, buffer);
     appendModifyDNRequest(modifyDNOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -659,7 +672,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(modifyDNOperation, "MODIFYDN", CATEGORY_RESPONSE, buffer);
     if (isCombinedMode)
     {
@@ -669,7 +682,7 @@ public final class TextAccessLogPublisher extends
     logAdditionalLogItems(modifyDNOperation, buffer);
     appendLabelIfNotNull(buffer, "authzDN", modifyDNOperation.getProxiedAuthorizationDN());
     appendEtime(buffer, modifyDNOperation);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -680,10 +693,10 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(modifyOperation, "MODIFY", CATEGORY_REQUEST, buffer);
     appendModifyRequest(modifyOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -694,7 +707,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(modifyOperation, "MODIFY", CATEGORY_RESPONSE, buffer);
     if (isCombinedMode)
     {
@@ -704,7 +717,7 @@ public final class TextAccessLogPublisher extends
     logAdditionalLogItems(modifyOperation, buffer);
     appendLabelIfNotNull(buffer, "authzDN", modifyOperation.getProxiedAuthorizationDN());
     appendEtime(buffer, modifyOperation);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -715,10 +728,10 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(192);
+    final StringBuilder buffer = getBuffer();
     appendHeader(searchOperation, "SEARCH", CATEGORY_REQUEST, buffer);
     appendSearchRequest(searchOperation, buffer);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -729,7 +742,7 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(128);
+    final StringBuilder buffer = getBuffer();
     appendHeader(searchOperation, "SEARCH", CATEGORY_RESPONSE, buffer);
     if (isCombinedMode)
     {
@@ -740,7 +753,7 @@ public final class TextAccessLogPublisher extends
     logAdditionalLogItems(searchOperation, buffer);
     appendLabelIfNotNull(buffer, "authzDN", searchOperation.getProxiedAuthorizationDN());
     appendEtime(buffer, searchOperation);
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -751,14 +764,14 @@ public final class TextAccessLogPublisher extends
       return;
     }
 
-    final StringBuilder buffer = new StringBuilder(100);
+    final StringBuilder buffer = getBuffer();
     appendHeader(unbindOperation, "UNBIND", CATEGORY_REQUEST, buffer);
     if (unbindOperation.isSynchronizationOperation())
     {
       buffer.append(" type=synchronization");
     }
 
-    writer.writeRecord(buffer.toString());
+    writeRecord(buffer);
   }
 
   @Override
@@ -918,6 +931,33 @@ public final class TextAccessLogPublisher extends
   }
 
   /** Appends the common log header information to the provided buffer. */
+  /** Returns the buffer used by the current thread to build log records, which is reused for each record. */
+  private static StringBuilder getBuffer()
+  {
+    StringBuilder buffer = BUFFERS.get();
+    if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE)
+    {
+      // do not retain the buffer of an unusually large record
+      buffer = new StringBuilder(INITIAL_BUFFER_SIZE);
+      BUFFERS.set(buffer);
+    }
+    buffer.setLength(0);
+    return buffer;
+  }
+
+  private void writeRecord(final StringBuilder buffer)
+  {
+    if (writer instanceof AsynchronousTextWriter)
+    {
+      // The record is encoded before the call returns, no need for a copy
+      ((AsynchronousTextWriter) writer).writeRecord(buffer);
+    }
+    else
+    {
+      writer.writeRecord(buffer.toString());
+    }
+  }
+
   private void appendHeader(final Operation operation, final String opType,
       final String category, final StringBuilder buffer)
   {
@@ -0,0 +1,70 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.monitors;
+
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.core.BindCredentialCache;
+
+/**
+ * This class defines a Directory Server monitor that can be used to provide
+ * information about the cache of verified simple bind passwords.
+ */
+public class BindCredentialCacheMonitor extends MonitorProvider<MonitorProviderCfg>
+{
+  /** The name to use for the monitor attribute that provides the number of binds which reused a verification. */
+  public static final String ATTR_CACHE_HITS = "bindCredentialCacheHits";
+  /**
+   * The name to use for the monitor attribute that provides the number of binds
+   * for which no verification could be reused.
+   */
+  public static final String ATTR_CACHE_MISSES = "bindCredentialCacheMisses";
+  /** The name to use for the monitor attribute that provides the number of cached verifications. */
+  public static final String ATTR_CACHE_COUNT = "currentBindCredentialCacheCount";
+  /** The name to use for the monitor attribute that provides the maximum number of cached verifications. */
+  public static final String ATTR_CACHE_MAX_COUNT = "maxBindCredentialCacheCount";
+
+  /** The cache with which this monitor is associated. */
+  private final BindCredentialCache cache;
+
+  /**
+   * Creates a new monitor for the provided cache.
+   *
+   * @param  cache  The bind credential cache with which this monitor is associated.
+   */
+  public BindCredentialCacheMonitor(BindCredentialCache cache)
+  {
+    this.cache = cache;
+  }
+
+  @Override
+  public String getMonitorInstanceName()
+  {
+    return "Bind Credential Cache";
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    final MonitorData monitorAttrs = new MonitorData(4);
+    monitorAttrs.add(ATTR_CACHE_HITS, cache.getHits());
+    monitorAttrs.add(ATTR_CACHE_MISSES, cache.getMisses());
+    monitorAttrs.add(ATTR_CACHE_COUNT, cache.size());
+    monitorAttrs.add(ATTR_CACHE_MAX_COUNT, cache.getMaxSize());
+    return monitorAttrs;
+  }
+}
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.protocols.http;
 
@@ -325,7 +326,7 @@ final class HTTPClientConnection extends ClientConnection
     if (keepStats)
     {
       this.statTracker.updateRequestMonitoringData(method, time);
-      this.statTracker.updateOperationMonitoringData(operation.getOperationType(), time);
+      this.statTracker.updateOperationMonitoringData(operation, time);
     }
 
     OperationWithPromise op = this.operationsInProgress.get(operation.getMessageID());
@@ -0,0 +1,321 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.protocols.http;
+
+import static org.forgerock.opendj.ldap.schema.CoreSchema.getBooleanSyntax;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.forgerock.http.Handler;
+import org.forgerock.http.HttpApplication;
+import org.forgerock.http.HttpApplicationException;
+import org.forgerock.http.io.Buffer;
+import org.forgerock.http.protocol.Request;
+import org.forgerock.http.protocol.Response;
+import org.forgerock.http.protocol.Status;
+import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.Connection;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.LdapException;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.rest2ldap.AuthenticatedConnectionContext;
+import org.forgerock.opendj.server.config.server.PrometheusEndpointCfg;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.Factory;
+import org.forgerock.util.promise.NeverThrowsException;
+import org.forgerock.util.promise.Promise;
+import org.forgerock.util.promise.Promises;
+import org.opends.server.api.ClientConnection;
+import org.opends.server.api.HttpEndpoint;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ServerContext;
+import org.opends.server.monitors.ClientConnectionMonitorProvider;
+import org.opends.server.monitors.StackTraceMonitorProvider;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.Privilege;
+
+/**
+ * An HTTP endpoint exposing the numeric values published by the server's monitor providers (cn=monitor) in the
+ * Prometheus text exposition format, so that they can be scraped without going through LDAP.
+ * <p>
+ * Each numeric monitor attribute becomes a metric family named after the attribute, for instance
+ * {@code connectionsEstablished} becomes {@code ds_connections_established}, and each monitor provider publishing
+ * it becomes one sample labelled with the monitor instance name. Boolean attributes are exposed as 0 or 1. All the
+ * families are untyped since monitor providers do not tell counters from gauges.
+ * <p>
+ * Reading the metrics requires the {@code monitor-read} privilege: anonymous requests and requests authorized as a
+ * user without this privilege are rejected.
+ */
+public final class PrometheusEndpoint extends HttpEndpoint<PrometheusEndpointCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Content type of the Prometheus text exposition format. */
+  static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final String METRIC_PREFIX = "ds_";
+  private static final String MONITOR_LABEL = "monitor";
+  private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?([eE][-+]?\\d+)?");
+
+  /** Monitor providers which only publish textual data and are costly to compute. */
+  private static final List<Class<?>> IGNORED_PROVIDERS = Collections.<Class<?>> unmodifiableList(
+      Arrays.<Class<?>> asList(StackTraceMonitorProvider.class, ClientConnectionMonitorProvider.class));
+
+  /**
+   * Create a new PrometheusEndpoint with the supplied configuration.
+   *
+   * @param configuration
+   *          Configuration to use for the {@link HttpApplication}
+   * @param serverContext
+   *          Server of this LDAP server
+   */
+  public PrometheusEndpoint(PrometheusEndpointCfg configuration, ServerContext serverContext)
+  {
+    super(configuration, serverContext);
+  }
+
+  @Override
+  public HttpApplication newHttpApplication() throws InitializationException
+  {
+    return new PrometheusHttpApplication();
+  }
+
+  /** {@link HttpApplication} rendering the monitor providers on each scrape. */
+  private static final class PrometheusHttpApplication implements HttpApplication
+  {
+    @Override
+    public Handler start() throws HttpApplicationException
+    {
+      return new Handler()
+      {
+        @Override
+        public Promise<Response, NeverThrowsException> handle(Context context, Request request)
+        {
+          final String method = request.getMethod();
+          if (!"GET".equals(method) && !"HEAD".equals(method))
+          {
+            return Promises.newResultPromise(new Response(Status.METHOD_NOT_ALLOWED));
+          }
+          if (!hasMonitorReadPrivilege(context))
+          {
+            return Promises.newResultPromise(new Response(Status.FORBIDDEN));
+          }
+          final Response response = new Response(Status.OK);
+          response.getHeaders().put("Content-Type", CONTENT_TYPE);
+          response.getHeaders().put("Cache-Control", "no-cache");
+          if ("GET".equals(method))
+          {
+            response.setEntity(renderMetrics(DirectoryServer.getMonitorProviders().values()));
+          }
+          return Promises.newResultPromise(response);
+        }
+      };
+    }
+
+    @Override
+    public Factory<Buffer> getBufferFactory()
+    {
+      return null;
+    }
+
+    @Override
+    public void stop()
+    {
+      // Nothing to do
+    }
+  }
+
+  /**
+   * Indicates whether the user the request is authorized as has the {@code monitor-read} privilege.
+   *
+   * @param context
+   *          the context of the request, which holds the connection authenticated by the authorization mechanism
+   * @return {@code true} if the user has the privilege, {@code false} if the request is anonymous or not authorized
+   */
+  static boolean hasMonitorReadPrivilege(Context context)
+  {
+    if (!context.containsContext(AuthenticatedConnectionContext.class))
+    {
+      return false;
+    }
+    final Connection connection = context.asContext(AuthenticatedConnectionContext.class).getConnection();
+    try
+    {
+      final String authzId = connection.extendedRequest(Requests.newWhoAmIExtendedRequest()).getAuthorizationID();
+      if (authzId == null || !authzId.startsWith("dn:"))
+      {
+        // anonymous users have no privileges
+        return false;
+      }
+      final Entry authzEntry = DirectoryServer.getEntry(DN.valueOf(authzId.substring(3)));
+      return authzEntry != null && ClientConnection.hasPrivilege(authzEntry, Privilege.MONITOR_READ);
+    }
+    catch (LdapException | DirectoryException | LocalizedIllegalArgumentException e)
+    {
+      logger.traceException(e);
+      return false;
+    }
+  }
+
+  /**
+   * Renders the numeric values published by the provided monitor providers in the Prometheus text exposition format.
+   *
+   * @param providers
+   *          the monitor providers to render
+   * @return the metrics, grouped by family and sorted by name
+   */
+  static String renderMetrics(Collection<? extends MonitorProvider<?>> providers)
+  {
+    final List<MonitorProvider<?>> sortedProviders = new ArrayList<>(providers);
+    Collections.sort(sortedProviders, new Comparator<MonitorProvider<?>>()
+    {
+      @Override
+      public int compare(MonitorProvider<?> p1, MonitorProvider<?> p2)
+      {
+        return p1.getMonitorInstanceName().compareTo(p2.getMonitorInstanceName());
+      }
+    });
+
+    final Map<String, StringBuilder> families = new TreeMap<>();
+    for (MonitorProvider<?> provider : sortedProviders)
+    {
+      if (IGNORED_PROVIDERS.contains(provider.getClass()))
+      {
+        continue;
+      }
+      final MonitorData data;
+      try
+      {
+        data = provider.getMonitorData();
+      }
+      catch (RuntimeException e)
+      {
+        logger.traceException(e);
+        continue;
+      }
+      final String label = escapeLabelValue(provider.getMonitorInstanceName());
+      for (Attribute attribute : data)
+      {
+        final String value = toSampleValue(attribute);
+        if (value != null)
+        {
+          final String name = toMetricName(attribute.getAttributeDescription().getAttributeType().getNameOrOID());
+          StringBuilder samples = families.get(name);
+          if (samples == null)
+          {
+            samples = new StringBuilder();
+            families.put(name, samples);
+          }
+          samples.append(name).append('{').append(MONITOR_LABEL).append("=\"").append(label).append("\"} ")
+                 .append(value).append('\n');
+        }
+      }
+    }
+
+    final StringBuilder metrics = new StringBuilder();
+    for (Map.Entry<String, StringBuilder> family : families.entrySet())
+    {
+      metrics.append("# TYPE ").append(family.getKey()).append(" untyped\n").append(family.getValue());
+    }
+    return metrics.toString();
+  }
+
+  /** Returns the sample value of a single valued numeric or boolean attribute, or {@code null} otherwise. */
+  private static String toSampleValue(Attribute attribute)
+  {
+    if (attribute.size() != 1)
+    {
+      return null;
+    }
+    final Iterator<ByteString> values = attribute.iterator();
+    final String value = values.next().toString();
+    final AttributeType type = attribute.getAttributeDescription().getAttributeType();
+    if (getBooleanSyntax().getOID().equals(type.getSyntax().getOID()))
+    {
+      if ("true".equalsIgnoreCase(value))
+      {
+        return "1";
+      }
+      return "false".equalsIgnoreCase(value) ? "0" : null;
+    }
+    return NUMBER.matcher(value).matches() ? value : null;
+  }
+
+  /**
+   * Converts a monitor attribute name to a metric name, turning camel case into snake case and replacing the
+   * characters forbidden by Prometheus with underscores. Names already carrying the {@code ds} prefix, such as
+   * {@code ds-mon-*} attributes, are not prefixed twice.
+   */
+  static String toMetricName(String attributeName)
+  {
+    final StringBuilder name = new StringBuilder(METRIC_PREFIX.length() + attributeName.length() + 8);
+    char previous = '_';
+    for (int i = 0; i < attributeName.length(); i++)
+    {
+      final char c = attributeName.charAt(i);
+      if (Character.isUpperCase(c) && (Character.isLowerCase(previous) || Character.isDigit(previous)))
+      {
+        name.append('_');
+      }
+      final char lower = Character.toLowerCase(c);
+      name.append(('a' <= lower && lower <= 'z') || ('0' <= lower && lower <= '9') ? lower : '_');
+      previous = c;
+    }
+    return name.indexOf(METRIC_PREFIX) == 0 ? name.toString() : METRIC_PREFIX + name;
+  }
+
+  /** Escapes a label value as required by the Prometheus text exposition format. */
+  private static String escapeLabelValue(String value)
+  {
+    final StringBuilder escaped = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++)
+    {
+      final char c = value.charAt(i);
+      switch (c)
+      {
+      case '\\':
+        escaped.append("\\\\");
+        break;
+      case '"':
+        escaped.append("\\\"");
+        break;
+      case '\n':
+        escaped.append("\\n");
+        break;
+      default:
+        escaped.append(c);
+      }
+    }
+    return escaped.toString();
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.protocols.ldap;
 
@@ -39,6 +40,8 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -354,6 +357,45 @@ public final class LDAPClientConnection extends ClientConnection implements
     return holder;
   }
 
+  /**
+   * The number of bytes of search result entries above which they are written
+   * to the client without waiting for more entries.
+   */
+  private static final int MAX_SEARCH_ENTRY_BATCH_SIZE = 64 * 1024;
+
+  /**
+   * Buffers of the batches of search result entries, shared by all the
+   * connections as a connection only holds one while it has pending entries.
+   */
+  private static final BlockingQueue<ASN1WriterHolder> SEARCH_ENTRY_BATCH_POOL = new ArrayBlockingQueue<>(256);
+
+  private static ASN1WriterHolder takeSearchEntryBatch()
+  {
+    ASN1WriterHolder holder = SEARCH_ENTRY_BATCH_POOL.poll();
+    if (holder == null || holder.maxBufferSize != getCoreConfigManager().getMaxInternalBufferSize())
+    {
+      holder = new ASN1WriterHolder();
+    }
+    return holder;
+  }
+
+  private static void releaseSearchEntryBatch(ASN1WriterHolder holder)
+  {
+    close(holder);
+    SEARCH_ENTRY_BATCH_POOL.offer(holder);
+  }
+
+  /**
+   * The encoded search result entries which have not been written to the
+   * client yet, or {@code null} if there are none. Writing a batch of entries
+   * at once saves system calls and TLS records when searches return many
+   * entries. Other messages are written after the pending entries so that the
+   * order of the responses is preserved.
+   */
+  private ASN1WriterHolder searchEntryBatch;
+  /** Guards the batch of search result entries and orders the writes to the client. */
+  private final Lock searchEntryBatchLock = new ReentrantLock();
+
   /** The time that the last operation was completed. */
   private final AtomicLong lastCompletionTime;
   /** The next operation ID that should be used for this connection. */
@@ -669,17 +711,16 @@ public final class LDAPClientConnection extends ClientConnection implements
         } else {
             time = operation.getProcessingTime();
         }
-        this.statTracker.updateOperationMonitoringData(
-                operation.getOperationType(),
-                time);
+        this.statTracker.updateOperationMonitoringData(operation, time);
     }
 
     // Avoid sending the response if one has already been sent. This may happen
     // if operation processing encounters a run-time exception after sending the
     // response: the worker thread exception handling code will attempt to send
     // an error result to the client indicating that a problem occurred.
-    if (removeOperationInProgress(operation.getMessageID()))
+    if (removeOperationInProgress(operation.getMessageID(), false))
     {
+      // The pending search result entries are written along with the response
       LDAPMessage message = operationToResponseLDAPMessage(operation);
       if (message != null)
       {
@@ -840,8 +881,29 @@ public final class LDAPClientConnection extends ClientConnection implements
     SearchResultEntryProtocolOp protocolOp =
         new SearchResultEntryProtocolOp(searchEntry, ldapVersion);
 
-    sendLDAPMessage(new LDAPMessage(searchOperation.getMessageID(),
-        protocolOp, searchEntry.getControls()));
+    LDAPMessage message = new LDAPMessage(searchOperation.getMessageID(),
+        protocolOp, searchEntry.getControls());
+    if (isPersistentSearch(searchOperation))
+    {
+      // Changes are sent as they happen, there may be no further message to flush them
+      sendLDAPMessage(message);
+    }
+    else
+    {
+      batchSearchEntry(message);
+    }
+  }
+
+  private boolean isPersistentSearch(SearchOperation searchOperation)
+  {
+    for (PersistentSearch persistentSearch : getPersistentSearches())
+    {
+      if (persistentSearch.getSearchOperation().getMessageID() == searchOperation.getMessageID())
+      {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
@@ -921,7 +983,24 @@ public final class LDAPClientConnection extends ClientConnection implements
     try
     {
       message.write(holder.writer);
-      holder.buffer.copyTo(saslChannel);
+      searchEntryBatchLock.lock();
+      try
+      {
+        if (searchEntryBatch != null)
+        {
+          // Write the pending entries along with this message
+          searchEntryBatch.buffer.appendBytes(holder.buffer);
+          writeSearchEntryBatch();
+        }
+        else
+        {
+          holder.buffer.copyTo(saslChannel);
+        }
+      }
+      finally
+      {
+        searchEntryBatchLock.unlock();
+      }
 
       if (logger.isTraceEnabled())
       {
@@ -933,19 +1012,9 @@ public final class LDAPClientConnection extends ClientConnection implements
         statTracker.updateMessageWritten(message);
       }
     }
-    catch (ClosedChannelException e)
-    {
-      logger.traceException(e);
-      disconnect(DisconnectReason.IO_ERROR, false,
-          ERR_IO_ERROR_ON_CLIENT_CONNECTION.get(getExceptionMessage(e)));
-      return;
-    }
     catch (Exception e)
     {
-      logger.traceException(e);
-      disconnect(DisconnectReason.SERVER_ERROR, false,
-          ERR_UNEXPECTED_EXCEPTION_ON_CLIENT_CONNECTION.get(getExceptionMessage(e)));
-      return;
+      handleWriteException(e);
     }
     finally
     {
@@ -954,7 +1023,129 @@ public final class LDAPClientConnection extends ClientConnection implements
       // the internal buffers to be resized if needed.
       close(holder);
     }
- }
+  }
+
+  /**
+   * Adds a search result entry to the batch of pending entries, writing the
+   * batch to the client if it is full.
+   *
+   * @param message
+   *          The LDAP message of the search result entry.
+   */
+  private void batchSearchEntry(LDAPMessage message)
+  {
+    try
+    {
+      searchEntryBatchLock.lock();
+      try
+      {
+        if (searchEntryBatch == null)
+        {
+          searchEntryBatch = takeSearchEntryBatch();
+        }
+        message.write(searchEntryBatch.writer);
+        if (searchEntryBatch.buffer.length() >= MAX_SEARCH_ENTRY_BATCH_SIZE)
+        {
+          writeSearchEntryBatch();
+        }
+      }
+      finally
+      {
+        searchEntryBatchLock.unlock();
+      }
+
+      if (logger.isTraceEnabled())
+      {
+        logger.trace("LDAPMessage=%s", message);
+      }
+
+      if (keepStats)
+      {
+        statTracker.updateMessageWritten(message);
+      }
+    }
+    catch (Exception e)
+    {
+      // Never write a partially encoded entry
+      discardSearchEntryBatch();
+      handleWriteException(e);
+    }
+  }
+
+  /** Writes the pending search result entries to the client, if any. */
+  private void flushSearchEntryBatch()
+  {
+    try
+    {
+      searchEntryBatchLock.lock();
+      try
+      {
+        if (searchEntryBatch != null)
+        {
+          writeSearchEntryBatch();
+        }
+      }
+      finally
+      {
+        searchEntryBatchLock.unlock();
+      }
+    }
+    catch (Exception e)
+    {
+      handleWriteException(e);
+    }
+  }
+
+  /**
+   * Writes the batch of pending search result entries to the client in a
+   * single write, and releases its buffer. The lock must be held.
+   */
+  private void writeSearchEntryBatch() throws IOException
+  {
+    final ASN1WriterHolder batch = searchEntryBatch;
+    searchEntryBatch = null;
+    try
+    {
+      batch.buffer.copyTo(saslChannel);
+    }
+    finally
+    {
+      releaseSearchEntryBatch(batch);
+    }
+  }
+
+  /** Discards the pending search result entries once the connection is closed. */
+  private void discardSearchEntryBatch()
+  {
+    searchEntryBatchLock.lock();
+    try
+    {
+      if (searchEntryBatch != null)
+      {
+        releaseSearchEntryBatch(searchEntryBatch);
+        searchEntryBatch = null;
+      }
+    }
+    finally
+    {
+      searchEntryBatchLock.unlock();
+    }
+  }
+
+  private void handleWriteException(Exception e)
+  {
+    logger.traceException(e);
+    if (e instanceof ClosedChannelException)
+    {
+      disconnect(DisconnectReason.IO_ERROR, false,
+          ERR_IO_ERROR_ON_CLIENT_CONNECTION.get(getExceptionMessage(e)));
+    }
+    else
+    {
+      disconnect(DisconnectReason.SERVER_ERROR, false,
+          ERR_UNEXPECTED_EXCEPTION_ON_CLIENT_CONNECTION.get(getExceptionMessage(e)));
+    }
+  }
 
   /**
    * Closes the connection to the client, optionally sending it a
@@ -1049,6 +1240,8 @@ public final class LDAPClientConnection extends ClientConnection implements
       }
     }
 
+    discardSearchEntryBatch();
+
     // Enqueue the connection channels for closing by the finalizer.
     Runnable r = new ConnectionFinalizerJob(asn1Reader, clientChannel);
     connectionHandler.registerConnectionFinalizer(r);
@@ -1208,6 +1401,11 @@ public final class LDAPClientConnection extends ClientConnection implements
    */
   @Override
   public boolean removeOperationInProgress(int messageID)
+  {
+    return removeOperationInProgress(messageID, true);
+  }
+
+  private boolean removeOperationInProgress(int messageID, boolean flushSearchEntries)
   {
     Operation operation = operationsInProgress.remove(messageID);
     if (operation == null)
@@ -1221,6 +1419,11 @@ public final class LDAPClientConnection extends ClientConnection implements
     {
       statTracker.updateAbandonedOperation();
     }
+    else if (flushSearchEntries && operation.getOperationType() == OperationType.SEARCH)
+    {
+      // An abandoned search sends no response to write its pending entries
+      flushSearchEntryBatch();
+    }
 
     lastCompletionTime.set(TimeThread.getTime());
     return true;
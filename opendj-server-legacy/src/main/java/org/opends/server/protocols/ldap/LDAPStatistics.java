@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.protocols.ldap;
 
@@ -20,6 +21,8 @@ import static org.opends.messages.ProtocolMessages.*;
 import static org.opends.server.protocols.ldap.LDAPConstants.*;
 import static org.opends.server.util.ServerConstants.*;
 
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -29,6 +32,8 @@ import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
 import org.opends.server.api.MonitorData;
 import org.opends.server.api.MonitorProvider;
 import org.opends.server.core.DirectoryServer;
+import org.opends.server.protocols.ldap.LatencyHistogram.Snapshot;
+import org.opends.server.types.Operation;
 import org.opends.server.types.OperationType;
 
 /**
@@ -46,6 +51,9 @@ import org.opends.server.types.OperationType;
  * broken down by message type.</LI>
  * <LI>The total number of bytes read from LDAP clients.</LI>
  * <LI>The total number of bytes written to LDAP clients.</LI>
+ * <LI>The distribution of the time operations waited before being
+ * processed and of the time spent processing them, broken down by
+ * operation type.</LI>
  * </UL>
  * <BR>
  * <BR>
@@ -116,6 +124,16 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
   private AtomicLong extOperationCount = new AtomicLong(0);
   private AtomicLong extOperationTime = new AtomicLong(0);
 
+  /** The percentiles published for each latency histogram. */
+  private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+  private static final String[] PERCENTILE_SUFFIXES = { "p50", "p90", "p99", "p999" };
+
+  // Monitor Objects : latency histograms in microseconds, indexed by operation type
+  private final LatencyHistogram[] queueWaitTimes = newLatencyHistograms();
+  private final LatencyHistogram[] processingTimes = newLatencyHistograms();
+  /** The time at which the latency histograms started to be filled. */
+  private volatile long latencyWindowStartTime = System.currentTimeMillis();
+
   /**
    * Creates a new instance of this class with the specified parent.
    *
@@ -240,6 +258,15 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
     attrs.add("ds-mon-extended-operations-total-count", extOperationCount);
     attrs.add("ds-mon-resident-time-extended-operations-total-time", extOperationTime);
 
+    // latency percentiles, only for the operation types which have been processed
+    attrs.add("ds-mon-latency-window-start-time", new Date(latencyWindowStartTime));
+    for (OperationType type : OperationType.values())
+    {
+      final String prefix = "ds-mon-" + getMonitorName(type) + "-operations-";
+      addLatencyPercentiles(attrs, prefix + "queue-wait-time-", queueWaitTimes[type.ordinal()].snapshot());
+      addLatencyPercentiles(attrs, prefix + "processing-time-", processingTimes[type.ordinal()].snapshot());
+    }
+
     return attrs;
   }
 
@@ -298,6 +325,74 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
       abandonOperationTime.set(0);
       extOperationCount.set(0);
       extOperationTime.set(0);
+
+      resetLatencyHistograms();
+  }
+
+  /**
+   * Clears the latency histograms, starting a new window over which the
+   * latency percentiles are computed.
+   */
+  public void resetLatencyHistograms()
+  {
+    latencyWindowStartTime = System.currentTimeMillis();
+    for (int i = 0; i < processingTimes.length; i++)
+    {
+      queueWaitTimes[i].reset();
+      processingTimes[i].reset();
+    }
+  }
+
+  private static LatencyHistogram[] newLatencyHistograms()
+  {
+    final LatencyHistogram[] histograms = new LatencyHistogram[OperationType.values().length];
+    for (int i = 0; i < histograms.length; i++)
+    {
+      histograms[i] = new LatencyHistogram();
+    }
+    return histograms;
+  }
+
+  private static void addLatencyPercentiles(MonitorData attrs, String prefix, Snapshot snapshot)
+  {
+    if (snapshot.getCount() > 0)
+    {
+      for (int i = 0; i < PERCENTILES.length; i++)
+      {
+        attrs.add(prefix + PERCENTILE_SUFFIXES[i], snapshot.getValueAtPercentile(PERCENTILES[i]));
+      }
+      attrs.add(prefix + "max", snapshot.getMaxValue());
+    }
+  }
+
+  /** Returns the name of the operation type used in the monitor attribute names. */
+  private static String getMonitorName(OperationType type)
+  {
+    switch (type)
+    {
+    case ABANDON:
+      return "abandon";
+    case ADD:
+      return "add";
+    case BIND:
+      return "bind";
+    case COMPARE:
+      return "compare";
+    case DELETE:
+      return "delete";
+    case EXTENDED:
+      return "extended";
+    case MODIFY:
+      return "mod";
+    case MODIFY_DN:
+      return "moddn";
+    case SEARCH:
+      return "search";
+    case UNBIND:
+      return "unbind";
+    default:
+      return type.name().toLowerCase();
+    }
   }
 
   /**
@@ -857,4 +952,24 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
           moddnOperationTime.getAndAdd(time);
       }
   }
+
+  /**
+   * Update the operation counters, times and latency histograms with the
+   * provided operation, once its response is about to be sent.
+   * @param operation which has been processed.
+   * @param time of the operation execution, as used by the counters.
+   */
+  public void updateOperationMonitoringData(Operation operation, long time) {
+      final OperationType type = operation.getOperationType();
+      updateOperationMonitoringData(type, time);
+
+      final long queueWaitNanoTime = operation.getQueueWaitNanoTime();
+      if (queueWaitNanoTime >= 0) {
+          queueWaitTimes[type.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(queueWaitNanoTime));
+      }
+      final long processingNanoTime = operation.getElapsedProcessingNanoTime();
+      if (processingNanoTime >= 0) {
+          processingTimes[type.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(processingNanoTime));
+      }
+  }
 }
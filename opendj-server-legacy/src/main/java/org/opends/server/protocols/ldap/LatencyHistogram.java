@@ -0,0 +1,175 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.protocols.ldap;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies expressed in microseconds, in the spirit of HDR histograms.
+ * <p>
+ * Values are counted in log-linear buckets: each power of two is split into {@value #SUB_BUCKET_COUNT} linear
+ * sub-buckets, so percentiles are known within one sixteenth of their magnitude whatever the order of magnitude of the
+ * latencies. Recording a value is a single atomic increment, which keeps the cost low when all the worker threads
+ * share the histograms of a connection handler.
+ * <p>
+ * Resetting is not atomic with respect to concurrent recordings: values recorded while the histogram is being reset
+ * may or may not be kept, which is acceptable for monitoring purposes.
+ */
+final class LatencyHistogram
+{
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  /** Values of 2^(MAX_MAGNITUDE+1) microseconds (about 25 days) or more are counted in the last bucket. */
+  private static final int MAX_MAGNITUDE = 40;
+  /** The number of buckets of a histogram. */
+  static final int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong maxValue = new AtomicLong();
+
+  /**
+   * Records a latency.
+   *
+   * @param micros
+   *          the latency in microseconds, negative values are counted as zero
+   */
+  void record(long micros)
+  {
+    buckets.incrementAndGet(bucketIndex(micros));
+    long max = maxValue.get();
+    while (micros > max && !maxValue.compareAndSet(max, micros))
+    {
+      max = maxValue.get();
+    }
+  }
+
+  /** Clears all the latencies recorded so far. */
+  void reset()
+  {
+    for (int i = 0; i < BUCKET_COUNT; i++)
+    {
+      buckets.set(i, 0);
+    }
+    maxValue.set(0);
+  }
+
+  /**
+   * Returns a copy of the latencies recorded so far, from which percentiles can be computed.
+   *
+   * @return a copy of the latencies recorded so far
+   */
+  Snapshot snapshot()
+  {
+    final long[] counts = new long[BUCKET_COUNT];
+    long totalCount = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++)
+    {
+      counts[i] = buckets.get(i);
+      totalCount += counts[i];
+    }
+    return new Snapshot(counts, totalCount, maxValue.get());
+  }
+
+  static int bucketIndex(long value)
+  {
+    if (value < SUB_BUCKET_COUNT)
+    {
+      return value < 0 ? 0 : (int) value;
+    }
+    final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    if (magnitude > MAX_MAGNITUDE)
+    {
+      return BUCKET_COUNT - 1;
+    }
+    final int shift = magnitude - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+  }
+
+  /** Returns the highest value counted in the bucket having the provided index. */
+  static long highestValueInBucket(int index)
+  {
+    if (index < SUB_BUCKET_COUNT)
+    {
+      return index;
+    }
+    final int shift = (index >>> SUB_BUCKET_BITS) - 1;
+    final long lowestValue = (long) (SUB_BUCKET_COUNT + (index & (SUB_BUCKET_COUNT - 1))) << shift;
+    return lowestValue + (1L << shift) - 1;
+  }
+
+  /** An immutable copy of the latencies recorded by a histogram. */
+  static final class Snapshot
+  {
+    private final long[] counts;
+    private final long totalCount;
+    private final long maxValue;
+
+    private Snapshot(long[] counts, long totalCount, long maxValue)
+    {
+      this.counts = counts;
+      this.totalCount = totalCount;
+      this.maxValue = maxValue;
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the number of recorded latencies
+     */
+    long getCount()
+    {
+      return totalCount;
+    }
+
+    /**
+     * Returns the highest recorded latency.
+     *
+     * @return the highest recorded latency in microseconds
+     */
+    long getMaxValue()
+    {
+      return maxValue;
+    }
+
+    /**
+     * Returns the latency below or at which the provided percentage of the recorded latencies fall.
+     *
+     * @param percentile
+     *          the percentile, between 0 and 100
+     * @return the latency in microseconds, rounded up to the highest value of its bucket, or 0 if no latencies have
+     *         been recorded
+     */
+    long getValueAtPercentile(double percentile)
+    {
+      if (totalCount == 0)
+      {
+        return 0;
+      }
+      final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+      long cumulatedCount = 0;
+      for (int i = 0; i < counts.length; i++)
+      {
+        cumulatedCount += counts[i];
+        if (cumulatedCount >= rank)
+        {
+          return Math.min(highestValueInBucket(i), maxValue);
+        }
+      }
+      return maxValue;
+    }
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -32,10 +33,12 @@ import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringReader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -2265,15 +2268,6 @@ public final class LDAPReplicationDomain extends ReplicationDomain
     }
   }
 
-  /**
-   * Marks the specified message as the one currently processed by a replay thread.
-   * @param msg the message being processed
-   */
-  void markInProgress(LDAPUpdateMsg msg)
-  {
-    remotePendingChanges.markInProgress(msg);
-  }
-
   /**
    * Create and replay a synchronized Operation from an UpdateMsg.
    *
@@ -2286,6 +2280,7 @@ public final class LDAPReplicationDomain extends ReplicationDomain
   {
     // Try replay the operation, then flush (replaying) any pending operation
     // whose dependency has been replayed until no more left.
+    final Deque<LDAPUpdateMsg> readyUpdates = new ArrayDeque<>();
     do
     {
       Operation op = null; // the last operation on which replay was attempted
@@ -2465,10 +2460,28 @@ public final class LDAPReplicationDomain extends ReplicationDomain
       // Now replay any pending update that had a dependency and whose
       // dependency has been replayed, do that until no more updates of that
       // type left...
-      msg = remotePendingChanges.getNextUpdate();
+      pollReadyUpdates(readyUpdates);
+      msg = readyUpdates.poll();
     } while (msg != null);
   }
 
+  /**
+   * Polls the pending updates whose dependencies have all been replayed.
+   * The first one is kept for the current replay thread, the others are handed
+   * to the other replay threads, unless the replay queue is full.
+   */
+  private void pollReadyUpdates(Deque<LDAPUpdateMsg> readyUpdates)
+  {
+    LDAPUpdateMsg update;
+    while ((update = remotePendingChanges.getNextUpdate()) != null)
+    {
+      if (readyUpdates.isEmpty() || !updateToReplayQueue.offer(new UpdateToReplay(update, this)))
+      {
+        readyUpdates.add(update);
+      }
+    }
+  }
+
   private String logDecodingOperationError(LDAPUpdateMsg msg, Exception e)
   {
     LocalizableMessage message =
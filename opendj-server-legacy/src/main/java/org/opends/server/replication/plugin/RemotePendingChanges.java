@@ -13,16 +13,20 @@
  *
  * Copyright 2007-2009 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -39,6 +43,7 @@ import org.opends.server.replication.protocol.AddMsg;
 import org.opends.server.replication.protocol.DeleteMsg;
 import org.opends.server.replication.protocol.LDAPUpdateMsg;
 import org.opends.server.replication.protocol.ModifyDNMsg;
+import org.opends.server.replication.protocol.ModifyMsg;
 import org.opends.server.replication.protocol.OperationContext;
 import org.opends.server.types.Operation;
 
@@ -49,32 +54,71 @@ import org.opends.server.types.Operation;
  *
  * It is used to know when the ServerState must be updated and to compute
  * the dependencies between operations.
+ * <p>
+ * The uncommitted changes are indexed by their DN, the new DN of the modify DN
+ * operations, and the superior DNs of the delete and modify DN operations,
+ * so that the older changes a change depends on are found without scanning
+ * all the pending changes. A change which depends on other changes is
+ * replayed again as soon as these changes are committed, whatever the state
+ * of the unrelated changes.
  *
  * One of this object is instantiated for each ReplicationDomain.
  */
 final class RemotePendingChanges
 {
+  /** A remote change, with the keys under which it is indexed and its dependencies. */
+  private static final class RemotePendingChange extends PendingChange
+  {
+    /** The DN of the change when it was indexed. */
+    @GuardedBy("dependenciesLock")
+    private DN indexedDN;
+    /** The new DN of the modify DN change when it was indexed. */
+    @GuardedBy("dependenciesLock")
+    private DN indexedNewDN;
+    /** The changes waiting for this change to be committed. */
+    @GuardedBy("dependenciesLock")
+    private List<RemotePendingChange> dependentChanges;
+    /** The number of uncommitted changes this change is waiting for. */
+    @GuardedBy("dependenciesLock")
+    private int nbDependencies;
+
+    private RemotePendingChange(CSN csn, LDAPUpdateMsg msg)
+    {
+      super(csn, null, msg);
+    }
+  }
+
   /** A map used to store the pending changes. */
   @GuardedBy("pendingChangesLock")
-  private final SortedMap<CSN, PendingChange> pendingChanges = new TreeMap<>();
+  private final SortedMap<CSN, RemotePendingChange> pendingChanges = new TreeMap<>();
 
+  /** The uncommitted changes, by DN. */
+  @GuardedBy("dependenciesLock")
+  private final Map<DN, SortedSet<RemotePendingChange>> changesByDN = new HashMap<>();
+  /** The uncommitted modify DN changes, by new DN. */
+  @GuardedBy("dependenciesLock")
+  private final Map<DN, SortedSet<RemotePendingChange>> changesByNewDN = new HashMap<>();
+  /** The uncommitted delete and modify DN changes, by superior DN. */
+  @GuardedBy("dependenciesLock")
+  private final Map<DN, SortedSet<RemotePendingChange>> changesBySuperiorDN = new HashMap<>();
   /**
-   * A sorted set containing the list of PendingChanges that have
-   * not been replayed correctly because they are dependent on
-   * another change to be completed.
-   */
-  @GuardedBy("dependentChangesLock")
-  private final SortedSet<PendingChange> dependentChanges = new TreeSet<>();
-  /**
-   * {@code activeAndDependentChanges} also contains changes discovered to be dependent
-   * on currently in progress changes.
+   * A sorted set containing the changes that have not been replayed because
+   * they were dependent on other changes, and whose dependencies have all
+   * been committed since.
    */
-  private final ConcurrentSkipListSet<PendingChange> activeAndDependentChanges = new ConcurrentSkipListSet<>();
+  @GuardedBy("dependenciesLock")
+  private final SortedSet<RemotePendingChange> readyChanges = new TreeSet<>();
+  /** The number of uncommitted changes. */
+  @GuardedBy("dependenciesLock")
+  private int nbIndexedChanges;
+  /** The number of changes which have not been replayed because of their dependencies. */
+  @GuardedBy("dependenciesLock")
+  private int nbDependentChanges;
 
   private final ReentrantReadWriteLock pendingChangesLock = new ReentrantReadWriteLock(true);
   private final ReentrantReadWriteLock.ReadLock pendingChangesReadLock = pendingChangesLock.readLock();
   private final ReentrantReadWriteLock.WriteLock pendingChangesWriteLock = pendingChangesLock.writeLock();
-  private final ReentrantLock dependentChangesLock = new ReentrantLock();
+  private final ReentrantLock dependenciesLock = new ReentrantLock();
 
   /** The ServerState that will be updated when LDAPUpdateMsg are fully replayed. */
   private final ServerState state;
@@ -109,13 +153,21 @@ final class RemotePendingChanges
   }
 
   /**
-   * Returns the number of changes actively being replayed.
+   * Returns the number of changes received and not replayed yet.
    *
-   * @return the number of changes actively being replayed.
+   * @return the number of changes received and not replayed yet.
    */
   public int changesInProgressSize()
   {
-    return activeAndDependentChanges.size();
+    dependenciesLock.lock();
+    try
+    {
+      return nbIndexedChanges;
+    }
+    finally
+    {
+      dependenciesLock.unlock();
+    }
   }
 
   /**
@@ -125,20 +177,24 @@ final class RemotePendingChanges
    */
   public int getDependentChangesSize()
   {
-    dependentChangesLock.lock();
+    dependenciesLock.lock();
     try
     {
-      return dependentChanges.size();
+      return nbDependentChanges;
     }
     finally
     {
-      dependentChangesLock.unlock();
+      dependenciesLock.unlock();
     }
   }
 
   /**
    * Add a new LDAPUpdateMsg that was received from the replication server
    * to the pendingList.
+   * <p>
+   * The updates must be added in the order they are received, so that the
+   * dependencies of each update on the previous ones are known as soon as it
+   * is replayed.
    *
    * @param update The LDAPUpdateMsg that was received from the replication
    *               server and that will be added to the pending list.
@@ -151,7 +207,23 @@ final class RemotePendingChanges
     try
     {
       CSN csn = update.getCSN();
-      return pendingChanges.put(csn, new PendingChange(csn, null, update)) == null;
+      if (pendingChanges.containsKey(csn))
+      {
+        return false;
+      }
+      final RemotePendingChange change = new RemotePendingChange(csn, update);
+      pendingChanges.put(csn, change);
+      dependenciesLock.lock();
+      try
+      {
+        index(change);
+        nbIndexedChanges++;
+      }
+      finally
+      {
+        dependenciesLock.unlock();
+      }
+      return true;
     }
     finally
     {
@@ -170,15 +242,18 @@ final class RemotePendingChanges
     pendingChangesWriteLock.lock();
     try
     {
-      PendingChange curChange = pendingChanges.get(csn);
+      RemotePendingChange curChange = pendingChanges.get(csn);
       if (curChange == null)
       {
         throw new NoSuchElementException();
       }
-      curChange.setCommitted(true);
-      activeAndDependentChanges.remove(curChange);
+      if (!curChange.isCommitted())
+      {
+        curChange.setCommitted(true);
+        release(curChange);
+      }
 
-      final Iterator<PendingChange> it = pendingChanges.values().iterator();
+      final Iterator<RemotePendingChange> it = pendingChanges.values().iterator();
       while (it.hasNext())
       {
         PendingChange pendingChange = it.next();
@@ -199,214 +274,264 @@ final class RemotePendingChanges
     }
   }
 
-  public void markInProgress(LDAPUpdateMsg msg)
+  /** Removes a committed change from the indexes, and wakes up the changes waiting for it. */
+  private void release(RemotePendingChange change)
   {
-    pendingChangesReadLock.lock();
+    dependenciesLock.lock();
     try
     {
-      activeAndDependentChanges.add(pendingChanges.get(msg.getCSN()));
+      unindex(change);
+      nbIndexedChanges--;
+      if (change.dependentChanges != null)
+      {
+        for (RemotePendingChange dependentChange : change.dependentChanges)
+        {
+          if (--dependentChange.nbDependencies == 0)
+          {
+            readyChanges.add(dependentChange);
+          }
+        }
+        change.dependentChanges = null;
+      }
     }
     finally
     {
-      pendingChangesReadLock.unlock();
+      dependenciesLock.unlock();
     }
   }
+
   /**
-   * Get the first update in the list that have some dependencies cleared.
+   * Get the first update in the list that have all its dependencies cleared.
    *
-   * @return The LDAPUpdateMsg to be handled.
+   * @return The LDAPUpdateMsg to be handled, or null if there is none.
    */
   public LDAPUpdateMsg getNextUpdate()
   {
-    pendingChangesReadLock.lock();
-    dependentChangesLock.lock();
+    dependenciesLock.lock();
     try
     {
-      if (!dependentChanges.isEmpty())
+      if (readyChanges.isEmpty())
       {
-        PendingChange firstDependentChange = dependentChanges.first();
-        if (pendingChanges.firstKey().isNewerThanOrEqualTo(firstDependentChange.getCSN()))
-        {
-          dependentChanges.remove(firstDependentChange);
-          return firstDependentChange.getLDAPUpdateMsg();
-        }
+        return null;
       }
-      return null;
+      final RemotePendingChange change = readyChanges.first();
+      readyChanges.remove(change);
+      nbDependentChanges--;
+      return change.getLDAPUpdateMsg();
     }
     finally
     {
-      dependentChangesLock.unlock();
-      pendingChangesReadLock.unlock();
+      dependenciesLock.unlock();
     }
   }
 
-  /**
-   * Mark the first pendingChange as dependent on the second PendingChange.
-   * @param dependentChange The PendingChange that depend on the second
-   *                        PendingChange.
-   */
-  private void addDependency(PendingChange dependentChange)
+  private RemotePendingChange getPendingChange(CSN csn)
   {
-    dependentChangesLock.lock();
+    pendingChangesReadLock.lock();
     try
     {
-      dependentChanges.add(dependentChange);
+      return pendingChanges.get(csn);
     }
     finally
     {
-      dependentChangesLock.unlock();
+      pendingChangesReadLock.unlock();
     }
   }
 
-  private PendingChange getPendingChange(CSN csn)
+  @GuardedBy("dependenciesLock")
+  private void index(RemotePendingChange change)
   {
-    pendingChangesReadLock.lock();
-    try
+    final LDAPUpdateMsg msg = change.getLDAPUpdateMsg();
+    change.indexedDN = msg.getDN();
+    add(changesByDN, change.indexedDN, change);
+    if (msg instanceof DeleteMsg || msg instanceof ModifyDNMsg)
     {
-      return pendingChanges.get(csn);
+      for (DN superiorDN = change.indexedDN.parent(); isIndexed(superiorDN); superiorDN = superiorDN.parent())
+      {
+        add(changesBySuperiorDN, superiorDN, change);
+      }
     }
-    finally
+    if (msg instanceof ModifyDNMsg)
     {
-      pendingChangesReadLock.unlock();
+      change.indexedNewDN = ((ModifyDNMsg) msg).getNewDN();
+      if (change.indexedNewDN != null)
+      {
+        add(changesByNewDN, change.indexedNewDN, change);
+      }
+    }
+  }
+
+  @GuardedBy("dependenciesLock")
+  private void unindex(RemotePendingChange change)
+  {
+    remove(changesByDN, change.indexedDN, change);
+    if (change.getMsg() instanceof DeleteMsg || change.getMsg() instanceof ModifyDNMsg)
+    {
+      for (DN superiorDN = change.indexedDN.parent(); isIndexed(superiorDN); superiorDN = superiorDN.parent())
+      {
+        remove(changesBySuperiorDN, superiorDN, change);
+      }
+    }
+    if (change.indexedNewDN != null)
+    {
+      remove(changesByNewDN, change.indexedNewDN, change);
+    }
+  }
+
+  private static boolean isIndexed(DN dn)
+  {
+    return dn != null && !dn.isRootDN();
+  }
+
+  private static void add(Map<DN, SortedSet<RemotePendingChange>> index, DN dn, RemotePendingChange change)
+  {
+    SortedSet<RemotePendingChange> changes = index.get(dn);
+    if (changes == null)
+    {
+      changes = new TreeSet<>();
+      index.put(dn, changes);
+    }
+    changes.add(change);
+  }
+
+  private static void remove(Map<DN, SortedSet<RemotePendingChange>> index, DN dn, RemotePendingChange change)
+  {
+    final SortedSet<RemotePendingChange> changes = index.get(dn);
+    if (changes != null && changes.remove(change) && changes.isEmpty())
+    {
+      index.remove(dn);
     }
   }
 
   /**
-   * Check if the given AddOperation has some dependencies on any
-   * currently running previous operation.
-   * Update the dependency list in the associated PendingChange if
-   * there are some dependencies.
-   * AddOperation depends on
-   *
-   * - DeleteOperation done on the same DN
-   * - ModifyDnOperation with the same target DN as the ADD DN
-   * - ModifyDnOperation with new DN equals to the ADD DN parent
-   * - AddOperation done on the parent DN of the ADD DN
-   *
-   * @param op The AddOperation to be checked.
-   *
-   * @return A boolean indicating if this operation has some dependencies.
+   * Adds to the dependencies the uncommitted changes older than the provided change, indexed under the provided DN,
+   * and of one of the provided types.
    */
-  public boolean checkDependencies(AddOperation op)
+  @SafeVarargs
+  private static void addOlderChanges(List<RemotePendingChange> dependencies,
+      Map<DN, SortedSet<RemotePendingChange>> index, DN dn, RemotePendingChange change,
+      Class<? extends LDAPUpdateMsg>... types)
   {
-    final CSN csn = OperationContext.getCSN(op);
-    final PendingChange change = getPendingChange(csn);
-    if (change == null)
+    final SortedSet<RemotePendingChange> changes = dn != null ? index.get(dn) : null;
+    if (changes == null)
     {
-      return false;
+      return;
     }
-
-    boolean hasDependencies = false;
-    final DN targetDN = op.getEntryDN();
-    for (PendingChange pendingChange : activeAndDependentChanges)
+    for (RemotePendingChange olderChange : changes.headSet(change))
     {
-      if (pendingChange.getCSN().isNewerThanOrEqualTo(csn))
-      {
-        // From now on, the dependency should be for newer changes to be dependent on this one, so we can stop for now.
-        break;
-      }
-      final LDAPUpdateMsg pendingMsg = pendingChange.getLDAPUpdateMsg();
-      if (pendingMsg instanceof DeleteMsg)
-      {
-        if (pendingMsg.getDN().equals(targetDN))
-        {
-          // it is a deleteOperation on the same DN
-          hasDependencies = true;
-          addDependency(change);
-        }
-      }
-      else if (pendingMsg instanceof AddMsg)
+      for (Class<? extends LDAPUpdateMsg> type : types)
       {
-        if (pendingMsg.getDN().isSuperiorOrEqualTo(targetDN))
+        if (type.isInstance(olderChange.getMsg()) && !dependencies.contains(olderChange))
         {
-          // it is an addOperation on a parent of the current AddOperation
-          hasDependencies = true;
-          addDependency(change);
-        }
-      }
-      else if (pendingMsg instanceof ModifyDNMsg)
-      {
-        // it is a ModifyDnOperation with the same target DN as the ADD DN
-        // or a ModifyDnOperation with new DN equals to the ADD DN parent?
-        if (pendingMsg.getDN().equals(targetDN))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
-        else
-        {
-          final ModifyDNMsg pendingModDn = (ModifyDNMsg) pendingMsg;
-          if (pendingModDn.newDNIsParent(targetDN))
-          {
-            hasDependencies = true;
-            addDependency(change);
-          }
+          dependencies.add(olderChange);
+          break;
         }
       }
     }
-    return hasDependencies;
   }
 
   /**
-   * Check if the given ModifyOperation has some dependencies on any
-   * currently running previous operation.
-   * Update the dependency list in the associated PendingChange if
-   * there are some dependencies.
+   * Check if the change with the provided CSN has some dependencies on any
+   * older uncommitted change.
+   * Register the change as dependent on these changes if there are some
+   * dependencies: it will be returned by {@link #getNextUpdate()} once they
+   * are all committed.
    *
-   * ModifyOperation depends on
-   * - AddOperation done on the same DN
-   * - ModifyDNOperation having newDN the same as targetDN
-   *
-   * @param op The ModifyOperation to be checked.
+   * @param csn The CSN of the change to be checked.
    *
    * @return A boolean indicating if this operation has some dependencies.
    */
-  public boolean checkDependencies(ModifyOperation op)
+  private boolean checkDependencies(CSN csn)
   {
-    final CSN csn = OperationContext.getCSN(op);
-    final PendingChange change = getPendingChange(csn);
+    final RemotePendingChange change = getPendingChange(csn);
     if (change == null)
     {
-        return false;
+      return false;
     }
 
-    boolean hasDependencies = false;
-    final DN targetDN = change.getLDAPUpdateMsg().getDN();
-    for (PendingChange pendingChange : activeAndDependentChanges)
+    dependenciesLock.lock();
+    try
     {
-      if (pendingChange.getCSN().isNewerThanOrEqualTo(csn))
+      if (change.isCommitted())
       {
-        // From now on, the dependency should be for newer changes to be dependent on this one, so we can stop for now.
-        break;
+        return false;
       }
-      final LDAPUpdateMsg pendingMsg = pendingChange.getLDAPUpdateMsg();
-      if (pendingMsg instanceof AddMsg)
+      // Conflict resolution may have changed the DNs of the change since it was indexed
+      unindex(change);
+      index(change);
+
+      final List<RemotePendingChange> dependencies = new ArrayList<>();
+      final LDAPUpdateMsg msg = change.getLDAPUpdateMsg();
+      final DN targetDN = msg.getDN();
+      if (msg instanceof AddMsg)
       {
-        if (pendingMsg.getDN().equals(targetDN))
-        {
-          // it is an addOperation on a same DN
-          hasDependencies = true;
-          addDependency(change);
-        }
+        addAddDependencies(dependencies, change, targetDN);
+      }
+      else if (msg instanceof ModifyMsg)
+      {
+        addModifyDependencies(dependencies, change, targetDN);
       }
-      else if (pendingMsg instanceof ModifyDNMsg)
+      else if (msg instanceof ModifyDNMsg)
       {
-        if (((ModifyDNMsg) pendingMsg).newDNIsEqual(targetDN))
+        addModifyDNDependencies(dependencies, change, (ModifyDNMsg) msg, targetDN);
+      }
+      else if (msg instanceof DeleteMsg)
+      {
+        addDeleteDependencies(dependencies, change, targetDN);
+      }
+
+      if (dependencies.isEmpty())
+      {
+        return false;
+      }
+      for (RemotePendingChange dependency : dependencies)
+      {
+        if (dependency.dependentChanges == null)
         {
-          hasDependencies = true;
-          addDependency(change);
+          dependency.dependentChanges = new ArrayList<>();
         }
+        dependency.dependentChanges.add(change);
       }
+      change.nbDependencies = dependencies.size();
+      nbDependentChanges++;
+      return true;
+    }
+    finally
+    {
+      dependenciesLock.unlock();
     }
-    return hasDependencies;
   }
 
   /**
-   * Check if the given ModifyDNMsg has some dependencies on any
-   * currently running previous operation.
-   * Update the dependency list in the associated PendingChange if
-   * there are some dependencies.
+   * AddOperation depends on
    *
+   * - DeleteOperation done on the same DN
+   * - ModifyDnOperation with the same target DN as the ADD DN
+   * - ModifyDnOperation with new DN equals to the ADD DN or one of its parents
+   * - AddOperation done on the ADD DN or one of its parents
+   */
+  private void addAddDependencies(List<RemotePendingChange> dependencies, RemotePendingChange change, DN targetDN)
+  {
+    addOlderChanges(dependencies, changesByDN, targetDN, change, DeleteMsg.class, ModifyDNMsg.class);
+    for (DN dn = targetDN; isIndexed(dn); dn = dn.parent())
+    {
+      addOlderChanges(dependencies, changesByDN, dn, change, AddMsg.class);
+      addOlderChanges(dependencies, changesByNewDN, dn, change, ModifyDNMsg.class);
+    }
+  }
+
+  /**
+   * ModifyOperation depends on
+   * - AddOperation done on the same DN
+   * - ModifyDNOperation having newDN the same as targetDN
+   */
+  private void addModifyDependencies(List<RemotePendingChange> dependencies, RemotePendingChange change, DN targetDN)
+  {
+    addOlderChanges(dependencies, changesByDN, targetDN, change, AddMsg.class);
+    addOlderChanges(dependencies, changesByNewDN, targetDN, change, ModifyDNMsg.class);
+  }
+
+  /**
    * Modify DN Operation depends on
    * - AddOperation done on the same DN as the target DN of the MODDN operation
    * - AddOperation done on the new parent of the MODDN  operation
@@ -414,81 +539,82 @@ final class RemotePendingChanges
    * - ModifyDNOperation done from the new DN of the MODDN operation
    *
    * TODO: Consider cases where there is a rename A -> B then rename B -> C. Second change depends on first
+   */
+  private void addModifyDNDependencies(List<RemotePendingChange> dependencies, RemotePendingChange change,
+      ModifyDNMsg msg, DN targetDN)
+  {
+    addOlderChanges(dependencies, changesByDN, targetDN, change, AddMsg.class);
+    addOlderChanges(dependencies, changesByDN, msg.getNewSuperiorDN(), change, AddMsg.class);
+    addOlderChanges(dependencies, changesByDN, msg.getNewDN(), change, DeleteMsg.class, ModifyDNMsg.class);
+  }
+
+  /**
+   * DeleteOperation depends on
+   * - DeleteOperation done on the same DN or on children DN
+   * - ModifyDnOperation with target DN that are the DEL DN or its children
+   * - ModifyDnOperation with new DN equals to the DEL DN or one of its parents
+   * - AddOperation done on the same DN
+   */
+  private void addDeleteDependencies(List<RemotePendingChange> dependencies, RemotePendingChange change, DN targetDN)
+  {
+    addOlderChanges(dependencies, changesByDN, targetDN, change, DeleteMsg.class, ModifyDNMsg.class, AddMsg.class);
+    addOlderChanges(dependencies, changesBySuperiorDN, targetDN, change, DeleteMsg.class, ModifyDNMsg.class);
+    for (DN dn = targetDN; isIndexed(dn); dn = dn.parent())
+    {
+      addOlderChanges(dependencies, changesByNewDN, dn, change, ModifyDNMsg.class);
+    }
+  }
+
+  /**
+   * Check if the given AddOperation has some dependencies on any
+   * currently running previous operation.
+   * Update the dependency list in the associated PendingChange if
+   * there are some dependencies.
    *
-   * @param msg The ModifyDNMsg to be checked.
+   * @param op The AddOperation to be checked.
    *
    * @return A boolean indicating if this operation has some dependencies.
    */
-  public boolean checkDependencies(ModifyDNMsg msg)
+  public boolean checkDependencies(AddOperation op)
   {
-    final CSN csn = msg.getCSN();
-    final PendingChange change = getPendingChange(csn);
-    if (change == null)
-    {
-      return false;
-    }
+    return checkDependencies(OperationContext.getCSN(op));
+  }
 
-    boolean hasDependencies = false;
-    final DN targetDN = change.getLDAPUpdateMsg().getDN();
-    for (PendingChange pendingChange : activeAndDependentChanges)
-    {
-      if (pendingChange.getCSN().isNewerThanOrEqualTo(csn))
-      {
-        // From now on, the dependency should be for newer changes to be dependent on this one, so we can stop for now.
-        break;
-      }
-      final LDAPUpdateMsg pendingMsg = pendingChange.getLDAPUpdateMsg();
-      if (pendingMsg instanceof DeleteMsg)
-      {
-        // Check if the target of the Delete is the same
-        // as the new DN of this ModifyDN
-        if (msg.newDNIsEqual(pendingMsg.getDN()))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
-      }
-      else if (pendingMsg instanceof AddMsg)
-      {
-        // Check if the Add Operation was done on the new parent of
-        // the MODDN  operation
-        if (msg.newParentIsEqual(pendingMsg.getDN()))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
-        // Check if the AddOperation was done on the same DN as the
-        // target DN of the MODDN operation
-        if (pendingMsg.getDN().equals(targetDN))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
-      }
-      else if (pendingMsg instanceof ModifyDNMsg)
-      {
-        if (msg.newDNIsEqual(pendingMsg.getDN()))
-        {
-          // the ModifyDNOperation was done from the new DN of the MODDN operation
-          hasDependencies = true;
-          addDependency(change);
-        }
-      }
-    }
-    return hasDependencies;
+  /**
+   * Check if the given ModifyOperation has some dependencies on any
+   * currently running previous operation.
+   * Update the dependency list in the associated PendingChange if
+   * there are some dependencies.
+   *
+   * @param op The ModifyOperation to be checked.
+   *
+   * @return A boolean indicating if this operation has some dependencies.
+   */
+  public boolean checkDependencies(ModifyOperation op)
+  {
+    return checkDependencies(OperationContext.getCSN(op));
   }
 
   /**
-   * Check if the given DeleteOperation has some dependencies on any
+   * Check if the given ModifyDNMsg has some dependencies on any
    * currently running previous operation.
    * Update the dependency list in the associated PendingChange if
    * there are some dependencies.
    *
-   * DeleteOperation depends on
-   * - DeleteOperation done on children DN
-   * - ModifyDnOperation with target DN that are children of the DEL DN
-   * - AddOperation done on the same DN
+   * @param msg The ModifyDNMsg to be checked.
    *
+   * @return A boolean indicating if this operation has some dependencies.
+   */
+  public boolean checkDependencies(ModifyDNMsg msg)
+  {
+    return checkDependencies(msg.getCSN());
+  }
+
+  /**
+   * Check if the given DeleteOperation has some dependencies on any
+   * currently running previous operation.
+   * Update the dependency list in the associated PendingChange if
+   * there are some dependencies.
    *
    * @param op The DeleteOperation to be checked.
    *
@@ -496,62 +622,7 @@ final class RemotePendingChanges
    */
   public boolean checkDependencies(DeleteOperation op)
   {
-    final CSN csn = OperationContext.getCSN(op);
-    final PendingChange change = getPendingChange(csn);
-    if (change == null)
-    {
-      return false;
-    }
-
-    boolean hasDependencies = false;
-    final DN targetDN = op.getEntryDN();
-    for (PendingChange pendingChange : activeAndDependentChanges)
-    {
-      if (pendingChange.getCSN().isNewerThanOrEqualTo(csn))
-      {
-        // From now on, the dependency should be for newer changes to be dependent on this one, so we can stop for now.
-        break;
-      }
-      final LDAPUpdateMsg pendingMsg = pendingChange.getLDAPUpdateMsg();
-      if (pendingMsg instanceof DeleteMsg)
-      {
-          /*
-           * Check if the operation to be run is a deleteOperation on a
-           * children of the current DeleteOperation.
-           */
-        if (pendingMsg.getDN().isSubordinateOrEqualTo(targetDN))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
-      }
-      else if (pendingMsg instanceof AddMsg)
-      {
-          /*
-           * Check if the operation to be run is an addOperation on a
-           * parent of the current DeleteOperation.
-           */
-        if (pendingMsg.getDN().equals(targetDN))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
-      }
-      else if (pendingMsg instanceof ModifyDNMsg)
-      {
-        final ModifyDNMsg pendingModDn = (ModifyDNMsg) pendingMsg;
-          /*
-           * Check if the operation to be run is an ModifyDNOperation
-           * on a children of the current DeleteOperation
-           */
-        if (pendingMsg.getDN().isSubordinateOrEqualTo(targetDN) || pendingModDn.newDNIsParent(targetDN))
-        {
-          hasDependencies = true;
-          addDependency(change);
-        }
-      }
-    }
-    return hasDependencies;
+    return checkDependencies(OperationContext.getCSN(op));
   }
 
   /**
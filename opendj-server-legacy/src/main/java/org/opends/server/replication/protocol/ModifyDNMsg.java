@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -368,6 +369,42 @@ public class ModifyDNMsg extends ModifyCommonMsg
     return parentDn.child(RDN.valueOf(newRDN));
   }
 
+  /**
+   * Returns the DN of the target entry once this MSG is applied.
+   *
+   * @return the new DN of the target entry, or null if it is not a valid DN.
+   */
+  public DN getNewDN()
+  {
+    try
+    {
+      return computeNewDN();
+    }
+    catch (LocalizedIllegalArgumentException e)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the DN of the new parent of the target entry once this MSG is
+   * applied.
+   *
+   * @return the DN of the new parent of the target entry, the root DN if the
+   *         entry is not moved, or null if it is not a valid DN.
+   */
+  public DN getNewSuperiorDN()
+  {
+    try
+    {
+      return newSuperior != null ? DN.valueOf(newSuperior) : DN.rootDN();
+    }
+    catch (LocalizedIllegalArgumentException e)
+    {
+      return null;
+    }
+  }
+
   /**
    * Check if this MSG will change the DN of the target entry to be
    * the same as the dn given as a parameter.
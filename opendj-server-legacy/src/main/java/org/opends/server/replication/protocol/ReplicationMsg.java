@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions copyright 2013-2016 ForgeRock AS.
+ * Portions copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -83,6 +84,12 @@ public abstract class ReplicationMsg
 
   /** @since {@link ProtocolVersion#REPLICATION_PROTOCOL_V8} */
   static final byte MSG_TYPE_REPLICA_OFFLINE = 37;
+  /**
+   * Compressed message, handled by the {@link Session} and never decoded by
+   * {@link #generateMsg(byte[], short)}. Only sent to peers which accepted
+   * compression in their {@link StartSessionMsg} or {@link TopologyMsg}.
+   */
+  static final byte MSG_TYPE_COMPRESSED = 38;
 
   // Adding a new type of message here probably requires to
   // change accordingly generateMsg method below
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -26,13 +27,21 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
-import java.util.concurrent.CountDownLatch;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import javax.net.ssl.SSLSocket;
 
@@ -43,16 +52,72 @@ import org.opends.server.util.StaticUtils;
 
 /**
  * This class defines a replication session using TLS.
+ * <p>
+ * Once {@link #startAsynchronousPublish()} has been called, published messages are queued in the bounded queue of
+ * the session, and written by a small pool of threads shared by all the sessions, rather than by one thread per
+ * session. A writer drains the queue of a session and writes the pending messages with a single flush, so that bursts
+ * of updates are sent in as few TCP packets as possible, then yields to the other sessions. Publishers wait when the
+ * queue of their session is full. A session whose writes make no progress for {@link #WRITE_TIMEOUT_MILLIS} is
+ * aborted, so that a stalled peer cannot hold a shared writer indefinitely.
+ * <p>
+ * Once {@link #startCompression()} has been called, the messages sent to the peer
+ * are compressed as a single deflate stream, so that each message benefits from
+ * the content of the previous ones. A compressed message is framed as a
+ * {@link ReplicationMsg#MSG_TYPE_COMPRESSED} message, which the receiving session
+ * transparently decompresses once {@link #acceptCompression()} has been called.
+ * Both peers advertise whether they accept compressed messages during the
+ * handshake, in the {@link StartSessionMsg} or the {@link TopologyMsg}, and a
+ * session only starts compression when its peer accepted it.
  */
-public final class Session extends DirectoryThread implements Closeable
+public final class Session implements Closeable
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** Maximum number of messages written by a writer before yielding to the other sessions. */
+  private static final int MAX_BATCH_SIZE = 256;
+  /** Time after which a session whose queued messages cannot be written is aborted, in milliseconds. */
+  private static final long WRITE_TIMEOUT_MILLIS = 30000;
+  /** Size of the output buffers, in which the messages of a batch are combined. */
+  private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+  /** Size below which messages, such as heartbeats or window messages, are sent uncompressed. */
+  private static final int MIN_COMPRESSED_SIZE = 64;
+  /** Size of the header of compressed messages: message type and uncompressed length. */
+  private static final int COMPRESSED_HEADER_SIZE = 5;
+  private static final byte[] HEX_DIGITS = { '0', '1', '2', '3', '4', '5', '6', '7',
+                                             '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+
+  /** Threads writing the messages queued by the sessions, lazily created on first use. */
+  private static final class Writers
+  {
+    private static final ThreadPoolExecutor EXECUTOR = newExecutor();
+    /** Aborts the sessions whose writes are stalled. */
+    private static final ScheduledThreadPoolExecutor WATCHDOG = newWatchdog();
+
+    private static ThreadPoolExecutor newExecutor()
+    {
+      final int nbThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+      final ThreadPoolExecutor executor = new ThreadPoolExecutor(nbThreads, nbThreads, 60, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(), new DirectoryThread.Factory("Replication Session Writer"));
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+
+    private static ScheduledThreadPoolExecutor newWatchdog()
+    {
+      final ScheduledThreadPoolExecutor watchdog =
+          new ScheduledThreadPoolExecutor(1, new DirectoryThread.Factory("Replication Session Write Watchdog"));
+      watchdog.setRemoveOnCancelPolicy(true);
+      return watchdog;
+    }
+  }
+
   private final Socket plainSocket;
   private final SSLSocket secureSocket;
   private final InputStream plainInput;
   private final OutputStream plainOutput;
   private final byte[] rcvLengthBuf = new byte[8];
+  /** Guarded by publishLock. */
+  private final byte[] sendLengthBuf = new byte[8];
   private final String readableRemoteAddress;
   private final HostPort remoteAddress;
   private final HostPort localUrl;
@@ -91,14 +156,57 @@ public final class Session extends DirectoryThread implements Closeable
   private BufferedInputStream input;
 
   /**
-   * Use a buffered output stream in order to combine message length and content
-   * into a single TCP packet if possible.
+   * Use a buffered output stream in order to combine message lengths and
+   * contents into as few TCP packets as possible.
    */
   private BufferedOutputStream output;
 
   private final LinkedBlockingQueue<byte[]> sendQueue = new LinkedBlockingQueue<>(4000);
-  private AtomicBoolean isRunning = new AtomicBoolean(false);
-  private final CountDownLatch latch = new CountDownLatch(1);
+  private volatile boolean asynchronousPublish;
+  /** Whether a writer has been scheduled to write the queued messages. */
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  /** Messages being written, only used by the single writer scheduled at a time. */
+  private final List<byte[]> batch = new ArrayList<>();
+  /** The time at which the writer last made progress writing the queued messages, or 0 when it is not writing. */
+  private volatile long batchWriteTime;
+  /** Periodically checks that the writes of the queued messages are not stalled. */
+  private volatile ScheduledFuture<?> watchdogTask;
+  /** Compresses the messages once compression has started, guarded by publishLock. */
+  private Deflater deflater;
+  /** Compressed messages, guarded by publishLock. */
+  private byte[] compressBuffer;
+  private volatile boolean compressionEnabled;
+  /** Whether compressed messages received from the peer are decompressed. */
+  private volatile boolean compressionAccepted;
+  /** Decompresses the received messages, only used by the receiving thread. */
+  private Inflater inflater;
+  /** Sizes of the compressed messages sent and received, before and after compression. */
+  private volatile long sentUncompressedBytes;
+  private volatile long sentCompressedBytes;
+  private volatile long rcvUncompressedBytes;
+  private volatile long rcvCompressedBytes;
+
+  private final Runnable flushTask = new Runnable()
+  {
+    @Override
+    public void run()
+    {
+      flushQueue();
+    }
+  };
+
+  private final Runnable watchdogCheck = new Runnable()
+  {
+    @Override
+    public void run()
+    {
+      final long writeTime = batchWriteTime;
+      if (writeTime != 0 && System.currentTimeMillis() - writeTime > WRITE_TIMEOUT_MILLIS)
+      {
+        abortStalledWrite();
+      }
+    }
+  };
 
   /**
    * Creates a new Session.
@@ -113,8 +221,6 @@ public final class Session extends DirectoryThread implements Closeable
   public Session(final Socket socket,
                  final SSLSocket secureSocket) throws IOException
   {
-    super("Replication Session from "+ socket.getLocalSocketAddress() +
-        " to " + socket.getRemoteSocketAddress());
     if (logger.isTraceEnabled())
     {
       logger.trace(
@@ -129,7 +235,7 @@ public final class Session extends DirectoryThread implements Closeable
     this.plainInput = plainSocket.getInputStream();
     this.plainOutput = plainSocket.getOutputStream();
     this.input = new BufferedInputStream(secureSocket.getInputStream());
-    this.output = new BufferedOutputStream(secureSocket.getOutputStream());
+    this.output = new BufferedOutputStream(secureSocket.getOutputStream(), OUTPUT_BUFFER_SIZE);
     this.readableRemoteAddress = plainSocket.getRemoteSocketAddress().toString();
     this.remoteAddress = new HostPort(plainSocket.getInetAddress().getHostAddress(), plainSocket.getPort());
     this.localUrl = new HostPort(plainSocket.getLocalAddress().getHostName(), plainSocket.getLocalPort());
@@ -157,13 +263,9 @@ public final class Session extends DirectoryThread implements Closeable
       closeInitiated = true;
     }
 
-    try {
-      interrupt();
-      join();
-    }
-    catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-    }
+    // Pending messages are dropped, and the StopMsg is written directly.
+    asynchronousPublish = false;
+    sendQueue.clear();
 
     // Perform close outside of critical section.
     if (logger.isTraceEnabled())
@@ -200,7 +302,41 @@ public final class Session extends DirectoryThread implements Closeable
       }
     }
 
-    StaticUtils.close(plainSocket, secureSocket);
+    /*
+     * Wait for the batch being written, if any, so that it is not cut off by
+     * closing the socket. Stalled writes are aborted by the watchdog.
+     */
+    boolean locked = false;
+    try
+    {
+      locked = publishLock.tryLock(WRITE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    catch (final InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    try
+    {
+      StaticUtils.close(plainSocket, secureSocket);
+      if (locked && deflater != null)
+      {
+        deflater.end();
+        deflater = null;
+      }
+    }
+    finally
+    {
+      if (locked)
+      {
+        publishLock.unlock();
+      }
+    }
+    final ScheduledFuture<?> localWatchdogTask = watchdogTask;
+    if (localWatchdogTask != null)
+    {
+      localWatchdogTask.cancel(false);
+    }
+    // The inflater may still be in use by the receiving thread, leave it to the garbage collector.
   }
 
 
@@ -297,6 +433,91 @@ public final class Session extends DirectoryThread implements Closeable
 
 
 
+  /**
+   * Accepts compressed messages from the remote peer. This must be called
+   * before advertising to the peer that compressed messages are accepted.
+   */
+  public void acceptCompression()
+  {
+    compressionAccepted = true;
+  }
+
+
+
+  /**
+   * Starts compressing the messages sent to the remote peer. This must only be
+   * called once the handshake is complete, and if the peer advertised that it
+   * accepts compressed messages.
+   *
+   * @return true if the messages sent are now compressed, false if the session
+   *         is closing.
+   */
+  public boolean startCompression()
+  {
+    publishLock.lock();
+    try
+    {
+      if (deflater == null && !closeInitiated)
+      {
+        deflater = new Deflater(Deflater.BEST_SPEED);
+        compressBuffer = new byte[OUTPUT_BUFFER_SIZE];
+        compressionEnabled = true;
+      }
+      return deflater != null;
+    }
+    finally
+    {
+      publishLock.unlock();
+    }
+  }
+
+
+
+  /**
+   * Determine whether the messages sent on this session are compressed.
+   * @return true if the messages sent are compressed, false otherwise.
+   */
+  public boolean isCompressionEnabled()
+  {
+    return compressionEnabled;
+  }
+
+
+
+  /**
+   * Returns the compression ratio of the messages sent on this session, that
+   * is their size before compression divided by their size after compression.
+   *
+   * @return the compression ratio of the messages sent, or 1 if no message
+   *         was compressed.
+   */
+  public double getSentCompressionRatio()
+  {
+    return ratio(sentUncompressedBytes, sentCompressedBytes);
+  }
+
+
+
+  /**
+   * Returns the compression ratio of the messages received on this session,
+   * that is their size before compression divided by their size after
+   * compression.
+   *
+   * @return the compression ratio of the messages received, or 1 if no message
+   *         was compressed.
+   */
+  public double getReceivedCompressionRatio()
+  {
+    return ratio(rcvUncompressedBytes, rcvCompressedBytes);
+  }
+
+  private static double ratio(long uncompressedBytes, long compressedBytes)
+  {
+    return compressedBytes != 0 ? (double) uncompressedBytes / compressedBytes : 1;
+  }
+
+
+
   /**
    * Sends a replication message to the remote peer.
    *
@@ -313,7 +534,7 @@ public final class Session extends DirectoryThread implements Closeable
       // skip anything that cannot be encoded for this peer.
       return;
     }
-    if (isRunning.get())
+    if (asynchronousPublish)
     {
       while (!closeInitiated)
       {
@@ -322,6 +543,7 @@ public final class Session extends DirectoryThread implements Closeable
           // Avoid blocking forever so that we can check for session closure.
           if (sendQueue.offer(buffer, 100, TimeUnit.MILLISECONDS))
           {
+            scheduleFlush();
             return;
           }
         }
@@ -346,9 +568,6 @@ public final class Session extends DirectoryThread implements Closeable
    */
   private void send(final byte[] buffer) throws IOException
   {
-    final String str = String.format("%08x", buffer.length);
-    final byte[] sendLengthBuf = str.getBytes();
-
     publishLock.lock();
     try
     {
@@ -356,8 +575,7 @@ public final class Session extends DirectoryThread implements Closeable
        * The buffered output stream ensures that the message is usually sent as
        * a single TCP packet.
        */
-      output.write(sendLengthBuf);
-      output.write(buffer);
+      write(buffer);
       output.flush();
     } catch (final IOException e) {
       setSessionError(e);
@@ -371,6 +589,198 @@ public final class Session extends DirectoryThread implements Closeable
     lastPublishTime = System.currentTimeMillis();
   }
 
+  /**
+   * Sends replication messages already encoded to the socket, with a single
+   * flush. Nothing is sent once the session close has been initiated.
+   *
+   * @param buffers
+   *          the encoded buffers
+   * @throws IOException if the messages could not be sent
+   */
+  private void send(final List<byte[]> buffers) throws IOException
+  {
+    publishLock.lock();
+    try
+    {
+      if (closeInitiated)
+      {
+        return;
+      }
+      for (final byte[] buffer : buffers)
+      {
+        batchWriteTime = System.currentTimeMillis();
+        write(buffer);
+      }
+      batchWriteTime = System.currentTimeMillis();
+      output.flush();
+    } catch (final IOException e) {
+      setSessionError(e);
+      throw e;
+    }
+    finally
+    {
+      batchWriteTime = 0;
+      publishLock.unlock();
+    }
+
+    lastPublishTime = System.currentTimeMillis();
+  }
+
+  /**
+   * Writes a message preceded by its length as 8 hexadecimal digits, compressing it if compression has started.
+   * publishLock must be held.
+   */
+  private void write(final byte[] buffer) throws IOException
+  {
+    if (deflater != null && buffer.length >= MIN_COMPRESSED_SIZE)
+    {
+      final int length = compress(buffer);
+      writeLength(length);
+      output.write(compressBuffer, 0, length);
+    }
+    else
+    {
+      writeLength(buffer.length);
+      output.write(buffer);
+    }
+  }
+
+  private void writeLength(int length) throws IOException
+  {
+    for (int i = sendLengthBuf.length - 1; i >= 0; i--)
+    {
+      sendLengthBuf[i] = HEX_DIGITS[length & 0xF];
+      length >>>= 4;
+    }
+    output.write(sendLengthBuf);
+  }
+
+  /**
+   * Compresses a message into compressBuffer, in the form:
+   * <message type><uncompressed length on 4 bytes><deflated message>
+   * The deflater is flushed so that the message can be decompressed on its own,
+   * but it keeps the previous messages as dictionary.
+   *
+   * @return the length of the compressed message
+   */
+  private int compress(final byte[] buffer)
+  {
+    compressBuffer[0] = ReplicationMsg.MSG_TYPE_COMPRESSED;
+    compressBuffer[1] = (byte) (buffer.length >>> 24);
+    compressBuffer[2] = (byte) (buffer.length >>> 16);
+    compressBuffer[3] = (byte) (buffer.length >>> 8);
+    compressBuffer[4] = (byte) buffer.length;
+    deflater.setInput(buffer);
+    int length = COMPRESSED_HEADER_SIZE;
+    while (true)
+    {
+      length += deflater.deflate(compressBuffer, length, compressBuffer.length - length, Deflater.SYNC_FLUSH);
+      if (length < compressBuffer.length)
+      {
+        break;
+      }
+      // The output is complete only when the buffer is not full
+      compressBuffer = Arrays.copyOf(compressBuffer, compressBuffer.length * 2);
+    }
+    sentUncompressedBytes += buffer.length;
+    sentCompressedBytes += length;
+    return length;
+  }
+
+  /**
+   * Decompresses a message compressed by {@link #compress(byte[])}.
+   *
+   * @return the decompressed message
+   */
+  private byte[] decompress(final byte[] buffer) throws DataFormatException
+  {
+    if (buffer.length < COMPRESSED_HEADER_SIZE)
+    {
+      throw new DataFormatException("Compressed message is too short");
+    }
+    final int length = (buffer[1] & 0xFF) << 24 | (buffer[2] & 0xFF) << 16 | (buffer[3] & 0xFF) << 8
+        | (buffer[4] & 0xFF);
+    if (length < 0)
+    {
+      throw new DataFormatException("Invalid uncompressed length " + length);
+    }
+    if (inflater == null)
+    {
+      inflater = new Inflater();
+    }
+    final byte[] result = new byte[length];
+    inflater.setInput(buffer, COMPRESSED_HEADER_SIZE, buffer.length - COMPRESSED_HEADER_SIZE);
+    int inflated = 0;
+    while (inflated < length)
+    {
+      final int n = inflater.inflate(result, inflated, length - inflated);
+      if (n == 0 && (inflater.needsInput() || inflater.finished() || inflater.needsDictionary()))
+      {
+        throw new DataFormatException("Compressed message is truncated");
+      }
+      inflated += n;
+    }
+    // Consume the end of the flushed block, so that the next message starts on a block boundary
+    final byte[] extra = new byte[1];
+    while (!inflater.needsInput())
+    {
+      if (inflater.inflate(extra) != 0 || inflater.finished())
+      {
+        throw new DataFormatException("Compressed message is longer than " + length + " bytes");
+      }
+    }
+    rcvUncompressedBytes += length;
+    rcvCompressedBytes += buffer.length;
+    return result;
+  }
+
+  private void scheduleFlush()
+  {
+    if (flushScheduled.compareAndSet(false, true))
+    {
+      Writers.EXECUTOR.execute(flushTask);
+    }
+  }
+
+  /** Writes the queued messages, run by the writers for one session at a time. */
+  private void flushQueue()
+  {
+    try
+    {
+      sendQueue.drainTo(batch, MAX_BATCH_SIZE);
+      send(batch);
+    }
+    catch (final IOException e)
+    {
+      // Leave the flush scheduled so that nothing else is written.
+      close();
+      return;
+    }
+    finally
+    {
+      batch.clear();
+    }
+
+    flushScheduled.set(false);
+    // Reschedule rather than loop, so that a busy session does not monopolize a writer,
+    // and to send the messages queued while the flag was still set.
+    if (!sendQueue.isEmpty() && !closeInitiated)
+    {
+      scheduleFlush();
+    }
+  }
+
+  /**
+   * Aborts the session when the writer made no progress for {@link #WRITE_TIMEOUT_MILLIS}: closing the socket
+   * releases the shared writer, which then closes the session.
+   */
+  private void abortStalledWrite()
+  {
+    setSessionError(new SocketTimeoutException("Writing to " + readableRemoteAddress + " made no progress for "
+        + WRITE_TIMEOUT_MILLIS + " ms"));
+    StaticUtils.close(plainSocket, secureSocket);
+  }
+
 
 
   /**
@@ -413,6 +823,11 @@ public final class Session extends DirectoryThread implements Closeable
          * processing a message even a time consuming one.
          */
         lastReceiveTime = 0;
+        if (compressionAccepted
+            && buffer.length > 0 && buffer[0] == ReplicationMsg.MSG_TYPE_COMPRESSED)
+        {
+          return ReplicationMsg.generateMsg(decompress(buffer), protocolVersion);
+        }
         return ReplicationMsg.generateMsg(buffer, protocolVersion);
       }
       catch (final OutOfMemoryError e)
@@ -502,7 +917,7 @@ public final class Session extends DirectoryThread implements Closeable
     }
 
     input = new BufferedInputStream(plainInput);
-    output = new BufferedOutputStream(plainOutput);
+    output = new BufferedOutputStream(plainOutput, OUTPUT_BUFFER_SIZE);
     isEncrypted = false;
   }
 
@@ -520,58 +935,14 @@ public final class Session extends DirectoryThread implements Closeable
   }
 
   /**
-   * Run method for the Session.
-   * Loops waiting for buffers from the queue and sends them when available.
-   */
-  @Override
-  public void run()
-  {
-    isRunning.set(true);
-    latch.countDown();
-    if (logger.isTraceEnabled())
-    {
-      logger.trace(getName() + " starting.");
-    }
-    boolean needClosing = false;
-    while (!closeInitiated)
-    {
-      byte[] buffer;
-      try
-      {
-        buffer = sendQueue.take();
-      }
-      catch (InterruptedException ie)
-      {
-        break;
-      }
-      try
-      {
-        send(buffer);
-      }
-      catch (IOException e)
-      {
-        setSessionError(e);
-        needClosing = true;
-      }
-    }
-    isRunning.set(false);
-    if (needClosing)
-    {
-      close();
-    }
-    if (logger.isTraceEnabled())
-    {
-      logger.trace(getName() + " stopped.");
-    }
-  }
-
-  /**
-   * This method can be called to wait until the session thread is
-   * properly started.
-   * @throws InterruptedException when interrupted
+   * Starts publishing messages asynchronously: from now on, the messages are
+   * queued by {@link #publish(ReplicationMsg)} and written in batches by the
+   * shared writer threads.
    */
-  public void waitForStartup() throws InterruptedException
+  public void startAsynchronousPublish()
   {
-    latch.await();
+    watchdogTask = Writers.WATCHDOG.scheduleWithFixedDelay(
+        watchdogCheck, WRITE_TIMEOUT_MILLIS / 10, WRITE_TIMEOUT_MILLIS / 10, TimeUnit.MILLISECONDS);
+    asynchronousPublish = true;
   }
 }
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -58,6 +59,11 @@ public class StartSessionMsg extends ReplicationMsg
 
   private Set<String> eclIncludes = new HashSet<>();
   private Set<String> eclIncludesForDeletes = new HashSet<>();
+  /**
+   * Whether the DS accepts compressed messages. Encoded as an optional trailing
+   * element, ignored by the RSs which do not support compression.
+   */
+  private boolean compressionAccepted;
 
   /**
    * Creates a new StartSessionMsg message from its encoded form.
@@ -152,6 +158,11 @@ public class StartSessionMsg extends ReplicationMsg
         writer.writeEndSequence();
       }
 
+      if (compressionAccepted)
+      {
+        writer.writeBoolean(true);
+      }
+
       return byteBuilder.toByteArray();
     }
     catch (Exception e)
@@ -243,6 +254,11 @@ public class StartSessionMsg extends ReplicationMsg
         // Default to using the same set of attributes for deletes.
         this.eclIncludesForDeletes.addAll(eclIncludes);
       }
+
+      if (asn1Reader.hasNextElement())
+      {
+        compressionAccepted = asn1Reader.readBoolean();
+      }
     }
     catch (Exception e)
     {
@@ -307,7 +323,8 @@ public class StartSessionMsg extends ReplicationMsg
       "\nsafeDataLevel: " + safeDataLevel +
       "\nreferralsURLs: " + urls +
       "\nEclIncludes " + eclIncludes +
-      "\nEclIncludeForDeletes: " + eclIncludesForDeletes;
+      "\nEclIncludeForDeletes: " + eclIncludesForDeletes +
+      "\ncompressionAccepted: " + compressionAccepted;
   }
 
   /**
@@ -382,4 +399,25 @@ public class StartSessionMsg extends ReplicationMsg
     return eclIncludesForDeletes;
   }
 
+  /**
+   * Returns whether the DS accepts compressed messages from the RS.
+   *
+   * @return whether the DS accepts compressed messages from the RS.
+   */
+  public boolean isCompressionAccepted()
+  {
+    return compressionAccepted;
+  }
+
+  /**
+   * Sets whether the DS accepts compressed messages from the RS.
+   *
+   * @param compressionAccepted
+   *          whether the DS accepts compressed messages from the RS.
+   */
+  public void setCompressionAccepted(boolean compressionAccepted)
+  {
+    this.compressionAccepted = compressionAccepted;
+  }
+
 }
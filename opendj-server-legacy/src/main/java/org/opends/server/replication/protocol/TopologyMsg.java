@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -48,6 +49,11 @@ public class TopologyMsg extends ReplicationMsg
   private final Map<Integer, DSInfo> replicaInfos;
   /** Information for the RSs known in the topology. */
   private final List<RSInfo> rsInfos;
+  /**
+   * Whether the sender accepts compressed messages. Encoded as an optional
+   * trailing boolean, ignored by the peers which do not support compression.
+   */
+  private boolean compressionAccepted;
 
   /**
    * Creates a new changelogInfo message from its encoded form.
@@ -86,6 +92,8 @@ public class TopologyMsg extends ReplicationMsg
       nRsInfo--;
     }
 
+    compressionAccepted = !scanner.isEmpty() && scanner.nextBoolean();
+
     this.replicaInfos = Collections.unmodifiableMap(replicaInfos);
     this.rsInfos = Collections.unmodifiableList(rsInfos);
   }
@@ -195,6 +203,7 @@ public class TopologyMsg extends ReplicationMsg
      * Message has the following form:
      * <pdu type><number of following DSInfo entries>[<DSInfo>]*
      * <number of following RSInfo entries>[<RSInfo>]*
+     * [<compression accepted>]
      */
     final ByteArrayBuilder builder = new ByteArrayBuilder();
     builder.appendByte(MSG_TYPE_TOPOLOGY);
@@ -244,6 +253,11 @@ public class TopologyMsg extends ReplicationMsg
       }
     }
 
+    if (compressionAccepted)
+    {
+      builder.appendBoolean(true);
+    }
+
     return builder.toByteArray();
   }
 
@@ -293,4 +307,25 @@ public class TopologyMsg extends ReplicationMsg
   {
     return rsInfos;
   }
+
+  /**
+   * Returns whether the sender accepts compressed messages.
+   *
+   * @return whether the sender accepts compressed messages.
+   */
+  public boolean isCompressionAccepted()
+  {
+    return compressionAccepted;
+  }
+
+  /**
+   * Sets whether the sender accepts compressed messages.
+   *
+   * @param compressionAccepted
+   *          whether the sender accepts compressed messages.
+   */
+  public void setCompressionAccepted(boolean compressionAccepted)
+  {
+    this.compressionAccepted = compressionAccepted;
+  }
 }
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -350,7 +351,7 @@ public class DataServerHandler extends ServerHandler
   {
     TopologyMsg outTopoMsg = replicationServerDomain
         .createTopologyMsgForDS(this.serverId);
-    sendTopoInfo(outTopoMsg);
+    sendHandshakeTopoInfo(outTopoMsg);
     return outTopoMsg;
   }
 
@@ -565,6 +566,7 @@ public class DataServerHandler extends ServerHandler
     this.safeDataLevel = startSessionMsg.getSafeDataLevel();
     this.eclIncludes = startSessionMsg.getEclIncludes();
     this.eclIncludesForDeletes = startSessionMsg.getEclIncludesForDeletes();
+    this.compressionAcceptedByPeer = startSessionMsg.isCompressionAccepted();
 
     /*
      * If we have already a generationID set for the domain
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -1091,6 +1092,18 @@ public class ReplicationServer
     return this.config.getDegradedStatusThreshold();
   }
 
+  /**
+   * Returns whether the messages sent by this replication server are
+   * compressed, when the remote server supports it.
+   *
+   * @return whether the messages sent by this replication server are
+   *         compressed
+   */
+  public boolean isCompressionEnabled()
+  {
+    return this.config.isCompressionEnabled();
+  }
+
   /**
    * Get the monitoring publisher period value.
    * <p>
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -220,7 +221,7 @@ public class ReplicationServerHandler extends ServerHandler
         */
         TopologyMsg outTopoMsg =
             replicationServerDomain.createTopologyMsgForRS();
-        sendTopoInfo(outTopoMsg);
+        sendHandshakeTopoInfo(outTopoMsg);
 
         // wait and process Topo from remote RS
         TopologyMsg inTopoMsg = waitAndProcessTopoFromRemoteRS();
@@ -331,7 +332,7 @@ public class ReplicationServerHandler extends ServerHandler
         // send our own TopologyMsg to remote RS
         TopologyMsg outTopoMsg = replicationServerDomain
             .createTopologyMsgForRS();
-        sendTopoInfo(outTopoMsg);
+        sendHandshakeTopoInfo(outTopoMsg);
 
         logTopoHandshakeRCVandSND(inTopoMsg, outTopoMsg);
       }
@@ -435,6 +436,7 @@ public class ReplicationServerHandler extends ServerHandler
 
     // Remote RS sent his topo msg
     TopologyMsg inTopoMsg = (TopologyMsg) msg;
+    compressionAcceptedByPeer = inTopoMsg.isCompressionAccepted();
 
     /* Store remote RS weight if it has one.
      * For protocol version < 4, use default value of 1 for weight
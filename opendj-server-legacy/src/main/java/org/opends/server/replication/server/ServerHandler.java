@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -166,6 +167,9 @@ public abstract class ServerHandler extends MessageHandler
   /** Weight of this remote server. */
   protected int weight = 1;
 
+  /** Whether the remote server advertised during the handshake that it accepts compressed messages. */
+  protected boolean compressionAcceptedByPeer;
+
   /**
    * Creates a new server handler instance with the provided socket.
    *
@@ -292,20 +296,11 @@ public abstract class ServerHandler extends MessageHandler
           replicationServer.getDSRSShutdownSync());
       reader = new ServerReader(session, this);
 
-      session.setName("Replication server RS(" + getReplicationServerId()
-          + ") session thread to " + this + " at "
-          + session.getReadableRemoteAddress());
-      session.start();
-      try
+      if (replicationServer.isCompressionEnabled() && compressionAcceptedByPeer)
       {
-        session.waitForStartup();
-      }
-      catch (InterruptedException e)
-      {
-        final LocalizableMessage message =
-            ERR_SESSION_STARTUP_INTERRUPTED.get(session.getName());
-        throw new DirectoryException(ResultCode.OTHER, message, e);
+        session.startCompression();
       }
+      session.startAsynchronousPublish();
       reader.start();
       writer.start();
 
@@ -523,6 +518,11 @@ public abstract class ServerHandler extends MessageHandler
     // Encryption
     attributes.add("ssl-encryption", session.isEncrypted());
 
+    // Compression
+    attributes.add("compression-enabled", session.isCompressionEnabled());
+    attributes.add("sent-compression-ratio", session.getSentCompressionRatio());
+    attributes.add("received-compression-ratio", session.getReceivedCompressionRatio());
+
     // Data generation
     attributes.add("generation-id", generationId);
 
@@ -847,6 +847,25 @@ public abstract class ServerHandler extends MessageHandler
     }
   }
 
+  /**
+   * Sends the provided TopologyMsg to the peer server during the handshake,
+   * advertising whether this replication server accepts compressed messages.
+   *
+   * @param topoMsg
+   *          The TopologyMsg message to be sent.
+   * @throws IOException
+   *           When it occurs while sending the message,
+   */
+  protected void sendHandshakeTopoInfo(TopologyMsg topoMsg) throws IOException
+  {
+    if (replicationServer.isCompressionEnabled())
+    {
+      session.acceptCompression();
+      topoMsg.setCompressionAccepted(true);
+    }
+    sendTopoInfo(topoMsg);
+  }
+
   /**
    * Set a new generation ID.
    *
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -23,7 +24,6 @@ import java.io.Closeable;
 import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ByteStringBuilder;
@@ -44,6 +44,10 @@ import org.opends.server.util.StaticUtils;
  * <p>
  * The reader provides both sequential access, using the {@code readRecord()} method,
  * and reasonably fast random access, using the {@code seekToRecord(K, boolean)} method.
+ * <p>
+ * The log file is read from its content, which is shared by all the readers of the file. Rotated log files may be
+ * stored compressed, see {@link CompressedLogFileContent}: positions then refer to the uncompressed content, so
+ * that seeking by blocks is unchanged.
  *
  * @param <K>
  *          Type of the key of a record, which must be comparable.
@@ -69,12 +73,15 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
 
   private final RecordParser<K, V> parser;
 
-  private final RandomAccessFile reader;
+  private final LogFileContent content;
 
   private final File file;
 
+  /** The position of this reader in the log file. */
+  private long position;
+
   /**
-   * Creates a reader for the provided file, file reader and parser.
+   * Creates a reader for the provided file, file content and parser.
    *
    * @param <K>
    *          Type of the key of a record, which must be comparable.
@@ -82,20 +89,20 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
    *          Type of the value of a record.
    * @param file
    *          The log file to read.
-   * @param reader
-   *          The random access reader on the log file.
+   * @param content
+   *          The content of the log file.
    * @param parser
    *          The parser to decode the records read.
    * @return a new log reader
    */
   static <K extends Comparable<K>, V> BlockLogReader<K, V> newReader(
-      final File file, final RandomAccessFile reader, final RecordParser<K, V> parser)
+      final File file, final LogFileContent content, final RecordParser<K, V> parser)
   {
-    return new BlockLogReader<>(file, reader, parser, BLOCK_SIZE);
+    return new BlockLogReader<>(file, content, parser, BLOCK_SIZE);
   }
 
   /**
-   * Creates a reader for the provided file, file reader, parser and block size.
+   * Creates a reader for the provided file, file content, parser and block size.
    * <p>
    * This method is intended for tests only, to allow tuning of the block size.
    *
@@ -105,8 +112,8 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
    *          Type of the value of a record.
    * @param file
    *          The log file to read.
-   * @param reader
-   *          The random access reader on the log file.
+   * @param content
+   *          The content of the log file.
    * @param parser
    *          The parser to decode the records read.
    * @param blockSize
@@ -115,16 +122,16 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
    * @return a new log reader
    */
   static <K extends Comparable<K>, V> BlockLogReader<K, V> newReaderForTests(
-      final File file, final RandomAccessFile reader, final RecordParser<K, V> parser, int blockSize)
+      final File file, final LogFileContent content, final RecordParser<K, V> parser, int blockSize)
   {
-    return new BlockLogReader<>(file, reader, parser, blockSize);
+    return new BlockLogReader<>(file, content, parser, blockSize);
   }
 
   private BlockLogReader(
-      final File file, final RandomAccessFile reader, final RecordParser<K, V> parser, final int blockSize)
+      final File file, final LogFileContent content, final RecordParser<K, V> parser, final int blockSize)
   {
     this.file = file;
-    this.reader = reader;
+    this.content = content;
     this.parser = parser;
     this.blockSize = blockSize;
   }
@@ -173,14 +180,11 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
    */
   public void seekToPosition(final long filePosition) throws ChangelogException
   {
-    try
-    {
-      reader.seek(filePosition);
-    }
-    catch (IOException e)
+    if (filePosition < 0)
     {
-      throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_SEEK.get(filePosition, file.getPath()), e);
+      throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_SEEK.get(filePosition, file.getPath()));
     }
+    position = filePosition;
   }
 
   /**
@@ -204,22 +208,17 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
    */
   public long getFilePosition() throws ChangelogException
   {
-    try
-    {
-      return reader.getFilePointer();
-    }
-    catch (IOException e)
-    {
-      throw new ChangelogException(
-          ERR_CHANGELOG_UNABLE_TO_GET_CURSOR_READER_POSITION_LOG_FILE.get(file.getPath()), e);
-    }
+    return position;
   }
 
-  /** {@inheritDoc} */
+  /**
+   * Closes this reader. The content of the log file is not closed, as it is
+   * shared by all the readers of the log file.
+   */
   @Override
-  public void close() throws IOException
+  public void close()
   {
-    reader.close();
+    // nothing to release
   }
 
   /**
@@ -246,7 +245,7 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
     }
     catch (Exception io)
     {
-      throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_DECODE_RECORD.get(reader.toString()), io);
+      throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_DECODE_RECORD.get(String.valueOf(content)), io);
     }
   }
 
@@ -262,21 +261,22 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
    */
   private void positionToRecordFromBlockStart(final long blockStartPosition) throws IOException
   {
-    reader.seek(blockStartPosition);
+    position = blockStartPosition;
     if (blockStartPosition > 0)
     {
-      final byte[] offsetData = new byte[SIZE_OF_BLOCK_OFFSET];
-      reader.readFully(offsetData);
-      final int offsetToRecord = ByteString.wrap(offsetData).toInt();
+      final int offsetToRecord = content.readInt(blockStartPosition);
+      position += SIZE_OF_BLOCK_OFFSET;
       if (offsetToRecord > 0)
       {
-        reader.seek(blockStartPosition - offsetToRecord);
+        position = blockStartPosition - offsetToRecord;
       } // if offset is zero, reader is already well positioned
     }
   }
 
   /**
    * Reads the next record.
+   * <p>
+   * The position of the reader is left unchanged if no record is available.
    *
    * @return the bytes of the next record, or {@code null} if no record is available
    * @throws IOException
@@ -284,20 +284,25 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
    */
   private ByteString readNextRecord() throws IOException
   {
+    // read length of record if not already at EOF
+    final long filePosition = position;
+    if (content.length() == filePosition)
+    {
+      return null;
+    }
     try
     {
-      // read length of record if not already at EOF
-      final long filePosition = reader.getFilePointer();
-      if (reader.length() == filePosition)
+      int distanceToBlockStart = getDistanceToNextBlockStart(filePosition, blockSize);
+      final int recordLength = readRecordLength(distanceToBlockStart);
+      if (recordLength == 0)
       {
+        // preallocated bytes which were never written
+        position = filePosition;
         return null;
       }
-      int distanceToBlockStart = getDistanceToNextBlockStart(filePosition, blockSize);
-      final int recordLength = readRecordLength(distanceToBlockStart);
 
       // read the record
-      long currentPosition = reader.getFilePointer();
-      distanceToBlockStart = getDistanceToNextBlockStart(currentPosition, blockSize);
+      distanceToBlockStart = getDistanceToNextBlockStart(position, blockSize);
       final ByteStringBuilder recordBytes =
           new ByteStringBuilder(getLengthOfStoredRecord(recordLength, distanceToBlockStart));
       int remainingBytesToRead = recordLength;
@@ -305,26 +310,27 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
       {
         if (distanceToBlockStart != 0)
         {
-          recordBytes.appendBytes(reader, distanceToBlockStart);
+          content.appendTo(recordBytes, position, distanceToBlockStart);
         }
         // skip the offset
-        reader.skipBytes(SIZE_OF_BLOCK_OFFSET);
+        position += distanceToBlockStart + SIZE_OF_BLOCK_OFFSET;
 
         // next step
-        currentPosition += distanceToBlockStart + SIZE_OF_BLOCK_OFFSET;
         remainingBytesToRead -= distanceToBlockStart;
         distanceToBlockStart = blockSize - SIZE_OF_BLOCK_OFFSET;
       }
       if (remainingBytesToRead > 0)
       {
         // last bytes of the record
-        recordBytes.appendBytes(reader, remainingBytesToRead);
+        content.appendTo(recordBytes, position, remainingBytesToRead);
+        position += remainingBytesToRead;
       }
       return recordBytes.toByteString();
     }
     catch (EOFException e)
     {
-      // end of stream, no record or uncomplete record
+      // end of file, uncomplete record
+      position = filePosition;
       return null;
     }
   }
@@ -354,24 +360,24 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
   /** Read the length of a record. */
   private int readRecordLength(final int distanceToBlockStart) throws IOException
   {
-    final ByteStringBuilder lengthBytes = new ByteStringBuilder(SIZE_OF_RECORD_SIZE);
     if (distanceToBlockStart > 0 && distanceToBlockStart < SIZE_OF_RECORD_SIZE)
     {
-      lengthBytes.appendBytes(reader, distanceToBlockStart);
+      final ByteStringBuilder lengthBytes = new ByteStringBuilder(SIZE_OF_RECORD_SIZE);
+      content.appendTo(lengthBytes, position, distanceToBlockStart);
       // skip the offset
-      reader.skipBytes(SIZE_OF_BLOCK_OFFSET);
-      lengthBytes.appendBytes(reader, SIZE_OF_RECORD_SIZE - distanceToBlockStart);
+      position += distanceToBlockStart + SIZE_OF_BLOCK_OFFSET;
+      content.appendTo(lengthBytes, position, SIZE_OF_RECORD_SIZE - distanceToBlockStart);
+      position += SIZE_OF_RECORD_SIZE - distanceToBlockStart;
+      return lengthBytes.toByteString().toInt();
     }
-    else
+    if (distanceToBlockStart == 0)
     {
-      if (distanceToBlockStart == 0)
-      {
-        // skip the offset
-        reader.skipBytes(SIZE_OF_BLOCK_OFFSET);
-      }
-      lengthBytes.appendBytes(reader, SIZE_OF_RECORD_SIZE);
+      // skip the offset
+      position += SIZE_OF_BLOCK_OFFSET;
     }
-    return lengthBytes.toByteString().toInt();
+    final int recordLength = content.readInt(position);
+    position += SIZE_OF_RECORD_SIZE;
+    return recordLength;
   }
 
   /**
@@ -428,16 +434,9 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
     return -1;
   }
 
-  private long getFileLength() throws ChangelogException
+  private long getFileLength()
   {
-    try
-    {
-      return reader.length();
-    }
-    catch (IOException e)
-    {
-      throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_RETRIEVE_FILE_LENGTH.get(file.getPath()), e);
-    }
+    return content.length();
   }
 
   /**
@@ -587,6 +586,11 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
    * The intent of this method is to allow self-recovery in case a partial
    * record as been written at the end of file (eg, after a server crash).
    * <p>
+   * A log file ending with a zero byte may still contain the bytes preallocated by
+   * a writer which was not closed. As the written pages of the file may have
+   * reached the disk in any order, the whole file is then read to find the first
+   * record which was not written.
+   * <p>
    * Any unexpected exception is considered as a severe error where
    * self-recovery is not appropriate and thus will lead to a
    * ChangelogException.
@@ -600,16 +604,18 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
  {
    try
    {
-     final long lastBlockStart = getClosestBlockStartToEndOfFile();
-     positionToRecordFromBlockStart(lastBlockStart);
+     final long fileLength = getFileLength();
+     final boolean mayBePreallocated = fileLength > 0 && content.isZeroBefore(fileLength);
+     final long firstBlockStart = mayBePreallocated ? 0 : getClosestBlockStartToEndOfFile();
+     positionToRecordFromBlockStart(firstBlockStart);
 
-     long lastValidPosition = lastBlockStart;
+     long lastValidPosition = firstBlockStart;
      for (ByteString recordData = readNextRecord(); recordData != null; recordData = readNextRecord()) {
        parser.decodeRecord(recordData);
-       lastValidPosition = reader.getFilePointer();
+       lastValidPosition = position;
      }
 
-     final boolean isFileValid = lastValidPosition == getFileLength();
+     final boolean isFileValid = lastValidPosition == fileLength;
      return isFileValid ? -1 : lastValidPosition;
    }
    catch (Exception e)
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -20,7 +21,6 @@ import static org.opends.server.replication.server.changelog.file.BlockLogReader
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.io.SyncFailedException;
 
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ByteStringBuilder;
@@ -142,11 +142,8 @@ class BlockLogWriter<K extends Comparable<K>, V> implements Closeable
 
   /**
    * Synchronize all modifications to the log file to the underlying device.
-   *
-   * @throws SyncFailedException
-   *           If synchronization fails.
    */
-  public void sync() throws SyncFailedException
+  public void sync()
   {
     writer.sync();
   }
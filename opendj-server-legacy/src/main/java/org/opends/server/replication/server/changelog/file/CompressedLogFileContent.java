@@ -0,0 +1,354 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import static java.nio.file.StandardOpenOption.*;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+
+/**
+ * The content of a compressed log file.
+ * <p>
+ * Rotated log files are compressed by chunks of {@link #CHUNK_SIZE} bytes, each chunk being deflated on its own. The
+ * compressed file starts with a header, followed by the positions of the chunks in the file, then by the chunks:
+ *
+ * <pre>
+ * magic (int) | chunk size (int) | uncompressed length (long) | number of chunks N (int)
+ * position of chunk 0 (long) | ... | position of chunk N - 1 (long) | end of chunk N - 1 (long)
+ * chunk 0 | ... | chunk N - 1
+ * </pre>
+ *
+ * Positions in the content are positions in the uncompressed log file, so that a {@link BlockLogReader} still seeks
+ * by blocks: reading a block only inflates the chunk containing it. Each reader caches the last chunks it inflated,
+ * so that reading a file sequentially inflates each chunk once, whatever the number of concurrent readers.
+ */
+final class CompressedLogFileContent implements LogFileContent
+{
+  /** The first bytes of a compressed file: it is negative, so it can not be the length of a first record. */
+  private static final int MAGIC = 0xC0DEC10F;
+
+  /** Size of the chunks which are compressed independently. */
+  static final int CHUNK_SIZE = 64 * 1024;
+
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+
+  /** Number of inflated chunks kept in memory by each reader, each chunk having a single slot given by its index. */
+  private static final int NB_CACHED_CHUNKS = 4;
+
+  /** The mapping of the compressed file. */
+  private final LogFileMapping mapping;
+  private final int chunkSize;
+  private final long length;
+  /** Positions of the chunks in the compressed file, followed by the end of the last chunk. */
+  private final long[] chunkPositions;
+  private final AtomicReferenceArray<InflatedChunk> cachedChunks = new AtomicReferenceArray<>(NB_CACHED_CHUNKS);
+  /** Whether this content is a view for a single reader, which does not own the mapping. */
+  private final boolean isReaderView;
+
+  /** A chunk, inflated. */
+  private static final class InflatedChunk
+  {
+    private final int index;
+    private final byte[] bytes;
+
+    private InflatedChunk(int index, byte[] bytes)
+    {
+      this.index = index;
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * Creates the content of a compressed file.
+   *
+   * @param mapping
+   *          the mapping of the compressed file, which is closed with this content
+   * @throws IOException
+   *           if the header of the file cannot be read
+   */
+  CompressedLogFileContent(LogFileMapping mapping) throws IOException
+  {
+    this.mapping = mapping;
+    this.chunkSize = mapping.readInt(4);
+    this.length = mapping.readLong(8);
+    final int nbChunks = mapping.readInt(16);
+    this.chunkPositions = new long[nbChunks + 1];
+    for (int i = 0; i <= nbChunks; i++)
+    {
+      chunkPositions[i] = mapping.readLong(HEADER_SIZE + 8L * i);
+    }
+    this.isReaderView = false;
+  }
+
+  /** Creates a view of the provided content, with its own cache of inflated chunks. */
+  private CompressedLogFileContent(CompressedLogFileContent content)
+  {
+    this.mapping = content.mapping;
+    this.chunkSize = content.chunkSize;
+    this.length = content.length;
+    this.chunkPositions = content.chunkPositions;
+    this.isReaderView = true;
+  }
+
+  /**
+   * Indicates whether the provided file is compressed.
+   *
+   * @param mapping
+   *          the mapping of the file
+   * @return {@code true} if the file is compressed
+   * @throws IOException
+   *           if the file cannot be read
+   */
+  static boolean isCompressed(LogFileMapping mapping) throws IOException
+  {
+    return mapping.length() >= HEADER_SIZE && mapping.readInt(0) == MAGIC;
+  }
+
+  /**
+   * Indicates whether the provided log file is compressed.
+   *
+   * @param logFile
+   *          the log file
+   * @return {@code true} if the file is compressed
+   * @throws IOException
+   *           if the file cannot be read
+   */
+  static boolean isCompressed(File logFile) throws IOException
+  {
+    try (LogFileMapping mapping = new LogFileMapping(logFile, null))
+    {
+      return isCompressed(mapping);
+    }
+  }
+
+  /**
+   * Writes a compressed copy of the provided log file, which must be complete and no longer written.
+   * <p>
+   * Compression is abandoned as soon as it does not reduce the size of the file, for example when records are
+   * encrypted.
+   *
+   * @param logFile
+   *          the log file to compress
+   * @param compressedFile
+   *          the file to write the compressed log file to, replaced if it exists
+   * @return {@code true} if the compressed file was written, {@code false} if compression was abandoned, in which
+   *         case the compressed file is incomplete
+   * @throws IOException
+   *           if an error occurs while reading the log file or writing the compressed file
+   */
+  static boolean compress(File logFile, File compressedFile) throws IOException
+  {
+    try (LogFileMapping source = new LogFileMapping(logFile, null);
+        FileChannel channel = FileChannel.open(compressedFile.toPath(), CREATE, TRUNCATE_EXISTING, WRITE))
+    {
+      final long length = source.length();
+      final int nbChunks = (int) ((length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+      final long[] chunkPositions = new long[nbChunks + 1];
+      final long firstChunkPosition = HEADER_SIZE + 8L * chunkPositions.length;
+      long position = firstChunkPosition;
+      final ByteStringBuilder chunk = new ByteStringBuilder(CHUNK_SIZE);
+      final byte[] buffer = new byte[CHUNK_SIZE];
+      final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+      try
+      {
+        for (int i = 0; i < nbChunks; i++)
+        {
+          chunkPositions[i] = position;
+          final long chunkStart = (long) i * CHUNK_SIZE;
+          chunk.clear();
+          source.appendTo(chunk, chunkStart, (int) Math.min(CHUNK_SIZE, length - chunkStart));
+          deflater.reset();
+          deflater.setInput(chunk.getBackingArray(), 0, chunk.length());
+          deflater.finish();
+          while (!deflater.finished())
+          {
+            final int compressedLength = deflater.deflate(buffer);
+            write(channel, ByteBuffer.wrap(buffer, 0, compressedLength), position);
+            position += compressedLength;
+          }
+          if (position - firstChunkPosition >= chunkStart + chunk.length())
+          {
+            return false;
+          }
+        }
+        chunkPositions[nbChunks] = position;
+      }
+      finally
+      {
+        deflater.end();
+      }
+      if (position >= length)
+      {
+        return false;
+      }
+
+      final ByteBuffer header = ByteBuffer.allocate((int) firstChunkPosition);
+      header.putInt(MAGIC).putInt(CHUNK_SIZE).putLong(length).putInt(nbChunks);
+      for (long chunkPosition : chunkPositions)
+      {
+        header.putLong(chunkPosition);
+      }
+      header.flip();
+      write(channel, header, 0);
+      channel.force(true);
+      return true;
+    }
+  }
+
+  private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+  {
+    long pos = position;
+    while (buffer.hasRemaining())
+    {
+      pos += channel.write(buffer, pos);
+    }
+  }
+
+  @Override
+  public long length()
+  {
+    return length;
+  }
+
+  @Override
+  public void appendTo(ByteStringBuilder builder, long position, int length) throws IOException
+  {
+    checkBounds(position, length);
+    long pos = position;
+    int remaining = length;
+    while (remaining > 0)
+    {
+      final byte[] chunk = getChunk((int) (pos / chunkSize));
+      final int offset = (int) (pos % chunkSize);
+      final int bytesToRead = Math.min(remaining, chunk.length - offset);
+      builder.appendBytes(chunk, offset, bytesToRead);
+      pos += bytesToRead;
+      remaining -= bytesToRead;
+    }
+  }
+
+  @Override
+  public int readInt(long position) throws IOException
+  {
+    checkBounds(position, 4);
+    int value = 0;
+    for (long pos = position; pos < position + 4; pos++)
+    {
+      value = (value << 8) | (byteAt(pos) & 0xFF);
+    }
+    return value;
+  }
+
+  @Override
+  public boolean isZeroBefore(long position) throws IOException
+  {
+    checkBounds(position - 1, 1);
+    return byteAt(position - 1) == 0;
+  }
+
+  private byte byteAt(long position) throws IOException
+  {
+    return getChunk((int) (position / chunkSize))[(int) (position % chunkSize)];
+  }
+
+  private void checkBounds(long position, int length) throws EOFException
+  {
+    if (position < 0 || position + length > this.length)
+    {
+      throw new EOFException();
+    }
+  }
+
+  /** Returns the bytes of the provided chunk, inflating it if it is not cached. */
+  private byte[] getChunk(int index) throws IOException
+  {
+    final int slot = index % NB_CACHED_CHUNKS;
+    final InflatedChunk cached = cachedChunks.get(slot);
+    if (cached != null && cached.index == index)
+    {
+      return cached.bytes;
+    }
+    final byte[] bytes = inflate(index);
+    cachedChunks.set(slot, new InflatedChunk(index, bytes));
+    return bytes;
+  }
+
+  private byte[] inflate(int index) throws IOException
+  {
+    final long chunkPosition = chunkPositions[index];
+    final ByteStringBuilder compressed = new ByteStringBuilder();
+    mapping.appendTo(compressed, chunkPosition, (int) (chunkPositions[index + 1] - chunkPosition));
+    // the inflater may need a dummy byte when there is no zlib wrapper
+    compressed.appendByte(0);
+
+    final byte[] bytes = new byte[(int) Math.min(chunkSize, length - (long) index * chunkSize)];
+    final Inflater inflater = new Inflater(true);
+    try
+    {
+      inflater.setInput(compressed.getBackingArray(), 0, compressed.length());
+      int inflated = 0;
+      while (inflated < bytes.length)
+      {
+        final int n = inflater.inflate(bytes, inflated, bytes.length - inflated);
+        if (n == 0 && (inflater.finished() || inflater.needsInput()))
+        {
+          throw new EOFException("Chunk " + index + " of " + mapping + " is truncated");
+        }
+        inflated += n;
+      }
+      return bytes;
+    }
+    catch (DataFormatException e)
+    {
+      throw new IOException(e);
+    }
+    finally
+    {
+      inflater.end();
+    }
+  }
+
+  @Override
+  public LogFileContent newReaderView()
+  {
+    return new CompressedLogFileContent(this);
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    if (!isReaderView)
+    {
+      mapping.close();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return mapping.toString();
+  }
+}
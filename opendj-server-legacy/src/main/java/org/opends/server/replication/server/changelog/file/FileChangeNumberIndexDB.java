@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -244,6 +245,20 @@ class FileChangeNumberIndexDB implements ChangeNumberIndexDB
     return new FileChangeNumberIndexDBCursor(log.getCursor(startChangeNumber));
   }
 
+  /**
+   * Synchronizes the records added to this DB with the file system.
+   *
+   * @throws ChangelogException
+   *           If the synchronization fails.
+   */
+  void syncToFileSystem() throws ChangelogException
+  {
+    if (!shutdown.get())
+    {
+      log.syncToFileSystem();
+    }
+  }
+
   /**
    * Shutdown this DB.
    */
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -108,6 +109,8 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
    */
   private volatile long purgeDelayInMillis;
   private final AtomicReference<ChangelogDBPurger> cnPurger = new AtomicReference<>();
+  /** The thread synchronizing all the DBs with the file system. */
+  private final AtomicReference<ChangelogDBSyncer> syncer = new AtomicReference<>();
 
   /** The local replication server. */
   private final ReplicationServer replicationServer;
@@ -285,6 +288,7 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
       replicationEnv = new ReplicationEnvironment(dbDirectory.getAbsolutePath(), replicationServer, TimeService.SYSTEM);
       final ChangelogState changelogState = replicationEnv.getChangelogState();
       initializeToChangelogState(changelogState);
+      startSyncer();
       if (replicationServer.isChangeNumberEnabled())
       {
         startIndexer();
@@ -334,6 +338,7 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
     }
 
     shutdownCNIndexerAndPurger();
+    shutdownSyncer();
 
     // Remember the first exception because :
     // - we want to try to remove everything we want to remove
@@ -405,6 +410,57 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
     }
   }
 
+  private void startSyncer()
+  {
+    final ChangelogDBSyncer newSyncer = new ChangelogDBSyncer();
+    if (syncer.compareAndSet(null, newSyncer))
+    {
+      newSyncer.start();
+    }
+  }
+
+  private void shutdownSyncer()
+  {
+    final ChangelogDBSyncer syncerToStop = syncer.getAndSet(null);
+    if (syncerToStop != null)
+    {
+      syncerToStop.initiateShutdown();
+      try
+      {
+        if (syncerToStop != Thread.currentThread())
+        {
+          syncerToStop.join();
+        }
+      }
+      catch (InterruptedException e)
+      {
+        // do nothing: we are already shutting down
+      }
+    }
+  }
+
+  /**
+   * Synchronizes the records added to all the DBs with the file system.
+   *
+   * @throws ChangelogException
+   *           If the synchronization fails.
+   */
+  private void syncToFileSystem() throws ChangelogException
+  {
+    for (final Map<Integer, FileReplicaDB> domainMap : domainToReplicaDBs.values())
+    {
+      for (final FileReplicaDB replicaDB : domainMap.values())
+      {
+        replicaDB.syncToFileSystem();
+      }
+    }
+    final FileChangeNumberIndexDB localCNIndexDB = cnIndexDB;
+    if (localCNIndexDB != null)
+    {
+      localCNIndexDB.syncToFileSystem();
+    }
+  }
+
   /**
    * Clears all records from the changelog (does not remove the changelog itself).
    *
@@ -1020,4 +1076,63 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
       }
     }
   }
+
+  /**
+   * The thread synchronizing the changelog with the file system.
+   * <p>
+   * The records appended to all the replicaDBs and to the change number index
+   * DB since the previous synchronization are flushed together at regular
+   * intervals, so that adding a record never waits for the file system.
+   */
+  private final class ChangelogDBSyncer extends DirectoryThread
+  {
+    private static final int SYNC_INTERVAL_IN_MILLIS = 100;
+
+    protected ChangelogDBSyncer()
+    {
+      super("Changelog DB syncer");
+    }
+
+    @Override
+    public void run()
+    {
+      while (!isShutdownInitiated())
+      {
+        try
+        {
+          synchronized (this)
+          {
+            if (!isShutdownInitiated())
+            {
+              wait(SYNC_INTERVAL_IN_MILLIS);
+            }
+          }
+          syncToFileSystem();
+        }
+        catch (InterruptedException e)
+        {
+          // shutdown initiated?
+        }
+        catch (Exception e)
+        {
+          logger.error(ERR_EXCEPTION_CHANGELOG_TRIM_FLUSH, stackTraceToSingleLineString(e));
+          if (replicationServer != null)
+          {
+            replicationServer.shutdown();
+          }
+          return;
+        }
+      }
+    }
+
+    @Override
+    public void initiateShutdown()
+    {
+      super.initiateShutdown();
+      synchronized (this)
+      {
+        notify(); // wake up the syncer thread for faster shutdown
+      }
+    }
+  }
 }
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -212,6 +213,20 @@ class FileReplicaDB
     return new FileReplicaDBCursor(cursor, actualStartCSN, positionStrategy);
   }
 
+  /**
+   * Synchronizes the changes added to this ReplicaDB with the file system.
+   *
+   * @throws ChangelogException
+   *           If the synchronization fails.
+   */
+  void syncToFileSystem() throws ChangelogException
+  {
+    if (!shutdown.get())
+    {
+      log.syncToFileSystem();
+    }
+  }
+
   /** Shutdown this ReplicaDB. */
   void shutdown()
   {
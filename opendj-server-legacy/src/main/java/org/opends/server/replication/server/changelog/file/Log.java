@@ -12,9 +12,11 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
+import static java.nio.file.StandardCopyOption.*;
 import static org.opends.messages.ReplicationMessages.*;
 import static org.opends.server.replication.server.changelog.api.DBCursor.KeyMatchingStrategy.*;
 import static org.opends.server.replication.server.changelog.api.DBCursor.PositionStrategy.*;
@@ -24,6 +26,7 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -32,6 +35,9 @@ import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -43,6 +49,7 @@ import org.forgerock.util.Pair;
 import org.forgerock.util.Reject;
 import org.forgerock.util.Utils;
 import org.forgerock.util.time.TimeService;
+import org.opends.server.api.DirectoryThread;
 import org.opends.server.replication.server.changelog.api.AbortedChangelogCursorException;
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.replication.server.changelog.api.DBCursor;
@@ -69,6 +76,10 @@ import org.opends.server.util.StaticUtils;
  * read-only file and a new empty head log file is opened. There is no limit on the
  * number of read-only files, but they can be purged.
  * <p>
+ * Read-only log files are compressed in the background once they are rotated,
+ * unless compression does not reduce their size: the head log file stays
+ * uncompressed for fast appends.
+ * <p>
  * A log is obtained using the {@code Log.openLog()} method and must always be
  * released using the {@code close()} method.
  * <p>
@@ -102,6 +113,9 @@ final class Log<K extends Comparable<K>, V> implements Closeable
 
   static final String HEAD_LOG_FILE_NAME = "head" + LOG_FILE_SUFFIX;
 
+  /** Suffix of the temporary file used to compress a read-only log file. */
+  private static final String COMPRESSED_LOG_FILE_SUFFIX = ".compressed";
+
   private static final String LOG_FILE_NAME_SEPARATOR = "_";
 
   private static final FileFilter READ_ONLY_LOG_FILES_FILTER = new FileFilter()
@@ -117,6 +131,22 @@ final class Log<K extends Comparable<K>, V> implements Closeable
   /** Map that holds the unique log instance for each log path. */
   private static final Map<File, Log<?, ?>> logsCache = new HashMap<>();
 
+  /** The executor compressing the read-only log files of all the logs, one at a time. */
+  private static final ExecutorService LOG_FILE_COMPRESSOR =
+      Executors.newSingleThreadExecutor(new LogFileCompressorThreadFactory());
+
+  /** Thread factory used by the log file compressor. */
+  private static final class LogFileCompressorThreadFactory implements ThreadFactory
+  {
+    @Override
+    public Thread newThread(Runnable r)
+    {
+      Thread t = new DirectoryThread(r, "Changelog log file compressor");
+      t.setDaemon(true);
+      return t;
+    }
+  }
+
   /**
    * The number of references on this log instance. It is incremented each time
    * a log is opened on the same log path. The log is effectively closed only
@@ -353,6 +383,8 @@ final class Log<K extends Comparable<K>, V> implements Closeable
       for (final File file : getReadOnlyLogFiles())
       {
         openReadOnlyLogFile(file);
+        // the log may have been closed before a rotated log file was compressed
+        compressReadOnlyLogFileInBackground(file);
       }
       isClosed = false;
     }
@@ -499,20 +531,27 @@ final class Log<K extends Comparable<K>, V> implements Closeable
    * <p>
    * After a successful call to this method, it is guaranteed that all records
    * added to the log are persisted to the file system.
+   * <p>
+   * Records can be appended concurrently, only the rotation of the head log
+   * file is blocked. The log files which were rotated have been synchronized
+   * when they were closed.
    *
    * @throws ChangelogException
    *           If the synchronization fails.
    */
   public void syncToFileSystem() throws ChangelogException
   {
-    exclusiveLock.lock();
+    sharedLock.lock();
     try
     {
-      getHeadLogFile().syncToFileSystem();
+      if (!isClosed)
+      {
+        getHeadLogFile().syncToFileSystem();
+      }
     }
     finally
     {
-      exclusiveLock.unlock();
+      sharedLock.unlock();
     }
   }
 
@@ -956,16 +995,17 @@ final class Log<K extends Comparable<K>, V> implements Closeable
   @GuardedBy("exclusiveLock")
   private void rotateHeadLogFile() throws ChangelogException
   {
+    final LogFile<K, V> headLogFile = getHeadLogFile();
     // Temporarily disable cursors opened on head, saving their state
-    final List<Pair<AbortableLogCursor<K, V>, CursorState<K, V>>> cursorsOnHead = disableOpenedCursorsOnHead();
+    final List<Pair<AbortableLogCursor<K, V>, CursorState<K, V>>> cursorsOnHead = disableOpenedCursorsOn(headLogFile);
 
-    final LogFile<K, V> headLogFile = getHeadLogFile();
     final File readOnlyLogFile = new File(logPath, generateReadOnlyFileName(headLogFile));
     headLogFile.close();
     renameHeadLogFileTo(readOnlyLogFile);
 
     openHeadLogFile();
     openReadOnlyLogFile(readOnlyLogFile);
+    compressReadOnlyLogFileInBackground(readOnlyLogFile);
 
     // Re-enable cursors previously opened on head, with the saved state
     updateOpenedCursorsOnHeadAfterRotation(cursorsOnHead);
@@ -989,6 +1029,127 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     }
   }
 
+  /** Compresses the provided read-only log file with the log file compressor. */
+  private void compressReadOnlyLogFileInBackground(final File readOnlyLogFile)
+  {
+    LOG_FILE_COMPRESSOR.execute(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        compressReadOnlyLogFile(readOnlyLogFile);
+      }
+    });
+  }
+
+  /**
+   * Waits for the completion of the compressions of the read-only log files
+   * requested so far, by all the logs.
+   * <p>
+   * This method is intended for tests only.
+   *
+   * @throws Exception
+   *           if the wait is interrupted
+   */
+  static void waitForLogFileCompressions() throws Exception
+  {
+    LOG_FILE_COMPRESSOR.submit(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        // all the compressions submitted before are complete
+      }
+    }).get();
+  }
+
+  /**
+   * Compresses the provided read-only log file, then replaces it by its compressed copy.
+   * <p>
+   * The log file is read while it is compressed, appends and cursors are only blocked
+   * while the compressed copy replaces it. The log file is replaced once the copy is
+   * complete and synced, so it is never lost. It is kept uncompressed if compression
+   * fails, or if the log file is purged or the log is closed in the meantime.
+   */
+  private void compressReadOnlyLogFile(final File readOnlyLogFile)
+  {
+    final File compressedLogFile = new File(logPath, readOnlyLogFile.getName() + COMPRESSED_LOG_FILE_SUFFIX);
+    try
+    {
+      if (!CompressedLogFileContent.isCompressed(readOnlyLogFile)
+          && CompressedLogFileContent.compress(readOnlyLogFile, compressedLogFile))
+      {
+        replaceByCompressedLogFile(readOnlyLogFile, compressedLogFile);
+      }
+    }
+    catch (IOException | ChangelogException e)
+    {
+      if (readOnlyLogFile.exists())
+      {
+        logger.warn(WARN_CHANGELOG_UNABLE_TO_COMPRESS_LOG_FILE.get(
+            readOnlyLogFile.getPath(), stackTraceToSingleLineString(e)));
+      }
+    }
+    finally
+    {
+      compressedLogFile.delete();
+    }
+  }
+
+  /**
+   * Replaces the provided read-only log file by its compressed copy.
+   * <p>
+   * The cursors opened on the log file are temporarily disabled, then re-opened on the
+   * compressed log file with their previous state: positions in a compressed log file
+   * are the positions in the uncompressed log file.
+   */
+  private void replaceByCompressedLogFile(final File readOnlyLogFile, final File compressedLogFile)
+      throws IOException, ChangelogException
+  {
+    exclusiveLock.lock();
+    try
+    {
+      final LogFile<K, V> logFile = findReadOnlyLogFile(readOnlyLogFile);
+      if (isClosed || logFile == null)
+      {
+        return;
+      }
+      final List<Pair<AbortableLogCursor<K, V>, CursorState<K, V>>> cursors = disableOpenedCursorsOn(logFile);
+      logFile.close();
+      try
+      {
+        Files.move(compressedLogFile.toPath(), readOnlyLogFile.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+      }
+      finally
+      {
+        final LogFile<K, V> newLogFile = openReadOnlyLogFile(readOnlyLogFile);
+        for (Pair<AbortableLogCursor<K, V>, CursorState<K, V>> pair : cursors)
+        {
+          final CursorState<K, V> cursorState = pair.getSecond();
+          pair.getFirst().reinitializeTo(new CursorState<>(newLogFile, cursorState.filePosition, cursorState.record));
+        }
+      }
+    }
+    finally
+    {
+      exclusiveLock.unlock();
+    }
+  }
+
+  /** Returns the opened read-only log file for the provided file, or {@code null} if there is none. */
+  @GuardedBy("exclusiveLock")
+  private LogFile<K, V> findReadOnlyLogFile(final File readOnlyLogFile)
+  {
+    for (LogFile<K, V> logFile : logFiles.values())
+    {
+      if (logFile.getFile().equals(readOnlyLogFile))
+      {
+        return logFile;
+      }
+    }
+    return null;
+  }
+
   /**
    * Returns the key bounds for the provided log file.
    *
@@ -1061,22 +1222,23 @@ final class Log<K extends Comparable<K>, V> implements Closeable
   }
 
   /**
-   * Disable the cursors opened on the head log file log, by closing their underlying cursor.
+   * Disable the cursors opened on the provided log file, by closing their underlying cursor.
    * Returns the state of each cursor just before the close operation.
    *
-   * @return the pairs (cursor, cursor state) for each cursor pointing to head log file.
+   * @param logFile
+   *          The log file, which is the head log file when rotating it.
+   * @return the pairs (cursor, cursor state) for each cursor pointing to the log file.
    * @throws ChangelogException
    *           If an error occurs.
    */
   @GuardedBy("exclusiveLock")
-  private List<Pair<AbortableLogCursor<K, V>, CursorState<K, V>>> disableOpenedCursorsOnHead()
+  private List<Pair<AbortableLogCursor<K, V>, CursorState<K, V>>> disableOpenedCursorsOn(final LogFile<K, V> logFile)
       throws ChangelogException
   {
     final List<Pair<AbortableLogCursor<K, V>, CursorState<K, V>>> openCursorsStates = new ArrayList<>();
-    final LogFile<K, V> headLogFile = getHeadLogFile();
     for (AbortableLogCursor<K, V> cursor : openCursors)
     {
-      if (cursor.isAccessingLogFile(headLogFile))
+      if (cursor.isAccessingLogFile(logFile))
       {
         openCursorsStates.add(Pair.of(cursor, cursor.getState()));
         cursor.closeUnderlyingCursor();
@@ -1091,11 +1253,12 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     logFiles.put(recordParser.getMaxKey(), head);
   }
 
-  private void openReadOnlyLogFile(final File logFilePath) throws ChangelogException
+  private LogFile<K, V> openReadOnlyLogFile(final File logFilePath) throws ChangelogException
   {
     final LogFile<K, V> logFile = LogFile.newReadOnlyLogFile(logFilePath, recordParser);
     final Pair<K, K> bounds = getKeyBounds(logFile);
     logFiles.put(bounds.getSecond(), logFile);
+    return logFile;
   }
 
   private void registerCursor(final AbortableLogCursor<K, V> cursor)
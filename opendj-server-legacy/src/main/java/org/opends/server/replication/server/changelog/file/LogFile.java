@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -22,7 +23,8 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -108,11 +110,12 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     sharedLock = rwLock.readLock();
     createLogFileIfNotExists();
 
-    readerPool = new LogReaderPool<>(logfile, parser);
     if (isWriteEnabled)
     {
       ensureLogFileIsValid(parser);
-      writer = BlockLogWriter.newWriter(new LogWriter(logfile), parser);
+      final LogWriter logWriter = new LogWriter(logfile);
+      writer = BlockLogWriter.newWriter(logWriter, parser);
+      readerPool = new LogReaderPool<>(logfile, parser, logWriter);
       initializeNewestRecord();
     }
     else
@@ -120,6 +123,7 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
       // Newest record is never requested for read-only log files.
       // It will never be because it is available in the file name.
       writer = null;
+      readerPool = new LogReaderPool<>(logfile, parser, null);
     }
   }
 
@@ -212,15 +216,23 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
    */
   private void ensureLogFileIsValid(final RecordParser<K, V> parser) throws ChangelogException
   {
-    try (final RandomAccessFile readerWriter = new RandomAccessFile(logfile, "rws");
-         final BlockLogReader<K, V> reader = BlockLogReader.newReader(logfile, readerWriter, parser))
+    try
     {
-      final long lastValidPosition = reader.checkLogIsValid();
+      final long lastValidPosition;
+      try (final LogFileMapping mapping = new LogFileMapping(logfile, null);
+           final BlockLogReader<K, V> reader = BlockLogReader.newReader(logfile, mapping, parser))
+      {
+        lastValidPosition = reader.checkLogIsValid();
+      }
       if (lastValidPosition != -1)
       {
-          // truncate the file to point where last valid record has been read
-          readerWriter.setLength(lastValidPosition);
-          logger.error(INFO_CHANGELOG_LOG_FILE_RECOVERED.get(logfile.getPath()));
+        // truncate the file to point where last valid record has been read
+        try (final FileChannel channel = FileChannel.open(logfile.toPath(), StandardOpenOption.WRITE))
+        {
+          channel.truncate(lastValidPosition);
+          channel.force(true);
+        }
+        logger.error(INFO_CHANGELOG_LOG_FILE_RECOVERED.get(logfile.getPath()));
       }
     }
     catch (IOException e)
@@ -313,7 +325,10 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
    * are effectively persisted.
    * <p>
    * After a successful call to this method, it is guaranteed that all records
-   * added to the log are persisted to the file system.
+   * added to the log before the call are persisted to the file system.
+   * <p>
+   * Records may be appended while the file is synchronized: the log file locks
+   * are not held, so that appenders do not wait for the disk.
    *
    * @throws ChangelogException
    *           If the synchronization fails.
@@ -321,7 +336,6 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
   void syncToFileSystem() throws ChangelogException
   {
     checkLogIsEnabledForWrite();
-    sharedLock.lock();
     try
     {
       writer.sync();
@@ -330,10 +344,6 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     {
       throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_SYNC.get(getPath()), e);
     }
-    finally
-    {
-      sharedLock.unlock();
-    }
   }
 
   /**
@@ -451,7 +461,16 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
       }
       writer.close();
     }
-    readerPool.shutdown();
+    // The mapping of the file is released, it must not be read any more
+    exclusiveLock.lock();
+    try
+    {
+      readerPool.shutdown();
+    }
+    finally
+    {
+      exclusiveLock.unlock();
+    }
   }
 
   /**
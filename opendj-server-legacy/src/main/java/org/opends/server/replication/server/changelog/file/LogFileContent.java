@@ -0,0 +1,83 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+
+/**
+ * The content of a log file, as read by a {@link BlockLogReader}.
+ * <p>
+ * Positions are expressed in the layout written by a {@link BlockLogWriter}, whatever the way the content is
+ * stored on disk. Implementations must allow concurrent reads.
+ */
+interface LogFileContent extends Closeable
+{
+  /**
+   * Returns the number of bytes which can be read from the content.
+   *
+   * @return the number of bytes which can be read from the content
+   */
+  long length();
+
+  /**
+   * Appends bytes of the content to the provided builder.
+   *
+   * @param builder
+   *          the builder to append the bytes to
+   * @param position
+   *          position of the first byte to read
+   * @param length
+   *          the number of bytes to read
+   * @throws IOException
+   *           if the bytes are beyond the end of the content, or if they cannot be read
+   */
+  void appendTo(ByteStringBuilder builder, long position, int length) throws IOException;
+
+  /**
+   * Reads a big-endian integer from the content.
+   *
+   * @param position
+   *          position of the integer
+   * @return the integer
+   * @throws IOException
+   *           if the integer is beyond the end of the content, or if it cannot be read
+   */
+  int readInt(long position) throws IOException;
+
+  /**
+   * Returns whether the byte preceding the provided position is zero, as are the bytes preallocated and not written.
+   *
+   * @param position
+   *          position following the byte to read, which must be strictly positive
+   * @return {@code true} if the byte is zero
+   * @throws IOException
+   *           if the byte is beyond the end of the content, or if it cannot be read
+   */
+  boolean isZeroBefore(long position) throws IOException;
+
+  /**
+   * Returns a view of the content for a single reader, which keeps the state specific to this reader, such as
+   * the chunks inflated from a compressed file.
+   * <p>
+   * The view is released with the content: it must not be closed.
+   *
+   * @return a view of the content, which may be the content itself if it keeps no state specific to a reader
+   */
+  LogFileContent newReaderView();
+}
@@ -0,0 +1,210 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import static java.nio.file.StandardOpenOption.*;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+
+/**
+ * A read-only mapping in memory of a log file, shared by all the readers of the log file.
+ * <p>
+ * The file is mapped by segments and read with absolute accesses, so that any number of readers can read it
+ * concurrently without system calls. The mapping grows with the file when reading past its mapped segments.
+ * <p>
+ * The segments are unmapped when the mapping is closed, so that the file can be renamed or deleted: the
+ * mapping must not be closed while it is read.
+ */
+final class LogFileMapping implements LogFileContent
+{
+  /** Size of the segments mapped to read the file. */
+  private static final long SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  private final File file;
+  private final FileChannel channel;
+  /** The writer of the file, which knows how many bytes can be read, or {@code null} if the file is not written. */
+  private final LogWriter writer;
+  /** The length of the file when it is not written. */
+  private final long fileLength;
+  /** Mapped segments, replaced by a larger copy when the file grows. */
+  private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+  /** The number of bytes mapped by the segments. */
+  private volatile long mappedLength;
+  /** All the segments mapped, including the ones replaced when the file grew, to unmap when closing. */
+  private final List<MappedByteBuffer> mappedSegments = new ArrayList<>();
+
+  /**
+   * Creates a mapping of the provided file.
+   *
+   * @param file
+   *          the log file to map
+   * @param writer
+   *          the writer of the log file, or {@code null} if the file is not written
+   * @throws IOException
+   *           if the file cannot be opened
+   */
+  LogFileMapping(File file, LogWriter writer) throws IOException
+  {
+    this.file = file;
+    this.writer = writer;
+    this.channel = FileChannel.open(file.toPath(), READ);
+    this.fileLength = channel.size();
+  }
+
+  @Override
+  public long length()
+  {
+    return writer != null ? writer.getBytesWritten() : fileLength;
+  }
+
+  @Override
+  public void appendTo(ByteStringBuilder builder, long position, int length) throws IOException
+  {
+    final MappedByteBuffer[] mapped = ensureMapped(position, length);
+    long pos = position;
+    int remaining = length;
+    while (remaining > 0)
+    {
+      final ByteBuffer segment = mapped[(int) (pos / SEGMENT_SIZE)].duplicate();
+      segment.position((int) (pos % SEGMENT_SIZE));
+      final int bytesToRead = Math.min(remaining, segment.remaining());
+      builder.appendBytes(segment, bytesToRead);
+      pos += bytesToRead;
+      remaining -= bytesToRead;
+    }
+  }
+
+  @Override
+  public int readInt(long position) throws IOException
+  {
+    return (int) readBytes(position, 4);
+  }
+
+  @Override
+  public boolean isZeroBefore(long position) throws IOException
+  {
+    return readBytes(position - 1, 1) == 0;
+  }
+
+  /**
+   * Reads a big-endian long from the file.
+   *
+   * @param position
+   *          position of the long in the file
+   * @return the long
+   * @throws IOException
+   *           if the long is beyond the end of the file, or if the file cannot be mapped
+   */
+  long readLong(long position) throws IOException
+  {
+    return readBytes(position, 8);
+  }
+
+  private long readBytes(long position, int length) throws IOException
+  {
+    final MappedByteBuffer[] mapped = ensureMapped(position, length);
+    long value = 0;
+    for (long pos = position; pos < position + length; pos++)
+    {
+      value = (value << 8) | (mapped[(int) (pos / SEGMENT_SIZE)].get((int) (pos % SEGMENT_SIZE)) & 0xFF);
+    }
+    return value;
+  }
+
+  /** Ensures the provided bytes are readable and mapped, then returns the mapped segments. */
+  private MappedByteBuffer[] ensureMapped(long position, int length) throws IOException
+  {
+    final long end = position + length;
+    if (position < 0 || end > length())
+    {
+      throw new EOFException();
+    }
+    if (end > mappedLength)
+    {
+      mapUpTo(end);
+    }
+    return segments;
+  }
+
+  private synchronized void mapUpTo(long end) throws IOException
+  {
+    if (end <= mappedLength)
+    {
+      return;
+    }
+    final long fileSize = channel.size();
+    final int nbSegments = (int) ((fileSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+    final MappedByteBuffer[] mapped = Arrays.copyOf(segments, nbSegments);
+    int firstSegmentToMap = segments.length;
+    if (firstSegmentToMap > 0 && segments[firstSegmentToMap - 1].capacity() < SEGMENT_SIZE)
+    {
+      // the last segment was mapped before the file grew
+      firstSegmentToMap--;
+    }
+    for (int i = firstSegmentToMap; i < nbSegments; i++)
+    {
+      final long position = i * SEGMENT_SIZE;
+      mapped[i] = channel.map(MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, fileSize - position));
+      mappedSegments.add(mapped[i]);
+    }
+    segments = mapped;
+    mappedLength = fileSize;
+  }
+
+  @Override
+  public LogFileContent newReaderView()
+  {
+    // the readers share the mapped segments
+    return this;
+  }
+
+  @Override
+  public synchronized void close() throws IOException
+  {
+    // Reading past the mapped bytes now fails because the channel is closed
+    segments = new MappedByteBuffer[0];
+    mappedLength = 0;
+    try
+    {
+      channel.close();
+    }
+    finally
+    {
+      for (MappedByteBuffer segment : mappedSegments)
+      {
+        MappedBuffers.unmap(segment);
+      }
+      mappedSegments.clear();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return file.getPath();
+  }
+}
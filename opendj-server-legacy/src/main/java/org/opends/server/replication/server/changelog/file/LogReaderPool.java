@@ -12,11 +12,11 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
 import java.io.File;
-import java.io.RandomAccessFile;
 
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.util.StaticUtils;
@@ -25,14 +25,17 @@ import static org.opends.messages.ReplicationMessages.*;
 
 /**
  * A Pool of readers to a log file.
-
+ * <p>
+ * The readers share a single memory mapping of the log file, which is
+ * opened by the first reader and closed when the pool is shut down. The
+ * mapping of a compressed log file is read through its uncompressed content,
+ * each reader inflating and caching the chunks it reads.
  *
  * @param <K>
  *          Type of the key of a record, which must be comparable.
  * @param <V>
  *          Type of the value of a record.
  */
-// TODO : implement a real pool - reusing readers instead of opening-closing them each time
 class LogReaderPool<K extends Comparable<K>, V>
 {
   /** The file to read. */
@@ -40,6 +43,12 @@ class LogReaderPool<K extends Comparable<K>, V>
 
   private final RecordParser<K, V> parser;
 
+  /** The writer of the file, or {@code null} if the file is read-only. */
+  private final LogWriter writer;
+
+  /** The content of the file shared by the readers, opened when the first reader is requested. */
+  private LogFileContent content;
+
   /**
    * Creates a pool of readers for provided file.
    *
@@ -47,11 +56,14 @@ class LogReaderPool<K extends Comparable<K>, V>
    *          The file to read.
    * @param parser
    *          The parser to decode the records read.
+   * @param writer
+   *          The writer of the file, or {@code null} if the file is read-only.
    */
-  LogReaderPool(File file, RecordParser<K, V> parser)
+  LogReaderPool(File file, RecordParser<K, V> parser, LogWriter writer)
   {
     this.file = file;
     this.parser = parser;
+    this.writer = writer;
   }
 
   /**
@@ -66,7 +78,7 @@ class LogReaderPool<K extends Comparable<K>, V>
    */
   BlockLogReader<K, V> get() throws ChangelogException
   {
-    return getReader(file);
+    return BlockLogReader.newReader(file, getContent().newReaderView(), parser);
   }
 
   /**
@@ -83,26 +95,37 @@ class LogReaderPool<K extends Comparable<K>, V>
     StaticUtils.close(reader);
   }
 
-  /** Returns a random access file to read this log. */
-  private BlockLogReader<K, V> getReader(File file) throws ChangelogException
+  /** Returns the content of the file, opening it if needed. */
+  private synchronized LogFileContent getContent() throws ChangelogException
   {
-    try
-    {
-      return BlockLogReader.newReader(file, new RandomAccessFile(file, "r"), parser) ;
-    }
-    catch (Exception e)
+    if (content == null)
     {
-      throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_OPEN_READER_ON_LOG_FILE.get(file.getPath()), e);
+      LogFileMapping mapping = null;
+      try
+      {
+        mapping = new LogFileMapping(file, writer);
+        // only rotated log files, which are not written, may be compressed
+        content = writer == null && CompressedLogFileContent.isCompressed(mapping)
+            ? new CompressedLogFileContent(mapping)
+            : mapping;
+      }
+      catch (Exception e)
+      {
+        StaticUtils.close(mapping);
+        throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_OPEN_READER_ON_LOG_FILE.get(file.getPath()), e);
+      }
     }
+    return content;
   }
 
   /**
    * Shutdown this pool, releasing all files handles opened
    * on the file.
    */
-  void shutdown()
+  synchronized void shutdown()
   {
-    // Nothing to do yet as no file handle is kept opened.
+    StaticUtils.close(content);
+    content = null;
   }
 
 }
@@ -12,36 +12,75 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
+import static java.nio.file.StandardOpenOption.*;
+
 import java.io.File;
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.SyncFailedException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.ldap.ByteString;
-import org.opends.server.loggers.MeteredStream;
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.util.StaticUtils;
 
 import static org.opends.messages.ReplicationMessages.*;
+import static org.opends.server.util.StaticUtils.stackTraceToSingleLineString;
 
 /**
  * A writer on a log file.
+ * <p>
+ * Data is appended to segments of the file mapped in memory, so that writing
+ * a record does not involve any system call and the record is immediately
+ * visible to the readers of the file. Each segment is preallocated when
+ * mapped: the file is truncated to the data written when the writer is
+ * closed, and the unwritten zeros left by a writer which was not closed are
+ * removed by the log file recovery.
+ * <p>
+ * Writes must not be concurrent with other writes, but may be concurrent with
+ * a synchronization: the segments are forced to the disk without blocking the
+ * writer, which only synchronizes with it when mapping a new segment. The
+ * segments are unmapped when the writer is closed, before the file is
+ * truncated.
  */
 class LogWriter extends OutputStream
 {
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Size of the segments mapped to write in the file: the file grows by 1MB increments. */
+  private static final int SEGMENT_SIZE = 1024 * 1024;
+
   /** The file to write in. */
   private final File file;
 
-  /** The stream to write data in the file, capable of counting bytes written. */
-  private final MeteredStream stream;
+  /** The channel used to map the file. */
+  private final FileChannel channel;
+
+  /** The segment in which data is currently appended, or {@code null} if none is mapped yet. */
+  private MappedByteBuffer segment;
+
+  /** The segments mapped by this writer, in file order, the last one being the current segment. */
+  private final List<MappedByteBuffer> segments = new ArrayList<>();
 
-  /** The file descriptor on the file. */
-  private final FileDescriptor fileDescriptor;
+  /** Index in {@link #segments} of the first segment written since the last call to {@link #sync()}. */
+  private int firstUnsyncedSegment;
+
+  /** The number of bytes written in the file, read without locking by the readers of the file. */
+  private volatile long bytesWritten;
+
+  /** The number of bytes written in the file when it was last synchronized. */
+  private long bytesSynced;
+
+  /** Whether this writer is closed, after which its segments are unmapped and must not be forced. */
+  private boolean closed;
 
   /**
    * Creates a writer on the provided file.
@@ -56,9 +95,9 @@ class LogWriter extends OutputStream
     this.file = file;
     try
     {
-      FileOutputStream fos = new FileOutputStream(file, true);
-      this.stream = new MeteredStream(fos, file.length());
-      this.fileDescriptor = fos.getFD();
+      this.channel = FileChannel.open(file.toPath(), READ, WRITE, CREATE);
+      this.bytesWritten = channel.size();
+      this.bytesSynced = bytesWritten;
     }
     catch (Exception e)
     {
@@ -80,21 +119,32 @@ class LogWriter extends OutputStream
   @Override
   public void write(int b) throws IOException
   {
-    stream.write(b);
+    ensureSegmentIsWritable().put((byte) b);
+    bytesWritten++;
   }
 
   /** {@inheritDoc} */
   @Override
   public void write(byte[] b) throws IOException
   {
-    stream.write(b);
+    write(b, 0, b.length);
   }
 
   /** {@inheritDoc} */
   @Override
   public void write(byte[] b, int off, int len) throws IOException
   {
-    stream.write(b, off, len);
+    int offset = off;
+    int remaining = len;
+    while (remaining > 0)
+    {
+      final MappedByteBuffer buffer = ensureSegmentIsWritable();
+      final int length = Math.min(remaining, buffer.remaining());
+      buffer.put(b, offset, length);
+      offset += length;
+      remaining -= length;
+      bytesWritten += length;
+    }
   }
 
   /**
@@ -108,7 +158,21 @@ class LogWriter extends OutputStream
    */
   public void write(ByteString bs) throws IOException
   {
-    bs.copyTo(stream);
+    bs.copyTo(this);
+  }
+
+  /** Returns the segment in which the next bytes are written, mapping a new one if the current one is full. */
+  private MappedByteBuffer ensureSegmentIsWritable() throws IOException
+  {
+    if (segment == null || !segment.hasRemaining())
+    {
+      segment = channel.map(MapMode.READ_WRITE, bytesWritten, SEGMENT_SIZE);
+      synchronized (segments)
+      {
+        segments.add(segment);
+      }
+    }
+    return segment;
   }
 
   /**
@@ -118,24 +182,75 @@ class LogWriter extends OutputStream
    */
   public long getBytesWritten()
   {
-    return stream.getBytesWritten();
+    return bytesWritten;
   }
 
   /**
    * Synchronize all modifications to the file to the underlying device.
-   *
-   * @throws SyncFailedException
-   *            If synchronization fails.
+   * <p>
+   * Only the segments written since the last synchronization are flushed. This
+   * method may be called while data is written: all the bytes written before
+   * the call are synchronized when it returns.
    */
-  void sync() throws SyncFailedException {
-    fileDescriptor.sync();
+  synchronized void sync()
+  {
+    final long bytesToSync = bytesWritten;
+    if (closed || bytesToSync == bytesSynced)
+    {
+      return;
+    }
+    final List<MappedByteBuffer> unsyncedSegments;
+    synchronized (segments)
+    {
+      unsyncedSegments = new ArrayList<>(segments.subList(firstUnsyncedSegment, segments.size()));
+      // the current segment is still written
+      firstUnsyncedSegment = Math.max(segments.size() - 1, 0);
+    }
+    for (MappedByteBuffer unsyncedSegment : unsyncedSegments)
+    {
+      unsyncedSegment.force();
+    }
+    bytesSynced = bytesToSync;
   }
 
-  /** {@inheritDoc} */
+  /**
+   * Closes this writer: its segments are unmapped, then the bytes preallocated
+   * after the written data are removed from the file.
+   * <p>
+   * Waits for the completion of a concurrent synchronization.
+   */
   @Override
-  public void close()
+  public synchronized void close()
   {
-    StaticUtils.close(stream);
+    if (closed)
+    {
+      return;
+    }
+    closed = true;
+    segment = null;
+    synchronized (segments)
+    {
+      for (MappedByteBuffer mappedSegment : segments)
+      {
+        MappedBuffers.unmap(mappedSegment);
+      }
+      segments.clear();
+    }
+    try
+    {
+      // Remove the preallocated bytes which were not written
+      channel.truncate(bytesWritten);
+    }
+    catch (IOException e)
+    {
+      // They will be removed by the recovery of the log file if it is opened again for writing
+      logger.traceException(e);
+      logger.warn(WARN_CHANGELOG_UNABLE_TO_TRUNCATE_LOG_FILE.get(file.getPath(), stackTraceToSingleLineString(e)));
+    }
+    finally
+    {
+      StaticUtils.close(channel);
+    }
   }
 
 }
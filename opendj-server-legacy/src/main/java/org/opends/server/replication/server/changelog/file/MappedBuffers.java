@@ -0,0 +1,117 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Releases the memory mappings of the log files.
+ * <p>
+ * A mapping is otherwise only released when its buffer is garbage collected, which keeps the
+ * file open: it cannot be renamed or deleted on some platforms, and its space is not reclaimed.
+ * A buffer must not be accessed any more once unmapped, as the memory it accesses is not mapped
+ * any more.
+ */
+final class MappedBuffers
+{
+  /** Unmaps a buffer on Java 9 and later: {@code sun.misc.Unsafe.invokeCleaner(ByteBuffer)}. */
+  private static final Method INVOKE_CLEANER_METHOD;
+  /** The unsafe instance on which the invoke cleaner method is called. */
+  private static final Object UNSAFE;
+  /** Returns the cleaner of a buffer on Java 8: {@code java.nio.DirectByteBuffer.cleaner()}. */
+  private static final Method CLEANER_METHOD;
+  /** Unmaps a buffer on Java 8: {@code sun.misc.Cleaner.clean()}. */
+  private static final Method CLEAN_METHOD;
+
+  static
+  {
+    Method invokeCleanerMethod = null;
+    Object unsafe = null;
+    Method cleanerMethod = null;
+    Method cleanMethod = null;
+    try
+    {
+      final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      invokeCleanerMethod = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      unsafe = theUnsafe.get(null);
+    }
+    catch (Exception e)
+    {
+      invokeCleanerMethod = null;
+      try
+      {
+        cleanerMethod = Class.forName("java.nio.DirectByteBuffer").getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+        cleanMethod.setAccessible(true);
+      }
+      catch (Exception ignored)
+      {
+        cleanerMethod = null;
+        cleanMethod = null;
+      }
+    }
+    INVOKE_CLEANER_METHOD = invokeCleanerMethod;
+    UNSAFE = unsafe;
+    CLEANER_METHOD = cleanerMethod;
+    CLEAN_METHOD = cleanMethod;
+  }
+
+  private MappedBuffers()
+  {
+    // Utility class
+  }
+
+  /**
+   * Unmaps the provided buffer, if supported by the JVM.
+   * <p>
+   * Otherwise the mapping is released when the buffer is garbage collected.
+   *
+   * @param buffer
+   *          the buffer to unmap, which must not be accessed any more
+   * @return {@code true} if the buffer has been unmapped
+   */
+  static boolean unmap(final MappedByteBuffer buffer)
+  {
+    try
+    {
+      if (INVOKE_CLEANER_METHOD != null)
+      {
+        INVOKE_CLEANER_METHOD.invoke(UNSAFE, buffer);
+        return true;
+      }
+      if (CLEAN_METHOD != null)
+      {
+        final Object cleaner = CLEANER_METHOD.invoke(buffer);
+        if (cleaner != null)
+        {
+          CLEAN_METHOD.invoke(cleaner);
+          return true;
+        }
+      }
+    }
+    catch (Exception ignored)
+    {
+      // the mapping is released by the garbage collector
+    }
+    return false;
+  }
+}
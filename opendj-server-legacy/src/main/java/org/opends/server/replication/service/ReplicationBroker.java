@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.service;
 
@@ -1203,6 +1204,11 @@ public class ReplicationBroker
           domain.getEclIncludes(domain.getServerId()),
           domain.getEclIncludesForDeletes(domain.getServerId()));
       final Session session = electedRS.session;
+      if (config.isCompressionEnabled())
+      {
+        session.acceptCompression();
+        startSessionMsg.setCompressionAccepted(true);
+      }
       session.publish(startSessionMsg);
 
       // Read the TopologyMsg that should come back.
@@ -1216,6 +1222,10 @@ public class ReplicationBroker
 
       // Alright set the timeout to the desired value
       session.setSoTimeout(timeout);
+      if (config.isCompressionEnabled() && topologyMsg.isCompressionAccepted())
+      {
+        session.startCompression();
+      }
       setConnectedRS(electedRS);
       return topologyMsg;
     }
@@ -2821,6 +2831,41 @@ public class ReplicationBroker
     return session != null ? session.isEncrypted() : false;
   }
 
+  /**
+   * Determine whether the messages sent to the replication server are
+   * compressed.
+   * @return true if the messages sent are compressed, false otherwise.
+   */
+  public boolean isSessionCompressionEnabled()
+  {
+    final Session session = connectedRS.get().session;
+    return session != null && session.isCompressionEnabled();
+  }
+
+  /**
+   * Returns the compression ratio of the messages sent to the replication
+   * server.
+   * @return the compression ratio of the messages sent, or 1 if no message
+   *         was compressed.
+   */
+  public double getSessionSentCompressionRatio()
+  {
+    final Session session = connectedRS.get().session;
+    return session != null ? session.getSentCompressionRatio() : 1;
+  }
+
+  /**
+   * Returns the compression ratio of the messages received from the
+   * replication server.
+   * @return the compression ratio of the messages received, or 1 if no
+   *         message was compressed.
+   */
+  public double getSessionReceivedCompressionRatio()
+  {
+    final Session session = connectedRS.get().session;
+    return session != null ? session.getReceivedCompressionRatio() : 1;
+  }
+
   /**
    * Signals the RS we just entered a new status.
    * @param newStatus The status the local DS just entered
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.service;
 
@@ -2674,6 +2675,36 @@ public abstract class ReplicationDomain
     return broker != null && broker.isSessionEncrypted();
   }
 
+  /**
+   * Determine whether the messages sent to the replication server are
+   * compressed.
+   * @return true if the messages sent are compressed, false otherwise.
+   */
+  boolean isSessionCompressionEnabled()
+  {
+    return broker != null && broker.isSessionCompressionEnabled();
+  }
+
+  /**
+   * Returns the compression ratio of the messages sent to the replication
+   * server.
+   * @return the compression ratio of the messages sent.
+   */
+  double getSessionSentCompressionRatio()
+  {
+    return broker != null ? broker.getSessionSentCompressionRatio() : 1;
+  }
+
+  /**
+   * Returns the compression ratio of the messages received from the
+   * replication server.
+   * @return the compression ratio of the messages received.
+   */
+  double getSessionReceivedCompressionRatio()
+  {
+    return broker != null ? broker.getSessionReceivedCompressionRatio() : 1;
+  }
+
   /**
    * Check if the domain is connected to a ReplicationServer.
    *
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions copyright 2013-2016 ForgeRock AS.
+ * Portions copyright 2026 Wren Security.
  */
 package org.opends.server.replication.service;
 
@@ -86,6 +87,9 @@ public class ReplicationMonitor extends MonitorProvider<MonitorProviderCfg>
 
     attributes.add("server-state", domain.getServerState().toStringSet());
     attributes.add("ssl-encryption", domain.isSessionEncrypted());
+    attributes.add("compression-enabled", domain.isSessionCompressionEnabled());
+    attributes.add("sent-compression-ratio", domain.getSessionSentCompressionRatio());
+    attributes.add("received-compression-ratio", domain.getSessionReceivedCompressionRatio());
     attributes.add("generation-id", domain.getGenerationID());
 
     // Add import/export monitoring attributes
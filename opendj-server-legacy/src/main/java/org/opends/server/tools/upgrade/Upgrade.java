@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Portions Copyright 2013-2016 ForgeRock AS.
- * Portions Copyright 2022 Wren Security
+ * Portions Copyright 2022-2026 Wren Security.
  */
 package org.opends.server.tools.upgrade;
 
@@ -546,6 +546,44 @@ public final class Upgrade
     );
     register("4.0.0", moveSubordinateBaseDnToGlobalConfiguration());
     register("4.0.0", removeTools("ldif-diff", "make-ldif", "dsjavaproperties"));
+    register("4.0.0",
+        addConfigEntry(
+            "dn: cn=Tiny LFU,cn=Entry Caches,cn=config",
+            "objectClass: top",
+            "objectClass: ds-cfg-entry-cache",
+            "objectClass: ds-cfg-tiny-lfu-entry-cache",
+            "cn: Tiny LFU",
+            "ds-cfg-enabled: false",
+            "ds-cfg-cache-level: 3",
+            "ds-cfg-java-class: org.opends.server.extensions.TinyLFUEntryCache"));
+
+    register("4.0.0",
+        addConfigEntry(
+            "dn: cn=Off Heap,cn=Entry Caches,cn=config",
+            "objectClass: top",
+            "objectClass: ds-cfg-entry-cache",
+            "objectClass: ds-cfg-off-heap-entry-cache",
+            "cn: Off Heap",
+            "ds-cfg-enabled: false",
+            "ds-cfg-cache-level: 4",
+            "ds-cfg-java-class: org.opends.server.extensions.OffHeapEntryCache"));
+
+    register("4.0.0",
+        addConfigEntry(
+            "dn: ds-cfg-base-path=/metrics,cn=HTTP Endpoints,cn=config",
+            "objectClass: top",
+            "objectClass: ds-cfg-http-endpoint",
+            "objectClass: ds-cfg-prometheus-endpoint",
+            "ds-cfg-enabled: false",
+            "ds-cfg-base-path: /metrics",
+            "ds-cfg-java-class: org.opends.server.protocols.http.PrometheusEndpoint",
+            "ds-cfg-http-authorization-mechanism: cn=HTTP Basic,cn=HTTP Authorization Mechanisms,cn=config"));
+
+    register("4.0.0",
+        modifyConfigEntry(INFO_UPGRADE_TASK_ADD_MONITOR_READ_PRIVILEGE.get(),
+        "(objectClass=ds-cfg-root-dn)",
+        "add: ds-cfg-default-root-privilege-name",
+        "ds-cfg-default-root-privilege-name: monitor-read"));
 
     /* All upgrades will refresh the server configuration schema and generate a new upgrade folder. */
     registerLast(
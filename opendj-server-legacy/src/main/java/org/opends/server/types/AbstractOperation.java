@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -127,6 +128,8 @@ public abstract class AbstractOperation
   /** Indicates whether this operation needs to be synchronized to other copies of the data. */
   private boolean dontSynchronizeFlag;
 
+  /** The time that this operation was created in nanoseconds. */
+  private final long creationNanoTime = System.nanoTime();
   /** The time that processing started on this operation in milliseconds. */
   private long processingStartTime;
   /** The time that processing ended on this operation in milliseconds. */
@@ -579,10 +582,7 @@ public abstract class AbstractOperation
   public final void setProcessingStartTime()
   {
     processingStartTime = System.currentTimeMillis();
-    if(useNanoTime)
-    {
-      processingStartNanoTime = System.nanoTime();
-    }
+    processingStartNanoTime = System.nanoTime();
   }
 
   @Override
@@ -599,10 +599,7 @@ public abstract class AbstractOperation
   public final void setProcessingStopTime()
   {
     this.processingStopTime = System.currentTimeMillis();
-    if(useNanoTime)
-    {
-      this.processingStopNanoTime = System.nanoTime();
-    }
+    this.processingStopNanoTime = System.nanoTime();
   }
 
   @Override
@@ -621,6 +618,26 @@ public abstract class AbstractOperation
     return -1;
   }
 
+  @Override
+  public final long getElapsedProcessingNanoTime()
+  {
+    if (processingStopTime != 0)
+    {
+      return processingStopNanoTime - processingStartNanoTime;
+    }
+    return -1;
+  }
+
+  @Override
+  public final long getQueueWaitNanoTime()
+  {
+    if (processingStartTime != 0)
+    {
+      return processingStartNanoTime - creationNanoTime;
+    }
+    return -1;
+  }
+
   @Override
   public final void registerPostResponseCallback(Runnable callback)
   {
@@ -13,13 +13,18 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
 import static org.forgerock.util.Reject.checkNotNull;
 
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -493,6 +498,59 @@ public final class AttributeBuilder implements Iterable<ByteString>
     }
   }
 
+  /**
+   * An unmodifiable set of attribute values which are already known to be distinct, such as the
+   * values of an attribute decoded from a backend.
+   * <p>
+   * Iterating over the values does not normalize them, so that an attribute which is only read and
+   * sent back to a client is never normalized. The hash-based index used for {@link #contains(Object)}
+   * is only built the first time it is needed, e.g. during filter evaluation or access control.
+   * The values are always iterated over and counted as provided, whether the index has been built or
+   * not: should they not be distinct after all, e.g. because the equality matching rule changed since
+   * they were stored, they are all kept as stored.
+   */
+  private static final class DistinctValueSet extends AbstractSet<AttributeValue>
+  {
+    private final AttributeValue[] values;
+    /** Index of the values, in their original order, which is {@code null} until a lookup is required. */
+    private volatile Set<AttributeValue> index;
+
+    private DistinctValueSet(AttributeValue[] values)
+    {
+      this.values = values;
+    }
+
+    private Set<AttributeValue> index()
+    {
+      Set<AttributeValue> set = index;
+      if (set == null)
+      {
+        // Concurrent lookups may build the index several times, which is harmless
+        set = new LinkedHashSet<>(Arrays.asList(values));
+        index = set;
+      }
+      return set;
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+      return index().contains(o);
+    }
+
+    @Override
+    public Iterator<AttributeValue> iterator()
+    {
+      return Collections.unmodifiableList(Arrays.asList(values)).iterator();
+    }
+
+    @Override
+    public int size()
+    {
+      return values.length;
+    }
+  }
+
   /**
    * Creates an attribute that has no options.
    * <p>
@@ -515,6 +573,52 @@ public final class AttributeBuilder implements Iterable<ByteString>
     return builder.toAttribute();
   }
 
+  /**
+   * Creates an attribute from values which are known to be distinct, without normalizing them.
+   * <p>
+   * This method is only intended for use by the {@link Attributes}
+   * class.
+   *
+   * @param attributeDescription
+   *          The attribute description.
+   * @param values
+   *          The distinct attribute values.
+   * @return The new attribute.
+   */
+  static Attribute createDistinct(AttributeDescription attributeDescription, ByteString[] values)
+  {
+    final AttributeValue[] attributeValues = new AttributeValue[values.length];
+    for (int i = 0; i < values.length; i++)
+    {
+      attributeValues[i] = createAttributeValue(attributeDescription, values[i]);
+    }
+    return new RealAttribute(attributeDescription, new DistinctValueSet(attributeValues));
+  }
+
+  /**
+   * Creates an attribute with the values of the provided attribute and another description of the
+   * same attribute type, sharing the values rather than copying them, which would normalize them.
+   * <p>
+   * This method is only intended for use by the {@link Attributes}
+   * class.
+   *
+   * @param attribute
+   *          The attribute whose values are used.
+   * @param attributeDescription
+   *          The attribute description, of the same attribute type.
+   * @return The new attribute.
+   */
+  static Attribute withAttributeDescription(Attribute attribute, AttributeDescription attributeDescription)
+  {
+    if (attribute instanceof RealAttribute)
+    {
+      return new RealAttribute(attributeDescription, ((RealAttribute) attribute).values);
+    }
+    final AttributeBuilder builder = new AttributeBuilder(attributeDescription);
+    builder.addAll(attribute);
+    return builder.toAttribute();
+  }
+
   /** The attribute description for this attribute. */
   private AttributeDescription attributeDescription;
   /** The set of attribute values, which are lazily normalized. */
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -24,6 +25,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import org.forgerock.opendj.ldap.AttributeDescription;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.Schema;
@@ -282,6 +284,42 @@ public final class Attributes
     return empty(getSchema().getAttributeType(attributeName), attributeName);
   }
 
+  /**
+   * Creates a new attribute with the specified attribute description and values, which must be
+   * distinct, e.g. because they have been decoded from a backend.
+   * <p>
+   * Unlike {@link AttributeBuilder}, the values are not normalized in order to detect duplicates:
+   * they are only normalized if the attribute is searched for a specific value.
+   *
+   * @param attributeDescription
+   *          The attribute description to use.
+   * @param values
+   *          The distinct attribute values.
+   * @return A new attribute with the attribute description and values.
+   */
+  public static Attribute createDistinct(AttributeDescription attributeDescription, ByteString... values)
+  {
+    return AttributeBuilder.createDistinct(attributeDescription, values);
+  }
+
+  /**
+   * Creates a new attribute with the values of the provided attribute and the specified attribute
+   * description, which must have the same attribute type, e.g. to rename an attribute.
+   * <p>
+   * Unlike {@link AttributeBuilder}, the values are shared rather than copied, so that they are not
+   * normalized.
+   *
+   * @param attribute
+   *          The attribute whose values are used.
+   * @param attributeDescription
+   *          The attribute description to use, with the same attribute type.
+   * @return A new attribute with the attribute description and the values of the provided attribute.
+   */
+  public static Attribute withAttributeDescription(Attribute attribute, AttributeDescription attributeDescription)
+  {
+    return AttributeBuilder.withAttributeDescription(attribute, attributeDescription);
+  }
+
   private static Schema getSchema()
   {
     return getInstance().getServerContext().getSchema();
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -451,9 +452,15 @@ public class Entry
 
     if(objectClassAttribute == null)
     {
-      AttributeBuilder builder = new AttributeBuilder(CoreSchema.getObjectClassAttributeType());
-      builder.addAllStrings(objectClasses.values());
-      objectClassAttribute = builder.toAttribute();
+      // The names of distinct object classes are distinct: do not normalize them to detect duplicates.
+      final ByteString[] names = new ByteString[objectClasses.size()];
+      int i = 0;
+      for (String name : objectClasses.values())
+      {
+        names[i++] = ByteString.valueOfUtf8(name);
+      }
+      objectClassAttribute =
+          Attributes.createDistinct(AttributeDescription.create(CoreSchema.getObjectClassAttributeType()), names);
     }
 
     return objectClassAttribute;
@@ -4493,9 +4500,7 @@ public class Entry
                   if (!attrName.equals(ocAttr.getAttributeDescription().getNameOrOID()))
                   {
                     // User requested non-default object class type name.
-                    AttributeBuilder builder = new AttributeBuilder(AttributeDescription.create(attrName, ocType));
-                    builder.addAll(ocAttr);
-                    ocAttr = builder.toAttribute();
+                    ocAttr = Attributes.withAttributeDescription(ocAttr, AttributeDescription.create(attrName, ocType));
                   }
 
                   userAttrsCopy.put(ocType, newArrayList(ocAttr));
@@ -4578,11 +4583,10 @@ public class Entry
         // Now add in remaining options from original attribute
         // (this will not overwrite options already present).
         builder.setOptions(subAttrDesc.getOptions());
-        if (!omitValues)
-        {
-          builder.addAll(attribute);
-        }
-        attribute = builder.toAttribute();
+        final Attribute renamed = builder.toAttribute();
+        // Share the values rather than adding them to the builder, which would normalize them.
+        attribute = omitValues ? renamed
+                               : Attributes.withAttributeDescription(attribute, renamed.getAttributeDescription());
       }
       else if (omitValues)
       {
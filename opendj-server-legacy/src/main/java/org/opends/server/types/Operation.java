@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -555,6 +556,27 @@ public interface Operation extends Runnable
    */
   long getProcessingNanoTime();
 
+  /**
+   * Retrieves the length of time in nanoseconds that the server spent
+   * processing this operation, whether or not the server is configured
+   * to report processing times in nanoseconds.
+   *
+   * @return  The length of time in nanoseconds that the server
+   *          spent processing this operation, or -1 if its processing
+   *          has not completed.
+   */
+  long getElapsedProcessingNanoTime();
+
+  /**
+   * Retrieves the length of time in nanoseconds that this operation
+   * waited, once received, before the server started processing it.
+   *
+   * @return  The length of time in nanoseconds that this operation
+   *          waited before being processed, or -1 if its processing
+   *          has not started.
+   */
+  long getQueueWaitNanoTime();
+
   /**
    * Indicates that processing on this operation has completed
    * successfully and that the client should perform any associated
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2014-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -227,7 +228,15 @@ public enum Privilege
    * The privilege that provides the ability to perform read
    * operations on the changelog.
    */
-  CHANGELOG_READ("changelog-read");
+  CHANGELOG_READ("changelog-read"),
+
+
+
+  /**
+   * The privilege that provides the ability to read the monitoring
+   * information of the server.
+   */
+  MONITOR_READ("monitor-read");
 
 
   /** A map that will be used to hold a mapping between privilege names and enum values. */
@@ -272,6 +281,7 @@ public enum Privilege
     DEFAULT_ROOT_PRIV_SET.add(UNINDEXED_SEARCH);
     DEFAULT_ROOT_PRIV_SET.add(SUBENTRY_WRITE);
     DEFAULT_ROOT_PRIV_SET.add(CHANGELOG_READ);
+    DEFAULT_ROOT_PRIV_SET.add(MONITOR_READ);
   }
 
 
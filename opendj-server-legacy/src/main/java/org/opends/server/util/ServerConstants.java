@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.util;
 
@@ -1048,6 +1049,12 @@ public final class ServerConstants
    */
   public static final String OC_MONITOR_CONNHANDLERSTATS =
           "ds-connectionhandler-statistics-monitor-entry";
+  /**
+   * The name of the custom objectclass that will be included in the monitor
+   * entries of the remote servers of proxy backends.
+   */
+  public static final String OC_MONITOR_PROXY_REMOTE_SERVER =
+          "ds-proxy-remote-server-monitor-entry";
 
 
   /**
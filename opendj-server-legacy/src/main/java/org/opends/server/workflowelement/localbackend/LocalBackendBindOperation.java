@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.workflowelement.localbackend;
 
@@ -424,7 +425,7 @@ public class LocalBackendBindOperation
 
       // Determine whether the provided password matches any of the stored
       // passwords for the user.
-      if (pwPolicyState.passwordMatches(simplePassword))
+      if (passwordMatches(userEntry, pwPolicyState, pwType, simplePassword))
       {
         setResultCode(ResultCode.SUCCESS);
 
@@ -472,6 +473,7 @@ public class LocalBackendBindOperation
       {
         setResultCode(ResultCode.INVALID_CREDENTIALS);
         setAuthFailureReason(ERR_BIND_OPERATION_WRONG_PASSWORD.get());
+        DirectoryServer.getCoreConfigManager().getBindCredentialCache().invalidate(userEntry.getName());
 
         if (policy.getLockoutFailureCount() > 0)
         {
@@ -693,6 +695,28 @@ public class LocalBackendBindOperation
     return true;
   }
 
+  /**
+   * Determines whether the provided password matches any of the stored passwords of the user,
+   * reusing a previous successful verification of the same password against the same stored
+   * passwords when the bind credential cache is enabled.
+   */
+  private boolean passwordMatches(Entry userEntry, PasswordPolicyState pwPolicyState, AttributeType pwType,
+      ByteString simplePassword)
+  {
+    final BindCredentialCache cache = DirectoryServer.getCoreConfigManager().getBindCredentialCache();
+    final List<Attribute> storedPasswords = userEntry.getAllAttributes(pwType);
+    if (cache.isVerified(userEntry.getName(), storedPasswords, simplePassword))
+    {
+      return true;
+    }
+    if (pwPolicyState.passwordMatches(simplePassword))
+    {
+      cache.verified(userEntry.getName(), storedPasswords, simplePassword);
+      return true;
+    }
+    return false;
+  }
+
   private void updateFailureCount(Entry userEntry, PasswordPolicyState pwPolicyState)
   {
     if (pwPolicyState.lockedDueToFailures())
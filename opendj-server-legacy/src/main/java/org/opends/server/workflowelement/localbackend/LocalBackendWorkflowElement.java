@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.workflowelement.localbackend;
 
@@ -28,6 +29,7 @@ import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.opends.server.api.AccessControlHandler;
 import org.opends.server.api.LocalBackend;
+import org.opends.server.backends.proxy.ProxyBackend;
 import org.opends.server.controls.LDAPPostReadRequestControl;
 import org.opends.server.controls.LDAPPostReadResponseControl;
 import org.opends.server.controls.LDAPPreReadRequestControl;
@@ -609,19 +611,51 @@ public class LocalBackendWorkflowElement
         break;
 
       case ADD:
-        new LocalBackendAddOperation((AddOperation) operation).processLocalAdd(backend);
+        if (backend instanceof ProxyBackend)
+        {
+          forwardUpdate(operation, (ProxyBackend) backend, ((AddOperation) operation).getEntryDN(),
+              ERR_ADD_SERVER_READONLY, ERR_ADD_BACKEND_READONLY);
+        }
+        else
+        {
+          new LocalBackendAddOperation((AddOperation) operation).processLocalAdd(backend);
+        }
         break;
 
       case DELETE:
-        new LocalBackendDeleteOperation((DeleteOperation) operation).processLocalDelete(backend);
+        if (backend instanceof ProxyBackend)
+        {
+          forwardUpdate(operation, (ProxyBackend) backend, ((DeleteOperation) operation).getEntryDN(),
+              ERR_DELETE_SERVER_READONLY, ERR_DELETE_BACKEND_READONLY);
+        }
+        else
+        {
+          new LocalBackendDeleteOperation((DeleteOperation) operation).processLocalDelete(backend);
+        }
         break;
 
       case MODIFY:
-        new LocalBackendModifyOperation((ModifyOperation) operation).processLocalModify(backend);
+        if (backend instanceof ProxyBackend)
+        {
+          forwardUpdate(operation, (ProxyBackend) backend, ((ModifyOperation) operation).getEntryDN(),
+              ERR_MODIFY_SERVER_READONLY, ERR_MODIFY_BACKEND_READONLY);
+        }
+        else
+        {
+          new LocalBackendModifyOperation((ModifyOperation) operation).processLocalModify(backend);
+        }
         break;
 
       case MODIFY_DN:
-        new LocalBackendModifyDNOperation((ModifyDNOperation) operation).processLocalModifyDN(backend);
+        if (backend instanceof ProxyBackend)
+        {
+          forwardUpdate(operation, (ProxyBackend) backend, ((ModifyDNOperation) operation).getEntryDN(),
+              ERR_MODDN_SERVER_READONLY, ERR_MODDN_BACKEND_READONLY);
+        }
+        else
+        {
+          new LocalBackendModifyDNOperation((ModifyDNOperation) operation).processLocalModifyDN(backend);
+        }
         break;
 
       case COMPARE:
@@ -638,6 +672,43 @@ public class LocalBackendWorkflowElement
     }
   }
 
+  /**
+   * Forwards an update operation to a proxy backend, without the local processing reading its target entry: the
+   * remote servers process the operation on behalf of the requester, so they enforce access control, schema checking
+   * and password policy.
+   *
+   * @param operation
+   *          the update operation to forward
+   * @param backend
+   *          the proxy backend forwarding the operation
+   * @param entryDN
+   *          the target entry DN of the operation, null if it is invalid
+   * @param serverMsg
+   *          the message to log if the update was rejected because the server is read-only
+   * @param backendMsg
+   *          the message to log if the update was rejected because the backend is read-only
+   */
+  private static void forwardUpdate(Operation operation, ProxyBackend backend, DN entryDN,
+      LocalizableMessageDescriptor.Arg1<Object> serverMsg, LocalizableMessageDescriptor.Arg1<Object> backendMsg)
+  {
+    if (entryDN == null)
+    {
+      // the operation already has its result code
+      return;
+    }
+    try
+    {
+      checkIfBackendIsWritable(backend, operation, entryDN, serverMsg, backendMsg);
+      evaluateProxyAuthControls(operation);
+      backend.forwardUpdate(operation);
+    }
+    catch (DirectoryException de)
+    {
+      logger.traceException(de);
+      operation.setResponseData(de);
+    }
+  }
+
   /**
    * Attaches the current local operation to the global operation so that
    * operation runner can execute local operation post response later on.
@@ -0,0 +1,51 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.inmemory;
+
+import static org.mockito.Mockito.when;
+import static org.forgerock.opendj.config.ConfigurationMock.mockCfg;
+import static org.testng.Assert.assertFalse;
+
+import org.forgerock.opendj.server.config.server.InMemoryBackendCfg;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pluggable.PluggableBackendImplTestCase;
+import org.testng.annotations.Test;
+
+/** {@link InMemoryBackend} Tester. */
+@Test
+public class InMemoryTestCase extends PluggableBackendImplTestCase<InMemoryBackendCfg>
+{
+  @Override
+  protected InMemoryBackend createBackend()
+  {
+    return new InMemoryBackend();
+  }
+
+  @Override
+  protected InMemoryBackendCfg createBackendCfg()
+  {
+    InMemoryBackendCfg backendCfg = mockCfg(InMemoryBackendCfg.class);
+    when(backendCfg.getBackendId()).thenReturn("InMemoryTestCase");
+    return backendCfg;
+  }
+
+  @Override
+  public void testBackupAndRestore() throws Exception
+  {
+    InMemoryStorage storage = new InMemoryStorage(createBackendCfg(), TestCaseUtils.getServerContext());
+    assertFalse(storage.supportsBackupAndRestore());
+  }
+}
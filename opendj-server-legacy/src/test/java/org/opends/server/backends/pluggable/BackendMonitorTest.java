@@ -0,0 +1,73 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.SearchFilter;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend", "unit" }, singleThreaded=true)
+public class BackendMonitorTest extends DirectoryServerTestCase
+{
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @DataProvider
+  public Object[][] filterShapes()
+  {
+    return new Object[][] {
+      { "(uid=user.0)", "(uid=?)" },
+      { "(CN=*)", "(cn=*)" },
+      { "(cn=ab*cd*ef)", "(cn=?*?*?)" },
+      { "(cn=*cd*)", "(cn=*?*)" },
+      { "(!(sn<=z))", "(!(sn<=?))" },
+      { "(&(uid=user.1)(objectClass=person))", "(&(objectclass=?)(uid=?))" },
+      { "(&(objectClass=person)(uid=user.2))", "(&(objectclass=?)(uid=?))" },
+      { "(|(mail~=user)(employeeNumber>=10))", "(|(employeenumber>=?)(mail~=?))" },
+      { "(cn:caseExactMatch:=John)", "(cn:caseExactMatch:=?)" },
+    };
+  }
+
+  @Test(dataProvider = "filterShapes")
+  public void testFilterShape(String filter, String expectedShape) throws Exception
+  {
+    assertThat(BackendMonitor.getFilterShape(SearchFilter.createFilterFromString(filter))).isEqualTo(expectedShape);
+  }
+
+  @Test
+  public void testIndexStatistics()
+  {
+    final IndexStatistics stats = new IndexStatistics();
+    stats.updateLookup(EntryIDSet.newDefinedSet(1, 2, 3), true, 0);
+    stats.updateLookup(EntryIDSet.newDefinedSet(1), true, 0);
+    stats.updateLookup(EntryIDSet.newUndefinedSet(), true, 0);
+    stats.updateLookup(EntryIDSet.newUndefinedSet(), false, 0);
+    stats.updateUnindexed();
+
+    assertThat(stats.getLookups()).isEqualTo(5);
+    assertThat(stats.toString())
+        .isEqualTo("lookups:5 avgcandidates:2 maxcandidates:3 limitexceeded:1 unindexed:2 time:0ms");
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.SearchFilter;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend", "unit" }, singleThreaded=true)
+public class CandidateSetCacheTest extends DirectoryServerTestCase
+{
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  /** The weight of a candidate set of {@link CandidateSetCache#MIN_ENTRY_IDS} entry IDs. */
+  private static final int WEIGHT = CandidateSetCache.MIN_ENTRY_IDS + CandidateSetCache.CANDIDATE_SET_OVERHEAD;
+
+  @Test
+  public void testCandidatesAreInvalidatedByWrites() throws Exception
+  {
+    final CandidateSetCache cache = new CandidateSetCache(10 * WEIGHT);
+    final CandidateSetCache.CandidateSet candidates =
+        cache.put(key("(uid=user.*)"), cache.getGeneration(), ids(1), true);
+    assertThat(candidates).isNotNull();
+    assertThat(cache.get(key("(UID=user.*)"), -1)).isSameAs(candidates);
+    assertThat(candidates.isInScope()).isTrue();
+
+    cache.invalidate();
+    assertThat(cache.get(key("(uid=user.*)"), -1)).isNull();
+    // Later pages of a paged results search keep using the same candidates
+    assertThat(cache.get(key("(uid=user.*)"), candidates.getID())).isSameAs(candidates);
+  }
+
+  @Test
+  public void testCandidatesOfOlderGenerationsArePurged() throws Exception
+  {
+    final CandidateSetCache cache = new CandidateSetCache(10 * WEIGHT);
+    final CandidateSetCache.CandidateSet paged = cache.put(key("(cn=a*)"), cache.getGeneration(), ids(1), false);
+    final CandidateSetCache.CandidateSet unused = cache.put(key("(cn=b*)"), cache.getGeneration(), ids(1), false);
+    cache.invalidate();
+
+    // The next page of the paged results search keeps its candidates through the purge
+    assertThat(cache.get(key("(cn=a*)"), paged.getID())).isSameAs(paged);
+    assertThat(cache.put(key("(cn=c*)"), cache.getGeneration(), ids(1), false)).isNotNull();
+    assertThat(cache.get(key("(cn=a*)"), paged.getID())).isSameAs(paged);
+    assertThat(cache.get(key("(cn=b*)"), unused.getID())).isNull();
+
+    // Then drops them once the paged results search no longer reads them between modifications
+    cache.invalidate();
+    assertThat(cache.put(key("(cn=c*)"), cache.getGeneration(), ids(1), false)).isNotNull();
+    cache.invalidate();
+    assertThat(cache.put(key("(cn=c*)"), cache.getGeneration(), ids(1), false)).isNotNull();
+    assertThat(cache.get(key("(cn=a*)"), paged.getID())).isNull();
+  }
+
+  @Test
+  public void testCandidatesEvaluatedBeforeWritesAreNotCached() throws Exception
+  {
+    final CandidateSetCache cache = new CandidateSetCache(10 * WEIGHT);
+    final long generation = cache.getGeneration();
+    cache.invalidate();
+
+    assertThat(cache.put(key("(uid=user.*)"), generation, ids(1), true)).isNull();
+    assertThat(cache.get(key("(uid=user.*)"), -1)).isNull();
+  }
+
+  @Test
+  public void testSmallCandidateSetsAreNotCached() throws Exception
+  {
+    final CandidateSetCache cache = new CandidateSetCache(10 * WEIGHT);
+    final long[] entryIDs = new long[CandidateSetCache.MIN_ENTRY_IDS - 1];
+
+    assertThat(cache.put(key("(uid=user.0)"), cache.getGeneration(), entryIDs, true)).isNull();
+    assertThat(cache.get(key("(uid=user.0)"), -1)).isNull();
+  }
+
+  @Test
+  public void testNumberOfCandidateSetsIsBounded() throws Exception
+  {
+    final CandidateSetCache cache = new CandidateSetCache(Long.MAX_VALUE);
+    final long[] entryIDs = ids(1);
+    for (int i = 0; i <= CandidateSetCache.MAX_CANDIDATE_SETS; i++)
+    {
+      assertThat(cache.put(key("(uid=user." + i + ")"), cache.getGeneration(), entryIDs, true)).isNotNull();
+    }
+    assertThat(cache.get(key("(uid=user.0)"), -1)).isNull();
+    assertThat(cache.get(key("(uid=user.1)"), -1)).isNotNull();
+  }
+
+  @Test
+  public void testLeastRecentlyUsedCandidatesAreEvicted() throws Exception
+  {
+    final CandidateSetCache cache = new CandidateSetCache(2 * WEIGHT + WEIGHT / 2);
+    final long generation = cache.getGeneration();
+    final CandidateSetCache.CandidateSet first = cache.put(key("(cn=a*)"), generation, ids(1), false);
+    final CandidateSetCache.CandidateSet second = cache.put(key("(cn=b*)"), generation, ids(17), false);
+    assertThat(cache.get(key("(cn=a*)"), -1)).isSameAs(first);
+
+    final CandidateSetCache.CandidateSet third = cache.put(key("(cn=c*)"), generation, ids(33), false);
+    assertThat(cache.get(key("(cn=a*)"), -1)).isSameAs(first);
+    assertThat(cache.get(key("(cn=b*)"), -1)).isNull();
+    assertThat(cache.get(key("(cn=c*)"), -1)).isSameAs(third);
+    assertThat(second).isNotNull();
+
+    assertThat(cache.put(key("(cn=d*)"), generation, new long[3 * WEIGHT], false)).isNull();
+
+    cache.setMaxSize(0);
+    assertThat(cache.get(key("(cn=a*)"), -1)).isNull();
+    assertThat(cache.put(key("(cn=e*)"), generation, ids(1), false)).isNull();
+  }
+
+  @Test
+  public void testConcurrentSearchesAndUpdates() throws Exception
+  {
+    final CandidateSetCache cache = new CandidateSetCache(3 * WEIGHT + WEIGHT / 2);
+    final long generation = cache.getGeneration();
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try
+    {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++)
+      {
+        final CandidateSetCache.Key key = key("(cn=" + t + "*)");
+        futures.add(executor.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call() throws Exception
+          {
+            for (int i = 0; i < 1000; i++)
+            {
+              final CandidateSetCache.CandidateSet candidates = cache.get(key, -1);
+              if (candidates == null)
+              {
+                assertThat(cache.put(key, generation, ids(1), false)).isNotNull();
+              }
+              else
+              {
+                assertThat(candidates.getEntryIDs()).containsExactly(ids(1));
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<?> future : futures)
+      {
+        future.get();
+      }
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+
+    // Only three candidate sets fit in the cache
+    int cachedCount = 0;
+    for (int t = 0; t < 4; t++)
+    {
+      if (cache.get(key("(cn=" + t + "*)"), -1) != null)
+      {
+        cachedCount++;
+      }
+    }
+    assertThat(cachedCount).isEqualTo(3);
+  }
+
+  /** Returns {@link CandidateSetCache#MIN_ENTRY_IDS} consecutive entry IDs. */
+  private static long[] ids(long first)
+  {
+    final long[] entryIDs = new long[CandidateSetCache.MIN_ENTRY_IDS];
+    for (int i = 0; i < entryIDs.length; i++)
+    {
+      entryIDs[i] = first + i;
+    }
+    return entryIDs;
+  }
+
+  private static CandidateSetCache.Key key(String filter) throws Exception
+  {
+    return new CandidateSetCache.Key(
+        DN.valueOf("dc=example,dc=com"), SearchScope.WHOLE_SUBTREE, SearchFilter.createFilterFromString(filter), 4000);
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend", "unit" }, singleThreaded=true)
+public class EntryIDBitmapTest extends DirectoryServerTestCase
+{
+  @Test
+  public void testAddRemoveAcrossContainerTypes()
+  {
+    final EntryIDBitmap bitmap = new EntryIDBitmap();
+    final TreeSet<Long> expected = new TreeSet<>();
+    // Grow a chunk beyond the array container limit, then shrink it back
+    for (long id = 0; id < 3 * EntryIDBitmap.MAX_ARRAY_CONTAINER_SIZE; id += 2)
+    {
+      assertThat(bitmap.add(id)).isTrue();
+      expected.add(id);
+    }
+    assertThat(bitmap.add(0)).isFalse();
+    assertEquals(bitmap, expected);
+
+    for (long id = 0; id < 3 * EntryIDBitmap.MAX_ARRAY_CONTAINER_SIZE; id += 4)
+    {
+      assertThat(bitmap.remove(id)).isTrue();
+      expected.remove(id);
+    }
+    assertThat(bitmap.remove(0)).isFalse();
+    assertEquals(bitmap, expected);
+  }
+
+  @Test
+  public void testSetOperations()
+  {
+    final Random random = new Random(0);
+    for (int i = 0; i < 50; i++)
+    {
+      final TreeSet<Long> expectedA = randomIDs(random);
+      final TreeSet<Long> expectedB = randomIDs(random);
+
+      EntryIDBitmap a = valueOf(expectedA);
+      final EntryIDBitmap b = valueOf(expectedB);
+      a.and(b);
+      assertEquals(a, intersection(expectedA, expectedB));
+      assertEquals(b, expectedB);
+
+      a = valueOf(expectedA);
+      a.or(b);
+      final TreeSet<Long> union = new TreeSet<>(expectedA);
+      union.addAll(expectedB);
+      assertEquals(a, union);
+      assertEquals(b, expectedB);
+
+      a = valueOf(expectedA);
+      a.andNot(b);
+      final TreeSet<Long> difference = new TreeSet<>(expectedA);
+      difference.removeAll(expectedB);
+      assertEquals(a, difference);
+      assertEquals(b, expectedB);
+    }
+  }
+
+  @Test
+  public void testEncodeDecode()
+  {
+    final Random random = new Random(0);
+    for (int i = 0; i < 20; i++)
+    {
+      final TreeSet<Long> expected = randomIDs(random);
+      final ByteStringBuilder builder = valueOf(expected).encode(new ByteStringBuilder());
+      final EntryIDBitmap decoded = EntryIDBitmap.decode(builder.asReader());
+      assertEquals(decoded, expected);
+
+      // Run containers are expanded when modified
+      decoded.add(5);
+      decoded.remove(100001);
+      expected.add(5L);
+      expected.remove(100001L);
+      assertEquals(decoded, expected);
+    }
+  }
+
+  private static TreeSet<Long> randomIDs(Random random)
+  {
+    final TreeSet<Long> ids = new TreeSet<>();
+    final int nbIDs = random.nextInt(20000);
+    for (int i = 0; i < nbIDs; i++)
+    {
+      switch (random.nextInt(3))
+      {
+      case 0:
+        // Dense
+        ids.add((long) random.nextInt(70000));
+        break;
+      case 1:
+        // Sparse
+        ids.add((long) random.nextInt(Integer.MAX_VALUE));
+        break;
+      default:
+        // Consecutive
+        ids.add(100000L + i);
+        break;
+      }
+    }
+    return ids;
+  }
+
+  private static EntryIDBitmap valueOf(TreeSet<Long> ids)
+  {
+    return EntryIDBitmap.valueOf(toArray(ids));
+  }
+
+  private static long[] toArray(TreeSet<Long> ids)
+  {
+    final long[] array = new long[ids.size()];
+    int i = 0;
+    for (long id : ids)
+    {
+      array[i++] = id;
+    }
+    return array;
+  }
+
+  private static TreeSet<Long> intersection(TreeSet<Long> a, TreeSet<Long> b)
+  {
+    final TreeSet<Long> result = new TreeSet<>(a);
+    result.retainAll(b);
+    return result;
+  }
+
+  private static void assertEquals(EntryIDBitmap actual, TreeSet<Long> expected)
+  {
+    assertThat(actual.size()).isEqualTo(expected.size());
+    assertThat(actual.toArray()).containsExactly(toArray(expected));
+    for (long id : expected)
+    {
+      assertThat(actual.contains(id)).isTrue();
+    }
+    if (!expected.isEmpty())
+    {
+      assertThat(actual.first()).isEqualTo(expected.first());
+      assertThat(actual.last()).isEqualTo(expected.last());
+    }
+  }
+}
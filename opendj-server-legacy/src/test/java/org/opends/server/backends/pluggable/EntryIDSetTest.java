@@ -12,12 +12,15 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.opends.server.backends.pluggable.EntryIDSet.CODEC_V1;
 import static org.opends.server.backends.pluggable.EntryIDSet.CODEC_V2;
+import static org.opends.server.backends.pluggable.EntryIDSet.CODEC_V4;
+import static org.opends.server.backends.pluggable.EntryIDSet.newBitmapSet;
 import static org.opends.server.backends.pluggable.EntryIDSet.newDefinedSet;
 import static org.opends.server.backends.pluggable.EntryIDSet.newSetFromUnion;
 import static org.opends.server.backends.pluggable.EntryIDSet.newUndefinedSet;
@@ -297,9 +300,95 @@ public class EntryIDSetTest extends DirectoryServerTestCase
     assertIdsEquals(retained, 1, 3, 5, 7, 9);
   }
 
+  @Test(dataProvider = "codecs")
+  public void testCodecsLargeSet(EntryIDSetCodec codec)
+  {
+    final long[] ids = largeSetIDs();
+    final EntryIDSet decoded = codec.decode(KEY, codec.encode(newDefinedSet(ids)));
+    assertThat(decoded.size()).isEqualTo(ids.length);
+    assertThat(decoded.toLongArray()).isEqualTo(ids);
+  }
+
+  @Test
+  public void testCodecV2DecodesBitmaps()
+  {
+    final long[] ids = largeSetIDs();
+    final ByteString encoded = CODEC_V4.encode(newDefinedSet(ids));
+    assertThat(encoded.length()).isLessThan(CODEC_V2.encode(newDefinedSet(ids)).length());
+    assertThat(CODEC_V2.decode(KEY, encoded).toLongArray()).isEqualTo(ids);
+  }
+
+  @Test
+  public void testBitmapAddAllRemoveAll()
+  {
+    final EntryIDSet set = newBitmapSet(EntryIDBitmap.valueOf(10, 12));
+    set.addAll(newDefinedSet(6, 8, 12, 70000));
+    assertIdsEquals(set, 6, 8, 10, 12, 70000);
+
+    set.addAll(newBitmapSet(EntryIDBitmap.valueOf(1, 70001)));
+    assertIdsEquals(set, 1, 6, 8, 10, 12, 70000, 70001);
+
+    set.removeAll(newDefinedSet(6, 70000));
+    assertIdsEquals(set, 1, 8, 10, 12, 70001);
+
+    set.removeAll(newBitmapSet(EntryIDBitmap.valueOf(1, 12)));
+    assertIdsEquals(set, 8, 10, 70001);
+    assertThat(set.size()).isEqualTo(3);
+  }
+
+  @Test
+  public void testDefinedAddAllBitmap()
+  {
+    final EntryIDSet set = newDefinedSet(2, 4);
+    set.addAll(newBitmapSet(EntryIDBitmap.valueOf(3, 4, 5)));
+    assertIdsEquals(set, 2, 3, 4, 5);
+    assertThat(set.size()).isEqualTo(4);
+  }
+
+  @Test
+  public void testRetainAllWithBitmaps()
+  {
+    EntryIDSet retained = newBitmapSet(EntryIDBitmap.valueOf(2, 4, 6, 8, 100000));
+    retained.retainAll(newBitmapSet(EntryIDBitmap.valueOf(1, 2, 3, 6, 100000)));
+    assertIdsEquals(retained, 2, 6, 100000);
+
+    retained = newBitmapSet(EntryIDBitmap.valueOf(2, 4, 6, 8));
+    retained.retainAll(newDefinedSet(1, 2, 3, 8));
+    assertIdsEquals(retained, 2, 8);
+
+    retained = newDefinedSet(2, 4, 6, 8);
+    retained.retainAll(newBitmapSet(EntryIDBitmap.valueOf(4, 5, 6)));
+    assertIdsEquals(retained, 4, 6);
+
+    retained = newUndefinedSet();
+    retained.retainAll(newBitmapSet(EntryIDBitmap.valueOf(1, 3)));
+    assertThat(retained.isDefined()).isTrue();
+    assertIdsEquals(retained, 1, 3);
+  }
+
+  @Test
+  public void testNewSetFromUnionsWithBitmaps()
+  {
+    final EntryIDSet union = newSetFromUnion(
+        Arrays.asList(newDefinedSet(1, 2, 3), newBitmapSet(EntryIDBitmap.valueOf(3, 4, 70000)), newDefinedSet(5)));
+    assertIdsEquals(union, 1, 2, 3, 4, 5, 70000);
+    assertThat(union.size()).isEqualTo(6);
+  }
+
+  private static long[] largeSetIDs()
+  {
+    // Dense, sparse and consecutive chunks
+    final long[] ids = new long[20000];
+    for (int i = 0; i < ids.length; i++)
+    {
+      ids[i] = i < 10000 ? 3 * i : i < 15000 ? 100000 + 1000 * i : 100000000 + i;
+    }
+    return ids;
+  }
+
   @DataProvider(name = "codecs")
   public static Object[][] codecs() {
-     return new Object[][] { { CODEC_V1 }, { CODEC_V2 } };
+     return new Object[][] { { CODEC_V1 }, { CODEC_V2 }, { CODEC_V4 } };
   }
 
 }
@@ -0,0 +1,131 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend", "unit" }, singleThreaded=true)
+public class EntryIDSorterTest extends DirectoryServerTestCase
+{
+  private static final long[] IDS = { 7, 3, 9, 1, 5, 8, 2, 6, 4 };
+
+  @Test
+  public void testKeepingAll()
+  {
+    final EntryIDSorter sorter = EntryIDSorter.keepingAll();
+    addAll(sorter);
+
+    assertThat(sorter.size()).isEqualTo(IDS.length);
+    assertThat(sorter.getSkippedCount()).isEqualTo(0);
+    assertThat(sortedIDs(sorter)).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+  }
+
+  @Test
+  public void testKeepingFirst()
+  {
+    final EntryIDSorter sorter = EntryIDSorter.keepingFirst(3);
+    addAll(sorter);
+
+    assertThat(sorter.size()).isEqualTo(IDS.length);
+    assertThat(sortedIDs(sorter)).containsExactly(1L, 2L, 3L);
+  }
+
+  @Test
+  public void testKeepingFirstDoesNotCountEntriesWhichMayNotBeReturned()
+  {
+    final EntryIDSorter sorter = EntryIDSorter.keepingFirst(3);
+    for (long id : IDS)
+    {
+      sorter.add(key(id), new EntryID(id), id % 2 == 0);
+    }
+
+    assertThat(sorter.size()).isEqualTo(IDS.length);
+    assertThat(sortedIDs(sorter)).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 9L);
+  }
+
+  @Test
+  public void testKeepingFirstNone()
+  {
+    final EntryIDSorter sorter = EntryIDSorter.keepingFirst(0);
+    addAll(sorter);
+
+    assertThat(sorter.size()).isEqualTo(IDS.length);
+    assertThat(sortedIDs(sorter)).isEmpty();
+  }
+
+  @Test
+  public void testKeepingAround()
+  {
+    final EntryIDSorter sorter = EntryIDSorter.keepingAround(key(6), 2, 2);
+    addAll(sorter);
+
+    assertThat(sorter.size()).isEqualTo(IDS.length);
+    assertThat(sortedIDs(sorter)).containsExactly(4L, 5L, 6L, 7L);
+    assertThat(sorter.getSkippedCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void testKeepingAroundTargetBeyondTheEnd()
+  {
+    final EntryIDSorter sorter = EntryIDSorter.keepingAround(key(10), 2, 2);
+    addAll(sorter);
+
+    assertThat(sorter.size()).isEqualTo(IDS.length);
+    assertThat(sortedIDs(sorter)).containsExactly(8L, 9L);
+    assertThat(sorter.getSkippedCount()).isEqualTo(7);
+  }
+
+  @Test
+  public void testKeepingAroundFewerEntriesBefore()
+  {
+    final EntryIDSorter sorter = EntryIDSorter.keepingAround(key(2), 5, 1);
+    addAll(sorter);
+
+    assertThat(sortedIDs(sorter)).containsExactly(1L, 2L);
+    assertThat(sorter.getSkippedCount()).isEqualTo(0);
+  }
+
+  private static void addAll(EntryIDSorter sorter)
+  {
+    for (long id : IDS)
+    {
+      sorter.add(key(id), new EntryID(id), true);
+    }
+  }
+
+  private static ByteString key(long id)
+  {
+    return ByteString.valueOfLong(id);
+  }
+
+  private static List<Long> sortedIDs(EntryIDSorter sorter)
+  {
+    final List<Long> ids = new ArrayList<>();
+    for (EntryID id : sorter.getSortedEntries().values())
+    {
+      ids.add(id.longValue());
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.opendj.config.ConfigurationMock.mockCfg;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.opends.server.util.CollectionUtils.newTreeSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.server.config.server.JEBackendCfg;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.jeb.JEStorage;
+import org.opends.server.backends.pluggable.spi.AccessMode;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.ReadOperation;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.UpdateFunction;
+import org.opends.server.backends.pluggable.spi.WriteOperation;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.core.MemoryQuota;
+import org.opends.server.core.ServerContext;
+import org.opends.server.extensions.DiskSpaceMonitor;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend" }, singleThreaded = true)
+public class VLVPositionsTest extends DirectoryServerTestCase
+{
+  /** Mirrors how the VLV index only counts the keys it actually inserts. */
+  private static final UpdateFunction INSERT_IF_ABSENT = new UpdateFunction()
+  {
+    @Override
+    public ByteSequence computeNewValue(ByteSequence oldValue)
+    {
+      return oldValue != null ? oldValue : ByteString.empty();
+    }
+  };
+
+  private final TreeName vlvTreeName = new TreeName("base-dn", "vlv.test");
+  private VLVPositions positions;
+  private JEStorage storage;
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception
+  {
+    ServerContext serverContext = mock(ServerContext.class);
+    when(serverContext.getMemoryQuota()).thenReturn(new MemoryQuota());
+    when(serverContext.getDiskSpaceMonitor()).thenReturn(mock(DiskSpaceMonitor.class));
+
+    storage = new JEStorage(createBackendCfg(), serverContext);
+    storage.open(AccessMode.READ_WRITE);
+    positions = new VLVPositions(new TreeName("base-dn", "positions.vlv.test"));
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    storage.close();
+    storage.removeStorageFiles();
+  }
+
+  @Test
+  public void testPositionToIndexAfterAddsAndRemoves() throws Exception
+  {
+    openTrees();
+    final List<Integer> values = new ArrayList<>();
+    for (int i = 0; i < 3 * VLVPositions.MAX_BLOCK_SIZE; i++)
+    {
+      values.add(i);
+    }
+    Collections.shuffle(values, new Random(0));
+    addKeys(values);
+    assertPositions(values);
+
+    final List<Integer> removed = values.subList(0, values.size() / 2);
+    removeKeys(removed);
+    removed.clear();
+    assertPositions(values);
+
+    removeKeys(values);
+    assertPositions(Collections.<Integer> emptyList());
+  }
+
+  @Test
+  public void testPositionToIndexAfterReAddingExistingKeys() throws Exception
+  {
+    openTrees();
+    final List<Integer> values = new ArrayList<>();
+    for (int i = 0; i < 2 * VLVPositions.MAX_BLOCK_SIZE; i++)
+    {
+      values.add(i);
+    }
+    addKeys(values);
+    addKeys(values.subList(0, VLVPositions.MAX_BLOCK_SIZE + 1));
+    assertPositions(values);
+
+    removeKeys(values.subList(0, 10));
+    removeKeys(values.subList(0, 10));
+    values.subList(0, 10).clear();
+    assertPositions(values);
+  }
+
+  @Test
+  public void testPositionToIndexAfterConcurrentAscendingAdds() throws Exception
+  {
+    openTrees();
+    final int nbThreads = 4;
+    final int nbKeysPerThread = VLVPositions.MAX_BLOCK_SIZE;
+    final ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+    try
+    {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < nbThreads; t++)
+      {
+        final int thread = t;
+        futures.add(executor.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call() throws Exception
+          {
+            for (int i = 0; i < nbKeysPerThread; i++)
+            {
+              addKeys(Collections.singletonList(i * nbThreads + thread));
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<?> future : futures)
+      {
+        future.get();
+      }
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+
+    final List<Integer> values = new ArrayList<>();
+    for (int i = 0; i < nbThreads * nbKeysPerThread; i++)
+    {
+      values.add(i);
+    }
+    assertPositions(values);
+
+    // Remove keys from the blocks and from the tail
+    final List<Integer> removed = new ArrayList<>();
+    for (int i = 0; i < values.size(); i += 3)
+    {
+      removed.add(values.get(i));
+    }
+    removeKeys(removed);
+    values.removeAll(removed);
+    assertPositions(values);
+  }
+
+  @Test
+  public void testPositionToIndexWithoutPositions() throws Exception
+  {
+    storage.write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        txn.openTree(vlvTreeName, true);
+        txn.put(vlvTreeName, key(0), ByteString.empty());
+      }
+    });
+    openTrees();
+    addKeys(Collections.singletonList(1));
+
+    // Positions are incomplete since the VLV index was not empty when they were created
+    assertPositions(Arrays.asList(0, 1));
+  }
+
+  private void openTrees() throws Exception
+  {
+    storage.write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        txn.openTree(vlvTreeName, true);
+        positions.open(txn, true);
+        positions.setCompleteIfEmpty(txn, vlvTreeName);
+      }
+    });
+  }
+
+  private void addKeys(final List<Integer> values) throws Exception
+  {
+    storage.write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        for (int value : values)
+        {
+          if (txn.update(vlvTreeName, key(value), INSERT_IF_ABSENT))
+          {
+            positions.addKey(txn, vlvTreeName, key(value));
+          }
+        }
+      }
+    });
+  }
+
+  private void removeKeys(final List<Integer> values) throws Exception
+  {
+    storage.write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        for (int value : values)
+        {
+          if (txn.delete(vlvTreeName, key(value)))
+          {
+            positions.removeKey(txn, key(value));
+          }
+        }
+      }
+    });
+  }
+
+  private void assertPositions(List<Integer> values) throws Exception
+  {
+    final List<Integer> sortedValues = new ArrayList<>(values);
+    Collections.sort(sortedValues);
+    for (int i = 0; i < sortedValues.size(); i += 97)
+    {
+      assertThat(positionToIndex(i)).isEqualTo(key(sortedValues.get(i)));
+    }
+    if (!sortedValues.isEmpty())
+    {
+      assertThat(positionToIndex(sortedValues.size() - 1)).isEqualTo(key(sortedValues.get(sortedValues.size() - 1)));
+    }
+    assertThat(positionToIndex(sortedValues.size())).isNull();
+  }
+
+  private ByteString positionToIndex(final int index) throws Exception
+  {
+    return storage.read(new ReadOperation<ByteString>()
+    {
+      @Override
+      public ByteString run(ReadableTransaction txn) throws Exception
+      {
+        try (Cursor<ByteString, ByteString> cursor = txn.openCursor(vlvTreeName))
+        {
+          return positions.positionToIndex(txn, cursor, index) ? cursor.getKey() : null;
+        }
+      }
+    });
+  }
+
+  /** Builds a VLV like key: a sort value followed by an entry ID. */
+  private static ByteString key(int value)
+  {
+    return new ByteStringBuilder().appendInt(value).appendLong(value).toByteString();
+  }
+
+  private JEBackendCfg createBackendCfg() throws ConfigException
+  {
+    String homeDirName = "je_test";
+    JEBackendCfg backendCfg = mockCfg(JEBackendCfg.class);
+
+    when(backendCfg.getBackendId()).thenReturn("persTest" + homeDirName);
+    when(backendCfg.getDBDirectory()).thenReturn(homeDirName);
+    when(backendCfg.getDBDirectoryPermissions()).thenReturn("755");
+    when(backendCfg.getDBCacheSize()).thenReturn(0L);
+    when(backendCfg.getDBCachePercent()).thenReturn(20);
+    when(backendCfg.getBaseDN()).thenReturn(newTreeSet(DN.valueOf("dc=test,dc=com")));
+    when(backendCfg.dn()).thenReturn(DN.valueOf("dc=test,dc=com"));
+    when(backendCfg.listBackendIndexes()).thenReturn(new String[0]);
+    when(backendCfg.listBackendVLVIndexes()).thenReturn(new String[0]);
+
+    return backendCfg;
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.proxy;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.forgerock.opendj.config.ConfigurationMock.mockCfg;
+import static org.forgerock.opendj.ldap.LDAPListener.*;
+import static org.mockito.Mockito.*;
+import static org.opends.server.TestCaseUtils.*;
+import static org.opends.server.util.CollectionUtils.*;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.forgerock.opendj.ldap.Connections;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.LDAPListener;
+import org.forgerock.opendj.ldap.MemoryBackend;
+import org.forgerock.opendj.ldap.ModificationType;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldif.LDIFEntryReader;
+import org.forgerock.opendj.server.config.server.ProxyBackendCfg;
+import org.forgerock.opendj.server.config.server.StaticServiceDiscoveryMechanismCfg;
+import org.forgerock.util.Options;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.core.BackendConfigManager;
+import org.opends.server.core.DeleteOperation;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ModifyOperation;
+import org.opends.server.core.ServerContext;
+import org.opends.server.discovery.ServiceDiscoveryMechanismConfigManager;
+import org.opends.server.discovery.StaticServiceDiscoveryMechanism;
+import org.opends.server.protocols.ldap.LDAPAttribute;
+import org.opends.server.protocols.ldap.LDAPControl;
+import org.opends.server.protocols.ldap.LDAPModification;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Control;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.Operation;
+import org.opends.server.types.OperationType;
+import org.opends.server.types.RawModification;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.forgerock.reactive.ServerConnectionFactoryAdapter;
+
+/** Tests the proxy backend against in-memory remote LDAP servers. */
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "backend" }, singleThreaded = true)
+public class ProxyBackendTestCase extends DirectoryServerTestCase
+{
+  private static final String BACKEND_ID = "proxyTest";
+  private static final DN BASE_DN = DN.valueOf("o=test");
+  private static final DN SERVER_DN = DN.valueOf("cn=server,o=test");
+
+  private final List<LDAPListener> listeners = new ArrayList<>();
+  private MemoryBackend remoteA;
+  private String remoteAHostPort;
+  private MemoryBackend remoteB;
+  private String remoteBHostPort;
+  private ProxyBackend backend;
+
+  @BeforeClass
+  public void startServers() throws Exception
+  {
+    TestCaseUtils.startServer();
+    remoteA = newRemoteBackend("A");
+    remoteAHostPort = startRemoteServer(remoteA);
+    remoteB = newRemoteBackend("B");
+    remoteBHostPort = startRemoteServer(remoteB);
+  }
+
+  @AfterClass
+  public void stopServers()
+  {
+    for (LDAPListener listener : listeners)
+    {
+      listener.close();
+    }
+  }
+
+  @AfterMethod
+  public void closeBackend()
+  {
+    if (backend != null)
+    {
+      backend.closeBackend();
+      backend = null;
+    }
+  }
+
+  @Test
+  public void testOperationsAreForwarded() throws Exception
+  {
+    backend = openBackend(
+        newMechanism(newMechanismCfg(newArrayList(remoteAHostPort), Collections.<String> emptyList())));
+
+    assertThat(backend.getEntry(SERVER_DN).parseAttribute("description").asString()).isEqualTo("A");
+    assertThat(backend.getEntry(DN.valueOf("cn=missing,o=test"))).isNull();
+
+    final Entry entry = TestCaseUtils.makeEntry(
+        "dn: cn=added,o=test",
+        "objectClass: top",
+        "objectClass: device",
+        "cn: added");
+    backend.addEntry(entry, null);
+    assertThat(remoteA.contains("cn=added,o=test")).isTrue();
+    assertThat(remoteB.contains("cn=added,o=test")).isFalse();
+
+    backend.deleteEntry(entry.getName(), null);
+    assertThat(remoteA.contains("cn=added,o=test")).isFalse();
+  }
+
+  @Test
+  public void testUpdatesAreForwardedWithoutReadingTheEntry() throws Exception
+  {
+    backend = openBackend(
+        newMechanism(newMechanismCfg(newArrayList(remoteAHostPort), Collections.<String> emptyList())));
+    final DN entryDN = DN.valueOf("cn=forwarded,o=test");
+    backend.addEntry(TestCaseUtils.makeEntry(
+        "dn: cn=forwarded,o=test",
+        "objectClass: top",
+        "objectClass: device",
+        "cn: forwarded"), null);
+
+    final ModifyOperation modifyOperation = mockOperation(ModifyOperation.class, OperationType.MODIFY);
+    when(modifyOperation.getEntryDN()).thenReturn(entryDN);
+    when(modifyOperation.getRawModifications()).thenReturn(Collections.<RawModification> singletonList(
+        new LDAPModification(ModificationType.REPLACE, new LDAPAttribute("description", "modified"))));
+    backend.forwardUpdate(modifyOperation);
+    verify(modifyOperation).setResultCode(ResultCode.SUCCESS);
+    assertThat(remoteA.get(entryDN).parseAttribute("description").asString()).isEqualTo("modified");
+
+    final DeleteOperation deleteOperation = mockOperation(DeleteOperation.class, OperationType.DELETE);
+    when(deleteOperation.getEntryDN()).thenReturn(entryDN);
+    backend.forwardUpdate(deleteOperation);
+    assertThat(remoteA.contains(entryDN)).isFalse();
+
+    // the remote server processed the updates, without any search reading the entries first
+    assertThat(getMonitorAttributeNames(remoteAHostPort))
+        .contains("ds-mon-mod-operations-total-count", "ds-mon-delete-operations-total-count")
+        .doesNotContain("ds-mon-search-operations-total-count");
+  }
+
+  @Test
+  public void testUpdateWithUnsupportedCriticalControlIsRejected() throws Exception
+  {
+    backend = openBackend(
+        newMechanism(newMechanismCfg(newArrayList(remoteAHostPort), Collections.<String> emptyList())));
+
+    final DeleteOperation deleteOperation = mockOperation(DeleteOperation.class, OperationType.DELETE);
+    when(deleteOperation.getEntryDN()).thenReturn(SERVER_DN);
+    when(deleteOperation.getRequestControls()).thenReturn(newArrayList((Control) new LDAPControl("1.2.3.4", true)));
+    try
+    {
+      backend.forwardUpdate(deleteOperation);
+      failBecauseExceptionWasNotThrown(DirectoryException.class);
+    }
+    catch (DirectoryException e)
+    {
+      assertThat(e.getResultCode()).isEqualTo(ResultCode.UNAVAILABLE_CRITICAL_EXTENSION);
+    }
+    assertThat(remoteA.contains(SERVER_DN)).isTrue();
+  }
+
+  @Test
+  public void testSecondaryServerIsUsedWhenPrimaryServerIsDown() throws Exception
+  {
+    final String downHostPort = "127.0.0.1:" + findFreePort();
+    backend = openBackend(newMechanism(newMechanismCfg(newArrayList(downHostPort), newArrayList(remoteBHostPort))));
+
+    assertThat(backend.getEntry(SERVER_DN).parseAttribute("description").asString()).isEqualTo("B");
+  }
+
+  @Test
+  public void testServiceChangeSwitchesRemoteServers() throws Exception
+  {
+    final StaticServiceDiscoveryMechanism mechanism =
+        newMechanism(newMechanismCfg(newArrayList(remoteAHostPort), Collections.<String> emptyList()));
+    backend = openBackend(mechanism);
+    assertThat(backend.getEntry(SERVER_DN).parseAttribute("description").asString()).isEqualTo("A");
+    assertThat(getRemoteServerMonitorNames()).containsOnly(getMonitorName(remoteAHostPort));
+
+    // remote server A is kept, with the same monitor name, and B becomes the only primary server
+    mechanism.applyConfigurationChange(newMechanismCfg(newArrayList(remoteBHostPort), newArrayList(remoteAHostPort)));
+
+    assertThat(backend.getEntry(SERVER_DN).parseAttribute("description").asString()).isEqualTo("B");
+    assertThat(getRemoteServerMonitorNames())
+        .containsOnly(getMonitorName(remoteAHostPort), getMonitorName(remoteBHostPort));
+
+    backend.closeBackend();
+    backend = null;
+    assertThat(getRemoteServerMonitorNames()).isEmpty();
+  }
+
+  private static MemoryBackend newRemoteBackend(String name) throws Exception
+  {
+    return new MemoryBackend(new LDIFEntryReader(
+        "dn: ",
+        "objectClass: top",
+        "",
+        "dn: o=test",
+        "objectClass: top",
+        "objectClass: organization",
+        "o: test",
+        "",
+        "dn: cn=server,o=test",
+        "objectClass: top",
+        "objectClass: device",
+        "cn: server",
+        "description: " + name));
+  }
+
+  /** Starts a remote LDAP server on a free port and returns its host:port. */
+  private String startRemoteServer(MemoryBackend remoteBackend) throws Exception
+  {
+    final LDAPListener listener = new LDAPListener(
+        Collections.singleton(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)),
+        new ServerConnectionFactoryAdapter(Options.defaultOptions().get(LDAP_DECODE_OPTIONS),
+            Connections.newServerConnectionFactory(remoteBackend)));
+    listeners.add(listener);
+    return "127.0.0.1:" + listener.firstSocketAddress().getPort();
+  }
+
+  private static StaticServiceDiscoveryMechanismCfg newMechanismCfg(List<String> primaryServers,
+      List<String> secondaryServers)
+  {
+    final StaticServiceDiscoveryMechanismCfg cfg = mock(StaticServiceDiscoveryMechanismCfg.class);
+    when(cfg.name()).thenReturn("static");
+    when(cfg.getPrimaryServer()).thenReturn(new TreeSet<>(primaryServers));
+    when(cfg.getSecondaryServer()).thenReturn(new TreeSet<>(secondaryServers));
+    return cfg;
+  }
+
+  private static StaticServiceDiscoveryMechanism newMechanism(StaticServiceDiscoveryMechanismCfg cfg)
+  {
+    final StaticServiceDiscoveryMechanism mechanism = new StaticServiceDiscoveryMechanism();
+    mechanism.initializeMechanism(cfg, mock(ServerContext.class));
+    return mechanism;
+  }
+
+  private static ProxyBackend openBackend(StaticServiceDiscoveryMechanism mechanism) throws Exception
+  {
+    final ProxyBackendCfg cfg = mockCfg(ProxyBackendCfg.class);
+    when(cfg.getBackendId()).thenReturn(BACKEND_ID);
+    when(cfg.getBaseDN()).thenReturn(newTreeSet(BASE_DN));
+    when(cfg.getServiceDiscoveryMechanism()).thenReturn(newTreeSet("static"));
+
+    final ServiceDiscoveryMechanismConfigManager mechanismManager = mock(ServiceDiscoveryMechanismConfigManager.class);
+    doReturn(mechanism).when(mechanismManager).getMechanism("static");
+    final ServerContext serverContext = mock(ServerContext.class);
+    when(serverContext.getServiceDiscoveryMechanismConfigManager()).thenReturn(mechanismManager);
+    when(serverContext.getBackendConfigManager()).thenReturn(mock(BackendConfigManager.class));
+
+    final ProxyBackend backend = new ProxyBackend();
+    backend.setBackendID(BACKEND_ID);
+    backend.configureBackend(cfg, serverContext);
+    backend.openBackend();
+    return backend;
+  }
+
+  private static <O extends Operation> O mockOperation(Class<O> operationClass, OperationType operationType)
+  {
+    final O operation = mock(operationClass);
+    when(operation.getOperationType()).thenReturn(operationType);
+    when(operation.isInternalOperation()).thenReturn(true);
+    return operation;
+  }
+
+  private static List<String> getMonitorAttributeNames(String hostPort)
+  {
+    final List<String> names = new ArrayList<>();
+    for (Attribute attribute : DirectoryServer.getMonitorProviders().get(getMonitorName(hostPort)).getMonitorData())
+    {
+      names.add(attribute.getAttributeDescription().toString());
+    }
+    return names;
+  }
+
+  private static String getMonitorName(String hostPort)
+  {
+    return (BACKEND_ID + " Remote Server " + hostPort).toLowerCase();
+  }
+
+  private static List<String> getRemoteServerMonitorNames()
+  {
+    final List<String> names = new ArrayList<>();
+    for (String name : DirectoryServer.getMonitorProviders().keySet())
+    {
+      if (name.startsWith(BACKEND_ID.toLowerCase() + " remote server "))
+      {
+        names.add(name);
+      }
+    }
+    return names;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.proxy;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.MonitorData;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.OperationType;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "backend" })
+public class ResponseTimesTestCase extends DirectoryServerTestCase
+{
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @Test
+  public void testBucketsCoverAllValues()
+  {
+    long previousHighestValue = -1;
+    for (int i = 0; i < ResponseTimes.BUCKET_COUNT; i++)
+    {
+      final long highestValue = ResponseTimes.highestValueInBucket(i);
+      assertThat(ResponseTimes.bucketIndex(previousHighestValue + 1)).isEqualTo(i);
+      assertThat(ResponseTimes.bucketIndex(highestValue)).isEqualTo(i);
+      // the relative error stays within one eighth of the value
+      assertThat(highestValue - previousHighestValue - 1).isLessThanOrEqualTo((previousHighestValue + 1) / 8);
+      previousHighestValue = highestValue;
+    }
+    assertThat(ResponseTimes.bucketIndex(Long.MAX_VALUE)).isEqualTo(ResponseTimes.BUCKET_COUNT - 1);
+    assertThat(ResponseTimes.bucketIndex(-1)).isEqualTo(0);
+  }
+
+  @Test
+  public void testMonitorDataOnlyContainsForwardedOperationTypes()
+  {
+    final ResponseTimes responseTimes = new ResponseTimes();
+    for (int i = 1; i <= 1000; i++)
+    {
+      responseTimes.record(OperationType.SEARCH, i);
+    }
+    responseTimes.record(OperationType.SEARCH, 100000);
+    responseTimes.record(OperationType.MODIFY_DN, 42);
+
+    final Map<String, Long> attrs = toMap(responseTimes);
+    assertThat(attrs).hasSize(12);
+    assertThat(attrs.get("ds-mon-search-operations-total-count")).isEqualTo(1001);
+    assertThat(attrs.get("ds-mon-search-operations-response-time-p50")).isBetween(501L, 501L + 501 / 8);
+    assertThat(attrs.get("ds-mon-search-operations-response-time-p99")).isBetween(991L, 991L + 991 / 8);
+    assertThat(attrs.get("ds-mon-search-operations-response-time-max")).isEqualTo(100000);
+    assertThat(attrs.get("ds-mon-moddn-operations-total-count")).isEqualTo(1);
+    assertThat(attrs.get("ds-mon-moddn-operations-response-time-p999")).isEqualTo(42);
+  }
+
+  private static Map<String, Long> toMap(ResponseTimes responseTimes)
+  {
+    final MonitorData monitorData = new MonitorData();
+    responseTimes.addMonitorData(monitorData);
+    final Map<String, Long> attrs = new HashMap<>();
+    for (Attribute attribute : monitorData)
+    {
+      attrs.put(attribute.getAttributeDescription().toString(), Long.valueOf(attribute.iterator().next().toString()));
+    }
+    return attrs;
+  }
+}
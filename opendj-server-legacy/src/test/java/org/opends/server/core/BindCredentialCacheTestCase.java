@@ -0,0 +1,132 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Attributes;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class BindCredentialCacheTestCase extends CoreTestCase
+{
+  private static final DN USER = DN.valueOf("uid=user.0,o=test");
+  private static final DN OTHER_USER = DN.valueOf("uid=user.1,o=test");
+  private static final ByteString PASSWORD = ByteString.valueOfUtf8("password");
+
+  private List<Attribute> storedPasswords;
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startServer();
+    storedPasswords = storedPasswords("{PBKDF2}10000:stored");
+  }
+
+  @Test
+  public void disabledByDefault()
+  {
+    final BindCredentialCache cache = new BindCredentialCache();
+    cache.verified(USER, storedPasswords, PASSWORD);
+
+    assertThat(cache.isVerified(USER, storedPasswords, PASSWORD)).isFalse();
+    assertThat(cache.size()).isZero();
+    assertThat(cache.getHits()).isZero();
+    assertThat(cache.getMisses()).isZero();
+  }
+
+  @Test
+  public void reusesVerification()
+  {
+    final BindCredentialCache cache = newCache(10);
+    assertThat(cache.isVerified(USER, storedPasswords, PASSWORD)).isFalse();
+    cache.verified(USER, storedPasswords, PASSWORD);
+
+    assertThat(cache.isVerified(USER, storedPasswords, PASSWORD)).isTrue();
+    assertThat(cache.isVerified(OTHER_USER, storedPasswords, PASSWORD)).isFalse();
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(2);
+  }
+
+  @Test
+  public void otherPasswordIsNotVerified()
+  {
+    final BindCredentialCache cache = newCache(10);
+    cache.verified(USER, storedPasswords, PASSWORD);
+
+    assertThat(cache.isVerified(USER, storedPasswords, ByteString.valueOfUtf8("other"))).isFalse();
+  }
+
+  @Test
+  public void passwordChangeInvalidatesVerification()
+  {
+    final BindCredentialCache cache = newCache(10);
+    cache.verified(USER, storedPasswords, PASSWORD);
+
+    assertThat(cache.isVerified(USER, storedPasswords("{PBKDF2}10000:changed"), PASSWORD)).isFalse();
+    assertThat(cache.isVerified(USER, Collections.<Attribute> emptyList(), PASSWORD)).isFalse();
+  }
+
+  @Test
+  public void invalidateDiscardsVerification()
+  {
+    final BindCredentialCache cache = newCache(10);
+    cache.verified(USER, storedPasswords, PASSWORD);
+    cache.invalidate(USER);
+
+    assertThat(cache.isVerified(USER, storedPasswords, PASSWORD)).isFalse();
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedVerification()
+  {
+    final BindCredentialCache cache = newCache(2);
+    final DN thirdUser = DN.valueOf("uid=user.2,o=test");
+    cache.verified(USER, storedPasswords, PASSWORD);
+    cache.verified(OTHER_USER, storedPasswords, PASSWORD);
+    assertThat(cache.isVerified(USER, storedPasswords, PASSWORD)).isTrue();
+    cache.verified(thirdUser, storedPasswords, PASSWORD);
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.isVerified(USER, storedPasswords, PASSWORD)).isTrue();
+    assertThat(cache.isVerified(OTHER_USER, storedPasswords, PASSWORD)).isFalse();
+    assertThat(cache.isVerified(thirdUser, storedPasswords, PASSWORD)).isTrue();
+
+    cache.setMaxSize(1);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  private static BindCredentialCache newCache(int maxSize)
+  {
+    final BindCredentialCache cache = new BindCredentialCache();
+    cache.setMaxSize(maxSize);
+    return cache;
+  }
+
+  private static List<Attribute> storedPasswords(String value)
+  {
+    return Collections.singletonList(Attributes.create("userPassword", value));
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -50,6 +51,7 @@ import static org.forgerock.opendj.ldap.requests.Requests.*;
 import static org.opends.server.protocols.internal.InternalClientConnection.*;
 import static org.opends.server.protocols.internal.Requests.*;
 import static org.opends.server.types.NullOutputStream.nullPrintStream;
+import static org.opends.server.util.CollectionUtils.*;
 import static org.opends.server.util.ServerConstants.*;
 import static org.testng.Assert.*;
 
@@ -200,6 +202,52 @@ public class GroupManagerTestCase
     assertTrue(group1Instance.isMember(user5DN));
   }
 
+  /**
+   * Tests that the reverse membership index of the group manager follows
+   * nested static and dynamic groups as well as member list changes.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testMembershipIndex() throws Exception {
+    TestCaseUtils.initializeTestBackend(true);
+    GroupManager groupManager = DirectoryServer.getGroupManager();
+    groupManager.deregisterAllGroups();
+    addNestedGroupTestEntries();
+    DN group2DN = DN.valueOf("cn=group 2,ou=Groups,o=test");
+    DN group4DN = DN.valueOf("cn=group 4,ou=Groups,o=test");
+    DN user5DN = DN.valueOf("uid=user.5,ou=People,o=test");
+    Entry user1Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.1,ou=People,o=test"));
+    Entry user5Entry = DirectoryServer.getEntry(user5DN);
+    Group<?> group1Instance = groupManager.getGroupInstance(DN.valueOf("cn=group 1,ou=Groups,o=test"));
+    Group<?> group2Instance = groupManager.getGroupInstance(group2DN);
+    Group<?> group3Instance = groupManager.getGroupInstance(DN.valueOf("cn=group 3,ou=Groups,o=test"));
+    //Group 4 is a dynamic group, whose membership cannot be indexed.
+    Group<?> group4Instance = groupManager.getGroupInstance(group4DN);
+    assertTrue(groupManager.isMembershipIndexed(group1Instance));
+    assertFalse(groupManager.isMembershipIndexed(group4Instance));
+
+    group1Instance.addNestedGroup(group2DN);
+    group2Instance.addNestedGroup(group4DN);
+    group1Instance.addMember(user1Entry);
+    assertEquals(groupManager.getGroups(user1Entry), newHashSet(group1Instance));
+    //User 5 is a member of group 1 through group 2 and the dynamic group 4.
+    assertEquals(groupManager.getGroups(user5Entry), newHashSet(group1Instance, group2Instance, group4Instance));
+    assertTrue(groupManager.isMember(group1Instance, user5DN));
+    assertFalse(groupManager.isMember(group3Instance, user5DN));
+
+    //Member list changes made with LDAP modify are indexed.
+    final ModifyRequest modifyRequest = newModifyRequest(group3Instance.getGroupDN())
+        .addModification(ADD, "member", user5DN.toString());
+    ModifyOperation modifyOperation = getRootConnection().processModify(modifyRequest);
+    assertEquals(modifyOperation.getResultCode(), ResultCode.SUCCESS);
+    assertTrue(groupManager.isMember(group3Instance, user5Entry));
+
+    group1Instance.removeNestedGroup(group2DN);
+    assertFalse(groupManager.isMember(group1Instance, user5DN));
+    assertEquals(groupManager.getGroups(user5Entry), newHashSet(group2Instance, group3Instance, group4Instance));
+  }
+
   /**
    * Invokes membership and nested group APIs using a group instance that has
    * been changed by the group manager via ldap modify.
@@ -0,0 +1,155 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.discovery;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.server.config.server.StaticServiceDiscoveryMechanismCfg;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.core.ServerContext;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = "precommit")
+public class StaticServiceDiscoveryMechanismTest extends DirectoryServerTestCase
+{
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @Test
+  public void partitionContainsConfiguredServers()
+  {
+    final StaticServiceDiscoveryMechanism mechanism = new StaticServiceDiscoveryMechanism();
+    mechanism.initializeMechanism(newConfiguration("127.0.0.1:1389", "127.0.0.1:2389", "127.0.0.1:3389"),
+        mock(ServerContext.class));
+
+    assertThat(mechanism.getPartitions(Collections.<DN> emptySet())).hasSize(1);
+    final Partition partition = mechanism.getPartitions(Collections.<DN> emptySet()).iterator().next();
+    assertThat(partition.getPartitionId()).isEqualTo("static");
+    assertThat(ports(partition.getPrimaryServers())).containsExactly(1389, 2389);
+    assertThat(ports(partition.getSecondaryServers())).containsExactly(3389);
+  }
+
+  @Test
+  public void noPartitionWithoutServers()
+  {
+    final StaticServiceDiscoveryMechanism mechanism = new StaticServiceDiscoveryMechanism();
+    mechanism.initializeMechanism(newConfiguration(), mock(ServerContext.class));
+
+    assertThat(mechanism.getPartitions(Collections.<DN> emptySet())).isEmpty();
+  }
+
+  @Test
+  public void configurationChangeNotifiesListeners()
+  {
+    final StaticServiceDiscoveryMechanism mechanism = new StaticServiceDiscoveryMechanism();
+    mechanism.initializeMechanism(newConfiguration(), mock(ServerContext.class));
+    final ServiceDiscoveryChangeListener listener = mock(ServiceDiscoveryChangeListener.class);
+    mechanism.registerChangeListener(listener);
+
+    mechanism.applyConfigurationChange(newConfiguration("127.0.0.1:1389"));
+
+    verify(listener).serviceChanged(mechanism);
+    assertThat(mechanism.getPartitions(Collections.<DN> emptySet())).hasSize(1);
+  }
+
+  @Test
+  public void invalidServerIsNotAcceptable()
+  {
+    final List<LocalizableMessage> unacceptableReasons = new ArrayList<>();
+
+    final boolean isAcceptable = new StaticServiceDiscoveryMechanism().isConfigurationAcceptable(
+        newConfiguration("no-port"), unacceptableReasons, mock(ServerContext.class));
+
+    assertThat(isAcceptable).isFalse();
+    assertThat(unacceptableReasons).hasSize(1);
+  }
+
+  @Test
+  public void serversAreUnusableWithoutSSLContext()
+  {
+    final StaticServiceDiscoveryMechanism mechanism = new StaticServiceDiscoveryMechanism();
+    mechanism.initializeMechanism(newSecureConfiguration("127.0.0.1:1636"), mock(ServerContext.class));
+
+    assertThat(mechanism.getPartitions(Collections.<DN> emptySet())).isEmpty();
+  }
+
+  @Test
+  public void configurationChangeFailsWithoutSSLContext()
+  {
+    final StaticServiceDiscoveryMechanism mechanism = new StaticServiceDiscoveryMechanism();
+    mechanism.initializeMechanism(newConfiguration("127.0.0.1:1389"), mock(ServerContext.class));
+    final ServiceDiscoveryChangeListener listener = mock(ServiceDiscoveryChangeListener.class);
+    mechanism.registerChangeListener(listener);
+
+    final ConfigChangeResult ccr = mechanism.applyConfigurationChange(newSecureConfiguration("127.0.0.1:1636"));
+
+    assertThat(ccr.getResultCode()).isEqualTo(ResultCode.OTHER);
+    assertThat(ccr.getMessages()).hasSize(1);
+    verify(listener).serviceChanged(mechanism);
+    assertThat(mechanism.getPartitions(Collections.<DN> emptySet())).isEmpty();
+  }
+
+  /** Returns a configuration using SSL with a key manager provider which is not available. */
+  private static StaticServiceDiscoveryMechanismCfg newSecureConfiguration(String... servers)
+  {
+    final StaticServiceDiscoveryMechanismCfg cfg = newConfiguration(servers);
+    when(cfg.isUseSSL()).thenReturn(true);
+    when(cfg.getKeyManagerProviderDN()).thenReturn(DN.valueOf("cn=Missing,cn=Key Manager Providers,cn=config"));
+    return cfg;
+  }
+
+  /** Returns a configuration whose last server is secondary when there are several servers. */
+  private static StaticServiceDiscoveryMechanismCfg newConfiguration(String... servers)
+  {
+    final TreeSet<String> primaryServers = new TreeSet<>();
+    final TreeSet<String> secondaryServers = new TreeSet<>();
+    for (int i = 0; i < servers.length; i++)
+    {
+      (i > 0 && i == servers.length - 1 ? secondaryServers : primaryServers).add(servers[i]);
+    }
+    final StaticServiceDiscoveryMechanismCfg cfg = mock(StaticServiceDiscoveryMechanismCfg.class);
+    when(cfg.name()).thenReturn("static");
+    when(cfg.getPrimaryServer()).thenReturn(primaryServers);
+    when(cfg.getSecondaryServer()).thenReturn(secondaryServers);
+    return cfg;
+  }
+
+  private static List<Integer> ports(Iterable<Partition.Server> servers)
+  {
+    final List<Integer> ports = new ArrayList<>();
+    for (Partition.Server server : servers)
+    {
+      ports.add(server.getHostPort().getPort());
+    }
+    return ports;
+  }
+}
@@ -0,0 +1,331 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.server.protocols.internal.InternalClientConnection.*;
+import static org.opends.server.protocols.internal.Requests.*;
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.server.config.meta.FairSchedulingWorkQueueCfgDefn;
+import org.forgerock.opendj.server.config.server.FairSchedulingWorkQueueCfg;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.core.CompareOperation;
+import org.opends.server.core.CompareOperationBasis;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.extensions.FairSchedulingWorkQueue.SchedulingClassStatistics;
+import org.opends.server.plugins.DelayPreOpPlugin;
+import org.opends.server.protocols.internal.InternalSearchOperation;
+import org.opends.server.protocols.internal.SearchRequest;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * A set of test cases for the fair scheduling work queue. The tested work
+ * queues are created next to the one of the server, which keeps processing the
+ * client requests. Searches are put in their own scheduling class, while
+ * compares stay in the default class.
+ */
+@Test(singleThreaded = true)
+public class FairSchedulingWorkQueueTestCase
+       extends ExtensionsTestCase
+{
+  /**
+   * The configuration entries built by the tests have the dummy path of
+   * {@code AdminTestCaseUtils}, under which their scheduling classes are read.
+   */
+  private static final String PARENT_DN = "cn=dummy configuration,cn=config";
+  private static final String SCHEDULING_CLASSES_DN = "cn=Scheduling Classes," + PARENT_DN;
+
+  /** The monitor of the work queue of the server, replaced by the monitor of the tested work queue. */
+  private MonitorProvider<?> serverWorkQueueMonitor;
+
+  private FairSchedulingWorkQueue workQueue;
+
+  /**
+   * Ensures that the Directory Server is running.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+    TestCaseUtils.initializeTestBackend(true);
+  }
+
+  @BeforeMethod
+  public void saveServerWorkQueueMonitor() throws Exception
+  {
+    serverWorkQueueMonitor = DirectoryServer.getMonitorProviders().get("work queue");
+    TestCaseUtils.addEntries(
+        "dn: " + PARENT_DN,
+        "objectClass: top",
+        "objectClass: ds-cfg-branch",
+        "cn: dummy configuration",
+        "",
+        "dn: " + SCHEDULING_CLASSES_DN,
+        "objectClass: top",
+        "objectClass: ds-cfg-branch",
+        "cn: Scheduling Classes");
+  }
+
+  @AfterMethod
+  public void finalizeWorkQueue() throws Exception
+  {
+    if (workQueue != null)
+    {
+      workQueue.finalizeWorkQueue(LocalizableMessage.raw("test done"));
+      workQueue = null;
+    }
+    final MonitorProvider<?> monitor = DirectoryServer.getMonitorProviders().get("work queue");
+    if (monitor != serverWorkQueueMonitor)
+    {
+      monitor.finalizeMonitorProvider();
+      DirectoryServer.registerMonitorProvider(serverWorkQueueMonitor);
+    }
+    DN searchesDN = DN.valueOf("cn=Searches," + SCHEDULING_CLASSES_DN);
+    if (DirectoryServer.entryExists(searchesDN))
+    {
+      TestCaseUtils.deleteEntry(searchesDN);
+    }
+    TestCaseUtils.deleteEntry(DN.valueOf(SCHEDULING_CLASSES_DN));
+    TestCaseUtils.deleteEntry(DN.valueOf(PARENT_DN));
+  }
+
+  private void addSearchesSchedulingClass(int weight, int maxCapacity) throws Exception
+  {
+    TestCaseUtils.addEntry(
+        "dn: cn=Searches," + SCHEDULING_CLASSES_DN,
+        "objectClass: top",
+        "objectClass: ds-cfg-scheduling-class",
+        "cn: Searches",
+        "ds-cfg-weight: " + weight,
+        "ds-cfg-max-work-queue-capacity: " + maxCapacity,
+        "ds-cfg-operation-type-equal-to: search");
+  }
+
+  private FairSchedulingWorkQueue newWorkQueue(int numWorkerThreads, int maxCapacity) throws Exception
+  {
+    Entry configEntry = TestCaseUtils.makeEntry(
+        "dn: " + PARENT_DN,
+        "objectClass: top",
+        "objectClass: ds-cfg-work-queue",
+        "objectClass: ds-cfg-fair-scheduling-work-queue",
+        "cn: dummy configuration",
+        "ds-cfg-java-class: org.opends.server.extensions.FairSchedulingWorkQueue",
+        "ds-cfg-num-worker-threads: " + numWorkerThreads,
+        "ds-cfg-max-work-queue-capacity: " + maxCapacity);
+    FairSchedulingWorkQueueCfg configuration =
+        InitializationUtils.getConfiguration(FairSchedulingWorkQueueCfgDefn.getInstance(), configEntry);
+    workQueue = new FairSchedulingWorkQueue();
+    workQueue.initializeWorkQueue(configuration);
+    return workQueue;
+  }
+
+  private InternalSearchOperation newSearchOperation(int delayMillis) throws Exception
+  {
+    SearchRequest request = newSearchRequest(DN.valueOf("o=test"), SearchScope.BASE_OBJECT);
+    if (delayMillis > 0)
+    {
+      request.addControl(DelayPreOpPlugin.createDelayControlList(delayMillis));
+    }
+    return new InternalSearchOperation(getRootConnection(), nextOperationID(), nextMessageID(), request);
+  }
+
+  private CompareOperation newCompareOperation(int delayMillis)
+  {
+    return new CompareOperationBasis(getRootConnection(), nextOperationID(), nextMessageID(),
+        delayMillis > 0 ? DelayPreOpPlugin.createDelayControlList(delayMillis) : null,
+        ByteString.valueOfUtf8("o=test"), "o", ByteString.valueOfUtf8("test"));
+  }
+
+  private Map<String, SchedulingClassStatistics> getStatistics()
+  {
+    Map<String, SchedulingClassStatistics> statistics = new HashMap<>();
+    for (SchedulingClassStatistics classStatistics : workQueue.getSchedulingClassStatistics())
+    {
+      statistics.put(classStatistics.getName(), classStatistics);
+    }
+    return statistics;
+  }
+
+  /**
+   * Ensures that all the submitted operations are processed, each one being
+   * accounted to its scheduling class.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testOperationsClassified() throws Exception
+  {
+    addSearchesSchedulingClass(1, 1000);
+    newWorkQueue(4, 1000);
+
+    List<InternalSearchOperation> searches = new ArrayList<>();
+    List<CompareOperation> compares = new ArrayList<>();
+    for (int i = 0; i < 100; i++)
+    {
+      InternalSearchOperation search = newSearchOperation(0);
+      workQueue.submitOperation(search);
+      searches.add(search);
+      CompareOperation compare = newCompareOperation(0);
+      workQueue.submitOperation(compare);
+      compares.add(compare);
+    }
+
+    assertTrue(workQueue.waitUntilIdle(10000));
+    assertEquals(workQueue.getOpsSubmitted(), 200);
+    assertEquals(workQueue.size(), 0);
+    for (InternalSearchOperation search : searches)
+    {
+      assertEquals(search.getResultCode(), ResultCode.SUCCESS);
+    }
+    for (CompareOperation compare : compares)
+    {
+      assertEquals(compare.getResultCode(), ResultCode.COMPARE_TRUE);
+    }
+
+    Map<String, SchedulingClassStatistics> statistics = getStatistics();
+    assertEquals(statistics.keySet().size(), 2);
+    assertEquals(statistics.get("Searches").getOpsSubmitted(), 100);
+    assertEquals(statistics.get(FairSchedulingWorkQueue.DEFAULT_CLASS_NAME).getOpsSubmitted(), 100);
+  }
+
+  /**
+   * Ensures that the operations of a scheduling class are not delayed by the
+   * slow operations queued before them in another class.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testSchedulingClassNotDelayedBySlowClass() throws Exception
+  {
+    addSearchesSchedulingClass(1, 1000);
+    newWorkQueue(1, 1000);
+
+    for (int i = 0; i < 10; i++)
+    {
+      workQueue.submitOperation(newCompareOperation(100));
+    }
+    for (int i = 0; i < 10; i++)
+    {
+      workQueue.submitOperation(newSearchOperation(0));
+    }
+
+    while (getStatistics().get("Searches").getBacklog() > 0)
+    {
+      Thread.sleep(10);
+    }
+    // The searches got their share of the worker thread between two slow compares
+    assertTrue(getStatistics().get(FairSchedulingWorkQueue.DEFAULT_CLASS_NAME).getBacklog() >= 5);
+    assertTrue(workQueue.waitUntilIdle(10000));
+  }
+
+  /**
+   * Ensures that {@code trySubmitOperation()} rejects the operations of a
+   * scheduling class whose queue is full, but not the operations of the other
+   * classes.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testTrySubmitWhenSchedulingClassFull() throws Exception
+  {
+    addSearchesSchedulingClass(1, 1);
+    newWorkQueue(1, 1000);
+
+    // Keep the single worker thread busy
+    workQueue.submitOperation(newCompareOperation(2000));
+    while (workQueue.size() > 0)
+    {
+      Thread.sleep(10);
+    }
+
+    assertTrue(workQueue.trySubmitOperation(newSearchOperation(0)));
+    assertFalse(workQueue.trySubmitOperation(newSearchOperation(0)));
+    assertTrue(workQueue.trySubmitOperation(newCompareOperation(0)));
+    assertEquals(workQueue.getOpsRejectedDueToQueueFull(), 1);
+    assertEquals(getStatistics().get("Searches").getOpsRejectedDueToQueueFull(), 1);
+    assertEquals(getStatistics().get(FairSchedulingWorkQueue.DEFAULT_CLASS_NAME).getOpsRejectedDueToQueueFull(), 0);
+    assertTrue(workQueue.waitUntilIdle(10000));
+  }
+
+  /**
+   * Ensures that the pending operations of a deleted scheduling class are
+   * moved to the default class.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testDeleteSchedulingClass() throws Exception
+  {
+    addSearchesSchedulingClass(1, 1000);
+    newWorkQueue(1, 1000);
+
+    workQueue.submitOperation(newCompareOperation(1000));
+    while (workQueue.size() > 0)
+    {
+      Thread.sleep(10);
+    }
+    List<InternalSearchOperation> searches = new ArrayList<>();
+    for (int i = 0; i < 10; i++)
+    {
+      InternalSearchOperation search = newSearchOperation(0);
+      workQueue.submitOperation(search);
+      searches.add(search);
+    }
+
+    TestCaseUtils.deleteEntry(DN.valueOf("cn=Searches," + SCHEDULING_CLASSES_DN));
+    Map<String, SchedulingClassStatistics> statistics = getStatistics();
+    assertFalse(statistics.containsKey("Searches"));
+    assertEquals(statistics.get(FairSchedulingWorkQueue.DEFAULT_CLASS_NAME).getBacklog(), 10);
+
+    assertTrue(workQueue.waitUntilIdle(10000));
+    for (InternalSearchOperation search : searches)
+    {
+      assertEquals(search.getResultCode(), ResultCode.SUCCESS);
+    }
+  }
+
+  /**
+   * Ensures that operations are rejected once the work queue is shut down.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = DirectoryException.class)
+  public void testSubmitAfterShutdown() throws Exception
+  {
+    addSearchesSchedulingClass(1, 10);
+    newWorkQueue(1, 10);
+    workQueue.finalizeWorkQueue(LocalizableMessage.raw("test shutdown"));
+    workQueue.submitOperation(newSearchOperation(0));
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.extensions;
 
@@ -639,9 +640,55 @@ public class IsMemberOfVirtualAttributeProviderTestCase
         getRootConnection(), nextOperationID(), nextMessageID(), request, null);
     assertEquals(provider.isSearchable(rule,
         new LocalBackendSearchOperation(searchOperation), false), isSearchable);
-    // isMemberOf is not searchable with preIndexed set to true
-    assertEquals(provider.isSearchable(rule,
-        new LocalBackendSearchOperation(searchOperation), true), false);
+    if (!isSearchable)
+    {
+      assertFalse(provider.isSearchable(rule, new LocalBackendSearchOperation(searchOperation), true));
+    }
+  }
+
+  /**
+   * Tests that isMemberOf is only searchable with preIndexed set to true when
+   * the membership of the group is indexed by the group manager.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testIsSearchablePreIndexed() throws Exception
+  {
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.addEntries(
+      "dn: ou=Groups,o=test",
+      "objectClass: top",
+      "objectClass: organizationalUnit",
+      "ou: Groups",
+      "",
+      "dn: cn=Static Group,ou=Groups,o=test",
+      "objectClass: top",
+      "objectClass: groupOfNames",
+      "cn: Static Group",
+      "",
+      "dn: cn=Dynamic Group,ou=Groups,o=test",
+      "objectClass: top",
+      "objectClass: groupOfURLs",
+      "cn: Dynamic Group",
+      "memberURL: ldap:///o=test??sub?(sn=*)");
+
+    IsMemberOfVirtualAttributeProvider provider = new IsMemberOfVirtualAttributeProvider();
+    VirtualAttributeRule rule = buildRule(provider);
+    assertTrue(isSearchablePreIndexed(provider, rule, "(isMemberOf=cn=Static Group,ou=Groups,o=test)"));
+    assertFalse(isSearchablePreIndexed(provider, rule, "(isMemberOf=cn=Dynamic Group,ou=Groups,o=test)"));
+    assertFalse(isSearchablePreIndexed(provider, rule, "(isMemberOf=cn=Missing Group,ou=Groups,o=test)"));
+
+    delete("cn=static group,ou=groups,o=test", "cn=dynamic group,ou=groups,o=test");
+  }
+
+  private boolean isSearchablePreIndexed(IsMemberOfVirtualAttributeProvider provider, VirtualAttributeRule rule,
+      String filterString) throws Exception
+  {
+    SearchRequest request = newSearchRequest(DN.valueOf("o=test"), SearchScope.WHOLE_SUBTREE, filterString);
+    InternalSearchOperation searchOperation = new InternalSearchOperation(
+        getRootConnection(), nextOperationID(), nextMessageID(), request, null);
+    return provider.isSearchable(rule, new LocalBackendSearchOperation(searchOperation), true);
   }
 
 
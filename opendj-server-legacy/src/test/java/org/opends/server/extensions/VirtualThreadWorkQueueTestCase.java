@@ -0,0 +1,239 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.server.protocols.internal.InternalClientConnection.*;
+import static org.opends.server.protocols.internal.Requests.*;
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.server.config.meta.VirtualThreadWorkQueueCfgDefn;
+import org.forgerock.opendj.server.config.server.VirtualThreadWorkQueueCfg;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.plugins.DelayPreOpPlugin;
+import org.opends.server.protocols.internal.InternalSearchOperation;
+import org.opends.server.protocols.internal.SearchRequest;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * A set of test cases for the virtual thread work queue. The tested work queues
+ * are created next to the one of the server, which keeps processing the
+ * client requests.
+ */
+@Test(singleThreaded = true)
+public class VirtualThreadWorkQueueTestCase
+       extends ExtensionsTestCase
+{
+  /** The monitor of the work queue of the server, replaced by the monitor of the tested work queue. */
+  private MonitorProvider<?> serverWorkQueueMonitor;
+
+  private VirtualThreadWorkQueue workQueue;
+
+  /**
+   * Ensures that the Directory Server is running.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+    TestCaseUtils.initializeTestBackend(true);
+  }
+
+  @BeforeMethod
+  public void saveServerWorkQueueMonitor()
+  {
+    serverWorkQueueMonitor = DirectoryServer.getMonitorProviders().get("work queue");
+  }
+
+  @AfterMethod
+  public void finalizeWorkQueue()
+  {
+    if (workQueue != null)
+    {
+      workQueue.finalizeWorkQueue(LocalizableMessage.raw("test done"));
+      workQueue = null;
+    }
+    final MonitorProvider<?> monitor = DirectoryServer.getMonitorProviders().get("work queue");
+    if (monitor != serverWorkQueueMonitor)
+    {
+      monitor.finalizeMonitorProvider();
+      DirectoryServer.registerMonitorProvider(serverWorkQueueMonitor);
+    }
+  }
+
+  private VirtualThreadWorkQueue newWorkQueue(int maxConcurrentOperations, int maxCapacity) throws Exception
+  {
+    workQueue = new VirtualThreadWorkQueue();
+    workQueue.initializeWorkQueue(newConfiguration(maxConcurrentOperations, maxCapacity));
+    return workQueue;
+  }
+
+  private VirtualThreadWorkQueueCfg newConfiguration(int maxConcurrentOperations, int maxCapacity) throws Exception
+  {
+    Entry configEntry = TestCaseUtils.makeEntry(
+        "dn: cn=Work Queue,cn=config",
+        "objectClass: top",
+        "objectClass: ds-cfg-work-queue",
+        "objectClass: ds-cfg-virtual-thread-work-queue",
+        "cn: Work Queue",
+        "ds-cfg-java-class: org.opends.server.extensions.VirtualThreadWorkQueue",
+        "ds-cfg-max-concurrent-operations: " + maxConcurrentOperations,
+        "ds-cfg-max-work-queue-capacity: " + maxCapacity);
+    return InitializationUtils.getConfiguration(VirtualThreadWorkQueueCfgDefn.getInstance(), configEntry);
+  }
+
+  private InternalSearchOperation newSearchOperation(int delayMillis) throws Exception
+  {
+    SearchRequest request = newSearchRequest(DN.valueOf("o=test"), SearchScope.BASE_OBJECT);
+    if (delayMillis > 0)
+    {
+      request.addControl(DelayPreOpPlugin.createDelayControlList(delayMillis));
+    }
+    return new InternalSearchOperation(getRootConnection(), nextOperationID(), nextMessageID(), request);
+  }
+
+  /**
+   * Ensures that all the submitted operations are processed, even when they
+   * outnumber the concurrency limit.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testAllOperationsProcessed() throws Exception
+  {
+    newWorkQueue(4, 1000);
+
+    List<InternalSearchOperation> operations = new ArrayList<>();
+    for (int i = 0; i < 200; i++)
+    {
+      InternalSearchOperation operation = newSearchOperation(i % 20 == 0 ? 50 : 0);
+      workQueue.submitOperation(operation);
+      operations.add(operation);
+    }
+
+    assertTrue(workQueue.waitUntilIdle(10000));
+    assertEquals(workQueue.getOpsSubmitted(), 200);
+    assertEquals(workQueue.size(), 0);
+    assertEquals(workQueue.getNumRunningThreads(), 0);
+    assertTrue(workQueue.getMaxRunningThreads() <= 4);
+    for (InternalSearchOperation operation : operations)
+    {
+      assertEquals(operation.getResultCode(), ResultCode.SUCCESS);
+      assertEquals(operation.getSearchEntries().size(), 1);
+    }
+  }
+
+  /**
+   * Ensures that slow operations are processed concurrently up to the
+   * concurrency limit.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testSlowOperationsProcessedConcurrently() throws Exception
+  {
+    newWorkQueue(100, 1000);
+
+    long startTime = System.currentTimeMillis();
+    for (int i = 0; i < 100; i++)
+    {
+      workQueue.submitOperation(newSearchOperation(1000));
+    }
+    assertEquals(workQueue.size(), 0);
+
+    assertTrue(workQueue.waitUntilIdle(10000));
+    assertTrue(System.currentTimeMillis() - startTime < 5000);
+    assertEquals(workQueue.getMaxRunningThreads(), 100);
+  }
+
+  /**
+   * Ensures that {@code trySubmitOperation()} rejects operations when the
+   * concurrency limit is reached and the work queue is at its maximum
+   * capacity.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testTrySubmitWhenFull() throws Exception
+  {
+    newWorkQueue(1, 1);
+
+    workQueue.submitOperation(newSearchOperation(2000));
+    assertTrue(workQueue.trySubmitOperation(newSearchOperation(0)));
+    assertEquals(workQueue.size(), 1);
+    assertFalse(workQueue.trySubmitOperation(newSearchOperation(0)));
+    assertEquals(workQueue.getOpsRejectedDueToQueueFull(), 1);
+    assertEquals(workQueue.getOpsSubmitted(), 2);
+
+    // Raising the concurrency limit starts the pending operation at once
+    workQueue.applyConfigurationChange(newConfiguration(2, 1));
+    assertEquals(workQueue.size(), 0);
+    assertTrue(workQueue.trySubmitOperation(newSearchOperation(0)));
+    assertTrue(workQueue.waitUntilIdle(10000));
+  }
+
+  /**
+   * Ensures that a blocked submitter proceeds as soon as some capacity is
+   * available.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testSubmitBlocksWhenFull() throws Exception
+  {
+    newWorkQueue(1, 1);
+
+    workQueue.submitOperation(newSearchOperation(1000));
+    workQueue.submitOperation(newSearchOperation(0));
+
+    long startTime = System.currentTimeMillis();
+    InternalSearchOperation blockedOperation = newSearchOperation(0);
+    workQueue.submitOperation(blockedOperation);
+    assertTrue(System.currentTimeMillis() - startTime >= 500);
+
+    assertTrue(workQueue.waitUntilIdle(10000));
+    assertEquals(blockedOperation.getResultCode(), ResultCode.SUCCESS);
+    assertEquals(workQueue.getOpsRejectedDueToQueueFull(), 0);
+  }
+
+  /**
+   * Ensures that operations are rejected once the work queue is shut down.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = DirectoryException.class)
+  public void testSubmitAfterShutdown() throws Exception
+  {
+    newWorkQueue(1, 10);
+    workQueue.finalizeWorkQueue(LocalizableMessage.raw("test shutdown"));
+    workQueue.submitOperation(newSearchOperation(0));
+  }
+}
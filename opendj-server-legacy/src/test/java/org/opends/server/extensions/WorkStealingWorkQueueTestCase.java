@@ -0,0 +1,277 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.server.protocols.internal.InternalClientConnection.*;
+import static org.opends.server.protocols.internal.Requests.*;
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.server.config.meta.WorkStealingWorkQueueCfgDefn;
+import org.forgerock.opendj.server.config.server.WorkStealingWorkQueueCfg;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.plugins.DelayPreOpPlugin;
+import org.opends.server.protocols.internal.InternalSearchOperation;
+import org.opends.server.protocols.internal.SearchRequest;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * A set of test cases for the work stealing work queue. The tested work queues
+ * are created next to the one of the server, which keeps processing the
+ * client requests.
+ */
+@Test(singleThreaded = true)
+public class WorkStealingWorkQueueTestCase
+       extends ExtensionsTestCase
+{
+  /** The monitor of the work queue of the server, replaced by the monitor of the tested work queue. */
+  private MonitorProvider<?> serverWorkQueueMonitor;
+
+  private WorkStealingWorkQueue workQueue;
+
+  /**
+   * Ensures that the Directory Server is running.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+    TestCaseUtils.initializeTestBackend(true);
+  }
+
+  @BeforeMethod
+  public void saveServerWorkQueueMonitor()
+  {
+    serverWorkQueueMonitor = DirectoryServer.getMonitorProviders().get("work queue");
+  }
+
+  @AfterMethod
+  public void finalizeWorkQueue()
+  {
+    if (workQueue != null)
+    {
+      workQueue.finalizeWorkQueue(LocalizableMessage.raw("test done"));
+      workQueue = null;
+    }
+    final MonitorProvider<?> monitor = DirectoryServer.getMonitorProviders().get("work queue");
+    if (monitor != serverWorkQueueMonitor)
+    {
+      monitor.finalizeMonitorProvider();
+      DirectoryServer.registerMonitorProvider(serverWorkQueueMonitor);
+    }
+  }
+
+  private WorkStealingWorkQueue newWorkQueue(int numWorkerThreads, int maxCapacity) throws Exception
+  {
+    workQueue = new WorkStealingWorkQueue();
+    workQueue.initializeWorkQueue(newConfiguration(numWorkerThreads, maxCapacity));
+    return workQueue;
+  }
+
+  private WorkStealingWorkQueueCfg newConfiguration(int numWorkerThreads, int maxCapacity) throws Exception
+  {
+    Entry configEntry = TestCaseUtils.makeEntry(
+        "dn: cn=Work Queue,cn=config",
+        "objectClass: top",
+        "objectClass: ds-cfg-work-queue",
+        "objectClass: ds-cfg-work-stealing-work-queue",
+        "cn: Work Queue",
+        "ds-cfg-java-class: org.opends.server.extensions.WorkStealingWorkQueue",
+        "ds-cfg-num-worker-threads: " + numWorkerThreads,
+        "ds-cfg-max-work-queue-capacity: " + maxCapacity);
+    return InitializationUtils.getConfiguration(WorkStealingWorkQueueCfgDefn.getInstance(), configEntry);
+  }
+
+  private InternalSearchOperation newSearchOperation(int delayMillis) throws Exception
+  {
+    SearchRequest request = newSearchRequest(DN.valueOf("o=test"), SearchScope.BASE_OBJECT);
+    if (delayMillis > 0)
+    {
+      request.addControl(DelayPreOpPlugin.createDelayControlList(delayMillis));
+    }
+    return new InternalSearchOperation(getRootConnection(), nextOperationID(), nextMessageID(), request);
+  }
+
+  /**
+   * Ensures that all the submitted operations are processed, even when they
+   * outnumber the worker threads.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testAllOperationsProcessed() throws Exception
+  {
+    newWorkQueue(4, 1000);
+
+    List<InternalSearchOperation> operations = new ArrayList<>();
+    for (int i = 0; i < 200; i++)
+    {
+      InternalSearchOperation operation = newSearchOperation(0);
+      workQueue.submitOperation(operation);
+      operations.add(operation);
+    }
+
+    assertTrue(workQueue.waitUntilIdle(10000));
+    assertEquals(workQueue.getOpsSubmitted(), 200);
+    assertEquals(workQueue.size(), 0);
+    for (InternalSearchOperation operation : operations)
+    {
+      assertEquals(operation.getResultCode(), ResultCode.SUCCESS);
+      assertEquals(operation.getSearchEntries().size(), 1);
+    }
+  }
+
+  /**
+   * Ensures that operations pending behind a slow operation are stolen by the
+   * other worker threads.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testPendingOperationsNotDelayedBySlowOperation() throws Exception
+  {
+    newWorkQueue(2, 1000);
+
+    workQueue.submitOperation(newSearchOperation(2000));
+    long startTime = System.currentTimeMillis();
+    for (int i = 0; i < 20; i++)
+    {
+      workQueue.submitOperation(newSearchOperation(10));
+    }
+
+    while (workQueue.size() > 0)
+    {
+      Thread.sleep(10);
+    }
+    assertTrue(System.currentTimeMillis() - startTime < 1500);
+    assertTrue(workQueue.waitUntilIdle(10000));
+  }
+
+  /**
+   * Ensures that {@code trySubmitOperation()} rejects operations when the work
+   * queue is at its maximum capacity.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testTrySubmitWhenFull() throws Exception
+  {
+    newWorkQueue(1, 1);
+
+    // Keep the single worker thread busy
+    workQueue.submitOperation(newSearchOperation(2000));
+    while (workQueue.size() > 0)
+    {
+      Thread.sleep(10);
+    }
+
+    assertTrue(workQueue.trySubmitOperation(newSearchOperation(0)));
+    assertFalse(workQueue.trySubmitOperation(newSearchOperation(0)));
+    assertEquals(workQueue.getOpsRejectedDueToQueueFull(), 1);
+    assertEquals(workQueue.getOpsSubmitted(), 2);
+
+    // The capacity change applies to the pending operations at once
+    workQueue.applyConfigurationChange(newConfiguration(1, 2));
+    assertTrue(workQueue.trySubmitOperation(newSearchOperation(0)));
+    assertTrue(workQueue.waitUntilIdle(10000));
+  }
+
+  /**
+   * Ensures that a blocked submitter proceeds as soon as some capacity is
+   * available.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testSubmitBlocksWhenFull() throws Exception
+  {
+    newWorkQueue(1, 1);
+
+    workQueue.submitOperation(newSearchOperation(1000));
+    while (workQueue.size() > 0)
+    {
+      Thread.sleep(10);
+    }
+    workQueue.submitOperation(newSearchOperation(0));
+
+    long startTime = System.currentTimeMillis();
+    InternalSearchOperation blockedOperation = newSearchOperation(0);
+    workQueue.submitOperation(blockedOperation);
+    assertTrue(System.currentTimeMillis() - startTime >= 500);
+
+    assertTrue(workQueue.waitUntilIdle(10000));
+    assertEquals(blockedOperation.getResultCode(), ResultCode.SUCCESS);
+    assertEquals(workQueue.getOpsRejectedDueToQueueFull(), 0);
+  }
+
+  /**
+   * Verifies that the number of worker threads can be altered on the fly
+   * without losing pending operations.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testChangingNumWorkerThreads() throws Exception
+  {
+    newWorkQueue(2, 1000);
+
+    workQueue.applyConfigurationChange(newConfiguration(8, 1000));
+    assertEquals(workQueue.getNumWorkerThreads(), 8);
+    for (int i = 0; i < 50; i++)
+    {
+      workQueue.submitOperation(newSearchOperation(0));
+    }
+
+    workQueue.applyConfigurationChange(newConfiguration(1, 1000));
+    assertEquals(workQueue.getNumWorkerThreads(), 1);
+    for (int i = 0; i < 50; i++)
+    {
+      workQueue.submitOperation(newSearchOperation(0));
+    }
+
+    assertTrue(workQueue.waitUntilIdle(10000));
+    assertEquals(workQueue.getOpsSubmitted(), 100);
+    assertEquals(workQueue.size(), 0);
+  }
+
+  /**
+   * Ensures that operations are rejected once the work queue is shut down.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = DirectoryException.class)
+  public void testSubmitAfterShutdown() throws Exception
+  {
+    newWorkQueue(1, 10);
+    workQueue.finalizeWorkQueue(LocalizableMessage.raw("test shutdown"));
+    workQueue.submitOperation(newSearchOperation(0));
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.loggers;
+
+import static java.nio.charset.StandardCharsets.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.FilePermission;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class AsynchronousTextWriterTest extends DirectoryServerTestCase
+{
+  private static final int NB_THREADS = 4;
+  private static final int NB_RECORDS_PER_THREAD = 5000;
+
+  /** A writer keeping the records it receives. */
+  private static final class RecordingTextWriter implements TextWriter
+  {
+    private final List<String> records = Collections.synchronizedList(new ArrayList<String>());
+
+    @Override
+    public void writeRecord(String record)
+    {
+      records.add(record);
+    }
+
+    @Override
+    public void flush()
+    {
+      // nothing to do
+    }
+
+    @Override
+    public void shutdown()
+    {
+      // nothing to do
+    }
+
+    @Override
+    public long getBytesWritten()
+    {
+      return 0;
+    }
+  }
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @Test
+  public void testRecordsAreEncodedAndDecoded() throws Exception
+  {
+    final RecordingTextWriter recorder = new RecordingTextWriter();
+    final AsynchronousTextWriter writer = new AsynchronousTextWriter("test writer", 4, false, recorder);
+    final StringBuilder buffer = new StringBuilder("ascii");
+    writer.writeRecord(buffer);
+    buffer.setLength(0);
+    writer.writeRecord(buffer.append("caf\u00e9 \u20ac \ud83d\ude00"));
+    writer.writeRecord("malformed \ud83d");
+    writer.shutdown();
+
+    assertThat(recorder.records).containsExactly("ascii", "caf\u00e9 \u20ac \ud83d\ude00", "malformed ?");
+  }
+
+  @Test
+  public void testConcurrentWritesWithSmallRingBuffer() throws Exception
+  {
+    final RecordingTextWriter recorder = new RecordingTextWriter();
+    final AsynchronousTextWriter writer = new AsynchronousTextWriter("test writer", 16, false, recorder);
+    writeConcurrently(writer);
+    writer.shutdown();
+
+    assertRecordsOfEachThreadAreOrdered(recorder.records);
+  }
+
+  @Test
+  public void testWritesToMultifileTextWriter() throws Exception
+  {
+    final File logFile = new File(TestCaseUtils.createTemporaryDirectory("async-writer"), "access");
+    final MultifileTextWriter fileWriter = new MultifileTextWriter("test file writer", 0,
+        new TimeStampNaming(logFile), FilePermission.decodeUNIXMode("600"),
+        new LogPublisherErrorHandler(DN.rootDN()), "UTF-8", false, false, 0);
+    final AsynchronousTextWriter writer = new AsynchronousTextWriter("test writer", 1024, true, fileWriter);
+    // larger than a batch
+    final String largeRecord = new String(new char[100000]).replace('\0', '\u00e9');
+    writer.writeRecord(largeRecord);
+    writeConcurrently(writer);
+    writer.shutdown();
+
+    final List<String> lines = Files.readAllLines(logFile.toPath(), UTF_8);
+    assertThat(lines.get(0)).isEqualTo(largeRecord);
+    assertRecordsOfEachThreadAreOrdered(lines.subList(1, lines.size()));
+    assertThat(fileWriter.getBytesWritten()).isEqualTo(logFile.length());
+  }
+
+  private void writeConcurrently(final AsynchronousTextWriter writer) throws InterruptedException
+  {
+    final List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < NB_THREADS; i++)
+    {
+      final int threadNumber = i;
+      threads.add(new Thread()
+      {
+        @Override
+        public void run()
+        {
+          final StringBuilder buffer = new StringBuilder();
+          for (int j = 0; j < NB_RECORDS_PER_THREAD; j++)
+          {
+            buffer.setLength(0);
+            writer.writeRecord(buffer.append(threadNumber).append(' ').append(j));
+          }
+        }
+      });
+    }
+    for (Thread thread : threads)
+    {
+      thread.start();
+    }
+    for (Thread thread : threads)
+    {
+      thread.join();
+    }
+  }
+
+  private void assertRecordsOfEachThreadAreOrdered(List<String> records)
+  {
+    assertThat(records).hasSize(NB_THREADS * NB_RECORDS_PER_THREAD);
+    final int[] nextRecords = new int[NB_THREADS];
+    for (String record : records)
+    {
+      final String[] fields = record.split(" ");
+      final int threadNumber = Integer.parseInt(fields[0]);
+      assertThat(Integer.parseInt(fields[1])).isEqualTo(nextRecords[threadNumber]);
+      nextRecords[threadNumber]++;
+    }
+  }
+}
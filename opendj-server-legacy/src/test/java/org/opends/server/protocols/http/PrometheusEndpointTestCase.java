@@ -0,0 +1,190 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.protocols.http;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Collections;
+
+import org.forgerock.http.Handler;
+import org.forgerock.http.protocol.Request;
+import org.forgerock.http.protocol.Response;
+import org.forgerock.http.protocol.Status;
+import org.forgerock.opendj.adapter.server3x.Adapters;
+import org.forgerock.opendj.ldap.Connection;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.rest2ldap.AuthenticatedConnectionContext;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.forgerock.services.context.RootContext;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.protocols.internal.InternalClientConnection;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class PrometheusEndpointTestCase extends DirectoryServerTestCase
+{
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.addEntry(
+        "dn: cn=Unprivileged User,o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "cn: Unprivileged User",
+        "sn: User",
+        "userPassword: password");
+    TestCaseUtils.addEntry(
+        "dn: cn=Monitor User,o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "cn: Monitor User",
+        "sn: User",
+        "userPassword: password",
+        "ds-privilege-name: monitor-read");
+  }
+
+  @Test
+  public void testScrapeWithMonitorReadPrivilege() throws Exception
+  {
+    final Response response = scrapeAs("cn=Monitor User,o=test");
+    assertThat(response.getStatus()).isEqualTo(Status.OK);
+    assertThat(response.getEntity().getString()).contains("# TYPE ");
+  }
+
+  @Test
+  public void testScrapeAsRootUser() throws Exception
+  {
+    assertThat(scrapeAs("cn=Directory Manager,cn=Root DNs,cn=config").getStatus()).isEqualTo(Status.OK);
+  }
+
+  @Test
+  public void testScrapeWithoutMonitorReadPrivilegeIsForbidden() throws Exception
+  {
+    final Response response = scrapeAs("cn=Unprivileged User,o=test");
+    assertThat(response.getStatus()).isEqualTo(Status.FORBIDDEN);
+    assertThat(response.getEntity().getString()).isEmpty();
+  }
+
+  @Test
+  public void testScrapeWithoutAuthenticatedConnectionIsForbidden() throws Exception
+  {
+    final Response response = newHandler().handle(new RootContext(), newScrapeRequest()).getOrThrow();
+    assertThat(response.getStatus()).isEqualTo(Status.FORBIDDEN);
+  }
+
+  private Response scrapeAs(String userDN) throws Exception
+  {
+    try (Connection connection = Adapters.newConnection(new InternalClientConnection(DN.valueOf(userDN))))
+    {
+      return newHandler().handle(new AuthenticatedConnectionContext(new RootContext(), connection), newScrapeRequest())
+                         .getOrThrow();
+    }
+  }
+
+  private Handler newHandler() throws Exception
+  {
+    return new PrometheusEndpoint(null, null).newHttpApplication().start();
+  }
+
+  private Request newScrapeRequest()
+  {
+    return new Request().setMethod("GET");
+  }
+
+  @Test
+  public void testMetricNames()
+  {
+    assertThat(PrometheusEndpoint.toMetricName("connectionsEstablished")).isEqualTo("ds_connections_established");
+    assertThat(PrometheusEndpoint.toMetricName("ds-mon-current-connections")).isEqualTo("ds_mon_current_connections");
+    assertThat(PrometheusEndpoint.toMetricName("entryCount")).isEqualTo("ds_entry_count");
+    assertThat(PrometheusEndpoint.toMetricName("max-memory")).isEqualTo("ds_max_memory");
+  }
+
+  @Test
+  public void testRenderMetrics()
+  {
+    final MonitorData first = new MonitorData();
+    first.add("bytesRead", 42L);
+    first.add("averageTime", 1.5d);
+    first.add("isEnabled", true);
+    first.add("productName", "Wren:DS");
+    final MonitorData second = new MonitorData();
+    second.add("bytesRead", 7);
+
+    final String metrics = PrometheusEndpoint.renderMetrics(asList(
+        new FakeMonitorProvider("second \"quoted\" monitor", second),
+        new FakeMonitorProvider("first monitor", first)));
+
+    assertThat(metrics).isEqualTo(
+          "# TYPE ds_average_time untyped\n"
+        + "ds_average_time{monitor=\"first monitor\"} 1.5\n"
+        + "# TYPE ds_bytes_read untyped\n"
+        + "ds_bytes_read{monitor=\"first monitor\"} 42\n"
+        + "ds_bytes_read{monitor=\"second \\\"quoted\\\" monitor\"} 7\n"
+        + "# TYPE ds_is_enabled untyped\n"
+        + "ds_is_enabled{monitor=\"first monitor\"} 1\n");
+  }
+
+  @Test
+  public void testRenderRegisteredMonitorProviders()
+  {
+    final String metrics = PrometheusEndpoint.renderMetrics(DirectoryServer.getMonitorProviders().values());
+    assertThat(metrics).contains("# TYPE ");
+    for (String line : metrics.split("\n"))
+    {
+      assertThat(line).matches("# TYPE [a-z_][a-z0-9_]* untyped|[a-z_][a-z0-9_]*\\{monitor=\".*\"\\} -?[0-9.eE+-]+");
+    }
+  }
+
+  @Test
+  public void testRenderNoMonitorProviders()
+  {
+    assertThat(PrometheusEndpoint.renderMetrics(Collections.<MonitorProvider<?>> emptyList())).isEmpty();
+  }
+
+  /** Monitor provider returning the provided data. */
+  private static final class FakeMonitorProvider extends MonitorProvider<MonitorProviderCfg>
+  {
+    private final String name;
+    private final MonitorData data;
+
+    private FakeMonitorProvider(String name, MonitorData data)
+    {
+      this.name = name;
+      this.data = data;
+    }
+
+    @Override
+    public String getMonitorInstanceName()
+    {
+      return name;
+    }
+
+    @Override
+    public MonitorData getMonitorData()
+    {
+      return data;
+    }
+  }
+}
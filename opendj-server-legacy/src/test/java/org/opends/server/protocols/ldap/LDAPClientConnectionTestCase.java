@@ -0,0 +1,91 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.protocols.ldap;
+
+import static org.forgerock.opendj.ldap.SearchScope.*;
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.opends.server.TestCaseUtils;
+import org.opends.server.tools.RemoteConnection;
+import org.opends.server.types.Entry;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the batching of the search result entries written by the LDAP client
+ * connections.
+ */
+public class LDAPClientConnectionTestCase
+       extends LdapTestCase
+{
+  private static final int NB_ENTRIES = 500;
+
+  /**
+   * Ensures that the Directory Server is running, with enough entries for the
+   * search results to span several batches.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+    TestCaseUtils.initializeTestBackend(true);
+
+    char[] description = new char[1000];
+    Arrays.fill(description, 'x');
+    List<Entry> entries = new ArrayList<>();
+    for (int i = 0; i < NB_ENTRIES; i++)
+    {
+      entries.add(TestCaseUtils.makeEntry(
+          "dn: cn=user." + i + ",o=test",
+          "objectClass: top",
+          "objectClass: person",
+          "cn: user." + i,
+          "sn: " + i,
+          "description: " + new String(description)));
+    }
+    TestCaseUtils.addEntries(entries);
+  }
+
+  /**
+   * Ensures that all the entries of a search are returned before its result,
+   * and that the connection can be used for other operations afterwards.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testSearchEntriesWrittenBeforeResult() throws Exception
+  {
+    try (RemoteConnection conn = new RemoteConnection("localhost", TestCaseUtils.getServerLdapPort()))
+    {
+      conn.bind("cn=Directory Manager", "password");
+      for (int i = 0; i < 3; i++)
+      {
+        conn.search("o=test", SINGLE_LEVEL, "(objectClass=person)");
+        assertEquals(conn.readEntries().size(), NB_ENTRIES);
+      }
+
+      // A search returning a single entry, which fits in the same write as its result
+      conn.search("cn=user.0,o=test", BASE_OBJECT, "(objectClass=*)", "cn");
+      assertEquals(conn.readEntries().size(), 1);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.protocols.ldap;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.opends.server.protocols.ldap.LatencyHistogram.Snapshot;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class LatencyHistogramTestCase extends LdapTestCase
+{
+  @Test
+  public void testBucketsCoverAllValues()
+  {
+    long previousHighestValue = -1;
+    for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++)
+    {
+      final long highestValue = LatencyHistogram.highestValueInBucket(i);
+      assertThat(LatencyHistogram.bucketIndex(previousHighestValue + 1)).isEqualTo(i);
+      assertThat(LatencyHistogram.bucketIndex(highestValue)).isEqualTo(i);
+      // the relative error stays within one sixteenth of the value
+      assertThat(highestValue - previousHighestValue - 1).isLessThanOrEqualTo((previousHighestValue + 1) / 16);
+      previousHighestValue = highestValue;
+    }
+    assertThat(LatencyHistogram.bucketIndex(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKET_COUNT - 1);
+    assertThat(LatencyHistogram.bucketIndex(-1)).isEqualTo(0);
+  }
+
+  @Test
+  public void testPercentiles()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++)
+    {
+      histogram.record(i);
+    }
+    histogram.record(100000);
+
+    final Snapshot snapshot = histogram.snapshot();
+    assertThat(snapshot.getCount()).isEqualTo(1001);
+    assertThat(snapshot.getMaxValue()).isEqualTo(100000);
+    assertThat(snapshot.getValueAtPercentile(50)).isBetween(501L, 501L + 501 / 16);
+    assertThat(snapshot.getValueAtPercentile(99)).isBetween(991L, 991L + 991 / 16);
+    assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(100000);
+  }
+
+  @Test
+  public void testReset()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(42);
+    histogram.reset();
+
+    final Snapshot snapshot = histogram.snapshot();
+    assertThat(snapshot.getCount()).isZero();
+    assertThat(snapshot.getMaxValue()).isZero();
+    assertThat(snapshot.getValueAtPercentile(99)).isZero();
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -64,6 +65,7 @@ public class DomainFakeCfg implements ReplicationDomainCfg
   private ExternalChangelogDomainCfg eclCfg =
     new ExternalChangelogDomainFakeCfg(true, null, null);
   private int windowSize = 100;
+  private boolean compressionEnabled;
 
   /**
    * Creates a new Domain with the provided information
@@ -326,6 +328,17 @@ public class DomainFakeCfg implements ReplicationDomainCfg
     return 1440;
   }
 
+  @Override
+  public boolean isCompressionEnabled()
+  {
+    return compressionEnabled;
+  }
+
+  public void setCompressionEnabled(boolean compressionEnabled)
+  {
+    this.compressionEnabled = compressionEnabled;
+  }
+
   @Override
   public String toString()
   {
@@ -13,6 +13,7 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -363,7 +364,6 @@ public class NamingConflictTest extends ReplicationTestCase
   {
     domain.processUpdate(updateMsg);
     LDAPUpdateMsg ldapUpdate = queue.take().getUpdateMessage();
-    domain.markInProgress(ldapUpdate);
     domain.replay(ldapUpdate, SHUTDOWN);
   }
 }
@@ -0,0 +1,75 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.plugin;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.replication.ReplicationTestCase;
+import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.common.CSNGenerator;
+import org.opends.server.replication.common.ServerState;
+import org.opends.server.replication.protocol.DeleteMsg;
+import org.opends.server.replication.protocol.ModifyDNMsg;
+import org.testng.annotations.Test;
+
+/** Tests the dependencies computed by the RemotePendingChanges class. */
+@SuppressWarnings("javadoc")
+public class RemotePendingChangesTest extends ReplicationTestCase
+{
+  @Test
+  public void testDependentChangeIsReleasedByItsDependency() throws Exception
+  {
+    ServerState state = new ServerState();
+    CSNGenerator gen = new CSNGenerator(1, 0L);
+    RemotePendingChanges pendingChanges = new RemotePendingChanges(state);
+
+    DeleteMsg delete = new DeleteMsg(DN.valueOf("cn=new,dc=example,dc=com"), gen.newCSN(), "uuid1");
+    ModifyDNMsg renameToDeleted = newModifyDNMsg("cn=a,dc=example,dc=com", gen.newCSN(), "uuid2", "cn=new");
+    ModifyDNMsg unrelatedRename = newModifyDNMsg("cn=b,dc=example,dc=com", gen.newCSN(), "uuid3", "cn=c");
+    assertThat(pendingChanges.putRemoteUpdate(delete)).isTrue();
+    assertThat(pendingChanges.putRemoteUpdate(renameToDeleted)).isTrue();
+    assertThat(pendingChanges.putRemoteUpdate(unrelatedRename)).isTrue();
+    assertThat(pendingChanges.putRemoteUpdate(delete)).isFalse();
+
+    assertThat(pendingChanges.checkDependencies(renameToDeleted)).isTrue();
+    assertThat(pendingChanges.checkDependencies(unrelatedRename)).isFalse();
+    assertThat(pendingChanges.getDependentChangesSize()).isEqualTo(1);
+    assertThat(pendingChanges.getNextUpdate()).isNull();
+
+    // Committing an unrelated change does not release the dependent change
+    pendingChanges.commit(unrelatedRename.getCSN());
+    assertThat(pendingChanges.getNextUpdate()).isNull();
+    assertThat(state.getCSN(1)).isNull();
+
+    pendingChanges.commit(delete.getCSN());
+    assertThat(pendingChanges.getNextUpdate()).isSameAs(renameToDeleted);
+    assertThat(pendingChanges.getNextUpdate()).isNull();
+    assertThat(pendingChanges.getDependentChangesSize()).isZero();
+    assertThat(state.getCSN(1)).isEqualTo(delete.getCSN());
+
+    assertThat(pendingChanges.checkDependencies(renameToDeleted)).isFalse();
+    pendingChanges.commit(renameToDeleted.getCSN());
+    assertThat(state.getCSN(1)).isEqualTo(unrelatedRename.getCSN());
+    assertThat(pendingChanges.getQueueSize()).isZero();
+    assertThat(pendingChanges.changesInProgressSize()).isZero();
+  }
+
+  private static ModifyDNMsg newModifyDNMsg(String dn, CSN csn, String entryUUID, String newRDN)
+  {
+    return new ModifyDNMsg(DN.valueOf(dn), csn, entryUUID, null, true, null, newRDN);
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.protocol;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+
+import org.opends.server.replication.ReplicationTestCase;
+import org.testng.annotations.Test;
+
+/** Tests for the {@link Session} class. */
+@SuppressWarnings("javadoc")
+public class SessionTest extends ReplicationTestCase
+{
+  @Test
+  public void testCompressedMessages() throws Exception
+  {
+    final Session[] sessions = openSessions();
+    try
+    {
+      final Session sender = sessions[0];
+      final Session receiver = sessions[1];
+      receiver.acceptCompression();
+      assertThat(sender.startCompression()).isTrue();
+      assertThat(sender.isCompressionEnabled()).isTrue();
+
+      // Messages too small to be compressed are interleaved with the compressed ones
+      for (int i = 0; i < 100; i++)
+      {
+        final byte[] entry = newEntryBytes(i);
+        sender.publish(new EntryMsg(1, 2, entry, i));
+        sender.publish(new WindowMsg(i));
+
+        final EntryMsg entryMsg = (EntryMsg) receiver.receive();
+        assertThat(entryMsg.getMsgId()).isEqualTo(i);
+        assertThat(entryMsg.getEntryBytes()).isEqualTo(entry);
+        assertThat(((WindowMsg) receiver.receive()).getNumAck()).isEqualTo(i);
+      }
+
+      // The entries are similar, so that the later ones are compressed using the previous ones
+      assertThat(sender.getSentCompressionRatio()).isGreaterThan(2);
+      assertThat(receiver.getReceivedCompressionRatio()).isEqualTo(sender.getSentCompressionRatio());
+      assertThat(receiver.getSentCompressionRatio()).isEqualTo(1);
+    }
+    finally
+    {
+      close(sessions);
+    }
+  }
+
+  @Test
+  public void testUncompressedMessages() throws Exception
+  {
+    final Session[] sessions = openSessions();
+    try
+    {
+      final Session sender = sessions[0];
+      final Session receiver = sessions[1];
+      receiver.acceptCompression();
+      assertThat(sender.isCompressionEnabled()).isFalse();
+
+      final byte[] entry = newEntryBytes(0);
+      sender.publish(new EntryMsg(1, 2, entry, 0));
+      assertThat(((EntryMsg) receiver.receive()).getEntryBytes()).isEqualTo(entry);
+      assertThat(receiver.getReceivedCompressionRatio()).isEqualTo(1);
+    }
+    finally
+    {
+      close(sessions);
+    }
+  }
+
+  /** A receiver which did not accept compression does not inflate the messages. */
+  @Test(expectedExceptions = DataFormatException.class)
+  public void testCompressedMessagesNotAcceptedByPeer() throws Exception
+  {
+    final Session[] sessions = openSessions();
+    try
+    {
+      final Session sender = sessions[0];
+      assertThat(sender.startCompression()).isTrue();
+
+      sender.publish(new EntryMsg(1, 2, newEntryBytes(0), 0));
+      sessions[1].receive();
+    }
+    finally
+    {
+      close(sessions);
+    }
+  }
+
+  private static byte[] newEntryBytes(int i)
+  {
+    final StringBuilder builder = new StringBuilder();
+    builder.append("dn: uid=user.").append(i).append(",ou=People,dc=example,dc=com\n")
+           .append("objectClass: top\nobjectClass: person\nobjectClass: organizationalPerson\n")
+           .append("objectClass: inetOrgPerson\nuid: user.").append(i).append('\n')
+           .append("cn: User ").append(i).append("\nsn: ").append(i).append('\n');
+    return builder.toString().getBytes();
+  }
+
+  /** Returns a client session and the matching server session, using the current protocol version. */
+  private Session[] openSessions() throws Exception
+  {
+    final ReplSessionSecurity security = getReplSessionSecurity();
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress()))
+    {
+      final Future<Session> serverSession = executor.submit(new Callable<Session>()
+      {
+        @Override
+        public Session call() throws Exception
+        {
+          return security.createServerSession(serverSocket.accept(), 10000);
+        }
+      });
+      final Socket socket = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+      final Session[] sessions = { security.createClientSession(socket, 10000), serverSession.get() };
+      for (Session session : sessions)
+      {
+        session.setProtocolVersion(ProtocolVersion.getCurrentVersion());
+      }
+      return sessions;
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void close(Session[] sessions)
+  {
+    for (Session session : sessions)
+    {
+      session.close();
+    }
+  }
+}
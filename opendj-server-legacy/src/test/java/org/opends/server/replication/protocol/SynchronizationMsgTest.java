@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -853,6 +854,13 @@ public class SynchronizationMsgTest extends ReplicationTestCase
     TopologyMsg newMsg = new TopologyMsg(msg.getBytes(getCurrentVersion()), getCurrentVersion());
     assertEquals(msg.getReplicaInfos(), newMsg.getReplicaInfos());
     assertEquals(msg.getRsInfos(), newMsg.getRsInfos());
+    assertFalse(newMsg.isCompressionAccepted());
+
+    msg.setCompressionAccepted(true);
+    newMsg = new TopologyMsg(msg.getBytes(getCurrentVersion()), getCurrentVersion());
+    assertEquals(msg.getReplicaInfos(), newMsg.getReplicaInfos());
+    assertEquals(msg.getRsInfos(), newMsg.getRsInfos());
+    assertTrue(newMsg.isCompressionAccepted());
   }
 
   /**
@@ -922,6 +930,13 @@ public class SynchronizationMsgTest extends ReplicationTestCase
     assertEquals(msg.getReferralsURLs(), newMsg.getReferralsURLs());
     Assertions.assertThat(attrs).isEqualTo(newMsg.getEclIncludes());
     Assertions.assertThat(attrs).isEqualTo(newMsg.getEclIncludesForDeletes());
+    assertFalse(newMsg.isCompressionAccepted());
+
+    msg.setCompressionAccepted(true);
+    newMsg = new StartSessionMsg(msg.getBytes(getCurrentVersion()), getCurrentVersion());
+    assertEquals(msg.getReferralsURLs(), newMsg.getReferralsURLs());
+    Assertions.assertThat(attrs).isEqualTo(newMsg.getEclIncludesForDeletes());
+    assertTrue(newMsg.isCompressionAccepted());
   }
 
   /**
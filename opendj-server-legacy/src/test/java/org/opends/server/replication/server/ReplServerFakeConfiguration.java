@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2009 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -60,6 +61,7 @@ public class ReplServerFakeConfiguration implements ReplicationServerCfg
   /** The monitoring publisher period. */
   private long monitoringPeriod = 3000;
   private boolean computeChangenumber;
+  private boolean compressionEnabled;
 
   /** Constructor without group id, assured info and weight. */
   public ReplServerFakeConfiguration(
@@ -276,4 +278,15 @@ public class ReplServerFakeConfiguration implements ReplicationServerCfg
   {
     this.confidentialityEnabled = confidentialityEnabled;
   }
+
+  @Override
+  public boolean isCompressionEnabled()
+  {
+    return compressionEnabled;
+  }
+
+  public void setCompressionEnabled(boolean compressionEnabled)
+  {
+    this.compressionEnabled = compressionEnabled;
+  }
 }
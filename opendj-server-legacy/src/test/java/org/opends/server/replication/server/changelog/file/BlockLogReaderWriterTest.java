@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -22,12 +23,12 @@ import static org.opends.server.replication.server.changelog.api.DBCursor.Positi
 import static org.opends.server.replication.server.changelog.file.BlockLogReader.*;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.assertj.core.api.SoftAssertions;
 import org.forgerock.opendj.ldap.ByteSequenceReader;
@@ -41,6 +42,7 @@ import org.opends.server.replication.server.changelog.api.DBCursor.KeyMatchingSt
 import org.opends.server.replication.server.changelog.api.DBCursor.PositionStrategy;
 import org.opends.server.util.StaticUtils;
 import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
@@ -54,6 +56,8 @@ public class BlockLogReaderWriterTest extends DirectoryServerTestCase
   private static final RecordParser<Integer, Integer> RECORD_PARSER = new IntRecordParser();
   private static final int INT_RECORD_SIZE = 12;
 
+  private LogFileMapping mapping;
+
   @BeforeClass
   void createTestDirectory()
   {
@@ -66,6 +70,13 @@ public class BlockLogReaderWriterTest extends DirectoryServerTestCase
     StaticUtils.recursiveDelete(TEST_FILE);
   }
 
+  @AfterMethod
+  void closeMapping()
+  {
+    StaticUtils.close(mapping);
+    mapping = null;
+  }
+
   @AfterClass
   void cleanTestDirectory()
   {
@@ -114,6 +125,134 @@ public class BlockLogReaderWriterTest extends DirectoryServerTestCase
     }
   }
 
+  @Test
+  public void testReadAndRecoverPreallocatedFile() throws Exception
+  {
+    final int blockSize = 10;
+    final List<Record<Integer, Integer>> records = records(1, 2, 3);
+    final long bytesWritten;
+    // the writer is not closed, as after a crash: the file ends with preallocated bytes
+    final BlockLogWriter<Integer, Integer> writer = newWriter(blockSize);
+    try
+    {
+      for (Record<Integer, Integer> record : records)
+      {
+        writer.write(record);
+      }
+      bytesWritten = writer.getBytesWritten();
+      assertThat(TEST_FILE.length()).isGreaterThan(bytesWritten);
+
+      try (BlockLogReader<Integer, Integer> reader = newReader(blockSize))
+      {
+        for (Record<Integer, Integer> record : records)
+        {
+          assertThat(reader.readRecord()).isEqualTo(record);
+        }
+        assertThat(reader.readRecord()).isNull();
+        assertThat(reader.checkLogIsValid()).isEqualTo(bytesWritten);
+      }
+    }
+    finally
+    {
+      writer.close();
+    }
+    assertThat(TEST_FILE.length()).isEqualTo(bytesWritten);
+  }
+
+  @Test
+  public void testSyncWhileWritingAndAfterClose() throws Exception
+  {
+    final int blockSize = 10;
+    final BlockLogWriter<Integer, Integer> writer = newWriter(blockSize);
+    try
+    {
+      writer.write(record(1));
+      writer.sync();
+      writer.write(record(2));
+      writer.sync();
+    }
+    finally
+    {
+      writer.close();
+    }
+    final long bytesWritten = writer.getBytesWritten();
+    // the segments are unmapped, they must not be forced any more
+    writer.sync();
+    assertThat(TEST_FILE.length()).isEqualTo(bytesWritten);
+
+    try (BlockLogReader<Integer, Integer> reader = newReader(blockSize))
+    {
+      assertThat(reader.readRecord()).isEqualTo(record(1));
+      assertThat(reader.readRecord()).isEqualTo(record(2));
+      assertThat(reader.readRecord()).isNull();
+    }
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testReadClosedMappingFails() throws Exception
+  {
+    writeRecords(10, records(1, 2));
+    final LogFileMapping closedMapping = new LogFileMapping(TEST_FILE, null);
+    try
+    {
+      assertThat(closedMapping.readInt(0)).isNotZero();
+    }
+    finally
+    {
+      closedMapping.close();
+    }
+    // the segments are unmapped, reading them again must not access the released memory
+    closedMapping.readInt(0);
+  }
+
+  @Test
+  public void testReadCompressedFile() throws Exception
+  {
+    final int blockSize = 16;
+    // spans several compressed chunks
+    final int nbRecords = 3 * CompressedLogFileContent.CHUNK_SIZE / INT_RECORD_SIZE;
+    writeRecordsToReachFileSize(blockSize, nbRecords * INT_RECORD_SIZE);
+    final long uncompressedLength = TEST_FILE.length();
+    final File compressedFile = new File(TEST_DIRECTORY, "file.compressed");
+    assertThat(CompressedLogFileContent.compress(TEST_FILE, compressedFile)).isTrue();
+    assertThat(compressedFile.length()).isLessThan(uncompressedLength / 2);
+    StaticUtils.renameFile(compressedFile, TEST_FILE);
+
+    try (LogFileMapping compressedMapping = new LogFileMapping(TEST_FILE, null))
+    {
+      assertThat(CompressedLogFileContent.isCompressed(compressedMapping)).isTrue();
+      final CompressedLogFileContent content = new CompressedLogFileContent(compressedMapping);
+      assertThat(content.length()).isEqualTo(uncompressedLength);
+
+      final BlockLogReader<Integer, Integer> reader =
+          BlockLogReader.newReaderForTests(TEST_FILE, content, RECORD_PARSER, blockSize);
+      for (int key = 1; key <= nbRecords; key++)
+      {
+        assertThat(reader.readRecord()).isEqualTo(record(key));
+      }
+      assertThat(reader.readRecord()).isNull();
+      assertThat(reader.getFilePosition()).isEqualTo(uncompressedLength);
+      assertThat(reader.getNewestRecord()).isEqualTo(record(nbRecords));
+      for (int key : getShuffledKeys(nbRecords * INT_RECORD_SIZE, 100))
+      {
+        Pair<Boolean, Record<Integer, Integer>> result = reader.seekToRecord(key, EQUAL_TO_KEY, ON_MATCHING_KEY);
+        assertThat(result.getSecond()).isEqualTo(record(key));
+      }
+    }
+  }
+
+  @Test
+  public void testIncompressibleFileIsNotCompressed() throws Exception
+  {
+    final byte[] randomBytes = new byte[2 * CompressedLogFileContent.CHUNK_SIZE];
+    new Random().nextBytes(randomBytes);
+    try (FileOutputStream output = new FileOutputStream(TEST_FILE))
+    {
+      output.write(randomBytes);
+    }
+    assertThat(CompressedLogFileContent.compress(TEST_FILE, new File(TEST_DIRECTORY, "file.compressed"))).isFalse();
+  }
+
   @DataProvider(name = "recordsForSeek")
   Object[][] recordsForSeek()
   {
@@ -512,13 +651,14 @@ public class BlockLogReaderWriterTest extends DirectoryServerTestCase
     return BlockLogWriter.newWriterForTests(new LogWriter(TEST_FILE), RECORD_PARSER, sizeOfBlock);
   }
 
-  private BlockLogReader<Integer, Integer> newReader(int blockSize) throws FileNotFoundException
+  private BlockLogReader<Integer, Integer> newReader(int blockSize) throws IOException
   {
-    return BlockLogReader.newReaderForTests(TEST_FILE, new RandomAccessFile(TEST_FILE, "r"),
-        RECORD_PARSER, blockSize);
+    StaticUtils.close(mapping);
+    mapping = new LogFileMapping(TEST_FILE, null);
+    return BlockLogReader.newReaderForTests(TEST_FILE, mapping, RECORD_PARSER, blockSize);
   }
 
-  private BlockLogReader<Integer, Integer> newReaderWithNullFile(int blockSize) throws FileNotFoundException
+  private BlockLogReader<Integer, Integer> newReaderWithNullFile(int blockSize)
   {
     return BlockLogReader.newReaderForTests(null, null, RECORD_PARSER, blockSize);
   }
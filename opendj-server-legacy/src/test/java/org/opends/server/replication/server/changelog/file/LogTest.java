@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -26,6 +27,7 @@ import static org.opends.server.replication.server.changelog.api.DBCursor.Positi
 import static org.opends.server.replication.server.changelog.file.LogFileTest.RECORD_PARSER;
 
 import java.io.File;
+import java.io.FileFilter;
 
 import org.opends.server.DirectoryServerTestCase;
 import org.opends.server.TestCaseUtils;
@@ -340,6 +342,69 @@ public class LogTest extends DirectoryServerTestCase
     }
   }
 
+  @Test
+  public void testCursorIsKeptWhenRotatedLogFileIsCompressed() throws Exception
+  {
+    final File logDirectory = new File(TestCaseUtils.getUnitTestRootPath(), "changelog-unit-compressed");
+    StaticUtils.recursiveDelete(logDirectory);
+    // records of about 280 bytes, which compress well: 8 records per log file
+    final LogRotationParameters rotationParams =
+        new LogRotationParameters(2000, NO_TIME_BASED_LOG_ROTATION, NO_TIME_BASED_LOG_ROTATION);
+    try (Log<String, String> log =
+            Log.openLog(mock(ReplicationEnvironment.class), logDirectory, RECORD_PARSER, rotationParams);
+        DBCursor<Record<String, String>> cursor = log.getCursor())
+    {
+      for (int i = 1; i <= 5; i++)
+      {
+        log.append(compressibleRecord(i));
+      }
+      for (int i = 1; i <= 3; i++)
+      {
+        assertThat(cursor.next()).isTrue();
+        assertThat(cursor.getRecord()).isEqualTo(compressibleRecord(i));
+      }
+
+      // rotate the head log file, the cursor now reads the read-only log file while it is compressed
+      for (int i = 6; i <= 12; i++)
+      {
+        log.append(compressibleRecord(i));
+      }
+      Log.waitForLogFileCompressions();
+
+      final File[] readOnlyLogFiles = logDirectory.listFiles(new FileFilter()
+      {
+        @Override
+        public boolean accept(File file)
+        {
+          return !file.getName().equals(Log.HEAD_LOG_FILE_NAME);
+        }
+      });
+      assertThat(readOnlyLogFiles).hasSize(1);
+      assertThat(CompressedLogFileContent.isCompressed(readOnlyLogFiles[0])).isTrue();
+
+      for (int i = 4; i <= 12; i++)
+      {
+        assertThat(cursor.next()).as("next() value when i=" + i).isTrue();
+        assertThat(cursor.getRecord()).isEqualTo(compressibleRecord(i));
+      }
+      assertThatCursorIsExhausted(cursor);
+    }
+    finally
+    {
+      StaticUtils.recursiveDelete(logDirectory);
+    }
+  }
+
+  private Record<String, String> compressibleRecord(int i)
+  {
+    final StringBuilder value = new StringBuilder("value" + i);
+    for (int j = 0; j < 20; j++)
+    {
+      value.append(" compressible");
+    }
+    return Record.from(String.format("key%03d", i), value.toString());
+  }
+
   @Test
   public void testClear() throws Exception
   {
@@ -13,13 +13,17 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.forgerock.opendj.ldap.AttributeDescription;
 import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ConditionResult;
 import org.opends.server.TestCaseUtils;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
@@ -272,4 +276,89 @@ public class AttributesTest extends TypesTestCase
     Assert.assertEquals(missingValues.size(), m.size());
     Assert.assertTrue(m.containsAll(missingValues));
   }
+
+
+
+  /**
+   * Tests {@link Attributes#createDistinct(AttributeDescription, ByteString...)}.
+   *
+   * @throws Exception
+   *           If an unexpected error occurs.
+   */
+  @Test
+  public void testCreateDistinct() throws Exception
+  {
+    Attribute expected = Attributes.create("cn", "one", "two", "three");
+    Attribute actual = Attributes.createDistinct(expected.getAttributeDescription(),
+        ByteString.valueOfUtf8("one"), ByteString.valueOfUtf8("two"), ByteString.valueOfUtf8("three"));
+
+    Assert.assertEquals(actual, expected);
+    Assert.assertEquals(actual.size(), 3);
+    Assert.assertFalse(actual.isVirtual());
+    Assert.assertEquals(actual.iterator().next(), ByteString.valueOfUtf8("one"));
+    Assert.assertTrue(actual.contains(ByteString.valueOfUtf8("TWO")));
+    Assert.assertFalse(actual.contains(ByteString.valueOfUtf8("four")));
+    Assert.assertEquals(actual.matchesEqualityAssertion(ByteString.valueOfUtf8("Three")), ConditionResult.TRUE);
+  }
+
+
+
+  /**
+   * Tests that an attribute created with
+   * {@link Attributes#createDistinct(AttributeDescription, ByteString...)} from values which are not
+   * distinct after all always iterates over the values as provided, whether they have been
+   * normalized or not.
+   *
+   * @throws Exception
+   *           If an unexpected error occurs.
+   */
+  @Test
+  public void testCreateDistinctWithDuplicateValues() throws Exception
+  {
+    Attribute actual = Attributes.createDistinct(Attributes.empty("cn").getAttributeDescription(),
+        ByteString.valueOfUtf8("one"), ByteString.valueOfUtf8("ONE"), ByteString.valueOfUtf8("two"));
+    List<ByteString> expectedValues = Arrays.asList(
+        ByteString.valueOfUtf8("one"), ByteString.valueOfUtf8("ONE"), ByteString.valueOfUtf8("two"));
+
+    Assert.assertFalse(actual.isEmpty());
+    Assert.assertEquals(actual.size(), 3);
+    Assert.assertEquals(toList(actual), expectedValues);
+
+    Assert.assertTrue(actual.contains(ByteString.valueOfUtf8("One")));
+    Assert.assertEquals(actual.size(), 3);
+    Assert.assertEquals(toList(actual), expectedValues);
+  }
+
+
+
+  /**
+   * Tests that {@link Attributes#withAttributeDescription(Attribute, AttributeDescription)} keeps the
+   * values of the attribute, without normalizing them again.
+   *
+   * @throws Exception
+   *           If an unexpected error occurs.
+   */
+  @Test
+  public void testWithAttributeDescription() throws Exception
+  {
+    Attribute attribute = Attributes.createDistinct(Attributes.empty("cn").getAttributeDescription(),
+        ByteString.valueOfUtf8("one"), ByteString.valueOfUtf8("ONE"));
+    AttributeDescription renamedDescription = Attributes.empty("CN").getAttributeDescription().withOption("lang-fr");
+
+    Attribute actual = Attributes.withAttributeDescription(attribute, renamedDescription);
+
+    Assert.assertSame(actual.getAttributeDescription(), renamedDescription);
+    Assert.assertEquals(toList(actual), toList(attribute));
+    Assert.assertTrue(actual.contains(ByteString.valueOfUtf8("One")));
+  }
+
+  private static List<ByteString> toList(Attribute attribute)
+  {
+    List<ByteString> values = new LinkedList<>();
+    for (ByteString value : attribute)
+    {
+      values.add(value);
+    }
+    return values;
+  }
 }